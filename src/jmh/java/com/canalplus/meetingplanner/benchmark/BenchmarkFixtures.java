@@ -0,0 +1,99 @@
+package com.canalplus.meetingplanner.benchmark;
+
+import com.canalplus.meetingplanner.model.*;
+import com.canalplus.meetingplanner.repository.DailyBookings;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.canalplus.meetingplanner.service.RoomBookService;
+import com.canalplus.meetingplanner.service.RoomFinder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Jeux de données communs aux benchmarks : salles, réunions et services câblés sans contexte Spring
+ *
+ * Les données sont tirées au hasard à partir d'une graine fixe, pour que deux exécutions mesurent la même chose.
+ */
+final class BenchmarkFixtures {
+
+    static final String ALL_MEETING_TYPES = "ALL";
+
+    private static final long SEED = 42;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @param roomsCount le nombre de salles
+     */
+    static List<Room> rooms(int roomsCount) {
+        Random random = new Random(SEED);
+        Equipment[] equipments = Equipment.values();
+        List<Room> rooms = new ArrayList<>(roomsCount);
+
+        for (int i = 0; i < roomsCount; i++) {
+            Set<Equipment> roomEquipments = Arrays.stream(equipments)
+                    .filter(equipment -> random.nextInt(3) == 0)
+                    .collect(Collectors.toSet());
+            rooms.add(new Room(String.format("B%06d", i), 2 + random.nextInt(24), roomEquipments));
+        }
+        return rooms;
+    }
+
+    /**
+     * @param meetingsCount le nombre de réunions
+     * @param meetingType le type des réunions (par exemple "RS"), ou "ALL" pour tirer au hasard parmi tous les types
+     */
+    static List<Meeting> meetings(int meetingsCount, String meetingType) {
+        Random random = new Random(SEED);
+        MeetingType[] types = ALL_MEETING_TYPES.equals(meetingType) ? MeetingType.values() : new MeetingType[]{MeetingType.valueOf(meetingType)};
+        TimeSlot[] timeSlots = TimeSlot.values();
+        List<Meeting> meetings = new ArrayList<>(meetingsCount);
+
+        for (int i = 0; i < meetingsCount; i++) {
+            meetings.add(new Meeting("réunion " + i, timeSlots[random.nextInt(timeSlots.length)],
+                    types[random.nextInt(types.length)], 1 + random.nextInt(12)));
+        }
+        return meetings;
+    }
+
+    /**
+     * @param rooms les salles
+     * @param occupancy la proportion de créneaux déjà réservés aujourd'hui dans chaque salle (entre 0 et 1)
+     */
+    static RoomBookRepository roomBookRepository(List<Room> rooms, double occupancy) {
+        RoomBookRepository roomBookRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", rooms);
+        roomBookRepository.initRemovableEquipments();
+        roomBookRepository.initRoomIndex();
+
+        Random random = new Random(SEED);
+        DailyBookings dailyBookings = roomBookRepository.getDailyBookings(roomBookRepository.today());
+        for (Room room : rooms) {
+            for (TimeSlot timeSlot : TimeSlot.values()) {
+                if (random.nextDouble() < occupancy) {
+                    dailyBookings.markAsBookedFor(room, timeSlot);
+                }
+            }
+        }
+        return roomBookRepository;
+    }
+
+    static RoomBookService roomBookService(RoomBookRepository roomBookRepository) {
+        RoomBookService roomBookService = new RoomBookService();
+        ReflectionTestUtils.setField(roomBookService, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(roomBookService, "roomFinder", new RoomFinder());
+        return roomBookService;
+    }
+
+    /**
+     * Annule une réservation réussie, pour que les benchmarks mesurent toujours le même taux d'occupation
+     * La réservation est annulée par son numéro : elle est aussi retirée de l'index des réservations.
+     */
+    static void cancel(RoomBookRepository roomBookRepository, RoomBookResult roomBookResult) {
+        if (roomBookResult.getRoomBookStatus() == RoomBookStatus.SUCCESS) {
+            roomBookRepository.cancelBooking(roomBookResult.getBookingId());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.canalplus.meetingplanner.benchmark;
+
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.RoomBookResult;
+import com.canalplus.meetingplanner.model.RoomBookStatus;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.canalplus.meetingplanner.service.RoomBookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réservations concurrentes de 1 à 64 threads, selon le mode de réservation :
+ * - "cas" : chaque thread réserve lui-même, les threads ne se synchronisent que par compare-and-set
+ * - "single-writer" : les réservations sont exécutées une par une par le thread d'écriture (voir RoomBookCommitLoop)
+ *
+ * Chaque réservation réussie est aussitôt annulée par le service : le taux d'occupation des salles reste celui
+ * du paramètre 'occupancy', et les annulations passent elles aussi par le thread d'écriture.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomBookContentionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bookings {
+
+        @Param({"cas", "single-writer"})
+        private String mode;
+
+        @Param({"12", "1000"})
+        private int roomsCount;
+
+        @Param({"0.5"})
+        private double occupancy;
+
+        private RoomBookService roomBookService;
+        private List<Meeting> meetings;
+
+        @Setup
+        public void setup() {
+            RoomBookRepository roomBookRepository = BenchmarkFixtures.roomBookRepository(BenchmarkFixtures.rooms(roomsCount), occupancy);
+            roomBookService = BenchmarkFixtures.roomBookService(roomBookRepository);
+            ReflectionTestUtils.setField(roomBookService, "singleWriter", "single-writer".equals(mode));
+            roomBookService.startCommitLoop();
+            meetings = BenchmarkFixtures.meetings(1024, BenchmarkFixtures.ALL_MEETING_TYPES);
+        }
+
+        @TearDown
+        public void tearDown() throws InterruptedException {
+            roomBookService.stopCommitLoop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+        private int nextMeeting;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public RoomBookResult threads01(Bookings bookings, ThreadCursor cursor) {
+        return bookAndCancel(bookings, cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RoomBookResult threads04(Bookings bookings, ThreadCursor cursor) {
+        return bookAndCancel(bookings, cursor);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public RoomBookResult threads16(Bookings bookings, ThreadCursor cursor) {
+        return bookAndCancel(bookings, cursor);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public RoomBookResult threads64(Bookings bookings, ThreadCursor cursor) {
+        return bookAndCancel(bookings, cursor);
+    }
+
+    private static RoomBookResult bookAndCancel(Bookings bookings, ThreadCursor cursor) {
+        Meeting meeting = bookings.meetings.get(cursor.nextMeeting++ & 1023);
+        RoomBookResult roomBookResult = bookings.roomBookService.bookRoomFor(meeting);
+        if (roomBookResult.getRoomBookStatus() == RoomBookStatus.SUCCESS) {
+            bookings.roomBookService.cancelBooking(roomBookResult.getBookingId());
+        }
+        return roomBookResult;
+    }
+}
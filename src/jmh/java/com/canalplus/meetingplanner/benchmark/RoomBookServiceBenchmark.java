@@ -0,0 +1,53 @@
+package com.canalplus.meetingplanner.benchmark;
+
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.RoomBookResult;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.canalplus.meetingplanner.service.RoomBookService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réservation d'une salle pour une réunion, par type de réunion
+ *
+ * Chaque réservation réussie est aussitôt annulée : le taux d'occupation des salles reste celui du paramètre 'occupancy'.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomBookServiceBenchmark {
+
+    @Param({"12", "1000", "100000"})
+    private int roomsCount;
+
+    @Param({"0.0", "0.5", "0.9"})
+    private double occupancy;
+
+    @Param({"RS", "SPEC", "VC", "RC", "ALL"})
+    private String meetingType;
+
+    private RoomBookRepository roomBookRepository;
+    private RoomBookService roomBookService;
+    private List<Meeting> meetings;
+    private int nextMeeting;
+
+    @Setup
+    public void setup() {
+        roomBookRepository = BenchmarkFixtures.roomBookRepository(BenchmarkFixtures.rooms(roomsCount), occupancy);
+        roomBookService = BenchmarkFixtures.roomBookService(roomBookRepository);
+        meetings = BenchmarkFixtures.meetings(1024, meetingType);
+    }
+
+    @Benchmark
+    public RoomBookResult bookRoomFor() {
+        Meeting meeting = meetings.get(nextMeeting++ & 1023);
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(meeting);
+        BenchmarkFixtures.cancel(roomBookRepository, roomBookResult);
+        return roomBookResult;
+    }
+}
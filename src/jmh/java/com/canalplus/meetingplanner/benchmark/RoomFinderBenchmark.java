@@ -0,0 +1,68 @@
+package com.canalplus.meetingplanner.benchmark;
+
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.repository.DailyBookings;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.canalplus.meetingplanner.repository.RoomIndex;
+import com.canalplus.meetingplanner.service.AvailableRooms;
+import com.canalplus.meetingplanner.service.RoomFinder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche des salles disponibles pour une réunion, sur l'ensemble des salles
+ *
+ * Compare le parcours de la liste des salles au parcours des colonnes de l'index des salles.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomFinderBenchmark {
+
+    @Param({"12", "1000", "50000", "100000"})
+    private int roomsCount;
+
+    @Param({"0.0", "0.5", "0.9"})
+    private double occupancy;
+
+    private final RoomFinder roomFinder = new RoomFinder();
+
+    private List<Room> rooms;
+    private RoomIndex roomIndex;
+    private DailyBookings dailyBookings;
+    private List<Meeting> meetings;
+    private int nextMeeting;
+
+    @Setup
+    public void setup() {
+        rooms = BenchmarkFixtures.rooms(roomsCount);
+        RoomBookRepository roomBookRepository = BenchmarkFixtures.roomBookRepository(rooms, occupancy);
+        dailyBookings = roomBookRepository.getDailyBookings(roomBookRepository.today());
+        roomIndex = dailyBookings.getRoomIndex();
+        meetings = BenchmarkFixtures.meetings(1024, "RS");
+    }
+
+    @Benchmark
+    public AvailableRooms findAvailableRooms() {
+        Meeting meeting = meetings.get(nextMeeting++ & 1023);
+        return roomFinder.findAvailableRooms(rooms, dailyBookings, meeting.getTimeSlot(), meeting.getEmployeesNumber());
+    }
+
+    @Benchmark
+    public AvailableRooms findAvailableRoomsInIndex() {
+        Meeting meeting = meetings.get(nextMeeting++ & 1023);
+        return roomFinder.findAvailableRooms(roomIndex, dailyBookings, meeting.getTimeSlot(), 1, meeting.getEmployeesNumber());
+    }
+
+    @Benchmark
+    public RoomIndex.AvailabilityScan scanAvailability() {
+        Meeting meeting = meetings.get(nextMeeting++ & 1023);
+        return roomIndex.scanAvailability(dailyBookings, meeting.getTimeSlot().mask(), meeting.getEmployeesNumber(), meeting.getType().getRequiredEquipmentsMask());
+    }
+}
@@ -0,0 +1,83 @@
+package com.canalplus.meetingplanner.benchmark;
+
+import com.canalplus.meetingplanner.controller.RoomReservationController;
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.canalplus.meetingplanner.service.RoomBookBatchService;
+import com.canalplus.meetingplanner.service.RoomBookOptimizer;
+import com.canalplus.meetingplanner.service.RoomBookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réservation d'un lot de réunions via le controller, appelé directement (sans couche HTTP)
+ *
+ * Les réservations du lot sont annulées après chaque appel, hors mesure.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomReservationControllerBenchmark {
+
+    @Param({"12", "1000", "100000"})
+    private int roomsCount;
+
+    @Param({"0.0", "0.5", "0.9"})
+    private double occupancy;
+
+    @Param({"RS", "ALL"})
+    private String meetingType;
+
+    @Param({"100", "10000"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean optimize;
+
+    private RoomBookRepository roomBookRepository;
+    private RoomReservationController roomReservationController;
+    private RoomBookBatchService roomBookBatchService;
+    private List<Meeting> meetings;
+    private List<Meeting> bookedMeetings;
+
+    @Setup
+    public void setup() {
+        roomBookRepository = BenchmarkFixtures.roomBookRepository(BenchmarkFixtures.rooms(roomsCount), occupancy);
+        roomReservationController = new RoomReservationController();
+        ReflectionTestUtils.setField(roomReservationController, "roomBookRepository", roomBookRepository);
+        RoomBookService roomBookService = BenchmarkFixtures.roomBookService(roomBookRepository);
+        roomBookBatchService = new RoomBookBatchService();
+        ReflectionTestUtils.setField(roomBookBatchService, "roomBookService", roomBookService);
+        ReflectionTestUtils.setField(roomBookBatchService, "roomBookRepository", roomBookRepository);
+        roomBookBatchService.startExecutor();
+        ReflectionTestUtils.setField(roomReservationController, "roomBookService", roomBookService);
+        RoomBookOptimizer roomBookOptimizer = new RoomBookOptimizer();
+        ReflectionTestUtils.setField(roomBookOptimizer, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(roomBookOptimizer, "roomBookService", roomBookService);
+        ReflectionTestUtils.setField(roomReservationController, "roomBookBatchService", roomBookBatchService);
+        ReflectionTestUtils.setField(roomReservationController, "roomBookOptimizer", roomBookOptimizer);
+        meetings = BenchmarkFixtures.meetings(batchSize, meetingType);
+    }
+
+    @Benchmark
+    public List<Meeting> bookSeveralRooms() {
+        bookedMeetings = roomReservationController.bookSeveralRooms(meetings, optimize);
+        return bookedMeetings;
+    }
+
+    @TearDown(Level.Invocation)
+    public void cancelBookings() {
+        bookedMeetings.forEach(meeting -> BenchmarkFixtures.cancel(roomBookRepository, meeting.getBookedRoomResult()));
+    }
+
+    @TearDown
+    public void stopBatchExecutor() {
+        roomBookBatchService.stopExecutor();
+    }
+}
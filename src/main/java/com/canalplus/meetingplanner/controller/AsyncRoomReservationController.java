@@ -0,0 +1,187 @@
+package com.canalplus.meetingplanner.controller;
+
+import com.canalplus.meetingplanner.metrics.RoomBookMetrics;
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.RoomBookResult;
+import com.canalplus.meetingplanner.service.IdempotentBookingService;
+import com.canalplus.meetingplanner.service.RoomBookOptimizer;
+import com.canalplus.meetingplanner.service.RoomBookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Variante non bloquante de l'API de réservation, avec les mêmes contrats que {@link RoomReservationController}
+ * sous le préfixe /async
+ *
+ * Les requêtes sont traitées de manière asynchrone (Servlet 3) : le thread du serveur est rendu dès que la requête
+ * est lue, et les réservations sont faites par des pools de threads dédiés, de taille fixe : l'un pour les réservations
+ * unitaires, l'autre pour les lots. Des milliers de clients simultanés n'occupent donc que des requêtes en attente,
+ * et non des threads ; au-delà de la capacité de la file d'attente d'un pool, les requêtes sont refusées (503).
+ *
+ * /async/bookRooms renvoie les réunions au format JSON délimité par des retours à la ligne (NDJSON), au fur et à mesure
+ * qu'elles sont réservées : chaque réunion est écrite dès qu'elle est décidée, sans construire la liste des résultats.
+ */
+@RestController
+@RequestMapping("/async")
+public class AsyncRoomReservationController {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final String NEW_LINE = "\n";
+
+    @Autowired
+    private RoomBookService roomBookService;
+
+    @Autowired
+    private RoomBookOptimizer roomBookOptimizer;
+
+    @Autowired
+    private IdempotentBookingService idempotentBookingService;
+
+    @Autowired
+    private RoomBookMetrics roomBookMetrics = RoomBookMetrics.noop();
+
+    @Value("${meeting-planner.async.booking-threads:0}")
+    private int bookingThreads;
+
+    @Value("${meeting-planner.async.booking-queue-capacity:1024}")
+    private int bookingQueueCapacity = 1024;
+
+    @Value("${meeting-planner.async.batch-threads:0}")
+    private int batchThreads;
+
+    @Value("${meeting-planner.async.batch-queue-capacity:64}")
+    private int batchQueueCapacity = 64;
+
+    private ExecutorService bookingExecutor;
+
+    /**
+     * Un lot écrit chaque réunion de manière synchrone : un client lent y immobilise un thread pendant tout le lot,
+     * d'où un pool à part, pour que les lots ne retardent pas les réservations unitaires
+     */
+    private ExecutorService batchExecutor;
+
+    @PostConstruct
+    public void startBookingExecutors() {
+        bookingExecutor = newBoundedExecutor(bookingThreads, bookingQueueCapacity, "async-booking-");
+        batchExecutor = newBoundedExecutor(batchThreads, batchQueueCapacity, "async-batch-");
+    }
+
+    @PreDestroy
+    public void stopBookingExecutors() {
+        bookingExecutor.shutdown();
+        batchExecutor.shutdown();
+    }
+
+    /**
+     * @param threads le nombre de threads, ou 0 pour un thread par processeur
+     * @param queueCapacity le nombre de tâches en attente au-delà duquel les nouvelles tâches sont refusées
+     */
+    private static ExecutorService newBoundedExecutor(int threads, int queueCapacity, String threadNamePrefix) {
+        int threadsCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threadsCount, threadsCount, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Avec l'en-tête Idempotency-Key, même contrat que {@link RoomReservationController#bookARoom(Meeting, String)} :
+     * une clé invalide est refusée (400) avant toute réservation, une clé déjà utilisée pour une autre réunion aussi (422)
+     */
+    @PostMapping(value="/bookRoom")
+    public CompletableFuture<Meeting> bookARoom(@RequestBody Meeting meeting,
+                                                @RequestHeader(name = RoomReservationController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            RoomReservationController.checkIdempotencyKey(idempotencyKey);
+        }
+        try {
+            if (idempotencyKey != null) {
+                return CompletableFuture.supplyAsync(() -> idempotentBookingService.bookRoomFor(idempotencyKey, meeting)
+                        .orElseThrow(() -> RoomReservationController.idempotencyKeyAlreadyUsed(idempotencyKey)), bookingExecutor);
+            }
+
+            return CompletableFuture.supplyAsync(() -> {
+                meeting.setBookedRoomResult(roomBookService.bookRoomFor(meeting));
+                return meeting;
+            }, bookingExecutor);
+        } catch (RejectedExecutionException e) {
+            throw overloaded(e);
+        }
+    }
+
+    @PostMapping(value="/bookRooms")
+    public ResponseEntity<ResponseBodyEmitter> bookSeveralRooms(@RequestBody List<Meeting> meetings,
+                                                                @RequestParam(name = "optimize", defaultValue = "false") boolean optimize) {
+        // Pas de délai maximum : un lot volumineux peut mettre longtemps à être entièrement réservé
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L);
+
+        try {
+            batchExecutor.execute(() -> bookSeveralRooms(meetings, optimize, emitter));
+        } catch (RejectedExecutionException e) {
+            throw overloaded(e);
+        }
+
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(emitter);
+    }
+
+    private void bookSeveralRooms(List<Meeting> meetings, boolean optimize, ResponseBodyEmitter emitter) {
+        long start = System.nanoTime();
+        try {
+            // Les réunions sont réservées une par une dans l'ordre du lot, ce qui permet d'écrire chacune dès qu'elle
+            // est décidée ; en mode "optimize", l'attribution porte sur tout le lot avant la première écriture
+            if (optimize) {
+                List<RoomBookResult> roomBookResults = roomBookOptimizer.bookRoomsFor(meetings);
+                for (int i = 0; i < meetings.size(); i++) {
+                    meetings.get(i).setBookedRoomResult(roomBookResults.get(i));
+                    send(emitter, meetings.get(i));
+                }
+            } else {
+                for (Meeting meeting : meetings) {
+                    meeting.setBookedRoomResult(roomBookService.bookRoomFor(meeting));
+                    send(emitter, meeting);
+                }
+            }
+            roomBookMetrics.recordBatch(optimize, meetings.size(), System.nanoTime() - start);
+            emitter.complete();
+        } catch (IOException | RuntimeException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Les files d'attente des pools sont bornées : au-delà, la requête est refusée plutôt que de faire grossir la mémoire
+     */
+    private static ResponseStatusException overloaded(RejectedExecutionException e) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trop de réservations en attente, veuillez réessayer plus tard", e);
+    }
+
+    /**
+     * Écrit une réunion sur une ligne de la réponse
+     * L'écriture est synchrone : un client lent ralentit la réservation de son lot au lieu de faire grossir la mémoire
+     */
+    private static void send(ResponseBodyEmitter emitter, Meeting meeting) throws IOException {
+        emitter.send(meeting, MediaType.APPLICATION_JSON);
+        emitter.send(NEW_LINE, MediaType.TEXT_PLAIN);
+    }
+}
@@ -1,76 +1,241 @@
 package com.canalplus.meetingplanner.controller;
 
+import com.canalplus.meetingplanner.metrics.RoomBookMetrics;
+import com.canalplus.meetingplanner.model.BookingChange;
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.MeetingType;
 import com.canalplus.meetingplanner.model.Room;
 import com.canalplus.meetingplanner.model.RoomBookResult;
 import com.canalplus.meetingplanner.model.RoomBookStatus;
-import com.canalplus.meetingplanner.model.Meeting;
-import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.RoomCandidates;
+import com.canalplus.meetingplanner.model.TimeSlot;
 import com.canalplus.meetingplanner.repository.RoomBookRepository;
-import com.canalplus.meetingplanner.service.RoomBookRCService;
-import com.canalplus.meetingplanner.service.RoomBookRSService;
-import com.canalplus.meetingplanner.service.RoomBookSPECService;
-import com.canalplus.meetingplanner.service.RoomBookVCService;
+import com.canalplus.meetingplanner.service.AvailabilityService;
+import com.canalplus.meetingplanner.service.IdempotentBookingService;
+import com.canalplus.meetingplanner.service.RoomBookBatchService;
+import com.canalplus.meetingplanner.service.RoomBookOptimizer;
+import com.canalplus.meetingplanner.service.RoomBookService;
+import com.canalplus.meetingplanner.service.RoomBookStreamService;
+import com.fasterxml.jackson.core.JsonParseException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
-import static com.canalplus.meetingplanner.model.MeetingType.*;
-
 /**
  * Point d'entrée de l'API pour réserver une salle de réunion et consulter les salles
  */
 @RestController
 public class RoomReservationController {
 
-    @Autowired
-    private RoomBookRSService roomBookRSService;
+    static final int MAX_SEARCH_LIMIT = 50;
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
     @Autowired
-    private RoomBookSPECService roomBookSPECService;
+    private RoomBookService roomBookService;
 
     @Autowired
-    private RoomBookVCService roomBookVCService;
+    private RoomBookBatchService roomBookBatchService;
 
     @Autowired
-    private RoomBookRCService roomBookRCService;
+    private RoomBookOptimizer roomBookOptimizer;
 
     @Autowired
     private RoomBookRepository roomBookRepository;
 
+    @Autowired
+    private RoomBookStreamService roomBookStreamService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private IdempotentBookingService idempotentBookingService;
+
+    @Autowired
+    private RoomBookMetrics roomBookMetrics = RoomBookMetrics.noop();
+
     @GetMapping(value="/rooms")
     public List<Room> getRooms() {
         return roomBookRepository.getRooms();
     }
 
+    /**
+     * Disponibilités des salles et des équipements amovibles pour une journée (le jour même par défaut)
+     * Répond 304 si les disponibilités n'ont pas changé depuis l'ETag fourni via If-None-Match
+     */
+    @GetMapping(value="/availability")
+    public ResponseEntity<byte[]> getAvailability(@RequestParam(name = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                  WebRequest webRequest) {
+        LocalDate availabilityDate = date != null ? date : roomBookRepository.today();
+        if (!roomBookRepository.isWithinHorizon(availabilityDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La date " + availabilityDate + " est en dehors de l'horizon de réservation (du "
+                    + roomBookRepository.today() + " au " + roomBookRepository.getHorizonEnd() + ")");
+        }
+
+        AvailabilityService.AvailabilitySnapshot availability = availabilityService.getAvailability(availabilityDate);
+        if (webRequest.checkNotModified(availability.getETag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(availability.getETag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(availability.getJson());
+    }
+
+    /**
+     * Salles qui conviendraient à une réunion, pour chaque créneau d'une plage de créneaux et de journées,
+     * sans rien réserver : au plus 'limit' salles par créneau, dans l'ordre où la réservation les choisirait
+     * Pour une réunion de plusieurs créneaux ('duration'), chaque créneau de la plage est un créneau de début possible,
+     * tant que la réunion se termine avant la fin de la journée
+     */
+    @GetMapping(value="/search")
+    public List<RoomCandidates> searchRooms(@RequestParam(name = "type") MeetingType meetingType,
+                                            @RequestParam(name = "employeesNumber") int employeesNumber,
+                                            @RequestParam(name = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                            @RequestParam(name = "toDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+                                            @RequestParam(name = "from", defaultValue = "EIGHT_NINE") TimeSlot fromTimeSlot,
+                                            @RequestParam(name = "to", defaultValue = "NINETEEN_TWENTY") TimeSlot toTimeSlot,
+                                            @RequestParam(name = "duration", defaultValue = "1") int duration,
+                                            @RequestParam(name = "limit", defaultValue = "3") int limit) {
+        LocalDate fromDate = date != null ? date : roomBookRepository.today();
+        LocalDate lastDate = toDate != null ? toDate : fromDate;
+        if (!roomBookRepository.isWithinHorizon(fromDate) || !roomBookRepository.isWithinHorizon(lastDate) || lastDate.isBefore(fromDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Les dates du " + fromDate + " au " + lastDate
+                    + " doivent se suivre et être dans l'horizon de réservation (du " + roomBookRepository.today() + " au " + roomBookRepository.getHorizonEnd() + ")");
+        }
+        if (toTimeSlot.compareTo(fromTimeSlot) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Le créneau " + toTimeSlot + " précède le créneau " + fromTimeSlot);
+        }
+        if (duration < 1 || duration > TimeSlot.values().length) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La durée doit être comprise entre 1 et " + TimeSlot.values().length + " créneaux");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Le nombre de salles par créneau doit être compris entre 1 et " + MAX_SEARCH_LIMIT);
+        }
+
+        List<RoomCandidates> roomCandidates = new ArrayList<>();
+        for (LocalDate searchDate = fromDate; !searchDate.isAfter(lastDate); searchDate = searchDate.plusDays(1)) {
+            for (TimeSlot timeSlot : EnumSet.range(fromTimeSlot, toTimeSlot)) {
+                if (timeSlot.ordinal() + duration > TimeSlot.values().length) {
+                    break;
+                }
+                roomCandidates.add(roomBookService.findRoomCandidates(meetingType, employeesNumber, searchDate, timeSlot, duration, limit));
+            }
+        }
+        return roomCandidates;
+    }
+
+    /**
+     * Avec l'en-tête Idempotency-Key, une requête renvoyée avec la même clé reçoit le résultat de la première requête
+     * (voir {@link IdempotentBookingService}) ; la réutilisation de la clé pour une autre réunion est refusée (422)
+     */
     @PostMapping(value="/bookRoom")
-    public Meeting bookARoom(@RequestBody Meeting meeting) {
-        MeetingType meetingType = meeting.getType();
-
-        RoomBookResult roomBookResult = null;
-
-        if (RS == meetingType) {
-            roomBookResult = roomBookRSService.bookRoomFor(meeting);
-        } else if (SPEC == meetingType) {
-            roomBookResult = roomBookSPECService.bookRoomFor(meeting);
-        } else if (VC == meetingType) {
-            roomBookResult = roomBookVCService.bookRoomFor(meeting);
-        } else if (RC == meetingType) {
-            roomBookResult = roomBookRCService.bookRoomFor(meeting);
+    public Meeting bookARoom(@RequestBody Meeting meeting,
+                             @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            checkIdempotencyKey(idempotencyKey);
+            return idempotentBookingService.bookRoomFor(idempotencyKey, meeting)
+                    .orElseThrow(() -> idempotencyKeyAlreadyUsed(idempotencyKey));
         }
 
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(meeting);
+
         meeting.setBookedRoomResult(roomBookResult);
 
         return meeting;
     }
 
+    /**
+     * @throws ResponseStatusException (400) si la clé d'idempotence ne comporte pas entre 1 et {@link #MAX_IDEMPOTENCY_KEY_LENGTH} caractères
+     */
+    static void checkIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "L'en-tête " + IDEMPOTENCY_KEY_HEADER
+                    + " doit comporter entre 1 et " + MAX_IDEMPOTENCY_KEY_LENGTH + " caractères");
+        }
+    }
+
+    /**
+     * @return l'erreur (422) d'une clé d'idempotence qui a déjà servi à réserver une autre réunion
+     */
+    static ResponseStatusException idempotencyKeyAlreadyUsed(String idempotencyKey) {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "La clé " + idempotencyKey + " a déjà servi à réserver une autre réunion");
+    }
+
     @PostMapping(value="/bookRooms")
-    public List<Meeting> bookSeveralRooms(@RequestBody List<Meeting> meetings) {
+    public List<Meeting> bookSeveralRooms(@RequestBody List<Meeting> meetings,
+                                          @RequestParam(name = "optimize", defaultValue = "false") boolean optimize) {
+        long start = System.nanoTime();
         var meetingsWithResult = new ArrayList<Meeting>();
 
-        meetings.forEach(meeting -> meetingsWithResult.add(bookARoom(meeting)));
+        // Par défaut, les réunions sont réservées en parallèle, avec le même résultat que si elles l'étaient une par une
+        // En mode "optimize", les salles sont attribuées en cherchant à réserver le plus de réunions possible
+        List<RoomBookResult> roomBookResults = optimize
+                ? roomBookOptimizer.bookRoomsFor(meetings)
+                : roomBookBatchService.bookRoomsFor(meetings);
+        for (int i = 0; i < meetings.size(); i++) {
+            Meeting meeting = meetings.get(i);
+            meeting.setBookedRoomResult(roomBookResults.get(i));
+            meetingsWithResult.add(meeting);
+        }
+        roomBookMetrics.recordBatch(optimize, meetings.size(), System.nanoTime() - start);
 
         return meetingsWithResult;
     }
+
+    /**
+     * Annule une réservation (voir {@link RoomBookResult#getBookingId()}) : sa salle et ses équipements amovibles
+     * sont de nouveau disponibles
+     */
+    @DeleteMapping(value="/bookings/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelBooking(@PathVariable("id") long bookingId) {
+        if (roomBookService.cancelBooking(bookingId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Aucune réservation en cours ne porte le numéro " + bookingId);
+        }
+    }
+
+    /**
+     * Déplace une réservation vers une autre journée ou d'autres créneaux, en gardant son numéro
+     * Si la réunion ne peut pas être déplacée, le résultat est un échec et la réservation précédente est conservée.
+     */
+    @PatchMapping(value="/bookings/{id}")
+    public RoomBookResult moveBooking(@PathVariable("id") long bookingId, @RequestBody BookingChange bookingChange) {
+        return roomBookService.moveBooking(bookingId, bookingChange)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Aucune réservation en cours ne porte le numéro " + bookingId));
+    }
+
+    /**
+     * Variante de /bookRooms pour les lots volumineux : les réunions sont lues, réservées une par une dans l'ordre
+     * du lot, et écrites dans la réponse au fil de l'eau, sans jamais conserver le lot en mémoire
+     * (le mode "optimize", qui a besoin de tout le lot, n'est pas disponible)
+     * Seul un lot qui n'est pas un tableau JSON est refusé (400) : une réunion illisible au milieu du lot termine
+     * la réponse par un élément d'erreur (voir {@link RoomBookStreamService#bookRoomsFor(InputStream, java.io.OutputStream)})
+     */
+    @PostMapping(value="/bookRooms", params = "stream=true")
+    public void bookSeveralRoomsInStream(InputStream meetingsJson, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try {
+            roomBookStreamService.bookRoomsFor(meetingsJson, response.getOutputStream());
+        } catch (JsonParseException e) {
+            // Seul un lot qui n'est pas un tableau est refusé : rien n'a alors été réservé
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getOriginalMessage(), e);
+        }
+    }
 }
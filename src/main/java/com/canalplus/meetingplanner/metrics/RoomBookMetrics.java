@@ -0,0 +1,124 @@
+package com.canalplus.meetingplanner.metrics;
+
+import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.RoomBookFailureCause;
+import com.canalplus.meetingplanner.model.RoomBookResult;
+import com.canalplus.meetingplanner.model.RoomBookStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques des réservations : durée de réservation par type de réunion, nombre de réservations par résultat
+ * (et raison de l'échec), taille et durée des lots de réunions
+ *
+ * Toutes les métriques sont enregistrées à la création : leur mise à jour ne fait qu'un accès à un tableau,
+ * sans construction de tags ni allocation.
+ */
+@Component
+public class RoomBookMetrics {
+
+    public static final String BOOKING_DURATION = "meeting-planner.booking.duration";
+    public static final String BOOKINGS = "meeting-planner.bookings";
+    public static final String BATCH_SIZE = "meeting-planner.batch.size";
+    public static final String BATCH_DURATION = "meeting-planner.batch.duration";
+
+    private static final MeetingType[] MEETING_TYPES = MeetingType.values();
+    private static final RoomBookFailureCause[] FAILURE_CAUSES = RoomBookFailureCause.values();
+
+    private final Timer[] bookingDurationByMeetingType = new Timer[MEETING_TYPES.length];
+    /**
+     * Par type de réunion : les réservations réussies en premier, puis les échecs par raison
+     */
+    private final Counter[][] bookingsByMeetingTypeAndOutcome = new Counter[MEETING_TYPES.length][FAILURE_CAUSES.length + 1];
+    private final DistributionSummary[] batchSizeByMode = new DistributionSummary[2];
+    private final Timer[] batchDurationByMode = new Timer[2];
+
+    public RoomBookMetrics(MeterRegistry meterRegistry) {
+        for (MeetingType meetingType : MEETING_TYPES) {
+            bookingDurationByMeetingType[meetingType.ordinal()] = Timer.builder(BOOKING_DURATION)
+                    .description("Durée de réservation d'une réunion")
+                    .tag("meetingType", meetingType.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+
+            Counter[] bookingsByOutcome = bookingsByMeetingTypeAndOutcome[meetingType.ordinal()];
+            bookingsByOutcome[0] = bookingsCounter(meterRegistry, meetingType, RoomBookStatus.SUCCESS, "none");
+            for (RoomBookFailureCause failureCause : FAILURE_CAUSES) {
+                bookingsByOutcome[failureCause.ordinal() + 1] = bookingsCounter(meterRegistry, meetingType, RoomBookStatus.FAILURE, failureCause.name());
+            }
+        }
+
+        for (int optimize = 0; optimize < 2; optimize++) {
+            String mode = optimize == 1 ? "optimize" : "sequential";
+            batchSizeByMode[optimize] = DistributionSummary.builder(BATCH_SIZE)
+                    .description("Nombre de réunions d'un lot")
+                    .tag("mode", mode)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            batchDurationByMode[optimize] = Timer.builder(BATCH_DURATION)
+                    .description("Durée de réservation d'un lot de réunions")
+                    .tag("mode", mode)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return des métriques qui ne sont publiées nulle part, pour les services construits hors de Spring
+     */
+    public static RoomBookMetrics noop() {
+        return new RoomBookMetrics(new CompositeMeterRegistry());
+    }
+
+    private static Counter bookingsCounter(MeterRegistry meterRegistry, MeetingType meetingType, RoomBookStatus status, String failureCause) {
+        return Counter.builder(BOOKINGS)
+                .description("Nombre de réservations de réunions, par résultat")
+                .tag("meetingType", meetingType.name())
+                .tag("status", status.name())
+                .tag("cause", failureCause)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre la réservation d'une réunion et sa durée
+     *
+     * @param meetingType le type de la réunion
+     * @param roomBookResult le résultat de la réservation
+     * @param durationNanos la durée de la réservation, en nanosecondes
+     */
+    public void recordBooking(MeetingType meetingType, RoomBookResult roomBookResult, long durationNanos) {
+        bookingDurationByMeetingType[meetingType.ordinal()].record(durationNanos, TimeUnit.NANOSECONDS);
+        recordOutcome(meetingType, roomBookResult);
+    }
+
+    /**
+     * Enregistre le résultat de la réservation d'une réunion, quand sa durée n'a pas de sens
+     * (réunion réservée au sein d'une attribution globale du lot)
+     *
+     * @param meetingType le type de la réunion
+     * @param roomBookResult le résultat de la réservation
+     */
+    public void recordOutcome(MeetingType meetingType, RoomBookResult roomBookResult) {
+        RoomBookFailureCause failureCause = roomBookResult.getFailureCause();
+        bookingsByMeetingTypeAndOutcome[meetingType.ordinal()][failureCause == null ? 0 : failureCause.ordinal() + 1].increment();
+    }
+
+    /**
+     * Enregistre la réservation d'un lot de réunions (/bookRooms)
+     *
+     * @param optimize true si le lot a été réservé en mode "optimize"
+     * @param batchSize le nombre de réunions du lot
+     * @param durationNanos la durée de réservation du lot, en nanosecondes
+     */
+    public void recordBatch(boolean optimize, int batchSize, long durationNanos) {
+        int mode = optimize ? 1 : 0;
+        batchSizeByMode[mode].record(batchSize);
+        batchDurationByMode[mode].record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
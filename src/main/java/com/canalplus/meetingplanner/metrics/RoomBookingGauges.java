@@ -0,0 +1,50 @@
+package com.canalplus.meetingplanner.metrics;
+
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import com.canalplus.meetingplanner.repository.DailyBookings;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jauges de l'état des réservations du jour, pour chaque créneau :
+ * nombre de salles libres et nombre d'équipements amovibles restants par type d'équipement
+ *
+ * Les jauges sont calculées à la lecture des métriques, et non à chaque réservation.
+ */
+@Component
+public class RoomBookingGauges implements MeterBinder {
+
+    public static final String FREE_ROOMS = "meeting-planner.rooms.free";
+    public static final String REMOVABLE_EQUIPMENTS_AVAILABLE = "meeting-planner.removable-equipments.available";
+
+    @Autowired
+    private RoomBookRepository roomBookRepository;
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        for (TimeSlot timeSlot : TimeSlot.values()) {
+            Gauge.builder(FREE_ROOMS, roomBookRepository, repository -> todayBookings(repository).countFreeRooms(timeSlot))
+                    .description("Nombre de salles non réservées aujourd'hui à ce créneau")
+                    .tag("timeSlot", timeSlot.name())
+                    .register(meterRegistry);
+
+            for (Equipment equipment : Equipment.values()) {
+                Gauge.builder(REMOVABLE_EQUIPMENTS_AVAILABLE, roomBookRepository,
+                                repository -> todayBookings(repository).getRemovableEquipmentPool().getAvailableCount(timeSlot, equipment))
+                        .description("Nombre d'équipements amovibles encore disponibles aujourd'hui à ce créneau")
+                        .tag("timeSlot", timeSlot.name())
+                        .tag("equipment", equipment.name())
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    private static DailyBookings todayBookings(RoomBookRepository roomBookRepository) {
+        return roomBookRepository.getDailyBookings(roomBookRepository.today());
+    }
+}
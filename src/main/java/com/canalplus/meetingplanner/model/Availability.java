@@ -0,0 +1,68 @@
+package com.canalplus.meetingplanner.model;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disponibilités d'une journée : créneaux réservés et réservables de chaque salle,
+ * et équipements amovibles restants à chaque créneau
+ */
+public class Availability {
+
+    private final LocalDate date;
+    private final List<RoomAvailability> rooms;
+    private final Map<TimeSlot, Map<Equipment, Integer>> removableEquipments;
+
+    public Availability(LocalDate date, List<RoomAvailability> rooms, Map<TimeSlot, Map<Equipment, Integer>> removableEquipments) {
+        this.date = date;
+        this.rooms = rooms;
+        this.removableEquipments = removableEquipments;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public List<RoomAvailability> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * @return le nombre d'équipements amovibles restants de chaque type, à chaque créneau
+     */
+    public Map<TimeSlot, Map<Equipment, Integer>> getRemovableEquipments() {
+        return removableEquipments;
+    }
+
+    /**
+     * Disponibilités d'une salle sur la journée
+     */
+    public static class RoomAvailability {
+
+        private final Room room;
+        private final List<TimeSlot> bookedTimeSlots;
+        private final List<TimeSlot> availableTimeSlots;
+
+        public RoomAvailability(Room room, List<TimeSlot> bookedTimeSlots, List<TimeSlot> availableTimeSlots) {
+            this.room = room;
+            this.bookedTimeSlots = bookedTimeSlots;
+            this.availableTimeSlots = availableTimeSlots;
+        }
+
+        public Room getRoom() {
+            return room;
+        }
+
+        public List<TimeSlot> getBookedTimeSlots() {
+            return bookedTimeSlots;
+        }
+
+        /**
+         * @return les créneaux auxquels la salle peut être réservée (libre à ce créneau et au créneau précédent)
+         */
+        public List<TimeSlot> getAvailableTimeSlots() {
+            return availableTimeSlots;
+        }
+    }
+}
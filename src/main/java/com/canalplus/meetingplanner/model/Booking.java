@@ -0,0 +1,95 @@
+package com.canalplus.meetingplanner.model;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Une réservation effectuée : la réunion, la salle réservée et les équipements amovibles empruntés
+ * à chacun de ses créneaux. Une réservation est identifiée par son numéro, qui permet de l'annuler
+ * ou de la déplacer.
+ */
+public class Booking {
+    private final long id;
+    private final String name;
+    private final LocalDate date;
+    private final TimeSlot timeSlot;
+    private final int duration;
+    private final MeetingType type;
+    private final int employeesNumber;
+    private final Room room;
+    private final Set<Equipment> removableBorrowedEquipments;
+
+    /**
+     * @param date la journée réservée (jamais null)
+     * @param meeting la réunion réservée
+     */
+    public Booking(long id, LocalDate date, Meeting meeting, Room room, Set<Equipment> removableBorrowedEquipments) {
+        this.id = id;
+        this.name = meeting.getName();
+        this.date = date;
+        this.timeSlot = meeting.getTimeSlot();
+        this.duration = meeting.getDuration();
+        this.type = meeting.getType();
+        this.employeesNumber = meeting.getEmployeesNumber();
+        this.room = room;
+        this.removableBorrowedEquipments = removableBorrowedEquipments;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public MeetingType getType() {
+        return type;
+    }
+
+    public int getEmployeesNumber() {
+        return employeesNumber;
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public Set<Equipment> getRemovableBorrowedEquipments() {
+        return removableBorrowedEquipments;
+    }
+
+    /**
+     * @return le masque binaire des créneaux réservés (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     */
+    public int getTimeSlotsMask() {
+        return TimeSlot.rangeMask(timeSlot, duration);
+    }
+
+    /**
+     * @param newDate la nouvelle journée, ou null pour garder la même
+     * @param newTimeSlot le nouveau premier créneau, ou null pour garder le même
+     * @param newDuration le nouveau nombre de créneaux, ou null pour garder le même
+     * @return la même réunion, à la journée et aux créneaux demandés
+     */
+    public Meeting toMeeting(LocalDate newDate, TimeSlot newTimeSlot, Integer newDuration) {
+        return new Meeting(name,
+                newDate != null ? newDate : date,
+                newTimeSlot != null ? newTimeSlot : timeSlot,
+                newDuration != null ? newDuration : duration,
+                type,
+                employeesNumber);
+    }
+}
@@ -0,0 +1,35 @@
+package com.canalplus.meetingplanner.model;
+
+import java.time.LocalDate;
+
+/**
+ * Déplacement demandé pour une réservation : chaque champ absent garde la valeur de la réservation
+ */
+public class BookingChange {
+    private final LocalDate date;
+    private final TimeSlot timeSlot;
+    private final Integer duration;
+
+    public BookingChange(LocalDate date, TimeSlot timeSlot, Integer duration) {
+        this.date = date;
+        this.timeSlot = timeSlot;
+        this.duration = duration;
+    }
+
+    // for deserialization
+    private BookingChange() {
+        this(null, null, null);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+}
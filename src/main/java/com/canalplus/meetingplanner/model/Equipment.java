@@ -1,8 +1,58 @@
 package com.canalplus.meetingplanner.model;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum Equipment {
-    SCREEN,
-    MULTILINE_SPEAKER,
-    WEBCAM,
-    BOARD
+    SCREEN("un écran"),
+    MULTILINE_SPEAKER("une pieuvre"),
+    WEBCAM("une webcam"),
+    BOARD("un tableau");
+
+    private final String label;
+
+    Equipment(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return le libellé de l'équipement, précédé de son article (par exemple "un écran")
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return le masque binaire de cet équipement : un bit par type d'équipement, à la position de son rang
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @param equipments des équipements
+     * @return le masque binaire regroupant tous les équipements donnés
+     */
+    public static int maskOf(Set<Equipment> equipments) {
+        int mask = 0;
+        for (Equipment equipment : equipments) {
+            mask |= equipment.mask();
+        }
+        return mask;
+    }
+
+    /**
+     * @param mask un masque binaire d'équipements (voir {@link #maskOf(Set)})
+     * @return les équipements présents dans ce masque
+     */
+    public static Set<Equipment> setOf(int mask) {
+        EnumSet<Equipment> equipments = EnumSet.noneOf(Equipment.class);
+        for (Equipment equipment : values()) {
+            if ((mask & equipment.mask()) != 0) {
+                equipments.add(equipment);
+            }
+        }
+        return Collections.unmodifiableSet(equipments);
+    }
 }
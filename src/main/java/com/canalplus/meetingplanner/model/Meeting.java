@@ -1,32 +1,86 @@
 package com.canalplus.meetingplanner.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+
+/**
+ * Une réunion, sur un ou plusieurs créneaux consécutifs d'une même journée et dans une même salle
+ */
 public class Meeting {
     private final String name;
+    private final LocalDate date;
     private final TimeSlot timeSlot;
+    private final int duration;
     private final MeetingType type;
     private final int employeesNumber;
     private RoomBookResult bookedRoomResult;
 
-    public Meeting(String name, TimeSlot timeSlot, MeetingType type, int employeesNumber) {
+    /**
+     * @param date la journée de la réunion, ou null pour le jour même
+     * @param timeSlot le premier créneau de la réunion
+     * @param duration le nombre de créneaux consécutifs de la réunion
+     */
+    public Meeting(String name, LocalDate date, TimeSlot timeSlot, int duration, MeetingType type, int employeesNumber) {
         this.name = name;
+        this.date = date;
         this.timeSlot = timeSlot;
+        this.duration = duration;
         this.type = type;
         this.employeesNumber = employeesNumber;
     }
 
+    /**
+     * @param date la journée de la réunion, ou null pour le jour même
+     */
+    public Meeting(String name, LocalDate date, TimeSlot timeSlot, MeetingType type, int employeesNumber) {
+        this(name, date, timeSlot, 1, type, employeesNumber);
+    }
+
+    public Meeting(String name, TimeSlot timeSlot, MeetingType type, int employeesNumber) {
+        this(name, null, timeSlot, type, employeesNumber);
+    }
+
     // for deserialization
     private Meeting() {
-        this("default meeting name", null, null, 0);
+        this("default meeting name", null, null, 1, null, 0);
     }
 
     public String getName() {
         return name;
     }
 
+    public LocalDate getDate() {
+        return date;
+    }
+
     public TimeSlot getTimeSlot() {
         return timeSlot;
     }
 
+    /**
+     * @return le nombre de créneaux consécutifs de la réunion, à partir de {@link #getTimeSlot()}
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return true si la réunion se termine au plus tard au dernier créneau de la journée
+     */
+    @JsonIgnore
+    public boolean isWithinDay() {
+        return duration >= 1 && timeSlot.ordinal() + duration <= TimeSlot.values().length;
+    }
+
+    /**
+     * @return le masque binaire des créneaux de la réunion (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     */
+    @JsonIgnore
+    public int getTimeSlotsMask() {
+        return TimeSlot.rangeMask(timeSlot, duration);
+    }
+
     public MeetingType getType() {
         return type;
     }
@@ -1,8 +1,38 @@
 package com.canalplus.meetingplanner.model;
 
+import java.util.List;
+import java.util.Set;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+
+/**
+ * Les types de réunion, avec les équipements que chacun nécessite
+ */
 public enum MeetingType {
-    VC,
-    SPEC,
+    VC(SCREEN, MULTILINE_SPEAKER, WEBCAM),
+    SPEC(BOARD),
     RS,
-    RC
+    RC(BOARD, SCREEN, MULTILINE_SPEAKER);
+
+    private final List<Equipment> requiredEquipments;
+    private final int requiredEquipmentsMask;
+
+    MeetingType(Equipment... requiredEquipments) {
+        this.requiredEquipments = List.of(requiredEquipments);
+        this.requiredEquipmentsMask = Equipment.maskOf(Set.of(requiredEquipments));
+    }
+
+    /**
+     * @return les équipements nécessaires à ce type de réunion (présents dans la salle ou empruntés)
+     */
+    public List<Equipment> getRequiredEquipments() {
+        return requiredEquipments;
+    }
+
+    /**
+     * @return le masque binaire des équipements nécessaires à ce type de réunion (voir {@link Equipment#mask()})
+     */
+    public int getRequiredEquipmentsMask() {
+        return requiredEquipmentsMask;
+    }
 }
@@ -1,36 +1,66 @@
 package com.canalplus.meetingplanner.model;
 
-import java.util.*;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Une salle de réunion.
- * Contient le statut de réservation à chaque créneau disponible
- * Aucun créneau n'est réservé au démarrage de l'application
+ * Son statut de réservation dépend de la journée : il est conservé à part, avec les autres réservations
+ * de cette journée (voir {@link com.canalplus.meetingplanner.repository.DailyBookings})
+ *
+ * Une salle est identifiée par son nom : l'égalité et le hash des salles ne reposent que sur ce nom, qui ne change pas
+ * quand la capacité ou les équipements de la salle changent (le hash d'une chaîne n'est calculé qu'une fois).
+ * Le catalogue des salles attribue en plus à chaque nom un numéro entier, à partir de 0, conservé d'un rechargement
+ * à l'autre (voir {@link com.canalplus.meetingplanner.repository.RoomCatalog}) : il permet d'indexer des tableaux par salle.
+ * Une salle créée hors du catalogue (par exemple lue en JSON dans une requête) n'a pas de numéro : {@link #UNKNOWN_ID}.
  */
 public class Room {
+
+    /**
+     * Numéro d'une salle qui n'a pas été créée par le catalogue des salles
+     */
+    public static final int UNKNOWN_ID = -1;
+
+    private final int id;
     private final String name;
     private final int capacity;
     private final Set<Equipment> equipments;
-    private Map<TimeSlot, Boolean> bookStatusByTimeSlot;
 
     public Room(String name, int capacity, Set<Equipment> equipments) {
-        this.name = name;
-        this.capacity = capacity;
-        this.equipments = equipments;
-        initializeTimeSlotStatus();
+        this(UNKNOWN_ID, name, capacity, equipments);
     }
     public Room(String name, int capacity) {
         this(name, capacity, Set.of());
     }
 
+    /**
+     * @param id le numéro attribué à ce nom de salle par le catalogue des salles
+     */
+    public Room(int id, String name, int capacity, Set<Equipment> equipments) {
+        this.id = id;
+        this.name = name;
+        this.capacity = capacity;
+        this.equipments = equipments;
+    }
+
     // for deserialization
-    private Room() {
-        this("default name", 0);
+    @JsonCreator
+    private static Room fromJson(@JsonProperty("name") String name, @JsonProperty("capacity") int capacity,
+                                 @JsonProperty("equipments") Set<Equipment> equipments) {
+        return new Room(name, capacity, equipments != null ? equipments : Set.of());
     }
 
-    private void initializeTimeSlotStatus() {
-        bookStatusByTimeSlot = new LinkedHashMap<>();
-        Arrays.stream(TimeSlot.values()).forEach(timeSlot -> bookStatusByTimeSlot.put(timeSlot, false));
+    /**
+     * @return le numéro attribué à la salle par le catalogue des salles,
+     * ou {@link #UNKNOWN_ID} pour une salle créée hors du catalogue
+     */
+    @JsonIgnore
+    public int getId() {
+        return id;
     }
 
     public String getName() {
@@ -45,14 +75,6 @@ public class Room {
         return equipments;
     }
 
-    public boolean isBookedFor(TimeSlot timeSlot) {
-        return bookStatusByTimeSlot.get(timeSlot);
-    }
-
-    public void markAsBookedFor(TimeSlot timeSlot) {
-        bookStatusByTimeSlot.put(timeSlot, true);
-    }
-
     @Override
     public String toString() {
         return "Room{" +
@@ -62,16 +84,23 @@ public class Room {
                 '}';
     }
 
+    /**
+     * @return true si l'autre salle a le même nom, la même capacité et les mêmes équipements
+     */
+    public boolean hasSameDefinitionAs(Room room) {
+        return equals(room) && capacity == room.capacity && equipments.equals(room.equipments);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Room room = (Room) o;
-        return capacity == room.capacity && name.equals(room.name) && equipments.equals(room.equipments);
+        return Objects.equals(name, room.name);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, capacity, equipments, bookStatusByTimeSlot);
+        return Objects.hashCode(name);
     }
 }
@@ -0,0 +1,31 @@
+package com.canalplus.meetingplanner.model;
+
+/**
+ * Raison pour laquelle une réunion n'a pas pu être réservée
+ */
+public enum RoomBookFailureCause {
+    /**
+     * La journée de la réunion est passée, ou au-delà de l'horizon de réservation
+     */
+    OUTSIDE_HORIZON,
+    /**
+     * La durée de la réunion est invalide, ou la réunion dépasse le dernier créneau de la journée
+     */
+    INVALID_DURATION,
+    /**
+     * Toutes les salles sont réservées au créneau de la réunion
+     */
+    ALL_ROOMS_BOOKED,
+    /**
+     * Les salles libres au créneau de la réunion sont réservées au créneau précédent (nettoyage)
+     */
+    PREVIOUS_TIME_SLOT_BOOKED,
+    /**
+     * Les salles disponibles sont trop petites pour la réunion
+     */
+    INSUFFICIENT_CAPACITY,
+    /**
+     * Les salles disponibles ne disposent pas des équipements requis, et les équipements amovibles manquent
+     */
+    MISSING_EQUIPMENTS
+}
@@ -1,31 +1,67 @@
 package com.canalplus.meetingplanner.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Set;
+import java.util.function.Supplier;
 
+/**
+ * Résultat de la réservation d'une réunion
+ * Le message n'est construit qu'à sa première lecture (en général à la sérialisation de la réponse)
+ */
 public class RoomBookResult {
 
     private final Room room;
     private final RoomBookStatus roomBookStatus;
-    private final String roomBookMessage;
+    private String roomBookMessage;
+    private final Supplier<String> roomBookMessageSupplier;
+    private final RoomBookFailureCause failureCause;
     private final Set<Equipment> removableBorrowedEquipments;
+    private final Long bookingId;
 
     public RoomBookResult(Room room, Set<Equipment> removableBorrowedEquipments) {
+        this(room, removableBorrowedEquipments, null);
+    }
+
+    public RoomBookResult(Booking booking) {
+        this(booking.getRoom(), booking.getRemovableBorrowedEquipments(), booking.getId());
+    }
+
+    private RoomBookResult(Room room, Set<Equipment> removableBorrowedEquipments, Long bookingId) {
         this.room = room;
         this.roomBookStatus = RoomBookStatus.SUCCESS;
-        this.roomBookMessage = "La salle [" + room + "] a été réservée";
+        this.roomBookMessageSupplier = null;
+        this.failureCause = null;
         this.removableBorrowedEquipments = removableBorrowedEquipments;
+        this.bookingId = bookingId;
     }
 
-    public RoomBookResult(String bookErrorMessage) {
+    public RoomBookResult(RoomBookFailureCause failureCause, String bookErrorMessage) {
         this.room = null;
         this.roomBookStatus = RoomBookStatus.FAILURE;
         this.roomBookMessage = bookErrorMessage;
+        this.roomBookMessageSupplier = null;
+        this.failureCause = failureCause;
+        this.removableBorrowedEquipments = null;
+        this.bookingId = null;
+    }
+
+    /**
+     * @param failureCause la raison de l'échec
+     * @param bookErrorMessageSupplier construit le message d'erreur, s'il est lu
+     */
+    public RoomBookResult(RoomBookFailureCause failureCause, Supplier<String> bookErrorMessageSupplier) {
+        this.room = null;
+        this.roomBookStatus = RoomBookStatus.FAILURE;
+        this.roomBookMessageSupplier = bookErrorMessageSupplier;
+        this.failureCause = failureCause;
         this.removableBorrowedEquipments = null;
+        this.bookingId = null;
     }
 
     // for deserialization
     private RoomBookResult() {
-        this("default result");
+        this(null, "default result");
     }
 
     public Room getRoom() {
@@ -37,10 +73,32 @@ public class RoomBookResult {
     }
 
     public String getRoomBookMessage() {
+        // Deux lectures concurrentes construisent le même message : aucune synchronisation n'est nécessaire
+        if (roomBookMessage == null) {
+            roomBookMessage = roomBookMessageSupplier != null
+                    ? roomBookMessageSupplier.get()
+                    : "La salle [" + room + "] a été réservée";
+        }
         return roomBookMessage;
     }
 
+    /**
+     * @return la raison de l'échec de la réservation, null si la réservation a réussi
+     */
+    @JsonIgnore
+    public RoomBookFailureCause getFailureCause() {
+        return failureCause;
+    }
+
     public Set<Equipment> getRemovableBorrowedEquipments() {
         return removableBorrowedEquipments;
     }
+
+    /**
+     * @return le numéro de la réservation, pour l'annuler ou la déplacer (voir /bookings/{id}),
+     * null si la réservation a échoué
+     */
+    public Long getBookingId() {
+        return bookingId;
+    }
 }
@@ -0,0 +1,70 @@
+package com.canalplus.meetingplanner.model;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Salles qui conviendraient à une réunion commençant à un créneau d'une journée, de la plus favorable à la moins favorable
+ * (dans l'ordre où la réservation les choisirait), sans qu'aucune réservation ne soit faite
+ */
+public class RoomCandidates {
+
+    private final LocalDate date;
+    private final TimeSlot timeSlot;
+    private final int duration;
+    private final List<RoomCandidate> candidates;
+
+    public RoomCandidates(LocalDate date, TimeSlot timeSlot, List<RoomCandidate> candidates) {
+        this(date, timeSlot, 1, candidates);
+    }
+
+    /**
+     * @param timeSlot le premier créneau de la réunion
+     * @param duration le nombre de créneaux consécutifs de la réunion
+     */
+    public RoomCandidates(LocalDate date, TimeSlot timeSlot, int duration, List<RoomCandidate> candidates) {
+        this.date = date;
+        this.timeSlot = timeSlot;
+        this.duration = duration;
+        this.candidates = candidates;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public List<RoomCandidate> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Une salle qui conviendrait, avec les équipements amovibles qu'il faudrait emprunter
+     */
+    public static class RoomCandidate {
+
+        private final Room room;
+        private final Set<Equipment> removableEquipments;
+
+        public RoomCandidate(Room room, Set<Equipment> removableEquipments) {
+            this.room = room;
+            this.removableEquipments = removableEquipments;
+        }
+
+        public Room getRoom() {
+            return room;
+        }
+
+        public Set<Equipment> getRemovableEquipments() {
+            return removableEquipments;
+        }
+    }
+}
@@ -20,6 +20,47 @@ public enum TimeSlot {
     EIGHTEEN_NINETEEN,
     NINETEEN_TWENTY;
 
+    /**
+     * @return le masque binaire de ce créneau : un bit par créneau, à la position de son rang dans la journée
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Une salle ne peut être réservée à ce créneau que si elle est libre à ce créneau et au créneau précédent
+     * (créneau de nettoyage)
+     *
+     * @return le masque binaire de ce créneau et du créneau précédent s'il existe
+     */
+    public int bookingMask() {
+        return bookingMaskOf(mask());
+    }
+
+    /**
+     * @param firstTimeSlot le premier créneau
+     * @param count le nombre de créneaux consécutifs
+     * @return le masque binaire des 'count' créneaux consécutifs à partir de 'firstTimeSlot'
+     * @throws IllegalArgumentException si les créneaux dépassent la fin de la journée
+     */
+    public static int rangeMask(TimeSlot firstTimeSlot, int count) {
+        if (count < 1 || firstTimeSlot.ordinal() + count > values().length) {
+            throw new IllegalArgumentException(count + " créneaux à partir de " + firstTimeSlot + " dépassent la fin de la journée");
+        }
+        return ((1 << count) - 1) << firstTimeSlot.ordinal();
+    }
+
+    /**
+     * Une salle ne peut être réservée à des créneaux que si elle est libre à ces créneaux et au créneau
+     * précédant chacun d'eux : pour des créneaux consécutifs, il s'agit du seul créneau précédant le premier
+     *
+     * @param timeSlotsMask un masque binaire de créneaux (voir {@link #mask()})
+     * @return le masque binaire de ces créneaux et de leurs créneaux précédents
+     */
+    public static int bookingMaskOf(int timeSlotsMask) {
+        return timeSlotsMask | (timeSlotsMask >>> 1);
+    }
+
     public Optional<TimeSlot> previousSlot() {
         switch(this) {
             case EIGHT_NINE: return Optional.empty();
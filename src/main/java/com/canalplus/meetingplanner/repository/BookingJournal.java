@@ -0,0 +1,724 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Booking;
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal des réservations sur disque, en ajout seul, pour retrouver l'état des réservations après un redémarrage
+ *
+ * Chaque réservation (ou annulation) validée en mémoire est ajoutée au journal sous forme d'un enregistrement
+ * de taille fixe (voir {@link #RECORD_SIZE}), protégé par une somme de contrôle. Les enregistrements sont écrits
+ * par un seul thread, par lots : toutes les réservations arrivées pendant l'écriture et le fsync d'un lot
+ * partagent le fsync du lot suivant (group commit). Une réservation n'est confirmée qu'une fois son lot sur disque.
+ *
+ * Le thread d'écriture rejoue aussi chaque lot écrit sur une copie compacte de l'état des réservations
+ * (voir {@link DayState}) : tous les {@code snapshotInterval} enregistrements, il commence un nouveau segment
+ * de journal et écrit un instantané de cette copie, qui remplace les segments et instantanés précédents.
+ * L'instantané correspond donc exactement au début du nouveau segment, sans bloquer les réservations.
+ *
+ * Au démarrage, l'état est reconstruit à partir du dernier instantané puis des segments suivants, lus
+ * séquentiellement en mémoire mappée. Un enregistrement incomplet ou corrompu (arrêt brutal pendant une écriture)
+ * marque la fin du segment.
+ *
+ * Les salles sont identifiées par leur position dans la liste des salles : chaque fichier commence par
+ * les noms des salles dans cet ordre, ce qui permet de relire un fichier écrit avec une autre liste de salles.
+ *
+ * Un enregistrement peut aussi porter la réservation d'une réunion (voir {@link BookingState}) : son numéro,
+ * ses créneaux, le type de la réunion et son nombre de participants. Les réservations en cours sont ainsi indexées
+ * par numéro dans l'état restauré, et peuvent être annulées ou déplacées après un redémarrage. Le nom de la réunion
+ * n'est pas enregistré. Les segments et instantanés écrits avant les numéros de réservation restent lisibles.
+ */
+public class BookingJournal implements Closeable {
+
+    static final int RECORD_SIZE = 32;
+
+    /**
+     * Taille des enregistrements des segments écrits avant les numéros de réservation
+     */
+    private static final int LEGACY_RECORD_SIZE = 16;
+
+    private static final int SEGMENT_MAGIC = 0x4D504A32;
+    private static final int LEGACY_SEGMENT_MAGIC = 0x4D504A31;
+    private static final int SNAPSHOT_MAGIC = 0x4D505332;
+    private static final int LEGACY_SNAPSHOT_MAGIC = 0x4D505331;
+
+    /**
+     * Numéro de réservation d'un enregistrement qui ne porte pas de réservation (les numéros commencent
+     * à l'heure de démarrage, et ne sont jamais nuls)
+     */
+    private static final long NO_BOOKING = 0;
+
+    private static final byte BOOKING = 1;
+    private static final byte RELEASE = 2;
+
+    private static final TimeSlot[] TIME_SLOTS = TimeSlot.values();
+    private static final Equipment[] EQUIPMENTS = Equipment.values();
+    private static final MeetingType[] MEETING_TYPES = MeetingType.values();
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.snap");
+
+    private final Path directory;
+    private final List<String> roomNames;
+    /**
+     * Position de chaque salle par nom, pour relire les en-têtes des fichiers sans parcourir la liste des salles
+     */
+    private final Map<String, Integer> positionsByName = new HashMap<>();
+    private final int snapshotInterval;
+    private final Supplier<LocalDate> today;
+
+    /**
+     * Copie de l'état des réservations, par journée (en nombre de jours depuis le 01/01/1970)
+     * Modifiée uniquement par le thread d'écriture, une fois l'état restauré
+     */
+    private final Map<Long, DayState> dayStates = new HashMap<>();
+
+    private final Object lock = new Object();
+    private ByteBuffer pendingRecords = ByteBuffer.allocate(64 * RECORD_SIZE);
+    private ByteBuffer writtenRecords = ByteBuffer.allocate(64 * RECORD_SIZE);
+    private long appendedCount;
+    private long durableCount;
+    private boolean closed;
+    private IOException failure;
+
+    private long segment;
+    private FileChannel segmentChannel;
+    private long recordsSinceSnapshot;
+    private Thread writerThread;
+
+    private BookingJournal(Path directory, List<Room> rooms, int snapshotInterval, Supplier<LocalDate> today) {
+        this.directory = directory;
+        this.roomNames = rooms.stream().map(Room::getName).collect(Collectors.toList());
+        for (int position = roomNames.size() - 1; position >= 0; position--) {
+            positionsByName.put(roomNames.get(position), position);
+        }
+        this.snapshotInterval = snapshotInterval;
+        this.today = today;
+    }
+
+    /**
+     * Restaure l'état des réservations à partir du répertoire du journal, puis ouvre un nouveau segment
+     *
+     * @param directory le répertoire du journal (créé s'il n'existe pas)
+     * @param rooms la liste des salles, dans l'ordre de l'index des salles
+     * @param snapshotInterval le nombre d'enregistrements entre deux instantanés
+     * @param today la date du jour : les journées passées ne sont pas conservées dans les instantanés
+     */
+    public static BookingJournal open(Path directory, List<Room> rooms, int snapshotInterval, Supplier<LocalDate> today) throws IOException {
+        BookingJournal bookingJournal = new BookingJournal(directory, rooms, snapshotInterval, today);
+        Files.createDirectories(directory);
+        bookingJournal.restore();
+
+        // On repart d'un instantané à jour : le prochain démarrage n'aura que le nouveau segment à relire
+        bookingJournal.segment++;
+        bookingJournal.startSegment();
+        bookingJournal.writerThread = new Thread(bookingJournal::writeLoop, "booking-journal-writer");
+        bookingJournal.writerThread.setDaemon(true);
+        bookingJournal.writerThread.start();
+        return bookingJournal;
+    }
+
+    /**
+     * @return l'état des réservations restauré à l'ouverture du journal, par journée
+     */
+    public Map<LocalDate, DayState> getRestoredDays() {
+        Map<LocalDate, DayState> restoredDays = new TreeMap<>();
+        dayStates.forEach((epochDay, dayState) -> restoredDays.put(LocalDate.ofEpochDay(epochDay), dayState));
+        return restoredDays;
+    }
+
+    /**
+     * Ajoute une réservation au journal, sans attendre son écriture sur disque
+     *
+     * @return le numéro de l'enregistrement, à passer à {@link #awaitDurable(long)}
+     */
+    public long appendBooking(LocalDate date, int roomPosition, TimeSlot timeSlot, int equipmentsMask) {
+        return append(BOOKING, date, roomPosition, timeSlot.mask(), equipmentsMask, null);
+    }
+
+    /**
+     * Ajoute au journal une réservation de plusieurs créneaux consécutifs, en un seul enregistrement
+     *
+     * @param timeSlotsMask les créneaux réservés (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @return le numéro de l'enregistrement, à passer à {@link #awaitDurable(long)}
+     */
+    public long appendBooking(LocalDate date, int roomPosition, int timeSlotsMask, int equipmentsMask) {
+        return appendBooking(date, roomPosition, timeSlotsMask, equipmentsMask, null);
+    }
+
+    /**
+     * Ajoute au journal une réservation de plusieurs créneaux consécutifs, et indexe par son numéro la réservation
+     * de la réunion qui les occupe : déplacée dans la même salle, une réservation ne réserve que ses nouveaux créneaux
+     *
+     * @param timeSlotsMask les créneaux réservés par l'enregistrement (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @param booking la réservation de la réunion, dans la salle à cette position, ou null
+     * @return le numéro de l'enregistrement, à passer à {@link #awaitDurable(long)}
+     */
+    public long appendBooking(LocalDate date, int roomPosition, int timeSlotsMask, int equipmentsMask, Booking booking) {
+        return append(BOOKING, date, roomPosition, timeSlotsMask, equipmentsMask, booking);
+    }
+
+    /**
+     * Ajoute une annulation de réservation au journal, sans attendre son écriture sur disque
+     *
+     * @return le numéro de l'enregistrement, à passer à {@link #awaitDurable(long)}
+     */
+    public long appendRelease(LocalDate date, int roomPosition, TimeSlot timeSlot, int equipmentsMask) {
+        return append(RELEASE, date, roomPosition, timeSlot.mask(), equipmentsMask, null);
+    }
+
+    /**
+     * Ajoute au journal l'annulation d'une réservation de plusieurs créneaux consécutifs, en un seul enregistrement
+     *
+     * @param timeSlotsMask les créneaux libérés (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @return le numéro de l'enregistrement, à passer à {@link #awaitDurable(long)}
+     */
+    public long appendRelease(LocalDate date, int roomPosition, int timeSlotsMask, int equipmentsMask) {
+        return appendRelease(date, roomPosition, timeSlotsMask, equipmentsMask, null);
+    }
+
+    /**
+     * Ajoute au journal l'annulation d'une réservation de plusieurs créneaux consécutifs, et retire de l'index
+     * la réservation annulée, si son numéro y désigne toujours une réunion de cette salle à ce premier créneau
+     *
+     * @param timeSlotsMask les créneaux libérés (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @param booking la réservation à retirer de l'index, ou null
+     * @return le numéro de l'enregistrement, à passer à {@link #awaitDurable(long)}
+     */
+    public long appendRelease(LocalDate date, int roomPosition, int timeSlotsMask, int equipmentsMask, Booking booking) {
+        return append(RELEASE, date, roomPosition, timeSlotsMask, equipmentsMask, booking);
+    }
+
+    /**
+     * Attend que l'enregistrement et tous les précédents soient écrits sur disque
+     *
+     * @throws UncheckedIOException si l'écriture du journal a échoué
+     */
+    public void awaitDurable(long recordNumber) {
+        synchronized (lock) {
+            while (durableCount < recordNumber && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrompu en attendant l'écriture du journal des réservations", e);
+                }
+            }
+            if (durableCount < recordNumber) {
+                throw new UncheckedIOException("Échec de l'écriture du journal des réservations", failure);
+            }
+        }
+    }
+
+    /**
+     * Écrit les derniers enregistrements et ferme le journal
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segmentChannel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private long append(byte type, LocalDate date, int roomPosition, int timeSlotsMask, int equipmentsMask, Booking booking) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Le journal des réservations est fermé");
+            }
+            if (pendingRecords.remaining() < RECORD_SIZE) {
+                pendingRecords = ByteBuffer.allocate(pendingRecords.capacity() * 2).put(pendingRecords.flip());
+            }
+            int start = pendingRecords.position();
+            // Les créneaux sont consécutifs : premier créneau, puis nombre de créneaux suivants
+            // (0 pour un seul créneau, ce qui garde lisibles les journaux écrits avant les réunions sur plusieurs créneaux)
+            pendingRecords.put(type)
+                    .put((byte) Integer.numberOfTrailingZeros(timeSlotsMask))
+                    .put((byte) equipmentsMask)
+                    .put((byte) (Integer.bitCount(timeSlotsMask) - 1))
+                    .putInt(Math.toIntExact(date.toEpochDay()))
+                    .putInt(roomPosition);
+            if (booking != null) {
+                pendingRecords.putLong(booking.getId())
+                        .put((byte) booking.getTimeSlot().ordinal())
+                        .put((byte) booking.getDuration())
+                        .put((byte) booking.getType().ordinal())
+                        .put((byte) 0)
+                        .putInt(booking.getEmployeesNumber());
+            } else {
+                pendingRecords.putLong(NO_BOOKING).putLong(0);
+            }
+            pendingRecords.putInt(checksum(pendingRecords, start, pendingRecords.position()));
+            appendedCount++;
+            lock.notifyAll();
+            return appendedCount;
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            long batchEnd;
+            synchronized (lock) {
+                while (pendingRecords.position() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pendingRecords.position() == 0) {
+                    return;
+                }
+                ByteBuffer batch = pendingRecords;
+                pendingRecords = writtenRecords.clear();
+                writtenRecords = batch;
+                batchEnd = appendedCount;
+            }
+
+            try {
+                writtenRecords.flip();
+                while (writtenRecords.hasRemaining()) {
+                    segmentChannel.write(writtenRecords);
+                }
+                segmentChannel.force(false);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    closed = true;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                durableCount = batchEnd;
+                lock.notifyAll();
+            }
+
+            writtenRecords.flip();
+            while (writtenRecords.hasRemaining()) {
+                applyRecord(writtenRecords, null, RECORD_SIZE);
+                recordsSinceSnapshot++;
+            }
+            if (recordsSinceSnapshot >= snapshotInterval) {
+                try {
+                    segment++;
+                    startSegment();
+                } catch (IOException e) {
+                    synchronized (lock) {
+                        failure = e;
+                        closed = true;
+                        lock.notifyAll();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Écrit l'instantané correspondant au début d'un nouveau segment, ouvre ce segment,
+     * puis supprime les segments et instantanés précédents
+     */
+    private void startSegment() throws IOException {
+        dayStates.keySet().removeIf(epochDay -> epochDay < today.get().toEpochDay());
+        writeSnapshot();
+
+        FileChannel previousSegmentChannel = segmentChannel;
+        segmentChannel = FileChannel.open(directory.resolve(segmentFileName(segment)), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = header(SEGMENT_MAGIC);
+        while (header.hasRemaining()) {
+            segmentChannel.write(header);
+        }
+        segmentChannel.force(true);
+        if (previousSegmentChannel != null) {
+            previousSegmentChannel.close();
+        }
+        recordsSinceSnapshot = 0;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                long fileSegment = segmentOf(file, SEGMENT_FILE).orElse(segmentOf(file, SNAPSHOT_FILE).orElse(segment));
+                if (fileSegment < segment) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        int slotsAndEquipments = TIME_SLOTS.length * EQUIPMENTS.length;
+        ByteBuffer header = header(SNAPSHOT_MAGIC);
+        int bookingsCount = dayStates.values().stream().mapToInt(dayState -> dayState.bookingsById.size()).sum();
+        ByteBuffer snapshot = ByteBuffer.allocate(header.remaining() + Integer.BYTES
+                + dayStates.size() * (Long.BYTES + Integer.BYTES * (roomNames.size() + slotsAndEquipments + 1))
+                + bookingsCount * BookingState.SNAPSHOT_SIZE + Integer.BYTES);
+        snapshot.put(header).putInt(dayStates.size());
+        for (Map.Entry<Long, DayState> dayState : new TreeMap<>(dayStates).entrySet()) {
+            snapshot.putLong(dayState.getKey());
+            Arrays.stream(dayState.getValue().bookedTimeSlotsByRoom).forEach(snapshot::putInt);
+            Arrays.stream(dayState.getValue().borrowedEquipments).forEach(snapshot::putInt);
+            snapshot.putInt(dayState.getValue().bookingsById.size());
+            for (BookingState bookingState : dayState.getValue().bookingsById.values()) {
+                snapshot.putLong(bookingState.id)
+                        .putInt(bookingState.roomPosition)
+                        .put((byte) bookingState.timeSlot.ordinal())
+                        .put((byte) bookingState.duration)
+                        .put((byte) bookingState.type.ordinal())
+                        .put((byte) bookingState.equipmentsMask)
+                        .putInt(bookingState.employeesNumber);
+            }
+        }
+        snapshot.putInt(checksum(snapshot, 0, snapshot.position()));
+        snapshot.flip();
+
+        Path snapshotFile = directory.resolve(snapshotFileName(segment));
+        Path temporaryFile = directory.resolve(snapshotFileName(segment) + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+            channel.force(true);
+        }
+        Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void restore() throws IOException {
+        List<Long> snapshots = listSegments(SNAPSHOT_FILE);
+        List<Long> segments = listSegments(SEGMENT_FILE);
+        long firstSegment = 0;
+        if (!snapshots.isEmpty()) {
+            firstSegment = snapshots.get(snapshots.size() - 1);
+            readSnapshot(directory.resolve(snapshotFileName(firstSegment)));
+        }
+        segment = firstSegment;
+
+        for (long segmentToReplay : segments) {
+            if (segmentToReplay >= firstSegment) {
+                replaySegment(directory.resolve(segmentFileName(segmentToReplay)));
+                segment = segmentToReplay;
+            }
+        }
+    }
+
+    private void readSnapshot(Path snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int checksumPosition = snapshot.limit() - Integer.BYTES;
+            if (checksumPosition < 0 || snapshot.getInt(checksumPosition) != checksum(snapshot, 0, checksumPosition)) {
+                throw new IOException("Instantané des réservations corrompu : " + snapshotFile);
+            }
+            boolean legacy = snapshot.limit() >= Integer.BYTES && snapshot.getInt(0) == LEGACY_SNAPSHOT_MAGIC;
+            int[] positions = readHeader(snapshot, legacy ? LEGACY_SNAPSHOT_MAGIC : SNAPSHOT_MAGIC, snapshotFile);
+            int slotsAndEquipments = TIME_SLOTS.length * EQUIPMENTS.length;
+            int daysCount = snapshot.getInt();
+            for (int day = 0; day < daysCount; day++) {
+                DayState dayState = dayStates.computeIfAbsent(snapshot.getLong(), epochDay -> new DayState(roomNames.size()));
+                for (int position : positions) {
+                    int bookedTimeSlots = snapshot.getInt();
+                    if (position >= 0) {
+                        dayState.bookedTimeSlotsByRoom[position] = bookedTimeSlots;
+                    }
+                }
+                for (int i = 0; i < slotsAndEquipments; i++) {
+                    dayState.borrowedEquipments[i] = snapshot.getInt();
+                }
+                for (int bookingsCount = legacy ? 0 : snapshot.getInt(); bookingsCount > 0; bookingsCount--) {
+                    long bookingId = snapshot.getLong();
+                    int roomPosition = snapshot.getInt();
+                    int timeSlot = snapshot.get();
+                    int duration = snapshot.get();
+                    int meetingType = snapshot.get();
+                    int equipmentsMask = snapshot.get();
+                    int employeesNumber = snapshot.getInt();
+                    if (roomPosition < positions.length && positions[roomPosition] >= 0) {
+                        BookingState.of(bookingId, positions[roomPosition], timeSlot, duration, meetingType, equipmentsMask, employeesNumber)
+                                .ifPresent(bookingState -> dayState.bookingsById.put(bookingId, bookingState));
+                    }
+                }
+            }
+        }
+    }
+
+    private void replaySegment(Path segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            boolean legacy = records.limit() >= Integer.BYTES && records.getInt(0) == LEGACY_SEGMENT_MAGIC;
+            int recordSize = legacy ? LEGACY_RECORD_SIZE : RECORD_SIZE;
+            int[] positions = readHeader(records, legacy ? LEGACY_SEGMENT_MAGIC : SEGMENT_MAGIC, segmentFile);
+            while (records.remaining() >= recordSize) {
+                int checksumPosition = records.position() + recordSize - Integer.BYTES;
+                if (records.getInt(checksumPosition) != checksum(records, records.position(), checksumPosition)) {
+                    // Fin d'un segment interrompu en cours d'écriture
+                    break;
+                }
+                applyRecord(records, positions, recordSize);
+            }
+        }
+    }
+
+    /**
+     * Applique un enregistrement à la copie de l'état des réservations
+     *
+     * @param positions la position actuelle de chaque salle du fichier (-1 si elle n'existe plus),
+     * ou null si le fichier utilise la liste de salles actuelle
+     * @param recordSize la taille des enregistrements du fichier : {@link #RECORD_SIZE}, ou {@link #LEGACY_RECORD_SIZE}
+     * pour un segment sans numéros de réservation
+     */
+    private void applyRecord(ByteBuffer records, int[] positions, int recordSize) {
+        byte type = records.get();
+        int timeSlot = records.get();
+        int equipmentsMask = records.get();
+        int nextTimeSlots = records.get();
+        long epochDay = records.getInt();
+        int roomPosition = records.getInt();
+        long bookingId = NO_BOOKING;
+        int bookingTimeSlot = 0;
+        int bookingDuration = 0;
+        int meetingType = 0;
+        int employeesNumber = 0;
+        if (recordSize == RECORD_SIZE) {
+            bookingId = records.getLong();
+            bookingTimeSlot = records.get();
+            bookingDuration = records.get();
+            meetingType = records.get();
+            records.get();
+            employeesNumber = records.getInt();
+        }
+        records.getInt();
+
+        if (positions != null) {
+            roomPosition = roomPosition < positions.length ? positions[roomPosition] : -1;
+        }
+        if (roomPosition < 0) {
+            return;
+        }
+        if (bookingId != NO_BOOKING) {
+            DayState dayState = dayStates.computeIfAbsent(epochDay, newEpochDay -> new DayState(roomNames.size()));
+            if (type == BOOKING) {
+                BookingState.of(bookingId, roomPosition, bookingTimeSlot, bookingDuration, meetingType, equipmentsMask, employeesNumber)
+                        .ifPresent(bookingState -> dayState.bookingsById.put(bookingState.id, bookingState));
+            } else {
+                // Le numéro peut déjà désigner la réservation déplacée vers une autre salle ou un autre créneau de la journée
+                BookingState bookingState = dayState.bookingsById.get(bookingId);
+                if (bookingState != null && bookingState.roomPosition == roomPosition && bookingState.timeSlot.ordinal() == bookingTimeSlot) {
+                    dayState.bookingsById.remove(bookingId);
+                }
+            }
+        }
+        // Un déplacement dans les créneaux déjà réservés n'a aucun créneau à réserver
+        if (timeSlot < 0 || nextTimeSlots < 0 || timeSlot + nextTimeSlots >= TIME_SLOTS.length) {
+            return;
+        }
+
+        DayState dayState = dayStates.computeIfAbsent(epochDay, newEpochDay -> new DayState(roomNames.size()));
+        int timeSlotsMask = TimeSlot.rangeMask(TIME_SLOTS[timeSlot], nextTimeSlots + 1);
+        int count = type == BOOKING ? 1 : -1;
+        if (type == BOOKING) {
+            dayState.bookedTimeSlotsByRoom[roomPosition] |= timeSlotsMask;
+        } else {
+            dayState.bookedTimeSlotsByRoom[roomPosition] &= ~timeSlotsMask;
+        }
+        for (int slot = timeSlot; slot <= timeSlot + nextTimeSlots; slot++) {
+            for (Equipment equipment : EQUIPMENTS) {
+                if ((equipmentsMask & equipment.mask()) != 0) {
+                    dayState.borrowedEquipments[slot * EQUIPMENTS.length + equipment.ordinal()] += count;
+                }
+            }
+        }
+    }
+
+    private ByteBuffer header(int magic) {
+        List<byte[]> names = roomNames.stream().map(name -> name.getBytes(StandardCharsets.UTF_8)).collect(Collectors.toList());
+        ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES + names.stream().mapToInt(name -> Integer.BYTES + name.length).sum());
+        header.putInt(magic).putInt(names.size());
+        names.forEach(name -> header.putInt(name.length).put(name));
+        return header.flip();
+    }
+
+    /**
+     * @return la position actuelle de chaque salle listée dans l'en-tête du fichier (-1 si elle n'existe plus)
+     */
+    private int[] readHeader(ByteBuffer file, int magic, Path path) throws IOException {
+        if (file.remaining() < 2 * Integer.BYTES || file.getInt() != magic) {
+            throw new IOException("Fichier de journal des réservations invalide : " + path);
+        }
+        int[] positions = new int[file.getInt()];
+        for (int i = 0; i < positions.length; i++) {
+            byte[] name = new byte[file.getInt()];
+            file.get(name);
+            positions[i] = positionsByName.getOrDefault(new String(name, StandardCharsets.UTF_8), -1);
+        }
+        return positions;
+    }
+
+    private List<Long> listSegments(Pattern fileNamePattern) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> segmentOf(file, fileNamePattern))
+                    .flatMap(Optional::stream)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Optional<Long> segmentOf(Path file, Pattern fileNamePattern) {
+        Matcher matcher = fileNamePattern.matcher(file.getFileName().toString());
+        return matcher.matches() ? Optional.of(Long.parseLong(matcher.group(1))) : Optional.empty();
+    }
+
+    private static String segmentFileName(long segment) {
+        return String.format("journal-%016d.log", segment);
+    }
+
+    private static String snapshotFileName(long segment) {
+        return String.format("snapshot-%016d.snap", segment);
+    }
+
+    /**
+     * @return la somme de contrôle des octets de 'buffer' entre les positions 'start' (incluse) et 'end' (exclue)
+     */
+    private static int checksum(ByteBuffer buffer, int start, int end) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(end).position(start));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * État des réservations d'une journée tel que connu du journal (ou du fichier d'état, voir {@link BookingStateFile})
+     */
+    public static final class DayState {
+        final int[] bookedTimeSlotsByRoom;
+        final int[] borrowedEquipments = new int[TIME_SLOTS.length * EQUIPMENTS.length];
+        final Map<Long, BookingState> bookingsById = new HashMap<>();
+
+        DayState(int roomsCount) {
+            this.bookedTimeSlotsByRoom = new int[roomsCount];
+        }
+
+        /**
+         * @return le masque des créneaux réservés de la salle à cette position (voir {@link TimeSlot#mask()})
+         */
+        public int getBookedTimeSlots(int roomPosition) {
+            return bookedTimeSlotsByRoom[roomPosition];
+        }
+
+        /**
+         * @return le nombre d'équipements amovibles de ce type empruntés à ce créneau
+         */
+        public int getBorrowedCount(TimeSlot timeSlot, Equipment equipment) {
+            return borrowedEquipments[timeSlot.ordinal() * EQUIPMENTS.length + equipment.ordinal()];
+        }
+
+        /**
+         * @return les réservations de réunions en cours ce jour-là, indexées par numéro
+         */
+        public Collection<BookingState> getBookings() {
+            return bookingsById.values();
+        }
+    }
+
+    /**
+     * Réservation d'une réunion telle que connue du journal (ou du fichier d'état), sans le nom de la réunion
+     */
+    public static final class BookingState {
+        /**
+         * Taille d'une réservation dans un instantané
+         */
+        static final int SNAPSHOT_SIZE = Long.BYTES + 2 * Integer.BYTES + 4;
+
+        final long id;
+        final int roomPosition;
+        final TimeSlot timeSlot;
+        final int duration;
+        final MeetingType type;
+        final int employeesNumber;
+        final int equipmentsMask;
+
+        BookingState(long id, int roomPosition, TimeSlot timeSlot, int duration, MeetingType type, int employeesNumber, int equipmentsMask) {
+            this.id = id;
+            this.roomPosition = roomPosition;
+            this.timeSlot = timeSlot;
+            this.duration = duration;
+            this.type = type;
+            this.employeesNumber = employeesNumber;
+            this.equipmentsMask = equipmentsMask;
+        }
+
+        /**
+         * @return la réservation lue dans un fichier, ou Optional.empty() si son premier créneau, sa durée
+         * ou le type de la réunion n'existent pas
+         */
+        static Optional<BookingState> of(long id, int roomPosition, int timeSlot, int duration, int meetingType,
+                                         int equipmentsMask, int employeesNumber) {
+            if (timeSlot < 0 || duration < 1 || timeSlot + duration > TIME_SLOTS.length
+                    || meetingType < 0 || meetingType >= MEETING_TYPES.length) {
+                return Optional.empty();
+            }
+            return Optional.of(new BookingState(id, roomPosition, TIME_SLOTS[timeSlot], duration, MEETING_TYPES[meetingType],
+                    employeesNumber, equipmentsMask));
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * @return la position de la salle réservée dans la liste des salles
+         */
+        public int getRoomPosition() {
+            return roomPosition;
+        }
+
+        public TimeSlot getTimeSlot() {
+            return timeSlot;
+        }
+
+        public int getDuration() {
+            return duration;
+        }
+
+        public MeetingType getType() {
+            return type;
+        }
+
+        public int getEmployeesNumber() {
+            return employeesNumber;
+        }
+
+        /**
+         * @return les équipements amovibles empruntés à chacun des créneaux (voir {@link Equipment#maskOf(java.util.Set)})
+         */
+        public int getEquipmentsMask() {
+            return equipmentsMask;
+        }
+    }
+}
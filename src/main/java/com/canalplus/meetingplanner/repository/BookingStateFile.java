@@ -0,0 +1,537 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Booking;
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * État des réservations dans un fichier mappé en mémoire, relu tel quel au redémarrage, sans rejouer d'historique
+ *
+ * Le fichier a une disposition binaire fixe (petit-boutiste) :
+ * - un en-tête : un nombre magique, l'indicateur de fermeture propre, le nombre de journées, puis les noms des salles
+ *   dans l'ordre de la liste des salles
+ * - une zone par journée, à la position (jour depuis le 01/01/1970 modulo le nombre de journées) : le jour occupant
+ *   la zone, les équipements amovibles empruntés à chaque créneau (16 bits par type d'équipement, comme dans
+ *   {@link RemovableEquipmentPool}), le masque des créneaux réservés de chaque salle (voir {@link TimeSlot#mask()}),
+ *   puis, pour chaque salle et chaque créneau, la réservation de réunion qui commence à ce créneau : son numéro
+ *   (0 si aucune), le nombre de participants, le type de la réunion, le nombre de créneaux et les équipements empruntés
+ * Le nombre de journées dépasse la longueur de l'horizon de réservation : deux journées réservables n'occupent jamais
+ * la même zone, et la zone d'une journée passée est remise à zéro par la première journée qui la réclame.
+ *
+ * Chaque réservation ou annulation faite en mémoire est reportée dans le fichier par des opérations atomiques
+ * (OU et ET binaires sur les masques, additions sur les compteurs) qui commutent entre elles, sans verrou.
+ * Une réservation est reportée après avoir été faite en mémoire, une annulation avant d'être faite en mémoire :
+ * le fichier ne contient jamais de réservation inconnue de la mémoire, et une salle libérée ne peut être réservée
+ * de nouveau qu'une fois sa libération reportée dans le fichier.
+ *
+ * Les écritures vont dans le cache de pages du système : elles survivent à un arrêt, même brutal, de la JVM,
+ * mais pas à celui de la machine avant {@link #force()}. Le journal des réservations (voir {@link BookingJournal})
+ * reste la solution durable. L'indicateur de fermeture propre n'est levé par {@link #close()} qu'une fois toutes
+ * les pages écrites sur disque, et il est baissé sur disque dès l'ouverture : un fichier qui n'a pas été fermé
+ * proprement (voir {@link #wasClosedCleanly()}) peut avoir perdu des écritures, et doit céder la place au journal.
+ *
+ * Un fichier écrit avec une autre liste de salles ou un autre nombre de journées est recopié aux nouvelles dimensions,
+ * en retrouvant les salles par leur nom : les salles supprimées perdent leurs réservations, comme en mémoire.
+ * Un fichier écrit avant les numéros de réservation est recopié de la même façon, sans réservation indexée.
+ */
+public class BookingStateFile implements Closeable {
+
+    private static final int MAGIC = 0x4D505348;
+
+    /**
+     * Nombre magique d'un fichier écrit avant les numéros de réservation, sans réservations de réunions dans ses zones
+     */
+    private static final int LEGACY_MAGIC = 0x4D505347;
+
+    /**
+     * Position de l'indicateur de fermeture propre dans l'en-tête : 1 si le fichier a été fermé après avoir été
+     * écrit sur disque, 0 s'il est ouvert ou vient d'être créé
+     */
+    private static final int CLOSED_CLEANLY_OFFSET = Integer.BYTES;
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final TimeSlot[] TIME_SLOTS = TimeSlot.values();
+    private static final Equipment[] EQUIPMENTS = Equipment.values();
+
+    /**
+     * Positions des compteurs d'équipements amovibles, puis des masques des salles, dans la zone d'une journée
+     * La zone commence par le jour qui l'occupe, plus un (0 pour une zone libre).
+     */
+    private static final int COUNTERS_OFFSET = Long.BYTES;
+    private static final int ROOMS_OFFSET = COUNTERS_OFFSET + TIME_SLOTS.length * Long.BYTES;
+
+    /**
+     * Taille d'une réservation de réunion dans la zone d'une journée, et positions de ses champs :
+     * le numéro de la réservation vient en premier, et n'est écrit qu'une fois les autres champs écrits
+     */
+    private static final int BOOKING_SIZE = 2 * Long.BYTES;
+    private static final int EMPLOYEES_NUMBER_OFFSET = Long.BYTES;
+    private static final int MEETING_TYPE_OFFSET = EMPLOYEES_NUMBER_OFFSET + Integer.BYTES;
+    private static final int DURATION_OFFSET = MEETING_TYPE_OFFSET + 1;
+    private static final int EQUIPMENTS_OFFSET = DURATION_OFFSET + 1;
+
+    private final Path path;
+    private final int daysCount;
+    private final boolean closedCleanly;
+
+    /**
+     * Protège le remplacement du fichier après un changement de la liste des salles
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Mapping mapping;
+
+    private BookingStateFile(Path path, int daysCount, Mapping mapping, boolean closedCleanly) {
+        this.path = path;
+        this.daysCount = daysCount;
+        this.mapping = mapping;
+        this.closedCleanly = closedCleanly;
+        // Les écritures qui suivent ne sont plus garanties sur disque avant la prochaine fermeture
+        mapping.buffer.putInt(CLOSED_CLEANLY_OFFSET, 0);
+        mapping.buffer.force();
+    }
+
+    /**
+     * Ouvre le fichier d'état des réservations, en le créant s'il n'existe pas
+     *
+     * @param path le fichier
+     * @param rooms la liste des salles, dans l'ordre de l'index des salles
+     * @param daysCount le nombre de journées du fichier, supérieur au nombre de journées réservables
+     */
+    public static BookingStateFile open(Path path, List<Room> rooms, int daysCount) throws IOException {
+        List<String> roomNames = namesOf(rooms);
+        if (!Files.exists(path)) {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            return new BookingStateFile(path, daysCount, Mapping.create(path, roomNames, daysCount), false);
+        }
+
+        Mapping existingMapping = Mapping.read(path);
+        boolean closedCleanly = existingMapping.buffer.getInt(CLOSED_CLEANLY_OFFSET) == 1;
+        if (existingMapping.bookingsOffset >= 0 && existingMapping.daysCount == daysCount && existingMapping.roomNames.equals(roomNames)) {
+            return new BookingStateFile(path, daysCount, existingMapping, closedCleanly);
+        }
+        return new BookingStateFile(path, daysCount, resize(path, existingMapping, roomNames, daysCount), closedCleanly);
+    }
+
+    /**
+     * @return true si le fichier existait et avait été fermé proprement : il contient alors toutes les réservations
+     * et annulations reportées avant sa fermeture. Un fichier créé à l'ouverture, ou resté ouvert lors d'un arrêt
+     * brutal, peut ne pas être à jour.
+     */
+    public boolean wasClosedCleanly() {
+        return closedCleanly;
+    }
+
+    /**
+     * @return l'état des réservations de chaque journée présente dans le fichier (journées passées comprises),
+     * avec les salles dans l'ordre de la liste des salles
+     */
+    public Map<LocalDate, BookingJournal.DayState> getDays() {
+        lock.readLock().lock();
+        try {
+            Map<LocalDate, BookingJournal.DayState> days = new TreeMap<>();
+            for (int day = 0; day < mapping.daysCount; day++) {
+                int offset = mapping.offsetOf(day);
+                long storedDay = (long) LONGS.getVolatile(mapping.buffer, offset);
+                if (storedDay != 0) {
+                    days.put(LocalDate.ofEpochDay(storedDay - 1), mapping.readDay(offset));
+                }
+            }
+            return days;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remplace le contenu du fichier par l'état des réservations donné (par exemple celui restauré à partir du journal)
+     *
+     * @param days l'état des réservations de chaque journée, avec les salles dans l'ordre de la liste des salles
+     */
+    public void replaceDays(Map<LocalDate, BookingJournal.DayState> days) {
+        lock.writeLock().lock();
+        try {
+            for (int day = 0; day < mapping.daysCount; day++) {
+                LONGS.setVolatile(mapping.buffer, mapping.offsetOf(day), 0L);
+            }
+            days.forEach((date, dayState) -> mapping.writeDay(mapping.dayOffset(date.toEpochDay(), true), dayState));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reporte une réservation faite en mémoire
+     *
+     * @param roomName le nom de la salle réservée
+     * @param timeSlotsMask les créneaux réservés (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @param equipmentsMask les équipements amovibles empruntés à chacun des créneaux (voir {@link Equipment#mask()})
+     */
+    public void book(LocalDate date, String roomName, int timeSlotsMask, int equipmentsMask) {
+        apply(date, roomName, timeSlotsMask, equipmentsMask, false);
+    }
+
+    /**
+     * Reporte l'indexation par son numéro d'une réservation faite en mémoire, après ses créneaux
+     * (voir {@link #book(LocalDate, String, int, int)}) : elle remplace celle qui commençait au même créneau de la même
+     * salle, c'est-à-dire la même réservation, déplacée vers des créneaux qui commencent au même créneau
+     */
+    public void putBooking(Booking booking) {
+        lock.readLock().lock();
+        try {
+            int offset = bookingOffset(booking, true);
+            if (offset < 0) {
+                return;
+            }
+            mapping.buffer.putInt(offset + EMPLOYEES_NUMBER_OFFSET, booking.getEmployeesNumber());
+            mapping.buffer.put(offset + MEETING_TYPE_OFFSET, (byte) booking.getType().ordinal());
+            mapping.buffer.put(offset + DURATION_OFFSET, (byte) booking.getDuration());
+            mapping.buffer.put(offset + EQUIPMENTS_OFFSET, (byte) Equipment.maskOf(booking.getRemovableBorrowedEquipments()));
+            LONGS.setVolatile(mapping.buffer, offset, booking.getId());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retire une réservation de l'index, avant qu'elle soit annulée ou déplacée en mémoire,
+     * si son numéro désigne toujours la réunion qui commence à son premier créneau dans sa salle
+     */
+    public void removeBooking(Booking booking) {
+        lock.readLock().lock();
+        try {
+            int offset = bookingOffset(booking, false);
+            if (offset >= 0) {
+                LONGS.compareAndSet(mapping.buffer, offset, booking.getId(), 0L);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param claim true pour réclamer la zone de la journée de la réservation (voir {@link Mapping#dayOffset(long, boolean)})
+     * @return la position de la réservation dans la zone de sa journée, ou -1 si sa salle n'est pas dans le fichier,
+     * ou si sa journée n'a pas de zone et que 'claim' vaut false
+     */
+    private int bookingOffset(Booking booking, boolean claim) {
+        Integer position = mapping.positionsByName.get(booking.getRoom().getName());
+        int offset = position != null ? mapping.dayOffset(booking.getDate().toEpochDay(), claim) : -1;
+        if (offset < 0) {
+            return -1;
+        }
+        return offset + mapping.bookingsOffset + (position * TIME_SLOTS.length + booking.getTimeSlot().ordinal()) * BOOKING_SIZE;
+    }
+
+    /**
+     * Reporte une annulation, avant qu'elle soit faite en mémoire
+     */
+    public void release(LocalDate date, String roomName, int timeSlotsMask, int equipmentsMask) {
+        apply(date, roomName, timeSlotsMask, equipmentsMask, true);
+    }
+
+    private void apply(LocalDate date, String roomName, int timeSlotsMask, int equipmentsMask, boolean release) {
+        lock.readLock().lock();
+        try {
+            // Une annulation ne réclame pas de zone : sans zone, il n'y a rien à annuler dans le fichier
+            int offset = mapping.dayOffset(date.toEpochDay(), !release);
+            if (offset < 0) {
+                return;
+            }
+            Integer position = mapping.positionsByName.get(roomName);
+            if (position != null) {
+                int roomOffset = offset + ROOMS_OFFSET + position * Integer.BYTES;
+                if (release) {
+                    INTS.getAndBitwiseAnd(mapping.buffer, roomOffset, ~timeSlotsMask);
+                } else {
+                    INTS.getAndBitwiseOr(mapping.buffer, roomOffset, timeSlotsMask);
+                }
+            }
+            if (equipmentsMask != 0) {
+                long units = RemovableEquipmentPool.unitsOf(equipmentsMask);
+                for (int slots = timeSlotsMask; slots != 0; slots &= slots - 1) {
+                    int countersOffset = offset + COUNTERS_OFFSET + Integer.numberOfTrailingZeros(slots) * Long.BYTES;
+                    LONGS.getAndAdd(mapping.buffer, countersOffset, release ? -units : units);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recopie le fichier avec la nouvelle liste des salles, si elle a changé
+     * Les réservations reportées pendant la copie attendent qu'elle se termine.
+     */
+    public void updateRooms(List<Room> rooms) throws IOException {
+        List<String> roomNames = namesOf(rooms);
+        lock.writeLock().lock();
+        try {
+            if (!mapping.roomNames.equals(roomNames)) {
+                mapping = resize(path, mapping, roomNames, daysCount);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Écrit sur disque les pages modifiées du fichier
+     */
+    public void force() {
+        lock.readLock().lock();
+        try {
+            mapping.buffer.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            // L'indicateur n'atteint le disque qu'après toutes les autres pages
+            mapping.buffer.force();
+            mapping.buffer.putInt(CLOSED_CLEANLY_OFFSET, 1);
+            mapping.buffer.force();
+            mapping.channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recopie un fichier aux nouvelles dimensions dans un fichier temporaire, qui remplace ensuite l'ancien
+     */
+    private static Mapping resize(Path path, Mapping source, List<String> roomNames, int daysCount) throws IOException {
+        Path temporaryFile = path.resolveSibling(path.getFileName() + ".tmp");
+        Mapping target = Mapping.create(temporaryFile, roomNames, daysCount);
+
+        // Si deux journées se retrouvent dans la même zone, la plus récente l'emporte
+        List<Integer> storedDays = IntStream.range(0, source.daysCount)
+                .filter(day -> source.buffer.getLong(source.offsetOf(day)) != 0)
+                .boxed()
+                .sorted(Comparator.comparingLong(day -> source.buffer.getLong(source.offsetOf(day))))
+                .collect(Collectors.toList());
+        for (int day : storedDays) {
+            int sourceOffset = source.offsetOf(day);
+            int targetOffset = target.dayOffset(source.buffer.getLong(sourceOffset) - 1, true);
+            for (int slot = 0; slot < TIME_SLOTS.length; slot++) {
+                int countersOffset = COUNTERS_OFFSET + slot * Long.BYTES;
+                target.buffer.putLong(targetOffset + countersOffset, source.buffer.getLong(sourceOffset + countersOffset));
+            }
+            for (int position = 0; position < source.roomNames.size(); position++) {
+                Integer targetPosition = target.positionsByName.get(source.roomNames.get(position));
+                if (targetPosition != null) {
+                    target.buffer.putInt(targetOffset + ROOMS_OFFSET + targetPosition * Integer.BYTES,
+                            source.buffer.getInt(sourceOffset + ROOMS_OFFSET + position * Integer.BYTES));
+                }
+                if (targetPosition != null && source.bookingsOffset >= 0) {
+                    int roomBookingsSize = TIME_SLOTS.length * BOOKING_SIZE;
+                    int sourceBookingsOffset = sourceOffset + source.bookingsOffset + position * roomBookingsSize;
+                    int targetBookingsOffset = targetOffset + target.bookingsOffset + targetPosition * roomBookingsSize;
+                    for (int i = 0; i < roomBookingsSize; i += Long.BYTES) {
+                        target.buffer.putLong(targetBookingsOffset + i, source.buffer.getLong(sourceBookingsOffset + i));
+                    }
+                }
+            }
+        }
+
+        target.buffer.force();
+        source.channel.close();
+        Files.move(temporaryFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    private static List<String> namesOf(List<Room> rooms) {
+        return rooms.stream().map(Room::getName).collect(Collectors.toList());
+    }
+
+    private static int align(long size) {
+        return (int) ((size + Long.BYTES - 1) & -Long.BYTES);
+    }
+
+    /**
+     * Un fichier mappé en mémoire, avec les dimensions lues dans son en-tête
+     */
+    private static final class Mapping {
+        private final List<String> roomNames;
+        private final Map<String, Integer> positionsByName = new HashMap<>();
+        private final int daysCount;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int daysOffset;
+        /**
+         * Position des réservations de réunions dans la zone d'une journée, ou -1 pour un fichier écrit
+         * avant les numéros de réservation
+         */
+        private final int bookingsOffset;
+        private final int dayStride;
+
+        private Mapping(FileChannel channel, List<String> roomNames, int daysCount, int daysOffset, boolean withBookings) throws IOException {
+            this.roomNames = roomNames;
+            this.daysCount = daysCount;
+            this.channel = channel;
+            this.daysOffset = daysOffset;
+            long roomsEnd = align(ROOMS_OFFSET + (long) roomNames.size() * Integer.BYTES);
+            long bookingsEnd = roomsEnd + (long) roomNames.size() * TIME_SLOTS.length * BOOKING_SIZE;
+            this.bookingsOffset = withBookings ? (int) Math.min(roomsEnd, Integer.MAX_VALUE) : -1;
+            this.dayStride = (int) Math.min(withBookings ? bookingsEnd : roomsEnd, Integer.MAX_VALUE);
+            for (int position = roomNames.size() - 1; position >= 0; position--) {
+                positionsByName.put(roomNames.get(position), position);
+            }
+
+            long size = daysOffset + (long) daysCount * dayStride;
+            if (daysCount <= 0 || size > Integer.MAX_VALUE) {
+                channel.close();
+                throw new IllegalArgumentException("Le fichier d'état des réservations ne peut pas contenir " + daysCount
+                        + " journées de " + roomNames.size() + " salles");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        static Mapping create(Path file, List<String> roomNames, int daysCount) throws IOException {
+            List<byte[]> names = roomNames.stream().map(name -> name.getBytes(StandardCharsets.UTF_8)).collect(Collectors.toList());
+            long headerSize = 4 * Integer.BYTES + names.stream().mapToLong(name -> Integer.BYTES + name.length).sum();
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Mapping mapping = new Mapping(channel, roomNames, daysCount, align(headerSize), true);
+
+            ByteBuffer header = mapping.buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(0).putInt(daysCount).putInt(names.size());
+            names.forEach(name -> header.putInt(name.length).put(name));
+            return mapping;
+        }
+
+        static Mapping read(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+                int magic = header.getInt();
+                if (magic != MAGIC && magic != LEGACY_MAGIC) {
+                    throw new BufferUnderflowException();
+                }
+                header.getInt();
+                int daysCount = header.getInt();
+                List<String> roomNames = new ArrayList<>();
+                for (int roomsCount = header.getInt(); roomsCount > 0; roomsCount--) {
+                    byte[] name = new byte[header.getInt()];
+                    header.get(name);
+                    roomNames.add(new String(name, StandardCharsets.UTF_8));
+                }
+                return new Mapping(channel, roomNames, daysCount, align(header.position()), magic == MAGIC);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+                channel.close();
+                throw new IOException("Fichier d'état des réservations invalide : " + file, e);
+            }
+        }
+
+        int offsetOf(int day) {
+            return daysOffset + day * dayStride;
+        }
+
+        /**
+         * @param claim true pour réclamer la zone de la journée, en la remettant à zéro si une autre journée l'occupait
+         * @return la position de la zone de la journée, ou -1 si la journée n'a pas de zone et que 'claim' vaut false
+         */
+        int dayOffset(long epochDay, boolean claim) {
+            int offset = offsetOf((int) Math.floorMod(epochDay, (long) daysCount));
+            if ((long) LONGS.getVolatile(buffer, offset) == epochDay + 1) {
+                return offset;
+            }
+            if (!claim) {
+                return -1;
+            }
+            synchronized (this) {
+                if ((long) LONGS.getVolatile(buffer, offset) != epochDay + 1) {
+                    // La zone est remise à zéro avant d'être attribuée : les autres threads ne voient que la zone vide
+                    for (int position = offset + COUNTERS_OFFSET; position < offset + dayStride; position += Long.BYTES) {
+                        buffer.putLong(position, 0);
+                    }
+                    LONGS.setVolatile(buffer, offset, epochDay + 1);
+                }
+            }
+            return offset;
+        }
+
+        BookingJournal.DayState readDay(int offset) {
+            BookingJournal.DayState dayState = new BookingJournal.DayState(roomNames.size());
+            for (int position = 0; position < roomNames.size(); position++) {
+                dayState.bookedTimeSlotsByRoom[position] = (int) INTS.getVolatile(buffer, offset + ROOMS_OFFSET + position * Integer.BYTES);
+            }
+            for (int slot = 0; slot < TIME_SLOTS.length; slot++) {
+                long counters = (long) LONGS.getVolatile(buffer, offset + COUNTERS_OFFSET + slot * Long.BYTES);
+                for (Equipment equipment : EQUIPMENTS) {
+                    dayState.borrowedEquipments[slot * EQUIPMENTS.length + equipment.ordinal()] = RemovableEquipmentPool.countOf(counters, equipment);
+                }
+            }
+            for (int position = 0; bookingsOffset >= 0 && position < roomNames.size(); position++) {
+                for (int slot = 0; slot < TIME_SLOTS.length; slot++) {
+                    int bookingOffset = offset + bookingsOffset + (position * TIME_SLOTS.length + slot) * BOOKING_SIZE;
+                    long bookingId = (long) LONGS.getVolatile(buffer, bookingOffset);
+                    if (bookingId != 0) {
+                        BookingJournal.BookingState.of(bookingId, position, slot, buffer.get(bookingOffset + DURATION_OFFSET),
+                                buffer.get(bookingOffset + MEETING_TYPE_OFFSET), buffer.get(bookingOffset + EQUIPMENTS_OFFSET),
+                                buffer.getInt(bookingOffset + EMPLOYEES_NUMBER_OFFSET))
+                                .ifPresent(bookingState -> dayState.bookingsById.put(bookingId, bookingState));
+                    }
+                }
+            }
+            return dayState;
+        }
+
+        void writeDay(int offset, BookingJournal.DayState dayState) {
+            for (int position = 0; position < roomNames.size(); position++) {
+                buffer.putInt(offset + ROOMS_OFFSET + position * Integer.BYTES, dayState.bookedTimeSlotsByRoom[position]);
+            }
+            for (int slot = 0; slot < TIME_SLOTS.length; slot++) {
+                long counters = 0;
+                for (Equipment equipment : EQUIPMENTS) {
+                    counters += dayState.borrowedEquipments[slot * EQUIPMENTS.length + equipment.ordinal()] * RemovableEquipmentPool.unitsOf(equipment.mask());
+                }
+                buffer.putLong(offset + COUNTERS_OFFSET + slot * Long.BYTES, counters);
+            }
+            for (BookingJournal.BookingState bookingState : dayState.getBookings()) {
+                int bookingOffset = offset + bookingsOffset + (bookingState.roomPosition * TIME_SLOTS.length + bookingState.timeSlot.ordinal()) * BOOKING_SIZE;
+                buffer.putLong(bookingOffset, bookingState.id);
+                buffer.putInt(bookingOffset + EMPLOYEES_NUMBER_OFFSET, bookingState.employeesNumber);
+                buffer.put(bookingOffset + MEETING_TYPE_OFFSET, (byte) bookingState.type.ordinal());
+                buffer.put(bookingOffset + DURATION_OFFSET, (byte) bookingState.duration);
+                buffer.put(bookingOffset + EQUIPMENTS_OFFSET, (byte) bookingState.equipmentsMask);
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réservations d'une journée : statut de réservation de chaque salle et équipements amovibles empruntés
+ *
+ * Le statut de réservation d'une salle est un masque binaire (un bit par créneau, voir {@link TimeSlot#mask()}),
+ * rangé à la position de la salle dans le tableau de son shard (voir {@link RoomIndex}) : une journée coûte donc
+ * un entier par salle, plus le stock d'équipements amovibles (voir {@link RemovableEquipmentPool}).
+ * Les masques sont modifiés par compare-and-set, ce qui permet des réservations concurrentes sans verrou.
+ * Ils sont rangés dans de simples tableaux d'entiers, parallèles aux colonnes de capacités et d'équipements du shard,
+ * pour que les parcours complets d'un shard (voir {@link RoomIndex#scanAvailability}) lisent des tableaux contigus.
+ * Aucun créneau n'est réservé à la création de la journée.
+ *
+ * Un numéro de version est incrémenté après chaque modification de la journée : deux lectures de même version
+ * voient les mêmes réservations, ce qui permet de réutiliser une vue calculée tant que la version ne change pas.
+ *
+ * Lorsque la liste des salles change, la journée est migrée vers le nouvel index des salles (voir {@link #migrateTo(RoomIndex)}) :
+ * les masques de l'ancienne journée sont scellés un par un, ce qui fait échouer les réservations concurrentes
+ * (qui recommencent alors sur la nouvelle journée) sans perdre celles déjà faites.
+ */
+public class DailyBookings {
+
+    /**
+     * Bit ajouté au masque d'une salle dont le statut a été recopié dans une nouvelle journée
+     */
+    private static final int SEALED = 1 << 31;
+
+    private static final VarHandle BOOKED_TIME_SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final LocalDate date;
+    private final RoomIndex roomIndex;
+    private final int[][] bookedTimeSlotsByShard;
+    private final RemovableEquipmentPool removableEquipmentPool;
+    private final AtomicLong version;
+
+    /**
+     * La journée qui remplace celle-ci après un changement de la liste des salles
+     */
+    private volatile DailyBookings successor;
+
+    /**
+     * @param date la journée
+     * @param roomIndex l'index des salles réservables
+     * @param removableEquipmentsStock le nombre d'équipements amovibles de chaque type disponibles à chaque créneau
+     */
+    public DailyBookings(LocalDate date, RoomIndex roomIndex, Map<Equipment, Integer> removableEquipmentsStock) {
+        this(date, roomIndex, new RemovableEquipmentPool(removableEquipmentsStock), 0);
+    }
+
+    private DailyBookings(LocalDate date, RoomIndex roomIndex, RemovableEquipmentPool removableEquipmentPool, long version) {
+        this.date = date;
+        this.roomIndex = roomIndex;
+        this.removableEquipmentPool = removableEquipmentPool;
+        this.version = new AtomicLong(version);
+        this.bookedTimeSlotsByShard = new int[roomIndex.getShardsCount()][];
+        for (int shard = 0; shard < bookedTimeSlotsByShard.length; shard++) {
+            bookedTimeSlotsByShard[shard] = new int[roomIndex.getShardSize(shard)];
+        }
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * @return l'index des salles de cette journée, à utiliser pour chercher une salle dans cette journée
+     */
+    public RoomIndex getRoomIndex() {
+        return roomIndex;
+    }
+
+    public RemovableEquipmentPool getRemovableEquipmentPool() {
+        return removableEquipmentPool;
+    }
+
+    /**
+     * @return le numéro de version de la journée, incrémenté après chaque modification
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Signale une modification de la journée faite directement sur le stock d'équipements amovibles
+     */
+    void markAsChanged() {
+        version.incrementAndGet();
+        DailyBookings migratedDailyBookings = successor;
+        if (migratedDailyBookings != null) {
+            migratedDailyBookings.markAsChanged();
+        }
+    }
+
+    /**
+     * @param room la salle
+     * @return le masque binaire des créneaux réservés pour cette salle (voir {@link TimeSlot#mask()})
+     */
+    public int getBookedTimeSlots(Room room) {
+        return getBookedTimeSlots(roomIndex.positionOf(room));
+    }
+
+    private int getBookedTimeSlots(int roomPosition) {
+        return get(roomIndex.shardOf(roomPosition), roomIndex.localPositionOf(roomPosition)) & ~SEALED;
+    }
+
+    private int get(int shard, int localPosition) {
+        return (int) BOOKED_TIME_SLOTS.getVolatile(bookedTimeSlotsByShard[shard], localPosition);
+    }
+
+    private void set(int shard, int localPosition, int bookedSlots) {
+        BOOKED_TIME_SLOTS.setVolatile(bookedTimeSlotsByShard[shard], localPosition, bookedSlots);
+    }
+
+    /**
+     * Ajoute et retire des créneaux au masque d'une salle
+     *
+     * @return le masque avant modification
+     */
+    private int update(int shard, int localPosition, int addedSlots, int removedSlots) {
+        int[] bookedTimeSlotsByRoom = bookedTimeSlotsByShard[shard];
+        while (true) {
+            int bookedSlots = (int) BOOKED_TIME_SLOTS.getVolatile(bookedTimeSlotsByRoom, localPosition);
+            if (BOOKED_TIME_SLOTS.compareAndSet(bookedTimeSlotsByRoom, localPosition, bookedSlots, (bookedSlots | addedSlots) & ~removedSlots)) {
+                return bookedSlots;
+            }
+        }
+    }
+
+    /**
+     * Les masques du shard, à lire sans barrière lors d'un parcours complet : une réservation concurrente peut
+     * ne pas être vue, comme pour toute recherche faite sans verrou
+     *
+     * @param shard le numéro du shard
+     * @return les masques des salles du shard, par position dans le shard (le bit de scellement peut être présent)
+     */
+    int[] bookedTimeSlotsOf(int shard) {
+        return bookedTimeSlotsByShard[shard];
+    }
+
+    public boolean isBookedFor(Room room, TimeSlot timeSlot) {
+        return (getBookedTimeSlots(room) & timeSlot.mask()) != 0;
+    }
+
+    /**
+     * @param room la salle
+     * @param timeSlot le créneau souhaité
+     * @return true si la salle est libre à ce créneau et au créneau précédent (nettoyage)
+     */
+    public boolean isAvailableFor(Room room, TimeSlot timeSlot) {
+        return isAvailableFor(room, timeSlot.mask());
+    }
+
+    /**
+     * @param room la salle
+     * @param timeSlotsMask les créneaux souhaités (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @return true si la salle est libre à tous ces créneaux et aux créneaux précédents (nettoyage)
+     */
+    public boolean isAvailableFor(Room room, int timeSlotsMask) {
+        return (getBookedTimeSlots(room) & TimeSlot.bookingMaskOf(timeSlotsMask)) == 0;
+    }
+
+    /**
+     * @param bookingMask les créneaux qui doivent être libres (voir {@link TimeSlot#bookingMaskOf(int)})
+     */
+    boolean isAvailableFor(int shard, int localPosition, int bookingMask) {
+        return (get(shard, localPosition) & bookingMask) == 0;
+    }
+
+    /**
+     * @param timeSlot un créneau
+     * @return le nombre de salles non réservées à ce créneau
+     */
+    public int countFreeRooms(TimeSlot timeSlot) {
+        int freeRoomsCount = 0;
+        for (int shard = 0; shard < bookedTimeSlotsByShard.length; shard++) {
+            for (int localPosition = 0; localPosition < bookedTimeSlotsByShard[shard].length; localPosition++) {
+                if ((get(shard, localPosition) & timeSlot.mask()) == 0) {
+                    freeRoomsCount++;
+                }
+            }
+        }
+        return freeRoomsCount;
+    }
+
+    /**
+     * Restaure l'état de la journée tel que connu du journal des réservations (voir {@link BookingJournal})
+     * Les équipements amovibles sont empruntés dans la limite du stock actuel
+     */
+    void restore(BookingJournal.DayState dayState) {
+        for (int roomPosition = 0; roomPosition < roomIndex.getRooms().size(); roomPosition++) {
+            set(roomIndex.shardOf(roomPosition), roomIndex.localPositionOf(roomPosition), dayState.getBookedTimeSlots(roomPosition));
+        }
+        for (TimeSlot timeSlot : TimeSlot.values()) {
+            for (Equipment equipment : Equipment.values()) {
+                for (int i = dayState.getBorrowedCount(timeSlot, equipment); i > 0 && removableEquipmentPool.tryAcquire(timeSlot, equipment.mask()); i--) {
+                    // on emprunte un exemplaire par équipement emprunté avant le redémarrage
+                }
+            }
+        }
+        markAsChanged();
+    }
+
+    public void markAsBookedFor(Room room, TimeSlot timeSlot) {
+        int roomPosition = roomIndex.positionOf(room);
+        update(roomIndex.shardOf(roomPosition), roomIndex.localPositionOf(roomPosition), timeSlot.mask(), 0);
+        markAsChanged();
+    }
+
+    /**
+     * Réserve atomiquement la salle au créneau demandé, si elle est libre à ce créneau et au créneau précédent
+     *
+     * @param room la salle à réserver
+     * @param timeSlot le créneau à réserver
+     * @return true si la réservation a été effectuée, false si la salle n'était pas (ou plus) disponible
+     */
+    public boolean tryBookFor(Room room, TimeSlot timeSlot) {
+        return tryBookFor(room, timeSlot.mask());
+    }
+
+    /**
+     * Réserve atomiquement la salle à tous les créneaux demandés, si elle est libre à ces créneaux
+     * et aux créneaux précédents : soit tous les créneaux sont réservés, soit aucun
+     *
+     * @param room la salle à réserver
+     * @param timeSlotsMask les créneaux à réserver (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @return true si la réservation a été effectuée, false si la salle n'était pas (ou plus) disponible
+     */
+    public boolean tryBookFor(Room room, int timeSlotsMask) {
+        return tryBookFor(room, timeSlotsMask, 0);
+    }
+
+    /**
+     * Comme {@link #tryBookFor(Room, int)}, pour une salle déjà réservée à certains créneaux par la réservation
+     * que l'on déplace : ces créneaux ne gênent pas la nouvelle réservation, et restent réservés
+     *
+     * @param ownTimeSlotsMask les créneaux de la salle déjà réservés par la réservation déplacée
+     */
+    public boolean tryBookFor(Room room, int timeSlotsMask, int ownTimeSlotsMask) {
+        int bookingMask = (TimeSlot.bookingMaskOf(timeSlotsMask) & ~ownTimeSlotsMask) | SEALED;
+        int roomPosition = roomIndex.positionOf(room);
+        int[] bookedTimeSlotsByRoom = bookedTimeSlotsByShard[roomIndex.shardOf(roomPosition)];
+        int localPosition = roomIndex.localPositionOf(roomPosition);
+        while (true) {
+            int bookedSlots = (int) BOOKED_TIME_SLOTS.getVolatile(bookedTimeSlotsByRoom, localPosition);
+            if ((bookedSlots & bookingMask) != 0) {
+                return false;
+            }
+            if (BOOKED_TIME_SLOTS.compareAndSet(bookedTimeSlotsByRoom, localPosition, bookedSlots, bookedSlots | timeSlotsMask)) {
+                markAsChanged();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libère la salle au créneau demandé
+     *
+     * @param room la salle à libérer
+     * @param timeSlot le créneau à libérer
+     */
+    public void releaseBookingFor(Room room, TimeSlot timeSlot) {
+        releaseBookingFor(room, timeSlot.mask());
+    }
+
+    /**
+     * Libère la salle aux créneaux demandés
+     *
+     * @param room la salle à libérer
+     * @param timeSlotsMask les créneaux à libérer (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     */
+    public void releaseBookingFor(Room room, int timeSlotsMask) {
+        int roomPosition = roomIndex.positionOf(room);
+        int bookedSlots = update(roomIndex.shardOf(roomPosition), roomIndex.localPositionOf(roomPosition), 0, timeSlotsMask);
+        if ((bookedSlots & SEALED) != 0) {
+            // Les créneaux ont déjà été recopiés dans la nouvelle journée : c'est là qu'ils doivent être libérés
+            migratedDailyBookings().releaseBookingFor(room.getName(), timeSlotsMask);
+        }
+        markAsChanged();
+    }
+
+    private void releaseBookingFor(String roomName, int timeSlotsMask) {
+        int roomPosition = roomIndex.findPosition(roomName);
+        if (roomPosition >= 0) {
+            releaseBookingFor(roomIndex.getRooms().get(roomPosition), timeSlotsMask);
+        }
+    }
+
+    /**
+     * Crée la journée équivalente pour un nouvel index des salles, et scelle celle-ci
+     * Les salles sont retrouvées par leur nom : les salles supprimées perdent leurs réservations, les nouvelles salles
+     * sont libres. Les équipements amovibles empruntés restent partagés avec la nouvelle journée.
+     * Une journée ne peut être migrée qu'une fois.
+     *
+     * @param newRoomIndex le nouvel index des salles
+     * @return la nouvelle journée
+     */
+    DailyBookings migrateTo(RoomIndex newRoomIndex) {
+        DailyBookings migratedDailyBookings = new DailyBookings(date, newRoomIndex, removableEquipmentPool, version.get() + 1);
+        for (int roomPosition = 0; roomPosition < roomIndex.getRooms().size(); roomPosition++) {
+            int bookedSlots = update(roomIndex.shardOf(roomPosition), roomIndex.localPositionOf(roomPosition), SEALED, 0);
+            int newRoomPosition = newRoomIndex.findPosition(roomIndex.getRooms().get(roomPosition).getName());
+            if (newRoomPosition >= 0) {
+                migratedDailyBookings.set(newRoomIndex.shardOf(newRoomPosition), newRoomIndex.localPositionOf(newRoomPosition), bookedSlots);
+            }
+        }
+        successor = migratedDailyBookings;
+        return migratedDailyBookings;
+    }
+
+    /**
+     * @return la journée qui remplace celle-ci, en attendant la fin de la migration si elle est en cours
+     */
+    private DailyBookings migratedDailyBookings() {
+        DailyBookings migratedDailyBookings;
+        while ((migratedDailyBookings = successor) == null) {
+            Thread.onSpinWait();
+        }
+        return migratedDailyBookings;
+    }
+}
@@ -0,0 +1,195 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.TimeSlot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock des équipements amovibles disponibles à chaque créneau
+ *
+ * Pour chaque créneau, les compteurs des différents types d'équipements sont regroupés dans un seul long
+ * (16 bits par type d'équipement, à la position de son rang) : un ensemble d'équipements (par exemple un écran
+ * et une webcam) est donc emprunté ou rendu en un seul compare-and-set, en totalité ou pas du tout.
+ */
+public class RemovableEquipmentPool {
+
+    static final int MAX_COUNT_PER_EQUIPMENT = 0xFFFF;
+
+    private static final int BITS_PER_EQUIPMENT = 16;
+
+    private static final Equipment[] EQUIPMENTS = Equipment.values();
+
+    private final AtomicLongArray countersByTimeSlot = new AtomicLongArray(TimeSlot.values().length);
+
+    /**
+     * @param stock le nombre d'équipements amovibles de chaque type disponibles à chaque créneau
+     * @throws IllegalArgumentException si un nombre d'équipements est négatif ou dépasse {@value #MAX_COUNT_PER_EQUIPMENT}
+     */
+    public RemovableEquipmentPool(Map<Equipment, Integer> stock) {
+        long counters = 0;
+        for (Map.Entry<Equipment, Integer> equipmentStock : stock.entrySet()) {
+            int count = equipmentStock.getValue();
+            if (count < 0 || count > MAX_COUNT_PER_EQUIPMENT) {
+                throw new IllegalArgumentException("Le nombre d'équipements amovibles " + equipmentStock.getKey()
+                        + " doit être compris entre 0 et " + MAX_COUNT_PER_EQUIPMENT + " : " + count);
+            }
+            counters |= (long) count << shiftOf(equipmentStock.getKey());
+        }
+
+        for (int i = 0; i < countersByTimeSlot.length(); i++) {
+            countersByTimeSlot.set(i, counters);
+        }
+    }
+
+    /**
+     * @param timeSlot le créneau souhaité
+     * @param equipment le type d'équipement
+     * @return le nombre d'équipements amovibles de ce type encore disponibles à ce créneau
+     */
+    public int getAvailableCount(TimeSlot timeSlot, Equipment equipment) {
+        return countOf(countersByTimeSlot.get(timeSlot.ordinal()), equipment);
+    }
+
+    /**
+     * @param timeSlot le créneau souhaité
+     * @param equipmentsMask les équipements souhaités (voir {@link Equipment#mask()})
+     * @return true si au moins un exemplaire de chacun des équipements est disponible à ce créneau
+     */
+    public boolean isAvailable(TimeSlot timeSlot, int equipmentsMask) {
+        return containsAll(countersByTimeSlot.get(timeSlot.ordinal()), equipmentsMask);
+    }
+
+    /**
+     * @param timeSlotsMask les créneaux souhaités (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @param equipmentsMask les équipements souhaités (voir {@link Equipment#mask()})
+     * @return true si au moins un exemplaire de chacun des équipements est disponible à chacun de ces créneaux
+     */
+    public boolean isAvailableForAll(int timeSlotsMask, int equipmentsMask) {
+        for (int slots = timeSlotsMask; slots != 0; slots &= slots - 1) {
+            if (!containsAll(countersByTimeSlot.get(Integer.numberOfTrailingZeros(slots)), equipmentsMask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param timeSlot le créneau souhaité
+     * @return une copie des équipements amovibles disponibles à ce créneau (un élément par équipement disponible)
+     */
+    public List<Equipment> getAvailableEquipments(TimeSlot timeSlot) {
+        long counters = countersByTimeSlot.get(timeSlot.ordinal());
+        List<Equipment> availableEquipments = new ArrayList<>();
+        for (Equipment equipment : EQUIPMENTS) {
+            for (int i = countOf(counters, equipment); i > 0; i--) {
+                availableEquipments.add(equipment);
+            }
+        }
+        return availableEquipments;
+    }
+
+    /**
+     * Emprunte un exemplaire de chacun des équipements demandés, en totalité ou pas du tout
+     *
+     * @param timeSlot le créneau souhaité
+     * @param equipmentsMask les équipements à emprunter (voir {@link Equipment#mask()})
+     * @return true si les équipements ont été empruntés, false si l'un d'entre eux n'est plus disponible
+     */
+    public boolean tryAcquire(TimeSlot timeSlot, int equipmentsMask) {
+        return tryAcquire(timeSlot.ordinal(), equipmentsMask, unitsOf(equipmentsMask));
+    }
+
+    /**
+     * Emprunte un exemplaire de chacun des équipements demandés à chacun des créneaux, en totalité ou pas du tout
+     * Les créneaux sont empruntés un par un : si l'un d'eux n'a plus les équipements, ceux déjà empruntés sont rendus.
+     *
+     * @param timeSlotsMask les créneaux souhaités (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @param equipmentsMask les équipements à emprunter (voir {@link Equipment#mask()})
+     * @return true si les équipements ont été empruntés à tous les créneaux, false sinon
+     */
+    public boolean tryAcquireForAll(int timeSlotsMask, int equipmentsMask) {
+        if (equipmentsMask == 0) {
+            return true;
+        }
+        long delta = unitsOf(equipmentsMask);
+        for (int slots = timeSlotsMask; slots != 0; slots &= slots - 1) {
+            int timeSlot = Integer.numberOfTrailingZeros(slots);
+            if (!tryAcquire(timeSlot, equipmentsMask, delta)) {
+                // Rend les équipements empruntés aux créneaux précédents
+                int acquiredTimeSlots = timeSlotsMask & ((1 << timeSlot) - 1);
+                releaseForAll(acquiredTimeSlots, equipmentsMask);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryAcquire(int timeSlot, int equipmentsMask, long delta) {
+        while (true) {
+            long counters = countersByTimeSlot.get(timeSlot);
+            if (!containsAll(counters, equipmentsMask)) {
+                return false;
+            }
+            if (countersByTimeSlot.compareAndSet(timeSlot, counters, counters - delta)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Rend un exemplaire de chacun des équipements précédemment empruntés
+     *
+     * @param timeSlot le créneau concerné
+     * @param equipmentsMask les équipements à rendre (voir {@link Equipment#mask()})
+     */
+    public void release(TimeSlot timeSlot, int equipmentsMask) {
+        countersByTimeSlot.getAndAdd(timeSlot.ordinal(), unitsOf(equipmentsMask));
+    }
+
+    /**
+     * Rend un exemplaire de chacun des équipements précédemment empruntés, à chacun des créneaux
+     *
+     * @param timeSlotsMask les créneaux concernés (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @param equipmentsMask les équipements à rendre (voir {@link Equipment#mask()})
+     */
+    public void releaseForAll(int timeSlotsMask, int equipmentsMask) {
+        if (equipmentsMask == 0) {
+            return;
+        }
+        long delta = unitsOf(equipmentsMask);
+        for (int slots = timeSlotsMask; slots != 0; slots &= slots - 1) {
+            countersByTimeSlot.getAndAdd(Integer.numberOfTrailingZeros(slots), delta);
+        }
+    }
+
+    private static boolean containsAll(long counters, int equipmentsMask) {
+        for (Equipment equipment : EQUIPMENTS) {
+            if ((equipmentsMask & equipment.mask()) != 0 && countOf(counters, equipment) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long unitsOf(int equipmentsMask) {
+        long units = 0;
+        for (Equipment equipment : EQUIPMENTS) {
+            if ((equipmentsMask & equipment.mask()) != 0) {
+                units += 1L << shiftOf(equipment);
+            }
+        }
+        return units;
+    }
+
+    static int countOf(long counters, Equipment equipment) {
+        return (int) (counters >>> shiftOf(equipment)) & MAX_COUNT_PER_EQUIPMENT;
+    }
+
+    private static int shiftOf(Equipment equipment) {
+        return equipment.ordinal() * BITS_PER_EQUIPMENT;
+    }
+}
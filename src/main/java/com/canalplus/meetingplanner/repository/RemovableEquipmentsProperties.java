@@ -0,0 +1,29 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Equipment;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+
+/**
+ * Nombre d'équipements amovibles de chaque type dont dispose l'entreprise, à chaque créneau
+ * Paramétrable via les propriétés "removable-equipments.stock.*" (par exemple "removable-equipments.stock.screen=5")
+ */
+@Component
+@ConfigurationProperties(prefix = "removable-equipments")
+public class RemovableEquipmentsProperties {
+
+    private final Map<Equipment, Integer> stock = new EnumMap<>(Map.of(
+            MULTILINE_SPEAKER, 4,
+            SCREEN, 5,
+            WEBCAM, 4,
+            BOARD, 2));
+
+    public Map<Equipment, Integer> getStock() {
+        return stock;
+    }
+}
@@ -1,44 +1,798 @@
 package com.canalplus.meetingplanner.repository;
 
+import com.canalplus.meetingplanner.model.Booking;
 import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Meeting;
 import com.canalplus.meetingplanner.model.Room;
 import com.canalplus.meetingplanner.model.TimeSlot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.PostConstruct;
-import java.util.*;
-
-import static com.canalplus.meetingplanner.model.Equipment.*;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Service qui permet de récupérer toutes les salles de réunion
- * Gère également les équipements amovibles disponibles à chaque créneau
- * Par défaut, tous les équipements amovibles sont disponibles à chaque créneau.
+ * Les salles sont également indexées par équipements et capacité (voir {@link RoomIndex}), et peuvent être partitionnées
+ * en shards par bâtiment, étage ou préfixe de nom (voir {@link RoomPartitioning})
+ * Gère également les réservations des salles et les équipements amovibles disponibles à chaque créneau de chaque journée
+ * Par défaut, toutes les salles et tous les équipements amovibles sont disponibles à chaque créneau.
+ *
+ * Les réservations sont acceptées du jour même jusqu'à la fin d'un horizon glissant (en mois, paramétrable).
+ * Les réservations d'une journée (voir {@link DailyBookings}) ne sont créées qu'à la première réservation
+ * ou consultation de cette journée, et sont supprimées dès que la journée est passée : la mémoire occupée dépend
+ * du nombre de journées ayant des réservations, pas de la longueur de l'horizon.
+ *
+ * Les salles proviennent du catalogue des salles (voir {@link RoomCatalog}) et peuvent changer sans redémarrage
+ * (voir {@link #updateRooms(List)}) : un nouvel index est construit puis substitué à l'ancien, et les réservations
+ * de chaque journée sont migrées vers ce nouvel index lors de leur prochain accès, sans bloquer les réservations en cours.
+ *
+ * Si un répertoire de journal est paramétré, chaque réservation est enregistrée sur disque avant d'être confirmée,
+ * et les réservations sont restaurées au démarrage (voir {@link BookingJournal}).
+ * Si un fichier d'état est paramétré, chaque réservation y est aussi reportée, hors du tas, et les réservations
+ * sont relues directement dans ce fichier au démarrage, sans rejouer le journal (voir {@link BookingStateFile}).
+ *
+ * Les équipements amovibles sont gérés par un {@link RemovableEquipmentPool} par journée, dont le stock est paramétrable
+ * (voir {@link RemovableEquipmentsProperties}) : ils peuvent être empruntés depuis plusieurs réservations
+ * concurrentes sans verrou global.
+ *
+ * Les réservations faites pour une réunion (voir {@link #book(long, Meeting, Room, Set)}) sont indexées par leur numéro :
+ * une réservation peut être annulée en temps constant, ce qui libère la salle et rend les équipements amovibles empruntés.
+ * Leur numéro est aussi enregistré dans le journal et dans le fichier d'état : elles sont restaurées au démarrage
+ * sous le même numéro, sans le nom de la réunion, qui n'est pas enregistré.
  */
 @Repository
 public class RoomBookRepository {
 
     @Autowired(required = false)
-    private List<Room> rooms;
+    private RoomCatalog roomCatalog;
+
+    private volatile List<Room> rooms;
+
+    @Autowired(required = false)
+    private RemovableEquipmentsProperties removableEquipmentsProperties = new RemovableEquipmentsProperties();
+
+    @Value("${meeting-planner.calendar.horizon-months:3}")
+    private int horizonMonths = 3;
+
+    @Value("${meeting-planner.sharding.partitioning:none}")
+    private String shardingPartitioning = "none";
+
+    @Value("${meeting-planner.sharding.prefix-length:2}")
+    private int shardingPrefixLength = 2;
+
+    @Value("${meeting-planner.journal.directory:}")
+    private String journalDirectory = "";
+
+    @Value("${meeting-planner.journal.snapshot-interval:100000}")
+    private int journalSnapshotInterval = 100000;
+
+    @Value("${meeting-planner.booking-state.file:}")
+    private String bookingStatePath = "";
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private BookingStateFile bookingStateFile;
+
+    private BookingJournal bookingJournal;
+
+    /**
+     * L'index des salles avec lequel le journal a été ouvert : les positions écrites dans le journal s'y réfèrent
+     */
+    private RoomIndex journalRoomIndex;
+
+    /**
+     * Protège la réouverture du journal après un changement de la liste des salles
+     */
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+
+    /**
+     * Enregistrements du journal dont le thread courant n'attend pas l'écriture sur disque (voir {@link #deferDurability(Supplier)})
+     */
+    private final ThreadLocal<DeferredDurability<?>> deferredDurability = new ThreadLocal<>();
+
+    private Map<Equipment, Integer> removableEquipmentsStock;
+
+    private volatile RoomIndex roomIndex;
+
+    private final ConcurrentMap<LocalDate, DailyBookings> dailyBookingsByDate = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, Booking> bookingsById = new ConcurrentHashMap<>();
+
+    /**
+     * Nombre de bits des numéros de réservation laissés au compteur d'un démarrage (voir {@link #init()})
+     */
+    static final int BOOKING_ID_COUNTER_BITS = 20;
+
+    private final AtomicLong lastBookingId = new AtomicLong();
+
+    /**
+     * Dernière journée pour laquelle les journées passées ont été supprimées
+     */
+    private volatile LocalDate lastEvictionDate;
+
+    /**
+     * Journée sans réservation, partagée par les lectures des journées qui n'ont pas encore de réservations
+     * (voir {@link #findDailyBookings(LocalDate)}) ; recréée lorsque la liste des salles change
+     */
+    private volatile DailyBookings freeDailyBookings;
 
     public List<Room> getRooms() {
         return rooms;
     }
 
-    private Map<TimeSlot, List<Equipment>> availableRemovableEquipmentsByTimeSlot = new HashMap<>();
-
+    /**
+     * Les numéros de réservation commencent à l'heure de démarrage, en secondes, suivie de
+     * {@link #BOOKING_ID_COUNTER_BITS} bits de compteur : les réservations restaurées au démarrage gardent leur numéro,
+     * qui ne doit pas désigner en plus une nouvelle réservation. Deux démarrages ne
+     * partagent un numéro qu'après un million de réservations par seconde écoulée entre eux. Les numéros restent
+     * en deçà de 2^53, et donc exacts pour un client JavaScript.
+     */
     @PostConstruct
+    public void init() {
+        lastBookingId.set(clock.instant().getEpochSecond() << BOOKING_ID_COUNTER_BITS);
+        if (roomCatalog != null) {
+            rooms = roomCatalog.load();
+        }
+        initRoomIndex();
+        initRemovableEquipments();
+        openBookingStateFile();
+        openBookingJournal();
+        if (roomCatalog != null) {
+            roomCatalog.watch(this::updateRooms);
+        }
+    }
+
+    public void initRoomIndex() {
+        roomIndex = new RoomIndex(rooms != null ? rooms : List.of(), RoomPartitioning.of(shardingPartitioning).keyFunction(shardingPrefixLength));
+    }
+
+    public RoomIndex getRoomIndex() {
+        return roomIndex;
+    }
+
+    /**
+     * Remplace la liste des salles : les salles sont retrouvées par leur nom dans les réservations existantes
+     * Les salles inchangées restent les mêmes instances, ce qui permet aux réservations en cours de les réserver
+     * dans les journées migrées. Les journées ne sont migrées qu'à leur prochain accès (voir {@link #getDailyBookings(LocalDate)}) :
+     * le fichier d'état est recopié et le journal rouvert par nom de salle, sans lire les journées en mémoire.
+     *
+     * @param newRooms la nouvelle liste des salles
+     */
+    public synchronized void updateRooms(List<Room> newRooms) {
+        List<Room> previousRooms = rooms != null ? rooms : List.of();
+        if (newRooms.size() == previousRooms.size()
+                && IntStream.range(0, newRooms.size()).allMatch(i -> newRooms.get(i).hasSameDefinitionAs(previousRooms.get(i)))) {
+            return;
+        }
+        // Une salle dont la capacité ou les équipements ont changé garde son numéro, mais pas son instance
+        Map<Room, Room> currentRooms = previousRooms.stream().collect(Collectors.toMap(Function.identity(), Function.identity(), (room, sameRoom) -> room));
+        rooms = newRooms.stream()
+                .map(room -> currentRooms.containsKey(room) && currentRooms.get(room).hasSameDefinitionAs(room) ? currentRooms.get(room) : room)
+                .collect(Collectors.toUnmodifiableList());
+        initRoomIndex();
+        updateBookingStateFile();
+        reopenBookingJournal();
+    }
+
     public void initRemovableEquipments() {
-        Arrays.stream(TimeSlot.values()).forEach(timeSlot -> availableRemovableEquipmentsByTimeSlot.put(timeSlot, getRemovableEquipments()));
+        removableEquipmentsStock = Map.copyOf(removableEquipmentsProperties.getStock());
+        // Un stock invalide doit empêcher le démarrage, et non la première réservation
+        new RemovableEquipmentPool(removableEquipmentsStock);
+    }
+
+    /**
+     * Ouvre le fichier d'état des réservations, s'il est paramétré, et restaure les réservations qu'il contient
+     * Avec un journal, seul un fichier fermé proprement est relu : sinon (fichier créé, ou arrêt brutal pendant lequel
+     * des pages ont pu être perdues), c'est le journal qui restaure les réservations (voir {@link #openBookingJournal()}).
+     */
+    public void openBookingStateFile() {
+        if (bookingStatePath.isEmpty()) {
+            return;
+        }
+        try {
+            // Une journée de plus que la plus longue période réservable : deux journées réservables n'ont jamais la même zone
+            bookingStateFile = BookingStateFile.open(Path.of(bookingStatePath), roomIndex.getRooms(), horizonMonths * 31 + 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'ouvrir le fichier d'état des réservations " + bookingStatePath, e);
+        }
+        if (!bookingStateFile.wasClosedCleanly() && !journalDirectory.isEmpty()) {
+            return;
+        }
+        bookingStateFile.getDays().forEach((date, dayState) -> {
+            if (isWithinHorizon(date)) {
+                getDailyBookings(date).restore(dayState);
+                restoreBookings(date, dayState);
+            }
+        });
+    }
+
+    /**
+     * Indexe par numéro les réservations de réunions restaurées d'une journée
+     * Le nom de la réunion n'étant pas enregistré, une réservation restaurée n'a pas de nom.
+     *
+     * @param dayState l'état des réservations de la journée, avec les salles dans l'ordre de l'index des salles
+     */
+    private void restoreBookings(LocalDate date, BookingJournal.DayState dayState) {
+        List<Room> indexedRooms = roomIndex.getRooms();
+        for (BookingJournal.BookingState bookingState : dayState.getBookings()) {
+            Meeting meeting = new Meeting(null, date, bookingState.getTimeSlot(), bookingState.getDuration(),
+                    bookingState.getType(), bookingState.getEmployeesNumber());
+            bookingsById.put(bookingState.getId(), new Booking(bookingState.getId(), date, meeting,
+                    indexedRooms.get(bookingState.getRoomPosition()), Equipment.setOf(bookingState.getEquipmentsMask())));
+        }
+    }
+
+    private void updateBookingStateFile() {
+        if (bookingStateFile == null) {
+            return;
+        }
+        try {
+            bookingStateFile.updateRooms(roomIndex.getRooms());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de recopier le fichier d'état des réservations " + bookingStatePath, e);
+        }
+    }
+
+    @PreDestroy
+    public void closeBookingStateFile() throws IOException {
+        if (bookingStateFile != null) {
+            bookingStateFile.close();
+        }
     }
 
-    private List<Equipment> getRemovableEquipments() {
-        return new ArrayList<>(Arrays.asList(MULTILINE_SPEAKER, MULTILINE_SPEAKER, MULTILINE_SPEAKER, MULTILINE_SPEAKER,
-                SCREEN, SCREEN, SCREEN, SCREEN, SCREEN, WEBCAM, WEBCAM, WEBCAM, WEBCAM, BOARD, BOARD));
+    /**
+     * Ouvre le journal des réservations, s'il est paramétré, et restaure les réservations qu'il contient
+     * Les réservations déjà restaurées à partir d'un fichier d'état fermé proprement ne sont pas restaurées une seconde
+     * fois ; sinon, le fichier d'état est remplacé par les réservations du journal, qui seules sont sûres d'être sur disque.
+     */
+    public void openBookingJournal() {
+        if (journalDirectory.isEmpty()) {
+            return;
+        }
+        bookingJournal = openBookingJournal(roomIndex);
+        if (bookingStateFile != null && bookingStateFile.wasClosedCleanly()) {
+            return;
+        }
+        Map<LocalDate, BookingJournal.DayState> restoredDays = bookingJournal.getRestoredDays();
+        restoredDays.forEach((date, dayState) -> {
+            if (isWithinHorizon(date)) {
+                getDailyBookings(date).restore(dayState);
+                restoreBookings(date, dayState);
+            }
+        });
+        if (bookingStateFile != null) {
+            bookingStateFile.replaceDays(restoredDays);
+        }
     }
 
-    public List<Equipment> getAvailableRemovableEquipmentsFor(TimeSlot timeSlot) {
-        return availableRemovableEquipmentsByTimeSlot.get(timeSlot);
+    private BookingJournal openBookingJournal(RoomIndex roomIndex) {
+        try {
+            BookingJournal openedBookingJournal = BookingJournal.open(Path.of(journalDirectory), roomIndex.getRooms(), journalSnapshotInterval, this::today);
+            journalRoomIndex = roomIndex;
+            return openedBookingJournal;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'ouvrir le journal des réservations " + journalDirectory, e);
+        }
+    }
+
+    /**
+     * Rouvre le journal avec la liste des salles à jour : le journal écrit alors un instantané avec cette liste
+     * Seules les réservations enregistrées dans le journal attendent la fin de la réouverture.
+     */
+    private void reopenBookingJournal() {
+        if (bookingJournal == null) {
+            return;
+        }
+        journalLock.writeLock().lock();
+        try {
+            closeBookingJournal();
+            bookingJournal = openBookingJournal(roomIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de fermer le journal des réservations " + journalDirectory, e);
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void closeBookingJournal() throws IOException {
+        if (bookingJournal != null) {
+            bookingJournal.close();
+        }
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * @return la journée de la réunion, ou le jour même si la réunion n'en précise pas
+     */
+    public LocalDate dateOf(Meeting meeting) {
+        return meeting.getDate() != null ? meeting.getDate() : today();
+    }
+
+    /**
+     * @return la dernière journée réservable
+     */
+    public LocalDate getHorizonEnd() {
+        return today().plusMonths(horizonMonths);
+    }
+
+    /**
+     * @return true si des réservations peuvent être faites pour cette journée (du jour même à la fin de l'horizon)
+     */
+    public boolean isWithinHorizon(LocalDate date) {
+        return !date.isBefore(today()) && !date.isAfter(getHorizonEnd());
+    }
+
+    /**
+     * Renvoie les réservations d'une journée, en les créant si aucune réservation n'a encore été faite ce jour-là
+     *
+     * @param date la journée souhaitée
+     * @return les réservations de cette journée
+     * @throws IllegalArgumentException si la journée est en dehors de l'horizon de réservation
+     */
+    public DailyBookings getDailyBookings(LocalDate date) {
+        evictPastDates();
+        if (!isWithinHorizon(date)) {
+            throw new IllegalArgumentException("La date " + date + " est en dehors de l'horizon de réservation");
+        }
+        DailyBookings dailyBookings = dailyBookingsByDate.computeIfAbsent(date, newDate -> new DailyBookings(newDate, roomIndex, removableEquipmentsStock));
+        if (dailyBookings.getRoomIndex() == roomIndex) {
+            return dailyBookings;
+        }
+
+        // La liste des salles a changé depuis la création de cette journée
+        return dailyBookingsByDate.compute(date, (sameDate, currentDailyBookings) -> {
+            RoomIndex currentRoomIndex = roomIndex;
+            if (currentDailyBookings == null) {
+                return new DailyBookings(sameDate, currentRoomIndex, removableEquipmentsStock);
+            }
+            return currentDailyBookings.getRoomIndex() == currentRoomIndex ? currentDailyBookings : currentDailyBookings.migrateTo(currentRoomIndex);
+        });
+    }
+
+    /**
+     * Renvoie les réservations d'une journée pour une lecture seule, sans créer la journée si aucune réservation
+     * n'y a encore été faite : une journée absente est entièrement libre, et représentée par une journée vide
+     * partagée, sans date, qui ne doit jamais être modifiée
+     *
+     * @param date la journée souhaitée
+     * @return les réservations de cette journée, ou une journée sans réservation
+     * @throws IllegalArgumentException si la journée est en dehors de l'horizon de réservation
+     */
+    public DailyBookings findDailyBookings(LocalDate date) {
+        evictPastDates();
+        if (!isWithinHorizon(date)) {
+            throw new IllegalArgumentException("La date " + date + " est en dehors de l'horizon de réservation");
+        }
+        if (dailyBookingsByDate.containsKey(date)) {
+            return getDailyBookings(date);
+        }
+        RoomIndex currentRoomIndex = roomIndex;
+        DailyBookings currentFreeDailyBookings = freeDailyBookings;
+        if (currentFreeDailyBookings == null || currentFreeDailyBookings.getRoomIndex() != currentRoomIndex) {
+            currentFreeDailyBookings = new DailyBookings(null, currentRoomIndex, removableEquipmentsStock);
+            freeDailyBookings = currentFreeDailyBookings;
+        }
+        return currentFreeDailyBookings;
+    }
+
+    /**
+     * @return le nombre de journées ayant des réservations en mémoire
+     */
+    public int getDailyBookingsCount() {
+        evictPastDates();
+        return dailyBookingsByDate.size();
+    }
+
+    /**
+     * @param date la journée souhaitée
+     * @param timeSlot le créneau souhaité
+     * @return une copie des équipements amovibles disponibles à ce créneau (un élément par équipement disponible)
+     */
+    public List<Equipment> getAvailableRemovableEquipmentsFor(LocalDate date, TimeSlot timeSlot) {
+        return getDailyBookings(date).getRemovableEquipmentPool().getAvailableEquipments(timeSlot);
+    }
+
+    /**
+     * Réserve atomiquement une salle et les équipements amovibles nécessaires pour un créneau
+     * Si les équipements amovibles ne sont plus disponibles, la réservation de la salle est annulée
+     *
+     * @param room la salle à réserver
+     * @param date la journée à réserver
+     * @param timeSlot le créneau à réserver
+     * @param removableEquipments les équipements amovibles à emprunter
+     * @return true si la salle et les équipements ont été réservés (et enregistrés dans le journal s'il est paramétré),
+     * false si une réservation concurrente les a obtenus entre-temps, ou si la liste des salles a changé entre-temps
+     */
+    public boolean book(Room room, LocalDate date, TimeSlot timeSlot, Set<Equipment> removableEquipments) {
+        return book(room, date, timeSlot.mask(), removableEquipments);
+    }
+
+    /**
+     * Réserve atomiquement une salle et les équipements amovibles nécessaires pour plusieurs créneaux consécutifs
+     * Les créneaux de la salle sont réservés en un seul compare-and-set ; si les équipements amovibles ne sont plus
+     * disponibles à l'un des créneaux, la réservation de la salle et les équipements déjà empruntés sont rendus
+     * Ils sont aussi rendus si la réservation ne peut pas être enregistrée dans le journal, avant que l'erreur ne soit propagée.
+     *
+     * @param room la salle à réserver
+     * @param date la journée à réserver
+     * @param timeSlotsMask les créneaux à réserver (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @param removableEquipments les équipements amovibles à emprunter à chacun des créneaux
+     * @return true si la salle et les équipements ont été réservés (et enregistrés dans le journal s'il est paramétré),
+     * false si une réservation concurrente les a obtenus entre-temps, ou si la liste des salles a changé entre-temps
+     */
+    public boolean book(Room room, LocalDate date, int timeSlotsMask, Set<Equipment> removableEquipments) {
+        return book(room, date, timeSlotsMask, 0, removableEquipments, null);
+    }
+
+    /**
+     * @param ownTimeSlotsMask les créneaux de la salle déjà réservés, avec les mêmes équipements amovibles,
+     * par la réservation que l'on déplace : seuls les autres créneaux sont réservés
+     * @param booking la réservation de réunion qui occupe ces créneaux, à indexer dans le journal et le fichier d'état, ou null
+     */
+    private boolean book(Room room, LocalDate date, int timeSlotsMask, int ownTimeSlotsMask, Set<Equipment> removableEquipments, Booking booking) {
+        DailyBookings dailyBookings = getDailyBookings(date);
+        int removableEquipmentsMask = Equipment.maskOf(removableEquipments);
+        int addedTimeSlotsMask = timeSlotsMask & ~ownTimeSlotsMask;
+        if (!dailyBookings.getRoomIndex().contains(room) || !dailyBookings.tryBookFor(room, timeSlotsMask, ownTimeSlotsMask)) {
+            return false;
+        }
+
+        if (!dailyBookings.getRemovableEquipmentPool().tryAcquireForAll(addedTimeSlotsMask, removableEquipmentsMask)) {
+            dailyBookings.releaseBookingFor(room, addedTimeSlotsMask);
+            return false;
+        }
+        // La salle est marquée réservée avant l'emprunt des équipements : la version doit suivre les deux
+        dailyBookings.markAsChanged();
+
+        if (bookingStateFile != null) {
+            bookingStateFile.book(date, room.getName(), addedTimeSlotsMask, removableEquipmentsMask);
+            if (booking != null) {
+                bookingStateFile.putBooking(booking);
+            }
+        }
+        boolean journaled = false;
+        try {
+            journaled = bookingJournal == null || journal(room, date, addedTimeSlotsMask, removableEquipmentsMask, false, booking);
+        } finally {
+            // Une réservation absente du journal ne doit pas garder la salle, même si l'écriture du journal a échoué
+            if (!journaled) {
+                rollBack(dailyBookings, room, date, addedTimeSlotsMask, removableEquipmentsMask, booking);
+            }
+        }
+        if (journaled && bookingJournal != null) {
+            onDurabilityFailure(() -> rollBack(dailyBookings, room, date, addedTimeSlotsMask, removableEquipmentsMask, booking));
+        }
+        return journaled;
+    }
+
+    /**
+     * Rend la salle et les équipements amovibles d'une réservation qui n'a pas pu être enregistrée dans le journal
+     */
+    private void rollBack(DailyBookings dailyBookings, Room room, LocalDate date, int timeSlotsMask, int removableEquipmentsMask, Booking booking) {
+        if (bookingStateFile != null) {
+            if (booking != null) {
+                bookingStateFile.removeBooking(booking);
+            }
+            bookingStateFile.release(date, room.getName(), timeSlotsMask, removableEquipmentsMask);
+        }
+        dailyBookings.releaseBookingFor(room, timeSlotsMask);
+        dailyBookings.getRemovableEquipmentPool().releaseForAll(timeSlotsMask, removableEquipmentsMask);
+        dailyBookings.markAsChanged();
+    }
+
+    /**
+     * @return un nouveau numéro de réservation
+     */
+    public long nextBookingId() {
+        return lastBookingId.incrementAndGet();
+    }
+
+    /**
+     * Réserve une salle pour une réunion (voir {@link #book(Room, LocalDate, int, Set)}) et indexe la réservation
+     * par son numéro
+     *
+     * @param bookingId le numéro de la réservation (voir {@link #nextBookingId()})
+     * @param meeting la réunion à réserver, à tous ses créneaux
+     * @param room la salle à réserver
+     * @param removableEquipments les équipements amovibles à emprunter à chacun des créneaux
+     * @return la réservation, ou Optional.empty() si une réservation concurrente a obtenu la salle ou les équipements
+     * entre-temps
+     */
+    public Optional<Booking> book(long bookingId, Meeting meeting, Room room, Set<Equipment> removableEquipments) {
+        LocalDate date = dateOf(meeting);
+        Booking booking = new Booking(bookingId, date, meeting, room, removableEquipments);
+        if (!book(room, date, meeting.getTimeSlotsMask(), 0, removableEquipments, booking)) {
+            return Optional.empty();
+        }
+        bookingsById.put(bookingId, booking);
+        onDurabilityFailure(() -> bookingsById.remove(bookingId, booking));
+        return Optional.of(booking);
+    }
+
+    /**
+     * @return la réservation portant ce numéro, si elle n'a été ni annulée, ni déplacée, et si sa journée n'est pas passée
+     */
+    public Optional<Booking> getBooking(long bookingId) {
+        evictPastDates();
+        return Optional.ofNullable(bookingsById.get(bookingId));
+    }
+
+    /**
+     * Annule une réservation : la salle est libérée à tous ses créneaux et les équipements amovibles empruntés sont rendus
+     * Le coût ne dépend pas du nombre de réservations. Une réservation ne peut être annulée qu'une fois.
+     *
+     * @param bookingId le numéro de la réservation
+     * @return la réservation annulée, ou Optional.empty() si aucune réservation en cours ne porte ce numéro
+     */
+    public Optional<Booking> cancelBooking(long bookingId) {
+        evictPastDates();
+        Booking booking = bookingsById.remove(bookingId);
+        if (booking == null) {
+            return Optional.empty();
+        }
+        release(booking.getRoom(), booking.getDate(), booking.getTimeSlotsMask(), Equipment.maskOf(booking.getRemovableBorrowedEquipments()), booking);
+        return Optional.of(booking);
+    }
+
+    /**
+     * Retire une réservation de l'index, sans libérer sa salle, le temps de la déplacer (voir {@link #moveBooking}) :
+     * pendant le déplacement, elle ne peut être ni annulée ni déplacée une seconde fois
+     *
+     * @param bookingId le numéro de la réservation
+     * @return la réservation à déplacer, ou Optional.empty() si aucune réservation en cours ne porte ce numéro
+     */
+    public Optional<Booking> takeBooking(long bookingId) {
+        evictPastDates();
+        return Optional.ofNullable(bookingsById.remove(bookingId));
+    }
+
+    /**
+     * Remet dans l'index une réservation qui n'a pas pu être déplacée (voir {@link #takeBooking(long)}),
+     * sauf si son numéro désigne déjà la réservation déplacée
+     */
+    public void putBackBooking(Booking booking) {
+        bookingsById.putIfAbsent(booking.getId(), booking);
+    }
+
+    /**
+     * Déplace une réservation retirée de l'index (voir {@link #takeBooking(long)}) : la salle et les équipements amovibles
+     * de la réunion déplacée sont d'abord réservés, puis ceux que la réservation précédente n'occupe plus sont libérés.
+     * Dans la même salle de la même journée, les créneaux communs aux deux réservations restent réservés, et les créneaux
+     * de la réservation précédente ne gênent pas la nouvelle.
+     * Si la réservation échoue, la réservation précédente est intacte : elle n'est jamais libérée avant que
+     * la nouvelle ne soit faite.
+     *
+     * @param previousBooking la réservation à déplacer
+     * @param movedMeeting la réunion, à sa nouvelle journée et à ses nouveaux créneaux
+     * @param room la salle à réserver
+     * @param removableEquipments les équipements amovibles à emprunter à chacun des créneaux
+     * @return la réservation déplacée, indexée sous le même numéro, ou Optional.empty() si une réservation concurrente
+     * a obtenu la salle ou les équipements entre-temps
+     */
+    public Optional<Booking> moveBooking(Booking previousBooking, Meeting movedMeeting, Room room, Set<Equipment> removableEquipments) {
+        LocalDate date = dateOf(movedMeeting);
+        int timeSlotsMask = movedMeeting.getTimeSlotsMask();
+        int previousTimeSlotsMask = previousBooking.getTimeSlotsMask();
+        boolean sameRoom = date.equals(previousBooking.getDate()) && room.equals(previousBooking.getRoom())
+                && removableEquipments.equals(previousBooking.getRemovableBorrowedEquipments());
+        Booking booking = new Booking(previousBooking.getId(), date, movedMeeting, room, removableEquipments);
+        if (!book(room, date, timeSlotsMask, sameRoom ? previousTimeSlotsMask : 0, removableEquipments, booking)) {
+            return Optional.empty();
+        }
+
+        bookingsById.put(booking.getId(), booking);
+        onDurabilityFailure(() -> bookingsById.remove(booking.getId(), booking));
+        // Au même premier créneau de la même salle, la réservation déplacée a déjà remplacé la précédente dans l'index
+        boolean sameFirstTimeSlot = date.equals(previousBooking.getDate()) && room.equals(previousBooking.getRoom())
+                && movedMeeting.getTimeSlot() == previousBooking.getTimeSlot();
+        release(previousBooking.getRoom(), previousBooking.getDate(), sameRoom ? previousTimeSlotsMask & ~timeSlotsMask : previousTimeSlotsMask,
+                Equipment.maskOf(previousBooking.getRemovableBorrowedEquipments()), sameFirstTimeSlot ? null : previousBooking);
+        return Optional.of(booking);
+    }
+
+    /**
+     * Libère une salle et rend des équipements amovibles, à des créneaux d'une journée
+     * Rien n'est libéré si la journée est passée.
+     *
+     * @param booking la réservation de réunion à retirer de l'index du journal et du fichier d'état, ou null
+     */
+    private void release(Room room, LocalDate date, int timeSlotsMask, int removableEquipmentsMask, Booking booking) {
+        if (!isWithinHorizon(date)) {
+            return;
+        }
+
+        DailyBookings dailyBookings = getDailyBookings(date);
+        if (bookingStateFile != null) {
+            // Libérée dans le fichier avant de l'être en mémoire, pour qu'une nouvelle réservation de la salle la suive
+            if (booking != null) {
+                bookingStateFile.removeBooking(booking);
+            }
+            bookingStateFile.release(date, room.getName(), timeSlotsMask, removableEquipmentsMask);
+        }
+        // Une salle supprimée du catalogue a perdu ses réservations avec elle : seuls ses équipements sont rendus
+        if (dailyBookings.getRoomIndex().contains(room)) {
+            dailyBookings.releaseBookingFor(room, timeSlotsMask);
+        }
+        dailyBookings.getRemovableEquipmentPool().releaseForAll(timeSlotsMask, removableEquipmentsMask);
+        dailyBookings.markAsChanged();
+
+        if (bookingJournal != null) {
+            journal(room, date, timeSlotsMask, removableEquipmentsMask, true, booking);
+        }
+    }
+
+    /**
+     * @return le nombre de réservations en cours indexées par numéro
+     */
+    public int getBookingsCount() {
+        evictPastDates();
+        return bookingsById.size();
+    }
+
+    /**
+     * Exécute une opération sur les réservations sans attendre que les enregistrements qu'elle ajoute au journal soient
+     * écrits sur disque : le thread d'écriture en mode écrivain unique enchaîne ainsi les réservations, pendant que
+     * le journal regroupe leurs écritures. L'attente se fait ensuite, sur un autre thread (voir {@link DeferredDurability#await()}).
+     * Si l'opération échoue, ses enregistrements sont attendus avant que l'erreur ne soit propagée.
+     *
+     * @param operation l'opération, exécutée par le thread courant
+     * @return le résultat de l'opération, à attendre avant de le confirmer
+     */
+    public <T> DeferredDurability<T> deferDurability(Supplier<T> operation) {
+        DeferredDurability<?> outerDeferredDurability = deferredDurability.get();
+        DeferredDurability<T> operationDeferredDurability = new DeferredDurability<>();
+        deferredDurability.set(operationDeferredDurability);
+        try {
+            operationDeferredDurability.result = operation.get();
+        } catch (RuntimeException e) {
+            try {
+                operationDeferredDurability.await();
+            } catch (RuntimeException durabilityFailure) {
+                e.addSuppressed(durabilityFailure);
+            }
+            throw e;
+        } finally {
+            deferredDurability.set(outerDeferredDurability);
+        }
+        return operationDeferredDurability;
+    }
+
+    /**
+     * Si l'opération en cours ne fait qu'ajouter ses enregistrements au journal (voir {@link #deferDurability(Supplier)}),
+     * ce qui doit être défait si leur écriture sur disque échoue
+     */
+    private void onDurabilityFailure(Runnable rollBack) {
+        DeferredDurability<?> currentDeferredDurability = deferredDurability.get();
+        if (currentDeferredDurability != null && !currentDeferredDurability.pendingRecords.isEmpty()) {
+            currentDeferredDurability.rollBacks.add(rollBack);
+        }
+    }
+
+    /**
+     * Enregistre une réservation ou une libération dans le journal, et attend qu'elle soit écrite sur disque
+     * (sauf si l'attente est reportée, voir {@link #deferDurability(Supplier)})
+     *
+     * @param booking la réservation de réunion à indexer, ou à retirer de l'index pour une libération, ou null
+     * @return false si la salle a été supprimée du catalogue entre-temps (rien n'est alors enregistré)
+     * @throws UncheckedIOException si l'écriture du journal a échoué
+     * @throws IllegalStateException si le journal est fermé
+     */
+    private boolean journal(Room room, LocalDate date, int timeSlotsMask, int removableEquipmentsMask, boolean release, Booking booking) {
+        BookingJournal currentBookingJournal;
+        long recordNumber;
+        journalLock.readLock().lock();
+        try {
+            int roomPosition = journalRoomIndex.findPosition(room.getName());
+            if (roomPosition < 0) {
+                // La salle a été supprimée du catalogue entre-temps, avec ses réservations
+                return false;
+            }
+            currentBookingJournal = bookingJournal;
+            recordNumber = release
+                    ? currentBookingJournal.appendRelease(date, roomPosition, timeSlotsMask, removableEquipmentsMask, booking)
+                    : currentBookingJournal.appendBooking(date, roomPosition, timeSlotsMask, removableEquipmentsMask, booking);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        DeferredDurability<?> currentDeferredDurability = deferredDurability.get();
+        if (currentDeferredDurability != null) {
+            currentDeferredDurability.pendingRecords.put(currentBookingJournal, recordNumber);
+            return true;
+        }
+        // Fermer le journal écrit tous les enregistrements déjà ajoutés : l'attente se termine même après une réouverture
+        currentBookingJournal.awaitDurable(recordNumber);
+        return true;
+    }
+
+    /**
+     * Supprime les réservations des journées passées, au plus une fois par jour
+     */
+    private void evictPastDates() {
+        LocalDate today = today();
+        if (!today.equals(lastEvictionDate)) {
+            dailyBookingsByDate.keySet().removeIf(date -> date.isBefore(today));
+            bookingsById.values().removeIf(booking -> booking.getDate().isBefore(today));
+            lastEvictionDate = today;
+        }
+    }
+
+    /**
+     * Résultat d'une opération dont les enregistrements du journal ne sont pas encore sur disque (voir {@link #deferDurability(Supplier)})
+     */
+    public static final class DeferredDurability<T> {
+        /**
+         * Dernier enregistrement ajouté à chaque journal : une réouverture du journal peut en faire changer pendant l'opération
+         */
+        private final Map<BookingJournal, Long> pendingRecords = new LinkedHashMap<>();
+        private final List<Runnable> rollBacks = new ArrayList<>();
+        private T result;
+
+        private DeferredDurability() {
+        }
+
+        /**
+         * Attend que les enregistrements de l'opération soient écrits sur disque
+         * Si l'écriture échoue, les salles, équipements amovibles et numéros des réservations de l'opération sont rendus
+         * par le thread courant, avant que l'erreur ne soit propagée (les libérations, elles, restent faites).
+         *
+         * @return le résultat de l'opération
+         * @throws UncheckedIOException si l'écriture du journal a échoué
+         * @throws IllegalStateException si l'attente a été interrompue
+         */
+        public T await() {
+            return await(Runnable::run);
+        }
+
+        /**
+         * Comme {@link #await()}, en confiant le retour en arrière à 'rollBackRunner' : en mode écrivain unique, il passe
+         * ainsi par le thread d'écriture, comme toute autre modification des réservations.
+         *
+         * @param rollBackRunner exécute le retour en arrière qui lui est confié, et rend la main une fois qu'il est terminé
+         */
+        public T await(Consumer<Runnable> rollBackRunner) {
+            boolean durable = false;
+            try {
+                pendingRecords.forEach(BookingJournal::awaitDurable);
+                durable = true;
+            } finally {
+                if (!durable && !rollBacks.isEmpty()) {
+                    rollBackRunner.accept(this::rollBack);
+                }
+            }
+            return result;
+        }
+
+        private void rollBack() {
+            for (int i = rollBacks.size() - 1; i >= 0; i--) {
+                rollBacks.get(i).run();
+            }
+        }
     }
 }
@@ -0,0 +1,201 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Room;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Catalogue des salles de réunion, lu depuis un fichier JSON de la forme :
+ *
+ * {"capacityLimitation": 0.7, "rooms": [{"name": "E1001", "capacity": 23, "equipments": ["SCREEN"]}, ...]}
+ *
+ * La capacité réelle d'une salle est sa capacité nominale multipliée par la limitation de capacité (arrondie à l'entier
+ * inférieur) : celle du fichier si elle est précisée, sinon celle de la propriété "covid.roomCapacityLimitation".
+ *
+ * Par défaut, le catalogue fourni avec l'application (rooms.json) est utilisé. Si la propriété
+ * "meeting-planner.rooms.catalog-file" désigne un fichier, ce fichier est utilisé à la place, et il est surveillé :
+ * chaque modification valide est transmise aux abonnés (voir {@link #watch(Consumer)}). Une modification invalide
+ * est ignorée, le catalogue précédent reste en vigueur.
+ */
+@Component
+public class RoomCatalog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomCatalog.class);
+
+    static final String DEFAULT_CATALOG = "rooms.json";
+
+    @Value("${meeting-planner.rooms.catalog-file:}")
+    private String catalogFile = "";
+
+    @Value("${covid.roomCapacityLimitation:1.0}")
+    private double roomCapacityLimitation = 1.0;
+
+    @Autowired
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private WatchService watchService;
+
+    /**
+     * Numéro attribué à chaque nom de salle chargé par ce catalogue (voir {@link Room#getId()})
+     */
+    private final Map<String, Integer> idsByName = new HashMap<>();
+
+    /**
+     * @return les salles du catalogue, dans l'ordre du fichier
+     * @throws UncheckedIOException si le catalogue ne peut pas être lu
+     * @throws IllegalArgumentException si le catalogue est invalide
+     */
+    public List<Room> load() {
+        try (InputStream inputStream = catalogFile.isEmpty()
+                ? RoomCatalog.class.getClassLoader().getResourceAsStream(DEFAULT_CATALOG)
+                : Files.newInputStream(Path.of(catalogFile))) {
+            if (inputStream == null) {
+                throw new IOException("Catalogue " + DEFAULT_CATALOG + " introuvable");
+            }
+            return toRooms(objectMapper.readValue(inputStream, CatalogFile.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de lire le catalogue des salles " + (catalogFile.isEmpty() ? DEFAULT_CATALOG : catalogFile), e);
+        }
+    }
+
+    /**
+     * Surveille le fichier du catalogue, s'il est paramétré, et transmet les salles à chaque modification valide
+     *
+     * @param listener l'abonné, appelé depuis le thread de surveillance
+     */
+    public synchronized void watch(Consumer<List<Room>> listener) {
+        if (catalogFile.isEmpty() || watchService != null) {
+            return;
+        }
+        Path path = Path.of(catalogFile).toAbsolutePath();
+        try {
+            watchService = path.getFileSystem().newWatchService();
+            path.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de surveiller le catalogue des salles " + catalogFile, e);
+        }
+
+        WatchService currentWatchService = watchService;
+        Thread watcherThread = new Thread(() -> watchLoop(currentWatchService, path, listener), "room-catalog-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private void watchLoop(WatchService watchService, Path path, Consumer<List<Room>> listener) {
+        while (true) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = watchKey.pollEvents().stream().anyMatch(event -> path.getFileName().equals(event.context()));
+            watchKey.reset();
+            if (!changed) {
+                continue;
+            }
+
+            // Un fichier en cours d'écriture peut être invalide : la fin de l'écriture provoquera une nouvelle lecture
+            try {
+                listener.accept(load());
+            } catch (RuntimeException e) {
+                LOGGER.warn("Catalogue des salles {} ignoré : {}", catalogFile, e.getMessage());
+            }
+        }
+    }
+
+    private List<Room> toRooms(CatalogFile catalog) {
+        double capacityLimitation = catalog.getCapacityLimitation() != null ? catalog.getCapacityLimitation() : roomCapacityLimitation;
+        if (capacityLimitation <= 0 || capacityLimitation > 1) {
+            throw new IllegalArgumentException("La limitation de capacité doit être comprise entre 0 (exclu) et 1 : " + capacityLimitation);
+        }
+
+        Set<String> names = new HashSet<>();
+        List<Room> rooms = new ArrayList<>(catalog.getRooms().size());
+        for (RoomDefinition roomDefinition : catalog.getRooms()) {
+            if (roomDefinition.getName() == null || !names.add(roomDefinition.getName())) {
+                throw new IllegalArgumentException("Nom de salle absent ou en double : " + roomDefinition.getName());
+            }
+            if (roomDefinition.getCapacity() < 0) {
+                throw new IllegalArgumentException("La capacité de la salle " + roomDefinition.getName() + " est négative");
+            }
+            rooms.add(new Room(idOf(roomDefinition.getName()), roomDefinition.getName(),
+                    (int) (capacityLimitation * roomDefinition.getCapacity()), Set.copyOf(roomDefinition.getEquipments())));
+        }
+        return List.copyOf(rooms);
+    }
+
+    /**
+     * Le numéro d'une salle est attribué au premier chargement de son nom, puis conservé aux rechargements suivants
+     * Le catalogue est chargé au démarrage puis par le thread de surveillance : le verrou n'est jamais disputé.
+     */
+    private int idOf(String name) {
+        synchronized (idsByName) {
+            return idsByName.computeIfAbsent(name, newName -> idsByName.size());
+        }
+    }
+
+    static final class CatalogFile {
+        private Double capacityLimitation;
+        private List<RoomDefinition> rooms = List.of();
+
+        public Double getCapacityLimitation() {
+            return capacityLimitation;
+        }
+
+        public List<RoomDefinition> getRooms() {
+            return rooms;
+        }
+    }
+
+    static final class RoomDefinition {
+        private String name;
+        private int capacity;
+        private List<Equipment> equipments = List.of();
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public List<Equipment> getEquipments() {
+            return equipments;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Index immuable des salles, construit une seule fois à partir de la liste des salles
+ *
+ * Les salles sont regroupées selon leur signature d'équipements (masque binaire sur 4 bits, voir {@link Equipment#mask()}),
+ * et chaque groupe est trié par capacité décroissante. Chercher la salle disponible ayant l'une des signatures demandées
+ * et une certaine capacité revient alors à parcourir les seuls groupes de ces signatures,
+ * en s'arrêtant dans chaque groupe dès que la capacité devient insuffisante.
+ *
+ * La salle retenue est la première dans l'ordre de la liste des salles, comme lors d'un parcours complet de cette liste.
+ *
+ * Les salles peuvent être partitionnées en shards selon une clé (étage, bâtiment... voir {@link RoomPartitioning}) :
+ * chaque shard a ses propres groupes de signatures, et son propre tableau de statuts de réservation dans chaque journée
+ * (voir {@link DailyBookings}), de sorte que des réservations sur des étages différents ne modifient jamais les mêmes
+ * lignes de cache. Une recherche ignore les shards dont aucune salle n'est assez grande, cherche la meilleure salle
+ * de chaque shard restant (en parallèle lorsque l'index est volumineux), puis retient la meilleure de ces salles :
+ * le résultat est le même que sans partitionnement.
+ *
+ * Chaque shard range aussi la capacité et la signature d'équipements de ses salles dans des tableaux de primitifs,
+ * parallèles au tableau des statuts de réservation de la journée : un parcours complet des salles (voir
+ * {@link #scanAvailability}) lit alors trois tableaux contigus, sans passer par les objets {@link Room}.
+ *
+ * La position d'une salle dans la liste sert d'identifiant à la salle, notamment dans le journal des réservations
+ * (voir {@link BookingJournal}).
+ */
+public class RoomIndex {
+
+    private static final int SIGNATURES_COUNT = 1 << Equipment.values().length;
+
+    /**
+     * En dessous de ce nombre de salles, chercher en parallèle dans les shards coûte plus cher que de les parcourir
+     */
+    static final int PARALLEL_SEARCH_MIN_ROOMS = 4096;
+
+    private static final long NOT_FOUND = Long.MAX_VALUE;
+
+    private final Room[] rooms;
+    private final int[] capacities;
+    private final Shard[] shards;
+    private final int[] shardsByPosition;
+    private final int[] localPositionsByPosition;
+    private final boolean parallelSearch;
+    /**
+     * Position de chaque salle par numéro attribué par le catalogue (voir {@link Room#getId()}), -1 pour les numéros
+     * absents de l'index : les salles créées hors du catalogue sont retrouvées par leur nom
+     */
+    private final int[] positionsByRoomId;
+    private final Map<String, Integer> positionsByName = new HashMap<>();
+
+    public RoomIndex(List<Room> rooms) {
+        this(rooms, room -> "");
+    }
+
+    /**
+     * @param rooms les salles, dans l'ordre de préférence à capacité et équipements égaux
+     * @param shardKey la clé du shard de chaque salle
+     */
+    public RoomIndex(List<Room> rooms, Function<Room, String> shardKey) {
+        this.rooms = rooms.toArray(new Room[0]);
+        this.capacities = rooms.stream().mapToInt(Room::getCapacity).toArray();
+        this.shardsByPosition = new int[this.rooms.length];
+        this.localPositionsByPosition = new int[this.rooms.length];
+        this.positionsByRoomId = new int[rooms.stream().mapToInt(Room::getId).max().orElse(-1) + 1];
+        Arrays.fill(positionsByRoomId, -1);
+        for (int position = 0; position < this.rooms.length; position++) {
+            Room room = this.rooms[position];
+            positionsByName.putIfAbsent(room.getName(), position);
+            if (room.getId() == Room.UNKNOWN_ID) {
+                continue;
+            }
+            int roomIdPosition = positionsByRoomId[room.getId()];
+            if (roomIdPosition >= 0 && !this.rooms[roomIdPosition].equals(room)) {
+                throw new IllegalArgumentException("Les salles " + this.rooms[roomIdPosition].getName() + " et " + room.getName()
+                        + " ont le même numéro : elles ne proviennent pas du même catalogue");
+            }
+            if (roomIdPosition < 0) {
+                positionsByRoomId[room.getId()] = position;
+            }
+        }
+
+        Map<String, List<Integer>> positionsByShardKey = IntStream.range(0, this.rooms.length)
+                .boxed()
+                .collect(Collectors.groupingBy(position -> shardKey.apply(this.rooms[position]), LinkedHashMap::new, Collectors.toList()));
+        List<Shard> shardList = new ArrayList<>();
+        positionsByShardKey.forEach((key, positions) -> shardList.add(new Shard(shardList.size(), key, positions.stream().mapToInt(Integer::intValue).toArray())));
+        this.shards = shardList.toArray(new Shard[0]);
+        this.parallelSearch = shards.length > 1 && this.rooms.length >= PARALLEL_SEARCH_MIN_ROOMS;
+    }
+
+    public List<Room> getRooms() {
+        return Arrays.asList(rooms);
+    }
+
+    /**
+     * @param room une salle de l'index
+     * @return la position de la salle dans la liste des salles
+     * @throws IllegalArgumentException si la salle ne fait pas partie de l'index
+     */
+    public int positionOf(Room room) {
+        int position = findPosition(room);
+        if (position < 0) {
+            throw new IllegalArgumentException("La salle " + room.getName() + " ne fait pas partie des salles réservables");
+        }
+        return position;
+    }
+
+    /**
+     * Une salle dont la capacité ou les équipements ont changé depuis la construction de l'index a le même numéro,
+     * mais n'est pas la même instance : elle ne fait pas partie de l'index
+     */
+    private int findPosition(Room room) {
+        int roomId = room.getId();
+        int position;
+        if (roomId == Room.UNKNOWN_ID) {
+            position = findPosition(room.getName());
+        } else {
+            position = roomId < positionsByRoomId.length ? positionsByRoomId[roomId] : -1;
+        }
+        return position >= 0 && rooms[position] == room ? position : -1;
+    }
+
+    /**
+     * @return true si cette salle fait partie de l'index
+     */
+    public boolean contains(Room room) {
+        return findPosition(room) >= 0;
+    }
+
+    /**
+     * @param roomName le nom d'une salle
+     * @return la position de la salle portant ce nom dans la liste des salles, ou -1 si aucune salle ne porte ce nom
+     */
+    public int findPosition(String roomName) {
+        return positionsByName.getOrDefault(roomName, -1);
+    }
+
+    /**
+     * @return les clés des shards, dans l'ordre de leur première salle dans la liste des salles
+     */
+    public List<String> getShardKeys() {
+        return Arrays.stream(shards).map(shard -> shard.key).collect(Collectors.toList());
+    }
+
+    int getShardsCount() {
+        return shards.length;
+    }
+
+    int getShardSize(int shard) {
+        return shards[shard].positions.length;
+    }
+
+    int shardOf(int position) {
+        return shardsByPosition[position];
+    }
+
+    int localPositionOf(int position) {
+        return localPositionsByPosition[position];
+    }
+
+    /**
+     * Cherche la première salle (dans l'ordre de la liste des salles) parmi celles :
+     * - disponibles au créneau demandé (et au créneau précédent)
+     * - d'une capacité supérieure ou égale à 'minimumCapacity'
+     * - dont la signature d'équipements fait partie des signatures données
+     *
+     * @param dailyBookings les réservations de la journée souhaitée
+     * @param timeSlot le créneau souhaité
+     * @param minimumCapacity la capacité minimum de la salle
+     * @param equipmentSignatures les signatures d'équipements acceptées (voir {@link Equipment#mask()})
+     * @return la salle trouvée, ou Optional.empty() si aucune salle ne convient
+     */
+    public Optional<Room> findFirstAvailableRoom(DailyBookings dailyBookings, TimeSlot timeSlot, int minimumCapacity, int[] equipmentSignatures) {
+        return findFirstAvailableRoom(dailyBookings, timeSlot.mask(), minimumCapacity, equipmentSignatures);
+    }
+
+    /**
+     * Comme {@link #findFirstAvailableRoom(DailyBookings, TimeSlot, int, int[])}, pour une salle disponible
+     * à plusieurs créneaux : la disponibilité de chaque salle est vérifiée par un seul ET binaire
+     *
+     * @param timeSlotsMask les créneaux souhaités (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     */
+    public Optional<Room> findFirstAvailableRoom(DailyBookings dailyBookings, int timeSlotsMask, int minimumCapacity, int[] equipmentSignatures) {
+        int bookingMask = TimeSlot.bookingMaskOf(timeSlotsMask);
+        return roomOf(search(minimumCapacity, shard -> findFirstAvailableRoom(shard, dailyBookings, bookingMask, minimumCapacity, equipmentSignatures)));
+    }
+
+    /**
+     * Cherche les 'limit' premières salles (dans l'ordre de la liste des salles) parmi celles :
+     * - disponibles au créneau demandé (et au créneau précédent)
+     * - d'une capacité supérieure ou égale à 'minimumCapacity'
+     * - dont la signature d'équipements fait partie des signatures données
+     *
+     * @param dailyBookings les réservations de la journée souhaitée
+     * @param timeSlot le créneau souhaité
+     * @param minimumCapacity la capacité minimum des salles
+     * @param equipmentSignatures les signatures d'équipements acceptées (voir {@link Equipment#mask()})
+     * @param limit le nombre maximum de salles à renvoyer
+     * @return les salles trouvées, dans l'ordre de la liste des salles
+     */
+    public List<Room> findFirstAvailableRooms(DailyBookings dailyBookings, TimeSlot timeSlot, int minimumCapacity, int[] equipmentSignatures, int limit) {
+        return findFirstAvailableRooms(dailyBookings, timeSlot.mask(), minimumCapacity, equipmentSignatures, limit);
+    }
+
+    /**
+     * Comme {@link #findFirstAvailableRooms(DailyBookings, TimeSlot, int, int[], int)}, pour des salles disponibles
+     * à plusieurs créneaux
+     *
+     * @param timeSlotsMask les créneaux souhaités (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     */
+    public List<Room> findFirstAvailableRooms(DailyBookings dailyBookings, int timeSlotsMask, int minimumCapacity, int[] equipmentSignatures, int limit) {
+        int bookingMask = TimeSlot.bookingMaskOf(timeSlotsMask);
+        // Les positions retenues sont gardées triées : seules les 'limit' plus petites sont conservées
+        int[] bestPositions = new int[limit];
+        int foundCount = 0;
+        for (Shard shard : shards) {
+            if (shard.maxCapacity < minimumCapacity) {
+                continue;
+            }
+            for (int signature : equipmentSignatures) {
+                for (int localPosition : shard.localPositionsBySignature[signature]) {
+                    int position = shard.positions[localPosition];
+                    if (capacities[position] < minimumCapacity) {
+                        break;
+                    }
+                    if ((foundCount < limit || position < bestPositions[limit - 1]) && dailyBookings.isAvailableFor(shard.index, localPosition, bookingMask)) {
+                        int insertion = foundCount < limit ? foundCount++ : limit - 1;
+                        while (insertion > 0 && bestPositions[insertion - 1] > position) {
+                            bestPositions[insertion] = bestPositions[insertion - 1];
+                            insertion--;
+                        }
+                        bestPositions[insertion] = position;
+                    }
+                }
+            }
+        }
+
+        List<Room> foundRooms = new ArrayList<>(foundCount);
+        for (int i = 0; i < foundCount; i++) {
+            foundRooms.add(rooms[bestPositions[i]]);
+        }
+        return foundRooms;
+    }
+
+    /**
+     * Parcourt toutes les salles pour compter celles qui sont libres aux créneaux demandés, celles qui sont aussi
+     * libres au créneau précédent (nettoyage), et celles qui conviennent en plus par leur capacité et leurs équipements
+     *
+     * Le parcours ne lit que les colonnes de chaque shard (statuts de réservation, capacités, signatures), sans barrière :
+     * une réservation concurrente peut ne pas être vue. Il ne fait que compter, sans écrire ni allouer de tableau :
+     * les salles qui conviennent ne sont retrouvées que si elles sont demandées (voir {@link AvailabilityScan#getAvailableRooms()}).
+     *
+     * @param dailyBookings les réservations de la journée souhaitée
+     * @param timeSlotsMask les créneaux souhaités (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     * @param minimumCapacity la capacité minimum des salles
+     * @param equipmentsMask les équipements requis dans les salles (voir {@link Equipment#mask()})
+     * @return le résultat du parcours
+     */
+    public AvailabilityScan scanAvailability(DailyBookings dailyBookings, int timeSlotsMask, int minimumCapacity, int equipmentsMask) {
+        int bookingMask = TimeSlot.bookingMaskOf(timeSlotsMask);
+        int unbookedCount = 0;
+        int cleanedCount = 0;
+        int availableCount = 0;
+
+        for (Shard shard : shards) {
+            int[] bookedTimeSlotsByRoom = dailyBookings.bookedTimeSlotsOf(shard.index);
+            int[] shardCapacities = shard.capacities;
+            byte[] shardSignatures = shard.signatures;
+            for (int localPosition = 0; localPosition < bookedTimeSlotsByRoom.length; localPosition++) {
+                int bookedSlots = bookedTimeSlotsByRoom[localPosition];
+                unbookedCount += (bookedSlots & timeSlotsMask) == 0 ? 1 : 0;
+                boolean cleaned = (bookedSlots & bookingMask) == 0;
+                cleanedCount += cleaned ? 1 : 0;
+                availableCount += cleaned & shardCapacities[localPosition] >= minimumCapacity
+                        & (shardSignatures[localPosition] & equipmentsMask) == equipmentsMask ? 1 : 0;
+            }
+        }
+        return new AvailabilityScan(dailyBookings, bookingMask, minimumCapacity, equipmentsMask, unbookedCount, cleanedCount, availableCount);
+    }
+
+    /**
+     * Résultat d'un parcours complet des salles (voir {@link #scanAvailability})
+     */
+    public final class AvailabilityScan {
+        private final DailyBookings dailyBookings;
+        private final int bookingMask;
+        private final int minimumCapacity;
+        private final int equipmentsMask;
+        private final int unbookedCount;
+        private final int cleanedCount;
+        private final int availableCount;
+
+        private AvailabilityScan(DailyBookings dailyBookings, int bookingMask, int minimumCapacity, int equipmentsMask,
+                                 int unbookedCount, int cleanedCount, int availableCount) {
+            this.dailyBookings = dailyBookings;
+            this.bookingMask = bookingMask;
+            this.minimumCapacity = minimumCapacity;
+            this.equipmentsMask = equipmentsMask;
+            this.unbookedCount = unbookedCount;
+            this.cleanedCount = cleanedCount;
+            this.availableCount = availableCount;
+        }
+
+        /**
+         * @return le nombre de salles non réservées aux créneaux demandés
+         */
+        public int getUnbookedCount() {
+            return unbookedCount;
+        }
+
+        /**
+         * @return le nombre de salles non réservées aux créneaux demandés ni au créneau précédent
+         */
+        public int getCleanedCount() {
+            return cleanedCount;
+        }
+
+        /**
+         * @return le nombre de salles disponibles, assez grandes et disposant des équipements requis
+         */
+        public int getAvailableCount() {
+            return availableCount;
+        }
+
+        /**
+         * Parcourt de nouveau les salles pour retrouver celles qui conviennent : au plus {@link #getAvailableCount()} salles,
+         * qui peuvent différer de celles comptées si des réservations ont eu lieu entre-temps
+         *
+         * @return ces salles, dans l'ordre de la liste des salles
+         */
+        public List<Room> getAvailableRooms() {
+            int[] availablePositions = new int[availableCount];
+            int foundCount = 0;
+            for (Shard shard : shards) {
+                int[] bookedTimeSlotsByRoom = dailyBookings.bookedTimeSlotsOf(shard.index);
+                for (int localPosition = 0; localPosition < bookedTimeSlotsByRoom.length && foundCount < availablePositions.length; localPosition++) {
+                    if ((bookedTimeSlotsByRoom[localPosition] & bookingMask) == 0 && shard.capacities[localPosition] >= minimumCapacity
+                            && (shard.signatures[localPosition] & equipmentsMask) == equipmentsMask) {
+                        availablePositions[foundCount++] = shard.positions[localPosition];
+                    }
+                }
+            }
+            if (shards.length > 1) {
+                Arrays.sort(availablePositions, 0, foundCount);
+            }
+
+            List<Room> availableRooms = new ArrayList<>(foundCount);
+            for (int i = 0; i < foundCount; i++) {
+                availableRooms.add(rooms[availablePositions[i]]);
+            }
+            return availableRooms;
+        }
+    }
+
+    /**
+     * Cherche dans chaque shard ayant une salle assez grande, et retient le meilleur résultat
+     * Un résultat est codé sur un long dont l'ordre naturel est l'ordre de préférence des salles
+     */
+    private long search(int minimumCapacity, ToLongFunction<Shard> shardSearch) {
+        if (parallelSearch) {
+            return Arrays.stream(shards)
+                    .parallel()
+                    .filter(shard -> shard.maxCapacity >= minimumCapacity)
+                    .mapToLong(shardSearch)
+                    .min()
+                    .orElse(NOT_FOUND);
+        }
+
+        long best = NOT_FOUND;
+        for (Shard shard : shards) {
+            if (shard.maxCapacity >= minimumCapacity) {
+                best = Math.min(best, shardSearch.applyAsLong(shard));
+            }
+        }
+        return best;
+    }
+
+    private Optional<Room> roomOf(long searchResult) {
+        return searchResult != NOT_FOUND ? Optional.of(rooms[(int) searchResult]) : Optional.empty();
+    }
+
+    /**
+     * @return la position de la première salle convenable du shard, ou NOT_FOUND
+     */
+    private long findFirstAvailableRoom(Shard shard, DailyBookings dailyBookings, int bookingMask, int minimumCapacity, int[] equipmentSignatures) {
+        int bestPosition = rooms.length;
+        for (int signature : equipmentSignatures) {
+            bestPosition = findBestAvailablePosition(shard, dailyBookings, signature, bookingMask, minimumCapacity, bestPosition);
+        }
+
+        return bestPosition < rooms.length ? bestPosition : NOT_FOUND;
+    }
+
+    private int findBestAvailablePosition(Shard shard, DailyBookings dailyBookings, int signature, int bookingMask, int minimumCapacity, int bestPosition) {
+        for (int localPosition : shard.localPositionsBySignature[signature]) {
+            int position = shard.positions[localPosition];
+            if (capacities[position] < minimumCapacity) {
+                break;
+            }
+            if (position < bestPosition && dailyBookings.isAvailableFor(shard.index, localPosition, bookingMask)) {
+                bestPosition = position;
+            }
+        }
+        return bestPosition;
+    }
+
+    /**
+     * Un shard : ses salles, par position dans le shard, et leurs positions regroupées par signature d'équipements
+     * Les capacités et les signatures sont rangées par position dans le shard, comme les statuts de réservation.
+     */
+    private final class Shard {
+        private final int index;
+        private final String key;
+        private final int[] positions;
+        private final int[] capacities;
+        private final byte[] signatures;
+        private final int[][] localPositionsBySignature = new int[SIGNATURES_COUNT][];
+        private final int maxCapacity;
+
+        private Shard(int index, String key, int[] positions) {
+            this.index = index;
+            this.key = key;
+            this.positions = positions;
+            this.capacities = Arrays.stream(positions).map(position -> RoomIndex.this.capacities[position]).toArray();
+            this.signatures = new byte[positions.length];
+            this.maxCapacity = Arrays.stream(this.capacities).max().orElse(0);
+            for (int localPosition = 0; localPosition < positions.length; localPosition++) {
+                shardsByPosition[positions[localPosition]] = index;
+                localPositionsByPosition[positions[localPosition]] = localPosition;
+            }
+
+            for (int localPosition = 0; localPosition < positions.length; localPosition++) {
+                signatures[localPosition] = (byte) Equipment.maskOf(rooms[positions[localPosition]].getEquipments());
+            }
+            for (int signature = 0; signature < SIGNATURES_COUNT; signature++) {
+                int roomSignature = signature;
+                localPositionsBySignature[signature] = IntStream.range(0, positions.length)
+                        .filter(localPosition -> signatures[localPosition] == roomSignature)
+                        .boxed()
+                        .sorted(Comparator.comparingInt((Integer localPosition) -> capacities[localPosition]).reversed())
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Room;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Clé de partitionnement des salles en shards (voir {@link RoomIndex}), déduite du nom de la salle
+ *
+ * Les noms de salles encodent le bâtiment et l'étage : la salle E2003 est la salle 003 du 2e étage du bâtiment E.
+ */
+public enum RoomPartitioning {
+
+    /**
+     * Toutes les salles dans un seul shard
+     */
+    NONE {
+        @Override
+        String keyOf(String roomName, int prefixLength) {
+            return "";
+        }
+    },
+
+    /**
+     * Un shard par bâtiment : les lettres en tête du nom (E pour E2003)
+     */
+    BUILDING {
+        @Override
+        String keyOf(String roomName, int prefixLength) {
+            return roomName.substring(0, buildingLength(roomName));
+        }
+    },
+
+    /**
+     * Un shard par étage : le bâtiment suivi du premier chiffre (E2 pour E2003)
+     */
+    FLOOR {
+        @Override
+        String keyOf(String roomName, int prefixLength) {
+            return roomName.substring(0, Math.min(roomName.length(), buildingLength(roomName) + 1));
+        }
+    },
+
+    /**
+     * Un shard par préfixe de nom, de longueur paramétrable
+     */
+    PREFIX {
+        @Override
+        String keyOf(String roomName, int prefixLength) {
+            return roomName.substring(0, Math.min(roomName.length(), prefixLength));
+        }
+    };
+
+    abstract String keyOf(String roomName, int prefixLength);
+
+    /**
+     * @param prefixLength la longueur du préfixe, pour {@link #PREFIX}
+     * @return la fonction donnant la clé du shard de chaque salle
+     */
+    public Function<Room, String> keyFunction(int prefixLength) {
+        return room -> keyOf(room.getName(), prefixLength);
+    }
+
+    /**
+     * @param value le nom du partitionnement, quelle que soit la casse (ex : floor)
+     * @throws IllegalArgumentException si le partitionnement n'existe pas
+     */
+    public static RoomPartitioning of(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Partitionnement des salles inconnu : " + value + " (attendu : none, building, floor ou prefix)", e);
+        }
+    }
+
+    private static int buildingLength(String roomName) {
+        int length = 0;
+        while (length < roomName.length() && !Character.isDigit(roomName.charAt(length))) {
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,135 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.Availability;
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import com.canalplus.meetingplanner.repository.DailyBookings;
+import com.canalplus.meetingplanner.repository.RemovableEquipmentPool;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service fournissant les disponibilités d'une journée (voir {@link Availability}), déjà sérialisées en JSON
+ *
+ * Les disponibilités d'une journée sont calculées et sérialisées une seule fois par version de la journée
+ * (voir {@link DailyBookings#getVersion()}) : tant qu'aucune réservation n'a été faite, les consultations suivantes
+ * renvoient le même instantané, sans sérialisation ni verrou. L'ETag de l'instantané dépend de la version,
+ * ce qui permet de répondre aux requêtes conditionnelles sans même renvoyer le JSON.
+ */
+@Service
+public class AvailabilityService {
+
+    private static final TimeSlot[] TIME_SLOTS = TimeSlot.values();
+
+    /**
+     * Les versions repartent de zéro au redémarrage : l'ETag contient aussi un identifiant de l'instance
+     */
+    private final String instanceId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private final ConcurrentMap<LocalDate, AvailabilitySnapshot> snapshotsByDate = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RoomBookRepository roomBookRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * @param date une journée comprise dans l'horizon de réservation
+     * @return l'instantané des disponibilités à jour pour cette journée
+     */
+    public AvailabilitySnapshot getAvailability(LocalDate date) {
+        DailyBookings dailyBookings = roomBookRepository.getDailyBookings(date);
+        long version = dailyBookings.getVersion();
+
+        AvailabilitySnapshot snapshot = snapshotsByDate.get(date);
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot;
+        }
+
+        LocalDate today = roomBookRepository.today();
+        snapshotsByDate.keySet().removeIf(snapshotDate -> snapshotDate.isBefore(today));
+        // La version est lue avant le calcul : une réservation faite pendant le calcul provoquera un nouveau calcul
+        return snapshotsByDate.compute(date, (snapshotDate, currentSnapshot) ->
+                currentSnapshot != null && currentSnapshot.version >= version ? currentSnapshot : createSnapshot(dailyBookings, version));
+    }
+
+    private AvailabilitySnapshot createSnapshot(DailyBookings dailyBookings, long version) {
+        List<Availability.RoomAvailability> roomAvailabilities = new ArrayList<>();
+        for (Room room : dailyBookings.getRoomIndex().getRooms()) {
+            int bookedTimeSlotsMask = dailyBookings.getBookedTimeSlots(room);
+            List<TimeSlot> bookedTimeSlots = new ArrayList<>();
+            List<TimeSlot> availableTimeSlots = new ArrayList<>();
+            for (TimeSlot timeSlot : TIME_SLOTS) {
+                if ((bookedTimeSlotsMask & timeSlot.mask()) != 0) {
+                    bookedTimeSlots.add(timeSlot);
+                }
+                if ((bookedTimeSlotsMask & timeSlot.bookingMask()) == 0) {
+                    availableTimeSlots.add(timeSlot);
+                }
+            }
+            roomAvailabilities.add(new Availability.RoomAvailability(room, bookedTimeSlots, availableTimeSlots));
+        }
+
+        RemovableEquipmentPool removableEquipmentPool = dailyBookings.getRemovableEquipmentPool();
+        Map<TimeSlot, Map<Equipment, Integer>> removableEquipments = new EnumMap<>(TimeSlot.class);
+        for (TimeSlot timeSlot : TIME_SLOTS) {
+            Map<Equipment, Integer> availableCounts = new EnumMap<>(Equipment.class);
+            for (Equipment equipment : Equipment.values()) {
+                availableCounts.put(equipment, removableEquipmentPool.getAvailableCount(timeSlot, equipment));
+            }
+            removableEquipments.put(timeSlot, availableCounts);
+        }
+
+        Availability availability = new Availability(dailyBookings.getDate(), roomAvailabilities, removableEquipments);
+        try {
+            return new AvailabilitySnapshot(version, "\"" + dailyBookings.getDate() + "-" + instanceId + "-" + version + "\"",
+                    objectMapper.writeValueAsBytes(availability));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossible de sérialiser les disponibilités du " + dailyBookings.getDate(), e);
+        }
+    }
+
+    /**
+     * Disponibilités d'une journée à une version donnée, sérialisées en JSON
+     */
+    public static final class AvailabilitySnapshot {
+        private final long version;
+        private final String eTag;
+        private final byte[] json;
+
+        private AvailabilitySnapshot(long version, String eTag, byte[] json) {
+            this.version = version;
+            this.eTag = eTag;
+            this.json = json;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return l'ETag (entre guillemets) identifiant cette version des disponibilités
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return les disponibilités sérialisées en JSON (à ne pas modifier)
+         */
+        public byte[] getJson() {
+            return json;
+        }
+    }
+}
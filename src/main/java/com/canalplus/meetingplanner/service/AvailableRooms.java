@@ -0,0 +1,125 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.RoomBookFailureCause;
+import com.canalplus.meetingplanner.model.TimeSlot;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Résultat d'une recherche de salles disponibles (voir {@link RoomFinder#findAvailableRooms}) : les salles trouvées,
+ * ou la raison pour laquelle aucune salle ne convient
+ *
+ * Un échec ne coûte rien à construire : il n'y a qu'un résultat par raison et par créneau,
+ * et son message n'est construit que s'il est demandé. Seuls les échecs sur plusieurs créneaux sont construits à la demande.
+ * De même, les salles trouvées par un parcours de l'index ne sont retrouvées que si elles sont demandées.
+ */
+public final class AvailableRooms {
+
+    private static final RoomBookFailureCause[] FINDER_FAILURE_CAUSES = {
+            RoomBookFailureCause.ALL_ROOMS_BOOKED,
+            RoomBookFailureCause.PREVIOUS_TIME_SLOT_BOOKED,
+            RoomBookFailureCause.INSUFFICIENT_CAPACITY
+    };
+
+    private static final AvailableRooms[][] NOT_FOUND_BY_CAUSE_AND_TIME_SLOT =
+            new AvailableRooms[RoomBookFailureCause.values().length][TimeSlot.values().length];
+
+    static {
+        for (RoomBookFailureCause failureCause : FINDER_FAILURE_CAUSES) {
+            for (TimeSlot timeSlot : TimeSlot.values()) {
+                NOT_FOUND_BY_CAUSE_AND_TIME_SLOT[failureCause.ordinal()][timeSlot.ordinal()] = new AvailableRooms(List.of(), failureCause, timeSlot, timeSlot);
+            }
+        }
+    }
+
+    private final Supplier<List<Room>> roomsSupplier;
+    private List<Room> rooms;
+    private final RoomBookFailureCause failureCause;
+    private final TimeSlot timeSlot;
+    private final TimeSlot lastTimeSlot;
+
+    private AvailableRooms(List<Room> rooms, RoomBookFailureCause failureCause, TimeSlot timeSlot, TimeSlot lastTimeSlot) {
+        this(null, rooms, failureCause, timeSlot, lastTimeSlot);
+    }
+
+    private AvailableRooms(Supplier<List<Room>> roomsSupplier, List<Room> rooms, RoomBookFailureCause failureCause, TimeSlot timeSlot, TimeSlot lastTimeSlot) {
+        this.roomsSupplier = roomsSupplier;
+        this.rooms = rooms;
+        this.failureCause = failureCause;
+        this.timeSlot = timeSlot;
+        this.lastTimeSlot = lastTimeSlot;
+    }
+
+    static AvailableRooms found(List<Room> rooms, TimeSlot timeSlot, TimeSlot lastTimeSlot) {
+        return new AvailableRooms(rooms, null, timeSlot, lastTimeSlot);
+    }
+
+    /**
+     * @param roomsSupplier retrouve les salles, au premier appel de {@link #getRooms()}
+     */
+    static AvailableRooms found(Supplier<List<Room>> roomsSupplier, TimeSlot timeSlot, TimeSlot lastTimeSlot) {
+        return new AvailableRooms(roomsSupplier, null, null, timeSlot, lastTimeSlot);
+    }
+
+    /**
+     * @param failureCause {@link RoomBookFailureCause#ALL_ROOMS_BOOKED}, {@link RoomBookFailureCause#PREVIOUS_TIME_SLOT_BOOKED}
+     *                     ou {@link RoomBookFailureCause#INSUFFICIENT_CAPACITY}
+     */
+    static AvailableRooms notFound(RoomBookFailureCause failureCause, TimeSlot timeSlot, TimeSlot lastTimeSlot) {
+        if (timeSlot == lastTimeSlot) {
+            return NOT_FOUND_BY_CAUSE_AND_TIME_SLOT[failureCause.ordinal()][timeSlot.ordinal()];
+        }
+        return new AvailableRooms(List.of(), failureCause, timeSlot, lastTimeSlot);
+    }
+
+    /**
+     * @return true si aucune salle ne convient
+     */
+    public boolean isEmpty() {
+        return failureCause != null;
+    }
+
+    /**
+     * @return les salles disponibles, dans l'ordre de la liste des salles (liste vide si aucune salle ne convient)
+     */
+    public List<Room> getRooms() {
+        if (rooms == null) {
+            rooms = roomsSupplier.get();
+        }
+        return rooms;
+    }
+
+    /**
+     * @return la raison pour laquelle aucune salle ne convient, null si des salles ont été trouvées
+     */
+    public RoomBookFailureCause getFailureCause() {
+        return failureCause;
+    }
+
+    /**
+     * @return le message expliquant pourquoi aucune salle ne convient, null si des salles ont été trouvées
+     */
+    public String getFailureMessage() {
+        if (failureCause == null) {
+            return null;
+        }
+        switch (failureCause) {
+            case ALL_ROOMS_BOOKED:
+                return "Toutes les salles " + describeTimeSlots() + " sont déjà réservées";
+            case PREVIOUS_TIME_SLOT_BOOKED:
+                return "Toutes les salles restantes " + describeTimeSlots() + " ont déjà réservées au créneau précédent";
+            case INSUFFICIENT_CAPACITY:
+            default:
+                return "Toutes les salles restantes " + describeTimeSlots() + " n'ont pas la capacité requise";
+        }
+    }
+
+    private String describeTimeSlots() {
+        if (timeSlot == lastTimeSlot) {
+            return "au créneau " + timeSlot;
+        }
+        return "aux créneaux " + timeSlot + " à " + lastTimeSlot;
+    }
+}
@@ -0,0 +1,101 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.Meeting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Réservation d'une réunion avec une clé d'idempotence : une requête renvoyée avec la même clé (par exemple
+ * après une coupure réseau) reçoit le résultat de la première requête, sans qu'une nouvelle salle ne soit cherchée
+ *
+ * Les résultats sont conservés dans un cache borné (voir {@link TinyLfuCache}) : au plus
+ * `meeting-planner.idempotency.max-keys` clés, chacune pendant `meeting-planner.idempotency.ttl-minutes` minutes.
+ * Une rafale de clés nouvelles ne fait donc qu'évincer des clés, sans que la mémoire occupée n'augmente.
+ * Une requête renvoyée pendant que la première est en cours attend son résultat.
+ * Un échec de réservation (aucune salle ne convient) est un résultat comme un autre, et il est conservé ;
+ * seule une erreur inattendue libère la clé, pour qu'une nouvelle requête puisse réessayer.
+ */
+@Service
+public class IdempotentBookingService {
+
+    @Autowired
+    private RoomBookService roomBookService;
+
+    @Value("${meeting-planner.idempotency.max-keys:100000}")
+    private int maxKeys = 100000;
+
+    @Value("${meeting-planner.idempotency.ttl-minutes:1440}")
+    private long timeToLiveMinutes = 1440;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private TinyLfuCache<String, BookingAttempt> bookingAttempts;
+
+    @PostConstruct
+    public void createCache() {
+        bookingAttempts = new TinyLfuCache<>(maxKeys, timeToLiveMinutes * 60_000);
+    }
+
+    /**
+     * @param idempotencyKey la clé choisie par le client pour cette réunion
+     * @return la réunion et le résultat de sa réservation (ceux de la première requête si la clé a déjà été reçue),
+     * ou Optional.empty() si la clé a déjà été reçue pour une autre réunion
+     */
+    public Optional<Meeting> bookRoomFor(String idempotencyKey, Meeting meeting) {
+        BookingAttempt attempt = new BookingAttempt(fingerprintOf(meeting));
+        BookingAttempt previousAttempt = bookingAttempts.putIfAbsent(idempotencyKey, attempt, clock.millis());
+        if (previousAttempt != null) {
+            if (!previousAttempt.fingerprint.equals(attempt.fingerprint)) {
+                return Optional.empty();
+            }
+            return Optional.of(resultOf(previousAttempt));
+        }
+
+        try {
+            meeting.setBookedRoomResult(roomBookService.bookRoomFor(meeting));
+        } catch (RuntimeException e) {
+            bookingAttempts.remove(idempotencyKey, attempt);
+            attempt.bookedMeeting.completeExceptionally(e);
+            throw e;
+        }
+        attempt.bookedMeeting.complete(meeting);
+        return Optional.of(meeting);
+    }
+
+    private static Meeting resultOf(BookingAttempt attempt) {
+        try {
+            return attempt.bookedMeeting.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Les champs de la réunion : une même clé ne peut pas servir à réserver deux réunions différentes
+     */
+    private static List<Object> fingerprintOf(Meeting meeting) {
+        return Arrays.asList(meeting.getName(), meeting.getDate(), meeting.getTimeSlot(), meeting.getDuration(),
+                meeting.getType(), meeting.getEmployeesNumber());
+    }
+
+    private static final class BookingAttempt {
+        private final List<Object> fingerprint;
+        private final CompletableFuture<Meeting> bookedMeeting = new CompletableFuture<>();
+
+        private BookingAttempt(List<Object> fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.RoomBookResult;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service permettant de réserver un lot de réunions, en parallèle, avec exactement le même résultat que si les réunions
+ * étaient réservées une par une dans l'ordre du lot
+ *
+ * La réservation d'une réunion à un créneau ne dépend que de l'état de ce créneau et du créneau précédent
+ * (règle de nettoyage des salles) dans la même journée, et ne modifie que l'état de ce créneau. Deux réunions
+ * de journées différentes, ou dont les créneaux ne sont ni identiques ni consécutifs, peuvent donc être réservées
+ * dans n'importe quel ordre.
+ *
+ * Le lot est découpé en segments : un segment est une suite de réunions d'un même créneau, consécutives dans le lot
+ * si l'on ignore les réunions des créneaux non voisins. Chaque segment attend la fin des derniers segments
+ * qui le précèdent dans le lot pour son créneau et les deux créneaux voisins, puis réserve ses réunions dans l'ordre.
+ * Une réunion sur plusieurs créneaux forme à elle seule un segment, qui attend les derniers segments de tous
+ * ses créneaux et de leurs voisins.
+ */
+@Service
+public class RoomBookBatchService {
+
+    /**
+     * En dessous de cette taille de lot, la parallélisation coûte plus qu'elle ne rapporte
+     */
+    static final int PARALLEL_BATCH_MIN_SIZE = 64;
+
+    @Autowired
+    private RoomBookService roomBookService;
+
+    @Autowired
+    private RoomBookRepository roomBookRepository;
+
+    @Value("${meeting-planner.batch.booking-threads:0}")
+    private int bookingThreads;
+
+    /**
+     * Pool dédié aux segments : un segment attend l'écriture sur disque de ses réservations, ce qui ne doit pas
+     * immobiliser les threads du pool commun (recherches parallèles dans les shards, flux parallèles...)
+     */
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void startExecutor() {
+        int threadsCount = bookingThreads > 0 ? bookingThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threadsCount, runnable -> {
+            Thread thread = new Thread(runnable, "batch-booking-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdown();
+    }
+
+    /**
+     * @param meetings les réunions à réserver, dans l'ordre de réservation
+     * @return le résultat de réservation de chaque réunion, dans le même ordre
+     */
+    public List<RoomBookResult> bookRoomsFor(List<Meeting> meetings) {
+        RoomBookResult[] roomBookResults = new RoomBookResult[meetings.size()];
+
+        if (meetings.size() < PARALLEL_BATCH_MIN_SIZE) {
+            for (int i = 0; i < meetings.size(); i++) {
+                roomBookResults[i] = roomBookService.bookRoomFor(meetings.get(i));
+            }
+            return List.of(roomBookResults);
+        }
+
+        List<CompletableFuture<Void>> segmentBookings = new ArrayList<>();
+        for (Segment segment : splitIntoSegments(meetings)) {
+            CompletableFuture<Void> segmentBooking = CompletableFuture.allOf(segment.previousSegments.stream()
+                            .map(previousSegment -> previousSegment.booking)
+                            .toArray(CompletableFuture<?>[]::new))
+                    .thenRunAsync(() -> segment.meetingIndexes.forEach(i -> roomBookResults[i] = roomBookService.bookRoomFor(meetings.get(i))), executor);
+            segment.booking = segmentBooking;
+            segmentBookings.add(segmentBooking);
+        }
+
+        try {
+            CompletableFuture.allOf(segmentBookings.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        return List.of(roomBookResults);
+    }
+
+    /**
+     * Découpe le lot en segments, dans l'ordre du lot : un segment n'a pour prédécesseurs que des segments déjà créés
+     */
+    private List<Segment> splitIntoSegments(List<Meeting> meetings) {
+        int timeSlotsCount = TimeSlot.values().length;
+        List<Segment> segments = new ArrayList<>();
+        Map<LocalDate, Segment[]> lastSegmentByTimeSlotByDate = new HashMap<>();
+        // Le dernier segment d'un créneau est fermé dès qu'une réunion d'un créneau voisin arrive après lui
+        Map<LocalDate, boolean[]> lastSegmentClosedByDate = new HashMap<>();
+
+        for (int i = 0; i < meetings.size(); i++) {
+            LocalDate date = roomBookRepository.dateOf(meetings.get(i));
+            Meeting meeting = meetings.get(i);
+            int timeSlot = meeting.getTimeSlot().ordinal();
+            // Une réunion dont la durée est invalide échoue sans rien réserver : on ne considère que son premier créneau
+            int lastTimeSlot = meeting.isWithinDay() ? timeSlot + meeting.getDuration() - 1 : timeSlot;
+            boolean multiSlot = lastTimeSlot > timeSlot;
+            Segment[] lastSegmentByTimeSlot = lastSegmentByTimeSlotByDate.computeIfAbsent(date, newDate -> new Segment[timeSlotsCount]);
+            boolean[] lastSegmentClosed = lastSegmentClosedByDate.computeIfAbsent(date, newDate -> new boolean[timeSlotsCount]);
+
+            if (multiSlot || lastSegmentByTimeSlot[timeSlot] == null || lastSegmentClosed[timeSlot]) {
+                Segment segment = new Segment();
+                for (int neighbourTimeSlot = Math.max(0, timeSlot - 1); neighbourTimeSlot <= Math.min(timeSlotsCount - 1, lastTimeSlot + 1); neighbourTimeSlot++) {
+                    Segment previousSegment = lastSegmentByTimeSlot[neighbourTimeSlot];
+                    if (previousSegment != null && !segment.previousSegments.contains(previousSegment)) {
+                        segment.previousSegments.add(previousSegment);
+                    }
+                }
+                segments.add(segment);
+                for (int bookedTimeSlot = timeSlot; bookedTimeSlot <= lastTimeSlot; bookedTimeSlot++) {
+                    lastSegmentByTimeSlot[bookedTimeSlot] = segment;
+                    // Aucune autre réunion ne rejoint le segment d'une réunion sur plusieurs créneaux
+                    lastSegmentClosed[bookedTimeSlot] = multiSlot;
+                }
+            }
+            lastSegmentByTimeSlot[timeSlot].meetingIndexes.add(i);
+
+            if (timeSlot > 0) {
+                lastSegmentClosed[timeSlot - 1] = true;
+            }
+            if (lastTimeSlot < timeSlotsCount - 1) {
+                lastSegmentClosed[lastTimeSlot + 1] = true;
+            }
+        }
+        return segments;
+    }
+
+    private static final class Segment {
+        private final List<Integer> meetingIndexes = new ArrayList<>();
+        private final List<Segment> previousSegments = new ArrayList<>(3);
+        private CompletableFuture<Void> booking;
+    }
+}
@@ -0,0 +1,182 @@
+package com.canalplus.meetingplanner.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Boucle de décision à écrivain unique : les opérations de réservation soumises par tous les threads sont rangées
+ * dans un anneau de taille fixe, puis exécutées une par une, dans l'ordre de l'anneau, par un seul thread
+ *
+ * L'anneau est sans verrou, à plusieurs producteurs et un seul consommateur : chaque producteur obtient un numéro
+ * d'ordre par un incrément atomique, puis dépose son opération dans la case correspondante dès que le numéro
+ * de la case indique qu'elle est libre pour ce tour de l'anneau (l'anneau plein fait donc attendre les producteurs).
+ * Le thread d'écriture vide les cases dans l'ordre des numéros, par lots, et ne s'endort que lorsque l'anneau est vide :
+ * les opérations soumises par un même thread sont exécutées dans l'ordre où elles ont été soumises.
+ *
+ * L'arrêt (voir {@link #shutdown()}) marque le compteur des producteurs : un producteur qui obtient un numéro marqué
+ * voit son opération refusée, et le thread d'écriture s'arrête après avoir exécuté toutes les opérations dont le numéro
+ * a été obtenu avant le marquage.
+ *
+ * Les opérations ne sont jamais en concurrence entre elles : les compare-and-set des réservations réussissent
+ * du premier coup, et un pic de réservations simultanées ne fait que remplir l'anneau au lieu de multiplier
+ * les recherches recommencées.
+ */
+public class RoomBookCommitLoop {
+
+    /**
+     * Nombre maximum d'opérations exécutées d'affilée : un lot est vidé sans lire le compteur des producteurs
+     */
+    private static final int BATCH_SIZE = 256;
+
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    /**
+     * Ajouté au compteur des producteurs à l'arrêt : tout numéro obtenu ensuite est au moins égal à cette valeur
+     */
+    private static final long SHUT_DOWN = 1L << 62;
+
+    private final Task<?>[] tasks;
+    /**
+     * Numéro de chaque case : égal au numéro d'ordre du producteur attendu si la case est libre,
+     * à ce numéro plus un une fois l'opération déposée
+     */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final Thread writerThread;
+
+    private volatile boolean writerParked;
+    /**
+     * Nombre d'opérations dont le numéro a été obtenu avant l'arrêt, -1 tant que la boucle n'est pas arrêtée
+     */
+    private volatile long lastSequence = -1;
+
+    /**
+     * @param capacity le nombre de cases de l'anneau (arrondi à la puissance de deux supérieure)
+     * @param threadName le nom du thread d'écriture
+     */
+    public RoomBookCommitLoop(int capacity, String threadName) {
+        int slotsCount = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.tasks = new Task<?>[slotsCount];
+        this.sequences = new AtomicLongArray(slotsCount);
+        for (int slot = 0; slot < slotsCount; slot++) {
+            sequences.set(slot, slot);
+        }
+        this.mask = slotsCount - 1;
+        this.writerThread = new Thread(this::writeLoop, threadName);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Soumet une opération au thread d'écriture
+     * Une opération soumise depuis le thread d'écriture lui-même est exécutée immédiatement.
+     *
+     * @param operation l'opération à exécuter sur l'état des réservations
+     * @return le résultat de l'opération, une fois exécutée
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        Task<T> task = new Task<>(operation);
+        if (Thread.currentThread() == writerThread) {
+            task.run();
+            return task.result;
+        }
+        long sequence = nextSequence.getAndIncrement();
+        if (sequence >= SHUT_DOWN) {
+            task.result.completeExceptionally(new RejectedExecutionException("La boucle de réservation est arrêtée"));
+            return task.result;
+        }
+        int slot = (int) sequence & mask;
+        for (int spins = 0; sequences.get(slot) != sequence; spins++) {
+            // L'anneau est plein : on attend que le thread d'écriture libère la case
+            backOff(spins);
+        }
+        tasks[slot] = task;
+        sequences.set(slot, sequence + 1);
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+        return task.result;
+    }
+
+    /**
+     * Arrête le thread d'écriture, après qu'il a exécuté les opérations déjà soumises
+     * Les opérations soumises ensuite sont refusées.
+     */
+    public void shutdown() throws InterruptedException {
+        long sequence = nextSequence.get();
+        while (sequence < SHUT_DOWN && !nextSequence.compareAndSet(sequence, sequence + SHUT_DOWN)) {
+            sequence = nextSequence.get();
+        }
+        if (sequence < SHUT_DOWN) {
+            lastSequence = sequence;
+        }
+        LockSupport.unpark(writerThread);
+        writerThread.join();
+    }
+
+    private void writeLoop() {
+        long sequence = 0;
+        while (true) {
+            int executedCount = 0;
+            int slot = (int) sequence & mask;
+            while (executedCount < BATCH_SIZE && sequences.get(slot) == sequence + 1) {
+                Task<?> task = tasks[slot];
+                tasks[slot] = null;
+                // La case est libérée pour le tour suivant avant l'exécution de l'opération
+                sequences.set(slot, sequence + tasks.length);
+                task.run();
+                sequence++;
+                executedCount++;
+                slot = (int) sequence & mask;
+            }
+            if (executedCount > 0) {
+                continue;
+            }
+
+            if (sequence == lastSequence) {
+                return;
+            }
+            if (sequence == nextSequence.get()) {
+                writerParked = true;
+                // Un producteur qui a déposé son opération avant ce test sera vu ; les suivants verront writerParked
+                if (sequences.get(slot) != sequence + 1 && lastSequence < 0) {
+                    LockSupport.park(this);
+                }
+                writerParked = false;
+            } else {
+                // Un producteur a son numéro mais n'a pas encore déposé son opération
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static void backOff(int spins) {
+        if (spins < SPINS_BEFORE_PARK) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(1000);
+        }
+    }
+
+    private static final class Task<T> {
+        private final Supplier<T> operation;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Task(Supplier<T> operation) {
+            this.operation = operation;
+        }
+
+        private void run() {
+            try {
+                result.complete(operation.get());
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
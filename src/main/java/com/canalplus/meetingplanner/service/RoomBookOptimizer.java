@@ -0,0 +1,474 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.metrics.RoomBookMetrics;
+import com.canalplus.meetingplanner.model.*;
+import com.canalplus.meetingplanner.repository.DailyBookings;
+import com.canalplus.meetingplanner.repository.RemovableEquipmentPool;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Service permettant de réserver un lot de réunions en cherchant à en réserver le plus grand nombre possible
+ * (mode "optimize" de /bookRooms)
+ *
+ * Contrairement à la réservation réunion par réunion, où une petite réunion peut prendre la seule grande salle
+ * dont une réunion suivante aurait besoin, toutes les réunions du lot sont d'abord attribuées sur un modèle
+ * des salles et des équipements amovibles, puis réservées d'un coup :
+ *
+ * - chaque journée est attribuée séparément, et ses créneaux sont traités dans l'ordre de la journée, et pour chaque créneau, les réunions les plus grandes d'abord
+ * - une réunion prend de préférence la salle qui nécessite d'emprunter le moins d'équipements amovibles, puis la plus
+ * petite salle suffisante, pour laisser les grandes salles aux réunions qui en ont besoin
+ * - si aucune salle n'est libre, on cherche un chemin augmentant (comme pour un couplage maximum) : une réunion déjà
+ * placée au même créneau est déplacée vers une autre salle pour libérer la sienne, en respectant le stock
+ * d'équipements amovibles
+ * - si la salle n'est bloquée que par une réunion placée au créneau précédent (règle de nettoyage), on essaie
+ * de déplacer cette dernière
+ *
+ * Plusieurs ordres de placement des réunions d'un même créneau sont essayés, et l'on garde l'attribution qui place
+ * le plus de réunions. Le tout est limité par un budget de temps : une fois ce budget épuisé, on n'essaie plus d'autre
+ * ordre, et les réunions restantes ne sont placées que dans des salles libres. Les réunions qui n'ont pas pu être placées
+ * sont enfin réservées une par une comme d'habitude (voir {@link RoomBookService}), ce qui donne la raison de l'échec.
+ * Les réunions sur plusieurs créneaux ne sont pas attribuées par le modèle : elles sont réservées de cette façon,
+ * après les réunions placées.
+ */
+@Service
+public class RoomBookOptimizer {
+
+    private static final TimeSlot[] TIME_SLOTS = TimeSlot.values();
+    private static final Equipment[] EQUIPMENTS = Equipment.values();
+    private static final int SIGNATURES_COUNT = 1 << EQUIPMENTS.length;
+
+    /**
+     * Nombre maximum d'ordres de placement des réunions essayés
+     */
+    private static final int MAX_ATTEMPTS = 8;
+
+    @Value("${meeting-planner.optimizer.time-budget-ms:300}")
+    private long timeBudgetMillis = 300;
+
+    @Autowired
+    private RoomBookRepository roomBookRepository;
+
+    @Autowired
+    private RoomBookService roomBookService;
+
+    @Autowired
+    private RoomBookMetrics roomBookMetrics = RoomBookMetrics.noop();
+
+    /**
+     * @param meetings les réunions à réserver
+     * @return le résultat de réservation de chaque réunion, dans le même ordre
+     */
+    public List<RoomBookResult> bookRoomsFor(List<Meeting> meetings) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        RoomBookResult[] roomBookResults = new RoomBookResult[meetings.size()];
+
+        // Les journées sont indépendantes : chacune a sa propre attribution
+        Map<LocalDate, List<Integer>> meetingIndexesByDate = IntStream.range(0, meetings.size())
+                .filter(i -> meetings.get(i).getDuration() == 1)
+                .boxed()
+                .collect(Collectors.groupingBy(i -> roomBookRepository.dateOf(meetings.get(i)), LinkedHashMap::new, Collectors.toList()));
+        meetingIndexesByDate.forEach((date, meetingIndexes) -> {
+            if (!roomBookRepository.isWithinHorizon(date)) {
+                return;
+            }
+            List<Meeting> dailyMeetings = meetingIndexes.stream().map(meetings::get).collect(Collectors.toList());
+            RoomBookResult[] dailyRoomBookResults = allocateAndBook(date, dailyMeetings, deadline);
+            for (int i = 0; i < meetingIndexes.size(); i++) {
+                roomBookResults[meetingIndexes.get(i)] = dailyRoomBookResults[i];
+            }
+        });
+
+        for (int i = 0; i < meetings.size(); i++) {
+            if (roomBookResults[i] == null) {
+                roomBookResults[i] = roomBookService.bookRoomFor(meetings.get(i));
+            }
+        }
+
+        return List.of(roomBookResults);
+    }
+
+    /**
+     * @return le résultat de réservation de chaque réunion de la journée placée par l'attribution, null pour les autres
+     */
+    private RoomBookResult[] allocateAndBook(LocalDate date, List<Meeting> meetings, long deadline) {
+        RoomsSnapshot roomsSnapshot = new RoomsSnapshot(roomBookRepository.getDailyBookings(date));
+
+        // Plusieurs ordres de placement des réunions sont essayés tant que le budget de temps le permet :
+        // on garde l'attribution qui place le plus de réunions
+        RoomAllocation bestRoomAllocation = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (bestRoomAllocation != null && (bestRoomAllocation.getAllocatedCount() == meetings.size() || System.nanoTime() - deadline > 0)) {
+                break;
+            }
+            RoomAllocation roomAllocation = new RoomAllocation(roomsSnapshot, meetings, meetingsPriority(meetings, attempt), deadline);
+            roomAllocation.allocate();
+            if (bestRoomAllocation == null || roomAllocation.getAllocatedCount() > bestRoomAllocation.getAllocatedCount()) {
+                bestRoomAllocation = roomAllocation;
+            }
+        }
+
+        RoomBookResult[] roomBookResults = new RoomBookResult[meetings.size()];
+        for (int i = 0; i < meetings.size(); i++) {
+            Optional<Room> room = bestRoomAllocation.getRoomOf(i);
+            if (room.isEmpty()) {
+                continue;
+            }
+            Set<Equipment> borrowedEquipments = bestRoomAllocation.getBorrowedEquipmentsOf(i);
+            // Une réservation concurrente a pu prendre la salle ou les équipements entre-temps
+            Optional<Booking> booking = roomBookRepository.book(roomBookRepository.nextBookingId(), meetings.get(i), room.get(), borrowedEquipments);
+            if (booking.isPresent()) {
+                roomBookResults[i] = new RoomBookResult(booking.get());
+                roomBookMetrics.recordOutcome(meetings.get(i).getType(), roomBookResults[i]);
+            }
+        }
+        return roomBookResults;
+    }
+
+    /**
+     * @return l'ordre dans lequel placer les réunions de chaque créneau pour cette tentative :
+     * les plus grandes d'abord, puis l'ordre du lot, puis celles nécessitant le plus d'équipements d'abord,
+     * puis des ordres aléatoires (mais reproductibles)
+     */
+    private static int[] meetingsPriority(List<Meeting> meetings, int attempt) {
+        Comparator<Integer> byEmployeesNumber = Comparator.comparingInt(meeting -> meetings.get(meeting).getEmployeesNumber());
+        Comparator<Integer> byRequiredEquipmentsCount = Comparator.comparingInt(meeting -> meetings.get(meeting).getType().getRequiredEquipments().size());
+        List<Integer> priority = IntStream.range(0, meetings.size()).boxed().collect(Collectors.toList());
+
+        switch (attempt) {
+            case 0:
+                priority.sort(byEmployeesNumber.reversed().thenComparing(byRequiredEquipmentsCount.reversed()));
+                break;
+            case 1:
+                break;
+            case 2:
+                priority.sort(byRequiredEquipmentsCount.reversed().thenComparing(byEmployeesNumber.reversed()));
+                break;
+            default:
+                Collections.shuffle(priority, new Random(attempt));
+                break;
+        }
+        return priority.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Copie de l'état des salles et des équipements amovibles d'une journée au début de l'attribution,
+     * commune à toutes les tentatives
+     */
+    static final class RoomsSnapshot {
+
+        private final Room[] rooms;
+        private final int[] capacities;
+        private final int[] signatures;
+        private final int[][] roomsBySignature = new int[SIGNATURES_COUNT][];
+        private final boolean[][] availableAtStart;
+        private final int[][] stock;
+
+        RoomsSnapshot(DailyBookings dailyBookings) {
+            List<Room> roomList = dailyBookings.getRoomIndex().getRooms();
+            rooms = roomList.toArray(new Room[0]);
+            capacities = roomList.stream().mapToInt(Room::getCapacity).toArray();
+            signatures = roomList.stream().mapToInt(room -> Equipment.maskOf(room.getEquipments())).toArray();
+            for (int signature = 0; signature < SIGNATURES_COUNT; signature++) {
+                int roomSignature = signature;
+                // Dans chaque groupe, de la plus petite salle à la plus grande, puis dans l'ordre de la liste des salles
+                roomsBySignature[signature] = IntStream.range(0, rooms.length)
+                        .filter(room -> signatures[room] == roomSignature)
+                        .boxed()
+                        .sorted(Comparator.comparingInt((Integer room) -> capacities[room]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+
+            RemovableEquipmentPool removableEquipmentPool = dailyBookings.getRemovableEquipmentPool();
+            availableAtStart = new boolean[TIME_SLOTS.length][rooms.length];
+            stock = new int[TIME_SLOTS.length][EQUIPMENTS.length];
+            for (TimeSlot timeSlot : TIME_SLOTS) {
+                for (int room = 0; room < rooms.length; room++) {
+                    availableAtStart[timeSlot.ordinal()][room] = dailyBookings.isAvailableFor(rooms[room], timeSlot);
+                }
+                for (Equipment equipment : EQUIPMENTS) {
+                    stock[timeSlot.ordinal()][equipment.ordinal()] = removableEquipmentPool.getAvailableCount(timeSlot, equipment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Une tentative d'attribution des salles aux réunions d'un lot, sur une copie de l'état des salles
+     * et des équipements amovibles
+     */
+    static final class RoomAllocation {
+
+        private static final int NO_MEETING = -1;
+        private static final int NO_ROOM = -1;
+
+        /**
+         * Au-delà de cette profondeur, un chemin augmentant est abandonné
+         */
+        private static final int MAX_AUGMENTING_PATH_LENGTH = 64;
+
+        /**
+         * Pour chaque type de réunion, les signatures d'équipements des salles, de la plus favorable à la moins favorable :
+         * le moins d'équipements à emprunter, puis le moins d'équipements dans la salle
+         */
+        private static final int[][] SIGNATURES_BY_MEETING_TYPE = Arrays.stream(MeetingType.values())
+                .map(meetingType -> IntStream.range(0, SIGNATURES_COUNT)
+                        .boxed()
+                        .sorted(Comparator
+                                .comparingInt((Integer signature) -> Integer.bitCount(meetingType.getRequiredEquipmentsMask() & ~signature))
+                                .thenComparingInt(Integer::bitCount))
+                        .mapToInt(Integer::intValue)
+                        .toArray())
+                .toArray(int[][]::new);
+
+        private final List<Meeting> meetings;
+        private final int[] meetingsPriority;
+        private final long deadline;
+
+        private final Room[] rooms;
+        private final int[] capacities;
+        private final int[] signatures;
+        private final int[][] roomsBySignature;
+        private final boolean[][] availableAtStart;
+        private final int[][] stock;
+
+        private final int[][] usage = new int[TIME_SLOTS.length][EQUIPMENTS.length];
+        private final int[][] meetingByRoom;
+        private final int[] roomByMeeting;
+
+        private final int[] visits;
+        private int visit;
+
+        RoomAllocation(RoomsSnapshot roomsSnapshot, List<Meeting> meetings, int[] meetingsPriority, long deadline) {
+            this.meetings = meetings;
+            this.meetingsPriority = meetingsPriority;
+            this.deadline = deadline;
+
+            rooms = roomsSnapshot.rooms;
+            capacities = roomsSnapshot.capacities;
+            signatures = roomsSnapshot.signatures;
+            roomsBySignature = roomsSnapshot.roomsBySignature;
+            availableAtStart = roomsSnapshot.availableAtStart;
+            stock = roomsSnapshot.stock;
+
+            meetingByRoom = new int[TIME_SLOTS.length][rooms.length];
+            for (int[] timeSlotMeetingByRoom : meetingByRoom) {
+                Arrays.fill(timeSlotMeetingByRoom, NO_MEETING);
+            }
+            roomByMeeting = new int[meetings.size()];
+            Arrays.fill(roomByMeeting, NO_ROOM);
+            visits = new int[rooms.length];
+        }
+
+        void allocate() {
+            for (TimeSlot timeSlot : TIME_SLOTS) {
+                int[] timeSlotMeetings = Arrays.stream(meetingsPriority)
+                        .filter(meeting -> meetings.get(meeting).getTimeSlot() == timeSlot)
+                        .toArray();
+
+                for (int meeting : timeSlotMeetings) {
+                    allocate(meeting);
+                }
+                for (int meeting : timeSlotMeetings) {
+                    if (roomByMeeting[meeting] == NO_ROOM && !isOverBudget()) {
+                        allocateByMovingPreviousTimeSlotMeeting(meeting);
+                    }
+                }
+            }
+        }
+
+        int getAllocatedCount() {
+            return (int) Arrays.stream(roomByMeeting).filter(room -> room != NO_ROOM).count();
+        }
+
+        Optional<Room> getRoomOf(int meeting) {
+            return roomByMeeting[meeting] == NO_ROOM ? Optional.empty() : Optional.of(rooms[roomByMeeting[meeting]]);
+        }
+
+        Set<Equipment> getBorrowedEquipmentsOf(int meeting) {
+            return Equipment.setOf(missingEquipmentsMask(meeting, signatures[roomByMeeting[meeting]]));
+        }
+
+        private void allocate(int meeting) {
+            int timeSlot = timeSlotOf(meeting);
+            int[] usageDelta = new int[EQUIPMENTS.length];
+            visit++;
+
+            if (findFreeRoom(meeting, usageDelta) || (!isOverBudget() && findAugmentingPath(meeting, usageDelta, 0))) {
+                for (int equipment = 0; equipment < EQUIPMENTS.length; equipment++) {
+                    usage[timeSlot][equipment] += usageDelta[equipment];
+                }
+            }
+        }
+
+        /**
+         * Place la réunion dans la meilleure salle libre, si les équipements à emprunter sont disponibles
+         * (compte tenu des variations d'emprunts 'usageDelta' déjà prévues)
+         */
+        private boolean findFreeRoom(int meeting, int[] usageDelta) {
+            int timeSlot = timeSlotOf(meeting);
+            for (int signature : SIGNATURES_BY_MEETING_TYPE[meetings.get(meeting).getType().ordinal()]) {
+                int missingEquipmentsMask = missingEquipmentsMask(meeting, signature);
+                if (!fitsStock(timeSlot, usageDelta, missingEquipmentsMask)) {
+                    continue;
+                }
+                int[] candidateRooms = roomsBySignature[signature];
+                for (int i = firstRoomWithCapacity(candidateRooms, meetings.get(meeting).getEmployeesNumber()); i < candidateRooms.length; i++) {
+                    int room = candidateRooms[i];
+                    if (meetingByRoom[timeSlot][room] == NO_MEETING && canHost(timeSlot, room)) {
+                        addUsage(usageDelta, missingEquipmentsMask, 1);
+                        assign(meeting, room);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Place la réunion dans une salle occupée au même créneau, en déplaçant récursivement la réunion qui l'occupe
+         */
+        private boolean findAugmentingPath(int meeting, int[] usageDelta, int pathLength) {
+            if (pathLength >= MAX_AUGMENTING_PATH_LENGTH) {
+                return false;
+            }
+
+            int timeSlot = timeSlotOf(meeting);
+            for (int signature : SIGNATURES_BY_MEETING_TYPE[meetings.get(meeting).getType().ordinal()]) {
+                int missingEquipmentsMask = missingEquipmentsMask(meeting, signature);
+                int[] candidateRooms = roomsBySignature[signature];
+                for (int i = firstRoomWithCapacity(candidateRooms, meetings.get(meeting).getEmployeesNumber()); i < candidateRooms.length; i++) {
+                    int room = candidateRooms[i];
+                    int occupyingMeeting = meetingByRoom[timeSlot][room];
+                    if (occupyingMeeting == NO_MEETING || occupyingMeeting == meeting || visits[room] == visit || !canHost(timeSlot, room)) {
+                        continue;
+                    }
+                    visits[room] = visit;
+
+                    addUsage(usageDelta, missingEquipmentsMask, 1);
+                    addUsage(usageDelta, missingEquipmentsMask(occupyingMeeting, signature), -1);
+                    if (findFreeRoom(occupyingMeeting, usageDelta)
+                            || (!isOverBudget() && findAugmentingPath(occupyingMeeting, usageDelta, pathLength + 1))) {
+                        assign(meeting, room);
+                        return true;
+                    }
+                    addUsage(usageDelta, missingEquipmentsMask(occupyingMeeting, signature), 1);
+                    addUsage(usageDelta, missingEquipmentsMask, -1);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Place la réunion dans une salle qui n'est bloquée que par une réunion placée au créneau précédent,
+         * en déplaçant cette dernière vers une autre salle (éventuellement via un chemin augmentant à son créneau)
+         */
+        private void allocateByMovingPreviousTimeSlotMeeting(int meeting) {
+            int timeSlot = timeSlotOf(meeting);
+            if (timeSlot == 0) {
+                return;
+            }
+
+            for (int signature : SIGNATURES_BY_MEETING_TYPE[meetings.get(meeting).getType().ordinal()]) {
+                int missingEquipmentsMask = missingEquipmentsMask(meeting, signature);
+                if (!fitsStock(timeSlot, new int[EQUIPMENTS.length], missingEquipmentsMask)) {
+                    continue;
+                }
+                int[] candidateRooms = roomsBySignature[signature];
+                for (int i = firstRoomWithCapacity(candidateRooms, meetings.get(meeting).getEmployeesNumber()); i < candidateRooms.length; i++) {
+                    int room = candidateRooms[i];
+                    int previousMeeting = meetingByRoom[timeSlot - 1][room];
+                    if (previousMeeting == NO_MEETING || meetingByRoom[timeSlot][room] != NO_MEETING
+                            || !availableAtStart[timeSlot][room] || isOverBudget()) {
+                        continue;
+                    }
+
+                    // La réunion du créneau précédent occupe encore sa salle : elle ne peut être déplacée que vers une autre
+                    int[] previousUsageDelta = new int[EQUIPMENTS.length];
+                    addUsage(previousUsageDelta, missingEquipmentsMask(previousMeeting, signatures[room]), -1);
+                    visit++;
+                    if (findFreeRoom(previousMeeting, previousUsageDelta) || findAugmentingPath(previousMeeting, previousUsageDelta, 0)) {
+                        for (int equipment = 0; equipment < EQUIPMENTS.length; equipment++) {
+                            usage[timeSlot - 1][equipment] += previousUsageDelta[equipment];
+                        }
+                        addUsage(usage[timeSlot], missingEquipmentsMask, 1);
+                        assign(meeting, room);
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return true si la salle peut accueillir une réunion à ce créneau : libre au départ à ce créneau et au
+         * créneau précédent, et aucune réunion du lot n'y est placée au créneau précédent ou au créneau suivant
+         */
+        private boolean canHost(int timeSlot, int room) {
+            return availableAtStart[timeSlot][room]
+                    && (timeSlot == 0 || meetingByRoom[timeSlot - 1][room] == NO_MEETING)
+                    && (timeSlot == TIME_SLOTS.length - 1 || meetingByRoom[timeSlot + 1][room] == NO_MEETING);
+        }
+
+        private boolean fitsStock(int timeSlot, int[] usageDelta, int missingEquipmentsMask) {
+            for (int equipment = 0; equipment < EQUIPMENTS.length; equipment++) {
+                int borrowed = (missingEquipmentsMask >>> equipment) & 1;
+                if (usage[timeSlot][equipment] + usageDelta[equipment] + borrowed > stock[timeSlot][equipment]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void assign(int meeting, int room) {
+            int timeSlot = timeSlotOf(meeting);
+            if (roomByMeeting[meeting] != NO_ROOM && meetingByRoom[timeSlot][roomByMeeting[meeting]] == meeting) {
+                meetingByRoom[timeSlot][roomByMeeting[meeting]] = NO_MEETING;
+            }
+            meetingByRoom[timeSlot][room] = meeting;
+            roomByMeeting[meeting] = room;
+        }
+
+        private int missingEquipmentsMask(int meeting, int signature) {
+            return meetings.get(meeting).getType().getRequiredEquipmentsMask() & ~signature;
+        }
+
+        private int timeSlotOf(int meeting) {
+            return meetings.get(meeting).getTimeSlot().ordinal();
+        }
+
+        private int firstRoomWithCapacity(int[] roomsByCapacity, int minimumCapacity) {
+            int low = 0;
+            int high = roomsByCapacity.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (capacities[roomsByCapacity[middle]] < minimumCapacity) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private boolean isOverBudget() {
+            return System.nanoTime() - deadline > 0;
+        }
+
+        private static void addUsage(int[] usage, int equipmentsMask, int count) {
+            for (int equipment = 0; equipment < EQUIPMENTS.length; equipment++) {
+                if ((equipmentsMask & (1 << equipment)) != 0) {
+                    usage[equipment] += count;
+                }
+            }
+        }
+    }
+}
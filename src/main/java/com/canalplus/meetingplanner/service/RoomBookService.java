@@ -0,0 +1,402 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.metrics.RoomBookMetrics;
+import com.canalplus.meetingplanner.model.*;
+import com.canalplus.meetingplanner.repository.DailyBookings;
+import com.canalplus.meetingplanner.repository.RemovableEquipmentPool;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.canalplus.meetingplanner.repository.RoomIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Service permettant de réserver une salle pour une réunion, quel que soit son type
+ *
+ * Une réunion doit se faire, à une journée comprise dans l'horizon de réservation
+ * (voir {@link RoomBookRepository#isWithinHorizon(LocalDate)}), dans une salle :
+ *
+ * - disponible au créneau horaire demandé (i.e. non réservée pour ce créneau, non réservée au créneau précédent
+ * et assez grande pour accueillir le nombre de personnes conviées à la réunion)
+ * Une réunion sur plusieurs créneaux consécutifs (voir {@link Meeting#getDuration()}) occupe la même salle à tous
+ * ses créneaux : la salle doit être libre à chacun d'eux et au créneau précédant le premier, ce qui se vérifie
+ * par un seul ET binaire sur son masque de réservation
+ *
+ * et
+ *
+ * - comportant les équipements nécessaires au type de réunion (voir {@link MeetingType#getRequiredEquipments()}),
+ * ou qui peut récupérer en tant qu'équipements amovibles ceux qui lui manquent (à chacun des créneaux de la réunion)
+ *
+ * Parmi les salles qui conviennent, on choisit celle qui nécessite d'emprunter le moins d'équipements amovibles.
+ * À nombre d'équipements empruntés égal, on privilégie les salles disposant des équipements nécessaires
+ * les premiers dans l'ordre de {@link Equipment}, puis les salles ayant le moins d'équipements,
+ * puis la première salle dans l'ordre de la liste des salles.
+ *
+ * Ces critères sont précalculés pour chaque type de réunion sous forme de paliers de signatures d'équipements
+ * (voir {@link RoomIndex}) : la recherche s'arrête au premier palier contenant une salle disponible
+ * et dont les équipements manquants sont disponibles.
+ *
+ * Chaque réservation réussie reçoit un numéro, qui permet de l'annuler ou de la déplacer vers une autre journée
+ * ou d'autres créneaux (voir {@link #cancelBooking(long)} et {@link #moveBooking(long, BookingChange)}).
+ *
+ * Par défaut, les réservations concurrentes sont faites par les threads appelants, et ne se synchronisent que par
+ * les compare-and-set des réservations de la journée. En mode écrivain unique, les réservations, annulations
+ * et déplacements sont exécutés un par un par un seul thread (voir {@link RoomBookCommitLoop}), ce qui évite
+ * les recherches recommencées lorsque de nombreux threads réservent les mêmes salles en même temps. Ce thread n'attend
+ * pas l'écriture du journal sur disque : chaque appelant attend celle de sa propre opération.
+ */
+@Service
+public class RoomBookService {
+
+    private static final Map<MeetingType, List<RoomSignatureTier>> TIERS_BY_MEETING_TYPE = new EnumMap<>(MeetingType.class);
+
+    private static final Map<MeetingType, String> MISSING_EQUIPMENTS_MESSAGES = new EnumMap<>(MeetingType.class);
+
+    static {
+        Arrays.stream(MeetingType.values()).forEach(meetingType -> TIERS_BY_MEETING_TYPE.put(meetingType, computeTiers(meetingType)));
+        Arrays.stream(MeetingType.values())
+                .filter(meetingType -> !meetingType.getRequiredEquipments().isEmpty())
+                .forEach(meetingType -> MISSING_EQUIPMENTS_MESSAGES.put(meetingType,
+                        "Aucune salle restante à ce créneau ne contient tous les équipements requis" +
+                        ", et les équipements amovibles restants pour ce créneau ne contiennent pas au moins " +
+                        describe(meetingType.getRequiredEquipments())));
+    }
+
+    @Autowired
+    private RoomBookRepository roomBookRepository;
+
+    @Autowired
+    private RoomFinder roomFinder;
+
+    @Autowired
+    private RoomBookMetrics roomBookMetrics = RoomBookMetrics.noop();
+
+    @Value("${meeting-planner.booking.single-writer:false}")
+    private boolean singleWriter;
+
+    @Value("${meeting-planner.booking.single-writer-capacity:4096}")
+    private int singleWriterCapacity = 4096;
+
+    private RoomBookCommitLoop commitLoop;
+
+    @PostConstruct
+    public void startCommitLoop() {
+        if (singleWriter) {
+            commitLoop = new RoomBookCommitLoop(singleWriterCapacity, "room-book-writer");
+        }
+    }
+
+    @PreDestroy
+    public void stopCommitLoop() throws InterruptedException {
+        if (commitLoop != null) {
+            commitLoop.shutdown();
+        }
+    }
+
+    public RoomBookResult bookRoomFor(Meeting meeting) {
+        return commit(() -> {
+            long bookingId = roomBookRepository.nextBookingId();
+            return bookRoomFor(meeting, null, (room, removableEquipments) -> roomBookRepository.book(bookingId, meeting, room, removableEquipments));
+        });
+    }
+
+    /**
+     * @param previousBooking la réservation déplacée, ou null pour une nouvelle réservation
+     * @param booker réserve la salle choisie avec ses équipements amovibles, ou renvoie Optional.empty() si une
+     * réservation concurrente les a obtenus entre-temps
+     */
+    private RoomBookResult bookRoomFor(Meeting meeting, Booking previousBooking, BiFunction<Room, Set<Equipment>, Optional<Booking>> booker) {
+        long start = System.nanoTime();
+        RoomBookResult roomBookResult = book(meeting, previousBooking, booker);
+        roomBookMetrics.recordBooking(meeting.getType(), roomBookResult, System.nanoTime() - start);
+        return roomBookResult;
+    }
+
+    /**
+     * Annule une réservation : la salle et les équipements amovibles empruntés sont de nouveau disponibles
+     *
+     * @param bookingId le numéro de la réservation (voir {@link RoomBookResult#getBookingId()})
+     * @return la réservation annulée, ou Optional.empty() si aucune réservation en cours ne porte ce numéro
+     */
+    public Optional<Booking> cancelBooking(long bookingId) {
+        return commit(() -> roomBookRepository.cancelBooking(bookingId));
+    }
+
+    /**
+     * Déplace une réservation vers une autre journée ou d'autres créneaux, en gardant son numéro
+     *
+     * La nouvelle réservation est faite avant que la précédente ne soit libérée : si aucune salle ne convient,
+     * la réservation précédente est conservée telle quelle, même si d'autres réservations sont faites entre-temps.
+     * Dans la même journée, la réunion garde sa salle si celle-ci est libre aux nouveaux créneaux, y compris lorsqu'ils
+     * chevauchent les précédents ; sinon une salle est cherchée comme pour une nouvelle réunion.
+     * Pendant le déplacement, la réservation ne peut être ni annulée ni déplacée une seconde fois.
+     *
+     * @param bookingId le numéro de la réservation
+     * @param bookingChange la nouvelle journée et les nouveaux créneaux
+     * @return le résultat de la nouvelle réservation, ou Optional.empty() si aucune réservation en cours ne porte ce numéro
+     */
+    public Optional<RoomBookResult> moveBooking(long bookingId, BookingChange bookingChange) {
+        return commit(() -> move(bookingId, bookingChange));
+    }
+
+    private Optional<RoomBookResult> move(long bookingId, BookingChange bookingChange) {
+        Optional<Booking> takenBooking = roomBookRepository.takeBooking(bookingId);
+        if (takenBooking.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Booking previousBooking = takenBooking.get();
+        Meeting movedMeeting = previousBooking.toMeeting(bookingChange.getDate(), bookingChange.getTimeSlot(), bookingChange.getDuration());
+        RoomBookResult roomBookResult;
+        try {
+            roomBookResult = bookRoomFor(movedMeeting, previousBooking,
+                    (room, removableEquipments) -> roomBookRepository.moveBooking(previousBooking, movedMeeting, room, removableEquipments));
+        } catch (RuntimeException e) {
+            roomBookRepository.putBackBooking(previousBooking);
+            throw e;
+        }
+        if (roomBookResult.getRoomBookStatus() == RoomBookStatus.FAILURE) {
+            roomBookRepository.putBackBooking(previousBooking);
+        }
+        return Optional.of(roomBookResult);
+    }
+
+    /**
+     * Exécute une opération qui modifie les réservations : directement, ou par le thread d'écriture en mode écrivain unique
+     * Le thread d'écriture ne fait qu'ajouter les enregistrements de l'opération au journal : c'est le thread appelant
+     * qui attend leur écriture sur disque, pendant que le thread d'écriture passe aux opérations suivantes.
+     * Si cette écriture échoue, le retour en arrière de l'opération repasse par le thread d'écriture.
+     */
+    private <T> T commit(Supplier<T> operation) {
+        if (commitLoop == null) {
+            return operation.get();
+        }
+        return join(commitLoop.submit(() -> roomBookRepository.deferDurability(operation))).await(this::rollBack);
+    }
+
+    private void rollBack(Runnable rollBack) {
+        try {
+            join(commitLoop.submit(() -> {
+                rollBack.run();
+                return null;
+            }));
+        } catch (RejectedExecutionException e) {
+            // Le service s'arrête : le retour en arrière se fait sur ce thread, comme sans écrivain unique
+            rollBack.run();
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private RoomBookResult book(Meeting meeting, Booking previousBooking, BiFunction<Room, Set<Equipment>, Optional<Booking>> booker) {
+        LocalDate meetingDate = roomBookRepository.dateOf(meeting);
+
+        if (!roomBookRepository.isWithinHorizon(meetingDate)) {
+            return new RoomBookResult(RoomBookFailureCause.OUTSIDE_HORIZON, () -> "La date " + meetingDate + " est en dehors de l'horizon de réservation (du "
+                    + roomBookRepository.today() + " au " + roomBookRepository.getHorizonEnd() + ")");
+        }
+
+        if (!meeting.isWithinDay()) {
+            return new RoomBookResult(RoomBookFailureCause.INVALID_DURATION, () -> "Une réunion de " + meeting.getDuration() + " créneau(x) à partir du créneau "
+                    + meeting.getTimeSlot() + " ne tient pas dans la journée");
+        }
+
+        if (previousBooking != null && previousBooking.getDate().equals(meetingDate)) {
+            Optional<Booking> booking = booker.apply(previousBooking.getRoom(), previousBooking.getRemovableBorrowedEquipments());
+            if (booking.isPresent()) {
+                return new RoomBookResult(booking.get());
+            }
+        }
+
+        // Si une réservation concurrente a obtenu entre-temps la salle ou les équipements amovibles choisis,
+        // ou si la liste des salles a changé, on recommence la recherche à partir de l'état à jour
+        while (true) {
+            DailyBookings dailyBookings = roomBookRepository.getDailyBookings(meetingDate);
+            Optional<RoomBookResult> roomBookResult = findRoomFor(meeting, dailyBookings);
+
+            if (roomBookResult.isEmpty()) {
+                Optional<RoomBookResult> failure = findFailure(meeting, dailyBookings);
+                if (failure.isPresent()) {
+                    return failure.get();
+                }
+                continue;
+            }
+
+            Optional<Booking> booking = booker.apply(roomBookResult.get().getRoom(), roomBookResult.get().getRemovableBorrowedEquipments());
+            if (booking.isPresent()) {
+                return new RoomBookResult(booking.get());
+            }
+        }
+    }
+
+    private Optional<RoomBookResult> findRoomFor(Meeting meeting, DailyBookings dailyBookings) {
+        RoomIndex roomIndex = dailyBookings.getRoomIndex();
+        RemovableEquipmentPool removableEquipmentPool = dailyBookings.getRemovableEquipmentPool();
+        int meetingTimeSlotsMask = meeting.getTimeSlotsMask();
+
+        for (RoomSignatureTier tier : TIERS_BY_MEETING_TYPE.get(meeting.getType())) {
+            if (!removableEquipmentPool.isAvailableForAll(meetingTimeSlotsMask, tier.missingEquipmentsMask)) {
+                continue;
+            }
+
+            Optional<Room> room = roomFinder.findFirstAvailableRoom(roomIndex, dailyBookings, meetingTimeSlotsMask, meeting.getEmployeesNumber(), tier.roomSignatures);
+            if (room.isPresent()) {
+                return Optional.of(new RoomBookResult(room.get(), tier.missingEquipments));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Cherche, sans rien réserver, les salles que la réservation d'une réunion pourrait choisir à ce créneau
+     * Les salles sont triées par ordre de préférence, avec les mêmes critères que la réservation : la première salle
+     * est celle qu'une réservation choisirait si l'état des réservations ne changeait pas d'ici là.
+     * Les réservations sont lues sans verrou.
+     *
+     * @param meetingType le type de réunion
+     * @param employeesNumber le nombre de personnes conviées
+     * @param date une journée comprise dans l'horizon de réservation
+     * @param timeSlot le créneau souhaité
+     * @param limit le nombre maximum de salles à renvoyer
+     * @return au plus 'limit' salles, de la plus favorable à la moins favorable
+     */
+    public RoomCandidates findRoomCandidates(MeetingType meetingType, int employeesNumber, LocalDate date, TimeSlot timeSlot, int limit) {
+        return findRoomCandidates(meetingType, employeesNumber, date, timeSlot, 1, limit);
+    }
+
+    /**
+     * Comme {@link #findRoomCandidates(MeetingType, int, LocalDate, TimeSlot, int)}, pour une réunion
+     * sur plusieurs créneaux consécutifs : les salles sont libres, et les équipements amovibles disponibles,
+     * à chacun de ces créneaux
+     *
+     * @param timeSlot le premier créneau souhaité
+     * @param duration le nombre de créneaux consécutifs
+     * @throws IllegalArgumentException si les créneaux dépassent la fin de la journée
+     */
+    public RoomCandidates findRoomCandidates(MeetingType meetingType, int employeesNumber, LocalDate date, TimeSlot timeSlot, int duration, int limit) {
+        int timeSlotsMask = TimeSlot.rangeMask(timeSlot, duration);
+        // Une recherche ne crée pas la journée : une journée sans réservation est entièrement libre
+        DailyBookings dailyBookings = roomBookRepository.findDailyBookings(date);
+        RemovableEquipmentPool removableEquipmentPool = dailyBookings.getRemovableEquipmentPool();
+        List<RoomCandidates.RoomCandidate> candidates = new ArrayList<>(limit);
+
+        for (RoomSignatureTier tier : TIERS_BY_MEETING_TYPE.get(meetingType)) {
+            if (candidates.size() == limit) {
+                break;
+            }
+            if (!removableEquipmentPool.isAvailableForAll(timeSlotsMask, tier.missingEquipmentsMask)) {
+                continue;
+            }
+            for (Room room : roomFinder.findFirstAvailableRooms(dailyBookings.getRoomIndex(), dailyBookings, timeSlotsMask, employeesNumber, tier.roomSignatures, limit - candidates.size())) {
+                candidates.add(new RoomCandidates.RoomCandidate(room, tier.missingEquipments));
+            }
+        }
+        return new RoomCandidates(date, timeSlot, duration, candidates);
+    }
+
+    /**
+     * @return l'échec de réservation de cette réunion, avec la raison pour laquelle aucune salle n'a pu être trouvée,
+     * ou Optional.empty() si une salle convenable s'est libérée entre-temps
+     */
+    private Optional<RoomBookResult> findFailure(Meeting meeting, DailyBookings dailyBookings) {
+        // On parcourt toutes les salles pour savoir si c'est la disponibilité des salles qui est en cause
+        AvailableRooms availableRooms = roomFinder.findAvailableRooms(dailyBookings.getRoomIndex(), dailyBookings, meeting.getTimeSlot(), meeting.getDuration(), meeting.getEmployeesNumber());
+        if (availableRooms.isEmpty()) {
+            return Optional.of(new RoomBookResult(availableRooms.getFailureCause(), availableRooms::getFailureMessage));
+        }
+
+        if (meeting.getType().getRequiredEquipments().isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Sinon ce sont les équipements qui manquent, dans les salles comme parmi les équipements amovibles
+        return Optional.of(new RoomBookResult(RoomBookFailureCause.MISSING_EQUIPMENTS, MISSING_EQUIPMENTS_MESSAGES.get(meeting.getType())));
+    }
+
+    private static String describe(List<Equipment> equipments) {
+        List<String> labels = equipments.stream().map(Equipment::getLabel).collect(Collectors.toList());
+        if (labels.size() == 1) {
+            return labels.get(0);
+        }
+        return String.join(", ", labels.subList(0, labels.size() - 1)) + " et " + labels.get(labels.size() - 1);
+    }
+
+    /**
+     * Regroupe toutes les signatures d'équipements possibles en paliers, du plus favorable au moins favorable
+     * pour ce type de réunion :
+     * - nombre d'équipements à emprunter croissant
+     * - puis équipements nécessaires déjà présents dans la salle, par ordre de {@link Equipment}
+     * - puis nombre d'équipements de la salle croissant
+     */
+    private static List<RoomSignatureTier> computeTiers(MeetingType meetingType) {
+        int requiredMask = meetingType.getRequiredEquipmentsMask();
+        int signaturesCount = 1 << Equipment.values().length;
+
+        Comparator<Integer> bySignaturePreference = Comparator
+                .comparingInt((Integer signature) -> Integer.bitCount(requiredMask & ~signature))
+                .thenComparing(signature -> presenceRank(requiredMask & signature), Comparator.reverseOrder())
+                .thenComparingInt(Integer::bitCount);
+
+        List<Integer> signatures = IntStream.range(0, signaturesCount)
+                .boxed()
+                .sorted(bySignaturePreference)
+                .collect(Collectors.toList());
+
+        List<RoomSignatureTier> tiers = new ArrayList<>();
+        int tierStart = 0;
+        for (int i = 1; i <= signatures.size(); i++) {
+            if (i == signatures.size() || bySignaturePreference.compare(signatures.get(tierStart), signatures.get(i)) != 0) {
+                int[] tierSignatures = signatures.subList(tierStart, i).stream().mapToInt(Integer::intValue).toArray();
+                tiers.add(new RoomSignatureTier(requiredMask & ~tierSignatures[0], tierSignatures));
+                tierStart = i;
+            }
+        }
+        return tiers;
+    }
+
+    /**
+     * À nombre égal d'équipements présents, les salles disposant des premiers équipements (dans l'ordre de
+     * {@link Equipment}) ont un rang plus élevé
+     */
+    private static int presenceRank(int presentEquipmentsMask) {
+        return Integer.reverse(presentEquipmentsMask) >>> (Integer.SIZE - Equipment.values().length);
+    }
+
+    /**
+     * Un palier : des signatures de salles équivalentes pour un type de réunion, qui nécessitent d'emprunter
+     * les mêmes équipements amovibles
+     */
+    private static final class RoomSignatureTier {
+        private final int missingEquipmentsMask;
+        private final Set<Equipment> missingEquipments;
+        private final int[] roomSignatures;
+
+        private RoomSignatureTier(int missingEquipmentsMask, int[] roomSignatures) {
+            this.missingEquipmentsMask = missingEquipmentsMask;
+            this.missingEquipments = Equipment.setOf(missingEquipmentsMask);
+            this.roomSignatures = roomSignatures;
+        }
+    }
+}
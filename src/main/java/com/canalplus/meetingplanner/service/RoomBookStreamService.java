@@ -0,0 +1,86 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.metrics.RoomBookMetrics;
+import com.canalplus.meetingplanner.model.Meeting;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Service permettant de réserver un lot de réunions lu au fil de l'eau, quelle que soit sa taille
+ *
+ * Le lot est un tableau JSON de réunions, lu élément par élément : chaque réunion est réservée dès qu'elle est lue,
+ * dans l'ordre du lot (voir {@link RoomBookService}), puis écrite avec son résultat dans le tableau JSON de la réponse.
+ * Ni le lot ni les résultats ne sont conservés en mémoire : la mémoire utilisée ne dépend pas de la taille du lot.
+ */
+@Service
+public class RoomBookStreamService {
+
+    @Autowired
+    private RoomBookService roomBookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoomBookMetrics roomBookMetrics = RoomBookMetrics.noop();
+
+    /**
+     * Une fois la réponse commencée, une réunion illisible interrompt le lot sans annuler les réunions déjà réservées :
+     * le tableau de la réponse se termine alors par un élément {"error": "..."} qui décrit l'erreur, à la place
+     * des réunions restantes. Après toute autre erreur, le tableau n'est pas fermé : une réponse interrompue
+     * n'est jamais un tableau JSON valide.
+     *
+     * @param meetingsJson le tableau JSON des réunions à réserver
+     * @param meetingsWithResultJson reçoit le tableau JSON des réunions avec leur résultat de réservation, dans le même ordre
+     * @return le nombre de réunions réservées
+     * @throws JsonParseException si le lot n'est pas un tableau JSON (rien n'a alors été écrit ni réservé)
+     */
+    public int bookRoomsFor(InputStream meetingsJson, OutputStream meetingsWithResultJson) throws IOException {
+        long start = System.nanoTime();
+        ObjectReader meetingReader = objectMapper.readerFor(Meeting.class);
+        int meetingsCount = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(meetingsJson)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Le lot de réunions doit être un tableau JSON");
+            }
+
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(meetingsWithResultJson, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                try {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        Meeting meeting = meetingReader.readValue(parser);
+                        meeting.setBookedRoomResult(roomBookService.bookRoomFor(meeting));
+                        generator.writeObject(meeting);
+                        meetingsCount++;
+                    }
+                    if (parser.currentToken() != JsonToken.END_ARRAY) {
+                        throw new JsonParseException(parser, "Réunion attendue dans le lot de réunions");
+                    }
+                } catch (JsonProcessingException e) {
+                    generator.writeStartObject();
+                    generator.writeStringField("error", e.getOriginalMessage());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+        }
+
+        roomBookMetrics.recordBatch(false, meetingsCount, System.nanoTime() - start);
+        return meetingsCount;
+    }
+}
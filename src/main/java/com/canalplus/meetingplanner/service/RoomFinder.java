@@ -1,16 +1,16 @@
 package com.canalplus.meetingplanner.service;
 
-import com.canalplus.meetingplanner.exceptions.NoAvailableRoomException;
 import com.canalplus.meetingplanner.model.Equipment;
 import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.RoomBookFailureCause;
 import com.canalplus.meetingplanner.model.TimeSlot;
+import com.canalplus.meetingplanner.repository.DailyBookings;
+import com.canalplus.meetingplanner.repository.RoomIndex;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Service utilitaire permettant d'effectuer des recherches sur les salles selon plusieurs critères
@@ -27,116 +27,139 @@ public class RoomFinder {
      * - d'une capacité supérieure à 'minimumCapacity'
      *
      * @param rooms les salles sur lesquelles effectuer la recherche
+     * @param dailyBookings les réservations de la journée sur laquelle effectuer la recherche
      * @param meetingTimeSlot le créneau sur lequel effectuer la recherche
      * @param minimumCapacity la capacité minimum des salles à trouver
-     * @return La liste des salles qui sont disponibles
-     * @throws NoAvailableRoomException si aucune salle de respecte les conditions demandées
+     * @return Les salles qui sont disponibles, ou la raison pour laquelle aucune salle ne respecte les conditions demandées
      */
-    public List<Room> findAvailableRooms(List<Room> rooms, TimeSlot meetingTimeSlot, int minimumCapacity) throws NoAvailableRoomException {
-        List<Room> unbookedRooms = findUnbookedRoomsAtTimeSlot(rooms, meetingTimeSlot);
-        if (unbookedRooms.isEmpty()) {
-            throw new NoAvailableRoomException("Toutes les salles au créneau " + meetingTimeSlot + " sont déjà réservées");
-        }
+    public AvailableRooms findAvailableRooms(List<Room> rooms, DailyBookings dailyBookings, TimeSlot meetingTimeSlot, int minimumCapacity) {
+        return findAvailableRooms(rooms, dailyBookings, meetingTimeSlot, 1, minimumCapacity);
+    }
 
-        List<Room> unbookedCleanedRooms;
-        if (meetingTimeSlot.previousSlot().isPresent()) {
-            unbookedCleanedRooms = findUnbookedRoomsAtTimeSlot(unbookedRooms, meetingTimeSlot.previousSlot().get());
-            if (unbookedCleanedRooms.isEmpty()) {
-                throw new NoAvailableRoomException("Toutes les salles restantes au créneau " + meetingTimeSlot + " ont déjà réservées au créneau précédent");
+    /**
+     * Cherche des salles disponibles à plusieurs créneaux consécutifs (voir {@link #findAvailableRooms(List, DailyBookings, TimeSlot, int)})
+     * Seul le créneau précédant le premier créneau doit être libre pour le nettoyage : les créneaux suivants
+     * sont occupés par la même réunion.
+     *
+     * @param firstTimeSlot le premier créneau sur lequel effectuer la recherche
+     * @param duration le nombre de créneaux consécutifs
+     */
+    public AvailableRooms findAvailableRooms(List<Room> rooms, DailyBookings dailyBookings, TimeSlot firstTimeSlot, int duration, int minimumCapacity) {
+        int timeSlotsMask = TimeSlot.rangeMask(firstTimeSlot, duration);
+        TimeSlot lastTimeSlot = TimeSlot.values()[firstTimeSlot.ordinal() + duration - 1];
+
+        // Un seul parcours des salles : on retient au passage s'il existait des salles libres aux créneaux demandés,
+        // et des salles libres à la fois aux créneaux demandés et au créneau précédent
+        List<Room> availableRooms = new ArrayList<>();
+        boolean unbookedRoomFound = false;
+        boolean unbookedCleanedRoomFound = false;
+
+        for (Room room : rooms) {
+            if ((dailyBookings.getBookedTimeSlots(room) & timeSlotsMask) != 0) {
+                continue;
             }
-        } else {
-            unbookedCleanedRooms = unbookedRooms;
+            unbookedRoomFound = true;
+
+            if (!dailyBookings.isAvailableFor(room, timeSlotsMask)) {
+                continue;
+            }
+            unbookedCleanedRoomFound = true;
+
+            if (room.getCapacity() >= minimumCapacity) {
+                availableRooms.add(room);
+            }
+        }
+
+        if (!unbookedRoomFound) {
+            return AvailableRooms.notFound(RoomBookFailureCause.ALL_ROOMS_BOOKED, firstTimeSlot, lastTimeSlot);
+        }
+
+        if (!unbookedCleanedRoomFound) {
+            return AvailableRooms.notFound(RoomBookFailureCause.PREVIOUS_TIME_SLOT_BOOKED, firstTimeSlot, lastTimeSlot);
         }
 
-        List<Room> availableRooms = findRoomsWithMinimumCapacity(unbookedCleanedRooms, minimumCapacity);
         if (availableRooms.isEmpty()) {
-            throw new NoAvailableRoomException("Toutes les salles restantes au créneau " + meetingTimeSlot + " n'ont pas la capacité requise");
+            return AvailableRooms.notFound(RoomBookFailureCause.INSUFFICIENT_CAPACITY, firstTimeSlot, lastTimeSlot);
         }
 
-        return availableRooms;
+        return AvailableRooms.found(availableRooms, firstTimeSlot, lastTimeSlot);
     }
 
     /**
-     * Cherche des salles disposant d'un certain nombre d'équipements
+     * Comme {@link #findAvailableRooms(List, DailyBookings, TimeSlot, int, int)}, sur toutes les salles de l'index :
+     * le parcours lit les colonnes de l'index (statuts de réservation, capacités) au lieu des objets {@link Room},
+     * ce qui le rend beaucoup plus rapide sur un grand nombre de salles (voir {@link RoomIndex#scanAvailability}) ;
+     * les salles trouvées ne sont retrouvées que si elles sont demandées (voir {@link AvailableRooms#getRooms()})
      *
-     * @param rooms les salles sur lesquelles effectuer la recherche
-     * @param equipments les équipements requis dans les salles recherchées
-     * @return La liste des salles qui disposent des équipements précisés en entrée
+     * @param roomIndex l'index des salles sur lesquelles effectuer la recherche
      */
-    public List<Room> findRoomsWithSpecifiedEquipments(List<Room> rooms, Set<Equipment> equipments) {
-        return rooms.stream()
-                .filter(room -> room.getEquipments().containsAll(equipments))
-                .collect(Collectors.toList());
+    public AvailableRooms findAvailableRooms(RoomIndex roomIndex, DailyBookings dailyBookings, TimeSlot firstTimeSlot, int duration, int minimumCapacity) {
+        TimeSlot lastTimeSlot = TimeSlot.values()[firstTimeSlot.ordinal() + duration - 1];
+        RoomIndex.AvailabilityScan scan = roomIndex.scanAvailability(dailyBookings, TimeSlot.rangeMask(firstTimeSlot, duration), minimumCapacity, 0);
+
+        if (scan.getUnbookedCount() == 0) {
+            return AvailableRooms.notFound(RoomBookFailureCause.ALL_ROOMS_BOOKED, firstTimeSlot, lastTimeSlot);
+        }
+
+        if (scan.getCleanedCount() == 0) {
+            return AvailableRooms.notFound(RoomBookFailureCause.PREVIOUS_TIME_SLOT_BOOKED, firstTimeSlot, lastTimeSlot);
+        }
+
+        if (scan.getAvailableCount() == 0) {
+            return AvailableRooms.notFound(RoomBookFailureCause.INSUFFICIENT_CAPACITY, firstTimeSlot, lastTimeSlot);
+        }
+
+        return AvailableRooms.found(scan::getAvailableRooms, firstTimeSlot, lastTimeSlot);
     }
 
     /**
-     * Cherche la meilleure salle parmi celles disponibles
+     * Cherche la première salle disponible (dans l'ordre de la liste des salles) dont la signature d'équipements
+     * fait partie des signatures données
      *
-     * La salle recherchée doit disposer des équipements présents dans le paramètre 'someEquipments'
-     * Les équipements amovibles disponibles doivent comporter au moins un équipement de type 'otherEquipment'
-     *
-     * Si les deux conditions précédentes sont réunies, la salle renvoyée est celle parmi les salles disponibles
-     * qui a le moins d'équipement
-     *
-     * @param availableRooms les salles sur lesquelles effectuer la recherche
-     * @param someEquipments les équipements requis dans les salles recherchées
-     * @param otherEquipment l'équipement requis dans la liste des équipements amovibles disponibles
-     * @param availableRemovableEquipments les équipements amovibles disponibles
-     * @return la meilleure salle selon la règle évoquée ci-dessus
+     * @param roomIndex l'index des salles sur lesquelles effectuer la recherche
+     * @param dailyBookings les réservations de la journée sur laquelle effectuer la recherche
+     * @param meetingTimeSlot le créneau sur lequel effectuer la recherche
+     * @param minimumCapacity la capacité minimum de la salle à trouver
+     * @param equipmentSignatures les signatures d'équipements acceptées (voir {@link Equipment#mask()})
+     * @return la première salle selon la règle évoquée ci-dessus
      */
-    public Optional<Room> findRoom_with_someEquipment(List<Room> availableRooms, Set<Equipment> someEquipments,
-                                                      Equipment otherEquipment, List<Equipment> availableRemovableEquipments) {
-        List<Room> roomsWithSomeEquipments = findRoomsWithSpecifiedEquipments(availableRooms, someEquipments);
-
-        if (!roomsWithSomeEquipments.isEmpty() && availableRemovableEquipments.contains(otherEquipment)) {
-            return roomsWithSomeEquipments
-                    .stream()
-                    .min(Comparator.comparing(room -> room.getEquipments().size()));
-        }
-
-        return Optional.empty();
+    public Optional<Room> findFirstAvailableRoom(RoomIndex roomIndex, DailyBookings dailyBookings, TimeSlot meetingTimeSlot, int minimumCapacity, int[] equipmentSignatures) {
+        return roomIndex.findFirstAvailableRoom(dailyBookings, meetingTimeSlot, minimumCapacity, equipmentSignatures);
     }
 
     /**
-     * Cherche la meilleure salle parmi celles disponibles
-     *
-     * La salle recherchée doit disposer de l'équipement présent dans le paramètre 'equipment'
-     * Les équipements amovibles disponibles doivent comporter tous les équipements présents dans 'otherEquipments'
+     * Comme {@link #findFirstAvailableRoom(RoomIndex, DailyBookings, TimeSlot, int, int[])}, pour une salle
+     * disponible à plusieurs créneaux consécutifs
      *
-     * Si les deux conditions précédentes sont réunies, la salle renvoyée est celle parmi les salles disponibles
-     * qui a le moins d'équipement
-     *
-     * @param availableRooms les salles sur lesquelles effectuer la recherche
-     * @param equipment l'équipement requis dans les salles recherchées
-     * @param otherEquipments les équipements requis dans la liste des équipements amovibles disponibles
-     * @param availableRemovableEquipments les équipements amovibles disponibles
-     * @return la meilleure salle selon la règle évoquée ci-dessus
+     * @param timeSlotsMask les créneaux sur lesquels effectuer la recherche (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
      */
-    public Optional<Room> findRoom_with_oneEquipment(List<Room> availableRooms, Equipment equipment,
-                                                     Set<Equipment> otherEquipments, List<Equipment> availableRemovableEquipments) {
-        List<Room> roomsWithAtLeastOneRCEquipment = findRoomsWithSpecifiedEquipments(availableRooms, Set.of(equipment));
-
-        if (!roomsWithAtLeastOneRCEquipment.isEmpty() && availableRemovableEquipments.containsAll(otherEquipments)) {
-
-            return roomsWithAtLeastOneRCEquipment
-                    .stream()
-                    .min(Comparator.comparing(room -> room.getEquipments().size()));
-        }
-
-        return Optional.empty();
+    public Optional<Room> findFirstAvailableRoom(RoomIndex roomIndex, DailyBookings dailyBookings, int timeSlotsMask, int minimumCapacity, int[] equipmentSignatures) {
+        return roomIndex.findFirstAvailableRoom(dailyBookings, timeSlotsMask, minimumCapacity, equipmentSignatures);
     }
 
-
-    private List<Room> findUnbookedRoomsAtTimeSlot(List<Room> rooms, TimeSlot timeSlot) {
-        return rooms.stream()
-                .filter(room -> !room.isBookedFor(timeSlot))
-                .collect(Collectors.toList());
+    /**
+     * Cherche les premières salles disponibles (dans l'ordre de la liste des salles) dont la signature d'équipements
+     * fait partie des signatures données
+     *
+     * @param roomIndex l'index des salles sur lesquelles effectuer la recherche
+     * @param dailyBookings les réservations de la journée sur laquelle effectuer la recherche
+     * @param meetingTimeSlot le créneau sur lequel effectuer la recherche
+     * @param minimumCapacity la capacité minimum des salles à trouver
+     * @param equipmentSignatures les signatures d'équipements acceptées (voir {@link Equipment#mask()})
+     * @param limit le nombre maximum de salles à trouver
+     * @return au plus 'limit' salles, dans l'ordre de la liste des salles
+     */
+    public List<Room> findFirstAvailableRooms(RoomIndex roomIndex, DailyBookings dailyBookings, TimeSlot meetingTimeSlot, int minimumCapacity, int[] equipmentSignatures, int limit) {
+        return roomIndex.findFirstAvailableRooms(dailyBookings, meetingTimeSlot, minimumCapacity, equipmentSignatures, limit);
     }
 
-    private List<Room> findRoomsWithMinimumCapacity(List<Room> rooms, int minimumCapacity) {
-        return rooms.stream()
-                .filter(room -> room.getCapacity() >= minimumCapacity)
-                .collect(Collectors.toList());
+    /**
+     * Comme {@link #findFirstAvailableRooms(RoomIndex, DailyBookings, TimeSlot, int, int[], int)}, pour des salles
+     * disponibles à plusieurs créneaux consécutifs
+     *
+     * @param timeSlotsMask les créneaux sur lesquels effectuer la recherche (voir {@link TimeSlot#rangeMask(TimeSlot, int)})
+     */
+    public List<Room> findFirstAvailableRooms(RoomIndex roomIndex, DailyBookings dailyBookings, int timeSlotsMask, int minimumCapacity, int[] equipmentSignatures, int limit) {
+        return roomIndex.findFirstAvailableRooms(dailyBookings, timeSlotsMask, minimumCapacity, equipmentSignatures, limit);
     }
-
 }
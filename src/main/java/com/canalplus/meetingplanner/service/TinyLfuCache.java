@@ -0,0 +1,222 @@
+package com.canalplus.meetingplanner.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache borné en nombre d'entrées et en durée de vie, avec une éviction de type W-TinyLFU
+ *
+ * Les entrées sont réparties en trois régions ordonnées de la moins récemment utilisée à la plus récemment utilisée :
+ * - une petite fenêtre (1 % des entrées), où arrivent les nouvelles entrées
+ * - une région probatoire, où arrivent les entrées sorties de la fenêtre
+ * - une région protégée (80 % du reste), où montent les entrées probatoires utilisées de nouveau
+ * Une entrée qui sort de la fenêtre alors que le cache est plein n'est gardée qu'à la place de l'entrée probatoire
+ * la moins récemment utilisée, et seulement si elle a été demandée plus souvent. La fréquence de chaque clé est estimée
+ * par une esquisse count-min à compteurs de 4 bits, divisés par deux périodiquement : une rafale de clés vues une seule
+ * fois ne chasse donc pas les clés souvent demandées.
+ *
+ * Une entrée expire après la durée de vie donnée, à compter de son ajout. La mémoire occupée ne dépend que du nombre
+ * maximum d'entrées, quel que soit le nombre de clés différentes reçues.
+ * Les opérations sont synchronisées : chacune ne fait que quelques accès à des tables de hachage.
+ */
+class TinyLfuCache<K, V> {
+
+    private final int maximumSize;
+    private final int windowMaximumSize;
+    private final int protectedMaximumSize;
+    private final long timeToLiveMillis;
+    private final FrequencySketch frequencySketch;
+
+    private final Map<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, Entry<V>> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Map<K, Entry<V>>> regions = List.of(window, probation, protectedEntries);
+
+    /**
+     * @param maximumSize le nombre maximum d'entrées
+     * @param timeToLiveMillis la durée de vie d'une entrée, en millisecondes
+     */
+    TinyLfuCache(int maximumSize, long timeToLiveMillis) {
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("Le cache doit pouvoir contenir au moins 2 entrées : " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximumSize = Math.max(1, maximumSize / 100);
+        this.protectedMaximumSize = (maximumSize - windowMaximumSize) * 4 / 5;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.frequencySketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Associe la valeur à la clé si la clé est absente ou expirée
+     *
+     * @param now l'heure actuelle, en millisecondes
+     * @return la valeur déjà associée à la clé, ou null si la valeur donnée a été ajoutée
+     */
+    synchronized V putIfAbsent(K key, V value, long now) {
+        frequencySketch.increment(key);
+        Entry<V> entry = find(key, now);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        window.put(key, new Entry<>(value, now + timeToLiveMillis));
+        if (window.size() > windowMaximumSize) {
+            Map.Entry<K, Entry<V>> candidate = removeEldest(window);
+            probation.put(candidate.getKey(), candidate.getValue());
+            if (size() > maximumSize) {
+                evict(candidate.getKey());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Supprime la clé si elle est encore associée à cette valeur
+     */
+    synchronized void remove(K key, V value) {
+        for (Map<K, Entry<V>> region : regions) {
+            Entry<V> entry = region.get(key);
+            if (entry != null && entry.value == value) {
+                region.remove(key);
+            }
+        }
+    }
+
+    synchronized int size() {
+        return window.size() + probation.size() + protectedEntries.size();
+    }
+
+    /**
+     * Retrouve une entrée non expirée et la marque comme récemment utilisée : une entrée probatoire monte
+     * dans la région protégée, qui rend au besoin sa plus ancienne entrée à la région probatoire
+     */
+    private Entry<V> find(K key, long now) {
+        for (Map<K, Entry<V>> region : regions) {
+            Entry<V> entry = region.get(key);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.expiresAt <= now) {
+                region.remove(key);
+                return null;
+            }
+            if (region == probation) {
+                probation.remove(key);
+                protectedEntries.put(key, entry);
+                if (protectedEntries.size() > protectedMaximumSize) {
+                    Map.Entry<K, Entry<V>> demoted = removeEldest(protectedEntries);
+                    probation.put(demoted.getKey(), demoted.getValue());
+                }
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Le cache est plein : le candidat sorti de la fenêtre est comparé à la victime, l'entrée probatoire
+     * la moins récemment utilisée (ou l'entrée protégée la plus ancienne si le candidat est la seule entrée probatoire),
+     * et le moins demandé des deux est supprimé
+     */
+    private void evict(K candidate) {
+        Map<K, Entry<V>> victimRegion = probation;
+        K victim = probation.keySet().iterator().next();
+        if (victim.equals(candidate)) {
+            victimRegion = protectedEntries;
+            victim = protectedEntries.keySet().iterator().next();
+        }
+
+        if (frequencySketch.frequency(candidate) > frequencySketch.frequency(victim)) {
+            victimRegion.remove(victim);
+        } else {
+            probation.remove(candidate);
+        }
+    }
+
+    private static <K, E> Map.Entry<K, E> removeEldest(Map<K, E> region) {
+        Map.Entry<K, E> eldest = region.entrySet().iterator().next();
+        region.remove(eldest.getKey());
+        return eldest;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Esquisse count-min : 4 compteurs de 4 bits par clé, dans une table de longs (16 compteurs par long)
+     * Lorsque le nombre d'incréments atteint 10 fois la taille du cache, tous les compteurs sont divisés par deux,
+     * pour que les fréquences reflètent les demandes récentes.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long HALF_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int incrementsCount;
+
+        private FrequencySketch(int maximumSize) {
+            int tableSize = Integer.highestOneBit(maximumSize * 2 - 1);
+            this.table = new long[tableSize];
+            this.tableMask = tableSize - 1;
+            this.sampleSize = 10 * maximumSize;
+        }
+
+        private int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, counter(hash, row));
+            }
+            return frequency;
+        }
+
+        private void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean incremented = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                if (counter(hash, row) < 15) {
+                    table[indexOf(hash, row)] += 1L << shiftOf(hash, row);
+                    incremented = true;
+                }
+            }
+            if (incremented && ++incrementsCount >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & HALF_MASK;
+                }
+                incrementsCount /= 2;
+            }
+        }
+
+        private int counter(int hash, int row) {
+            return (int) (table[indexOf(hash, row)] >>> shiftOf(hash, row)) & 0xF;
+        }
+
+        private int indexOf(int hash, int row) {
+            long rowHash = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (rowHash ^ (rowHash >>> 32)) & tableMask;
+        }
+
+        /**
+         * Chaque ligne a son propre quart de long, dans lequel la clé choisit un des 4 compteurs
+         */
+        private static int shiftOf(int hash, int row) {
+            return (row << 4) + ((hash >>> (row << 3)) & 3) * 4;
+        }
+
+        private static int spread(int hash) {
+            int spread = hash * 0x9E3779B9;
+            return spread ^ (spread >>> 16);
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.canalplus.meetingplanner;
 
 import com.canalplus.meetingplanner.controller.RoomReservationController;
 import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static com.canalplus.meetingplanner.model.TimeSlot.EIGHT_NINE;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -16,19 +18,18 @@ class MeetingPlannerApplicationTests {
 	private RoomReservationController roomReservationController;
 
 	@Autowired
-	@Qualifier(value = "E1001")
-	private Room roomE1001;
-
-	@Autowired
-	@Qualifier(value = "E3001")
-	private Room roomE3001;
-
+	private RoomBookRepository roomBookRepository;
 
 	@Test
 	public void contextLoads() {
 		assertThat(roomReservationController).isNotNull();
-		assertThat(roomE1001.getCapacity()).isEqualTo(16);
-		assertThat(roomE3001.getCapacity()).isEqualTo(9);
+		assertThat(roomBookRepository.getRooms()).hasSize(12);
+		assertThat(roomBookRepository.getRooms()).filteredOn(room -> room.getName().equals("E1001")).extracting(Room::getCapacity).containsExactly(16);
+		assertThat(roomBookRepository.getRooms()).filteredOn(room -> room.getName().equals("E3001")).extracting(Room::getCapacity).containsExactly(9);
+		assertThat(roomBookRepository.getDailyBookings(roomBookRepository.today()).getRemovableEquipmentPool().getAvailableCount(EIGHT_NINE, MULTILINE_SPEAKER)).isEqualTo(4);
+		assertThat(roomBookRepository.getDailyBookings(roomBookRepository.today()).getRemovableEquipmentPool().getAvailableCount(EIGHT_NINE, SCREEN)).isEqualTo(5);
+		assertThat(roomBookRepository.getDailyBookings(roomBookRepository.today()).getRemovableEquipmentPool().getAvailableCount(EIGHT_NINE, WEBCAM)).isEqualTo(4);
+		assertThat(roomBookRepository.getDailyBookings(roomBookRepository.today()).getRemovableEquipmentPool().getAvailableCount(EIGHT_NINE, BOARD)).isEqualTo(2);
 	}
 
 }
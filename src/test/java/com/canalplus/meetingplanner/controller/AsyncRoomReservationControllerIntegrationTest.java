@@ -0,0 +1,120 @@
+package com.canalplus.meetingplanner.controller;
+
+import com.canalplus.meetingplanner.MeetingPlannerApplication;
+import com.canalplus.meetingplanner.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment=SpringBootTest.WebEnvironment.MOCK, classes = MeetingPlannerApplication.class)
+@AutoConfigureMockMvc
+class AsyncRoomReservationControllerIntegrationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void should_RS_meeting_be_booked_asynchronously() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(3);
+        MvcResult mvcResult = mvc.perform(post("/async/bookRoom")
+                .content(objectMapper.writeValueAsString(new Meeting("réunion 1", date, TimeSlot.EIGHT_NINE, MeetingType.RS, 5)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        mvcResult = mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk()).andReturn();
+
+        Meeting meetingResult = objectMapper.readValue(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8), Meeting.class);
+        assertThat(meetingResult.getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(meetingResult.getBookedRoomResult().getRoom().getName()).isEqualTo("E1001");
+    }
+
+    @Test
+    void should_bookRoom_asynchronously_return_the_first_result_when_retried_with_the_same_idempotency_key() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(12);
+        String meetingJson = objectMapper.writeValueAsString(new Meeting("réunion idempotente", date, TimeSlot.NINE_TEN, MeetingType.RS, 5));
+
+        Meeting first = bookAsynchronously(meetingJson, "async-key-1");
+        Meeting retry = bookAsynchronously(meetingJson, "async-key-1");
+
+        assertThat(first.getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(retry.getBookedRoomResult().getRoom()).isEqualTo(first.getBookedRoomResult().getRoom());
+        assertThat(retry.getBookedRoomResult().getBookingId()).isEqualTo(first.getBookedRoomResult().getBookingId());
+
+        MvcResult mvcResult = mvc.perform(post("/async/bookRoom").header("Idempotency-Key", "async-key-1")
+                .content(objectMapper.writeValueAsString(new Meeting("autre réunion", date, TimeSlot.NINE_TEN, MeetingType.RS, 5)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isUnprocessableEntity());
+        mvc.perform(post("/async/bookRoom").header("Idempotency-Key", "")
+                .content(meetingJson).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/async/bookRoom").header("Idempotency-Key", "k".repeat(256))
+                .content(meetingJson).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void should_bookRooms_stream_one_meeting_per_line_in_batch_order() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(4);
+        List<Meeting> meetings = List.of(
+                new Meeting("réunion 1", date, TimeSlot.NINE_TEN, MeetingType.RS, 15),
+                new Meeting("réunion 2", date, TimeSlot.NINE_TEN, MeetingType.RS, 15),
+                new Meeting("réunion 3", date, TimeSlot.TEN_ELEVEN, MeetingType.VC, 3));
+
+        MvcResult mvcResult = mvc.perform(post("/async/bookRooms")
+                .content(objectMapper.writeValueAsString(meetings))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted()).andReturn();
+        mvcResult.getAsyncResult();
+
+        mvcResult = mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", AsyncRoomReservationController.APPLICATION_NDJSON.toString())).andReturn();
+
+        String[] lines = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        Meeting meeting1 = objectMapper.readValue(lines[0], Meeting.class);
+        Meeting meeting2 = objectMapper.readValue(lines[1], Meeting.class);
+        Meeting meeting3 = objectMapper.readValue(lines[2], Meeting.class);
+        assertThat(meeting1.getName()).isEqualTo("réunion 1");
+        assertThat(meeting1.getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(meeting2.getName()).isEqualTo("réunion 2");
+        assertThat(meeting2.getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+        assertThat(meeting3.getName()).isEqualTo("réunion 3");
+        assertThat(meeting3.getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+    }
+
+    private Meeting bookAsynchronously(String meetingJson, String idempotencyKey) throws Exception {
+        MvcResult mvcResult = mvc.perform(post("/async/bookRoom").header("Idempotency-Key", idempotencyKey)
+                .content(meetingJson)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        mvcResult = mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk()).andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8), Meeting.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.canalplus.meetingplanner.controller;
+
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import com.canalplus.meetingplanner.service.RoomBookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class AsyncRoomReservationControllerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private AsyncRoomReservationController asyncRoomReservationController;
+
+    @BeforeEach
+    void setup() {
+        RoomBookService roomBookService = mock(RoomBookService.class);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(roomBookService).bookRoomFor(any(Meeting.class));
+
+        asyncRoomReservationController = new AsyncRoomReservationController();
+        ReflectionTestUtils.setField(asyncRoomReservationController, "roomBookService", roomBookService);
+        ReflectionTestUtils.setField(asyncRoomReservationController, "bookingThreads", 1);
+        ReflectionTestUtils.setField(asyncRoomReservationController, "bookingQueueCapacity", 1);
+        ReflectionTestUtils.setField(asyncRoomReservationController, "batchThreads", 1);
+        ReflectionTestUtils.setField(asyncRoomReservationController, "batchQueueCapacity", 1);
+        asyncRoomReservationController.startBookingExecutors();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        asyncRoomReservationController.stopBookingExecutors();
+    }
+
+    @Test
+    void should_refuse_bookings_beyond_the_queue_capacity_without_delaying_them_behind_batches() {
+        // Setup
+        asyncRoomReservationController.bookSeveralRooms(List.of(meeting()), false);
+        asyncRoomReservationController.bookSeveralRooms(List.of(meeting()), false);
+
+        // Test
+        CompletableFuture<Meeting> runningBooking = asyncRoomReservationController.bookARoom(meeting(), null);
+        CompletableFuture<Meeting> queuedBooking = asyncRoomReservationController.bookARoom(meeting(), null);
+
+        // Assert
+        assertThatThrownBy(() -> asyncRoomReservationController.bookARoom(meeting(), null))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThatThrownBy(() -> asyncRoomReservationController.bookSeveralRooms(List.of(meeting()), false))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        release.countDown();
+        assertThat(runningBooking.join()).isNotNull();
+        assertThat(queuedBooking.join()).isNotNull();
+    }
+
+    private static Meeting meeting() {
+        return new Meeting("réunion", TimeSlot.NINE_TEN, MeetingType.RS, 3);
+    }
+}
@@ -2,58 +2,44 @@ package com.canalplus.meetingplanner.controller;
 
 import com.canalplus.meetingplanner.MeetingPlannerApplication;
 import com.canalplus.meetingplanner.model.*;
-import com.canalplus.meetingplanner.service.RoomBookRCService;
-import com.canalplus.meetingplanner.service.RoomBookRSService;
-import com.canalplus.meetingplanner.service.RoomBookSPECService;
-import com.canalplus.meetingplanner.service.RoomBookVCService;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment=SpringBootTest.WebEnvironment.MOCK, classes = MeetingPlannerApplication.class)
 @AutoConfigureMockMvc
+@AutoConfigureMetrics
 class RoomReservationControllerIntegrationTest {
 
     @Autowired
     private MockMvc mvc;
 
     @Autowired
-    private RoomBookRSService roomBookRSService;
-
-    @Autowired
-    private RoomBookSPECService roomBookSPECService;
-
-    @Autowired
-    private RoomBookVCService roomBookVCService;
-
-    @Autowired
-    private RoomBookRCService roomBookRCService;
-
-    @Autowired
-    @Qualifier(value = "E2003")
-    private Room roomE2003;
-
-    @Autowired
-    @Qualifier(value = "E1001")
-    private Room roomE1001;
+    private RoomBookRepository roomBookRepository;
 
     @Test
     void should_getRooms_return_all_rooms() throws Exception {
@@ -62,7 +48,7 @@ class RoomReservationControllerIntegrationTest {
                 .andExpect(status().isOk()).andReturn();
 
         String json = mvcResult.getResponse().getContentAsString();
-        List<Room> allRooms = new ObjectMapper().readValue(json, new TypeReference<List<Room>>() {});
+        List<Room> allRooms = new ObjectMapper().findAndRegisterModules().readValue(json, new TypeReference<List<Room>>() {});
 
         assertThat(allRooms).isNotEmpty().hasSize(12);
         assertThat(allRooms.get(0).getName()).isEqualTo("E1001");
@@ -82,15 +68,227 @@ class RoomReservationControllerIntegrationTest {
     @Test
     void should_RS_meeting_be_booked() throws Exception {
         MvcResult mvcResult = mvc.perform(post("/bookRoom")
-                .content(new ObjectMapper().writeValueAsString(new Meeting("réunion 1", TimeSlot.EIGHT_NINE, MeetingType.RS, 5)))
+                .content(new ObjectMapper().findAndRegisterModules().writeValueAsString(new Meeting("réunion 1", TimeSlot.EIGHT_NINE, MeetingType.RS, 5)))
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk()).andReturn();
 
         String json = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
-        Meeting meetingResult = new ObjectMapper().readValue(json, Meeting.class);
+        Meeting meetingResult = new ObjectMapper().findAndRegisterModules().readValue(json, Meeting.class);
 
         assertThat(meetingResult.getBookedRoomResult()).isNotNull();
         assertThat(meetingResult.getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
-        assertThat(meetingResult.getBookedRoomResult().getRoom()).isEqualTo(roomE1001);
+        assertThat(meetingResult.getBookedRoomResult().getRoom()).isEqualTo(room("E1001"));
+    }
+
+    @Test
+    void should_expose_booking_metrics() throws Exception {
+        mvc.perform(post("/bookRoom")
+                .content(new ObjectMapper().findAndRegisterModules().writeValueAsString(new Meeting("réunion 2", TimeSlot.NINETEEN_TWENTY, MeetingType.RS, 5)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        MvcResult mvcResult = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk()).andReturn();
+
+        String metrics = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(metrics)
+                .contains("meeting_planner_bookings_total{cause=\"none\",meetingType=\"RS\",status=\"SUCCESS\",}")
+                .contains("meeting_planner_booking_duration_seconds_bucket{meetingType=\"RS\"")
+                .contains("meeting_planner_rooms_free{timeSlot=\"NINETEEN_TWENTY\",}")
+                .contains("meeting_planner_removable_equipments_available{equipment=\"SCREEN\",timeSlot=\"EIGHT_NINE\",}");
+    }
+
+    @Test
+    void should_getAvailability_return_not_modified_until_a_room_is_booked() throws Exception {
+        MvcResult mvcResult = mvc.perform(get("/availability"))
+                .andExpect(status().isOk()).andReturn();
+        String eTag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotBlank();
+        assertThat(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8)).contains("\"E1001\"");
+
+        mvc.perform(get("/availability").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mvc.perform(post("/bookRoom")
+                .content(new ObjectMapper().findAndRegisterModules().writeValueAsString(new Meeting("réunion 3", TimeSlot.EIGHTEEN_NINETEEN, MeetingType.RS, 5)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mvcResult = mvc.perform(get("/availability").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk()).andReturn();
+        assertThat(mvcResult.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void should_getAvailability_reject_dates_outside_of_the_booking_horizon() throws Exception {
+        mvc.perform(get("/availability").param("date", "2000-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void should_bookRooms_in_stream_return_every_meeting_with_its_result() throws Exception {
+        List<Meeting> meetings = List.of(
+                new Meeting("réunion 1", LocalDate.now().plusDays(5), TimeSlot.NINE_TEN, MeetingType.RS, 15),
+                new Meeting("réunion 2", LocalDate.now().plusDays(5), TimeSlot.NINE_TEN, MeetingType.RS, 15));
+
+        MvcResult mvcResult = mvc.perform(post("/bookRooms")
+                .param("stream", "true")
+                .content(new ObjectMapper().findAndRegisterModules().writeValueAsString(meetings))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn();
+
+        String json = mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<Meeting> meetingsWithResult = new ObjectMapper().findAndRegisterModules().readValue(json, new TypeReference<List<Meeting>>() {});
+        assertThat(meetingsWithResult).hasSize(2);
+        assertThat(meetingsWithResult.get(0).getBookedRoomResult().getRoom()).isEqualTo(room("E1001"));
+        assertThat(meetingsWithResult.get(1).getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+    }
+
+    @Test
+    void should_bookRooms_in_stream_reject_a_batch_which_is_not_an_array() throws Exception {
+        mvc.perform(post("/bookRooms")
+                .param("stream", "true")
+                .content("{}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void should_bookRooms_in_stream_keep_the_meetings_already_booked_when_a_meeting_cannot_be_read() throws Exception {
+        String meetingJson = new ObjectMapper().findAndRegisterModules().writeValueAsString(
+                new Meeting("réunion 1", LocalDate.now().plusDays(11), TimeSlot.FOURTEEN_FIFTEEN, MeetingType.RS, 4));
+
+        MvcResult mvcResult = mvc.perform(post("/bookRooms")
+                .param("stream", "true")
+                .content("[" + meetingJson + ", 42]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn();
+
+        JsonNode meetingsWithResult = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertThat(meetingsWithResult).hasSize(2);
+        assertThat(meetingsWithResult.get(0).get("bookedRoomResult").get("roomBookStatus").asText()).isEqualTo("SUCCESS");
+        assertThat(meetingsWithResult.get(1).has("error")).isTrue();
+    }
+
+    @Test
+    void should_search_rooms_for_each_timeSlot_and_date_without_booking() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(6);
+        for (int i = 0; i < 2; i++) {
+            MvcResult mvcResult = mvc.perform(get("/search")
+                    .param("type", "RS")
+                    .param("employeesNumber", "15")
+                    .param("date", date.toString())
+                    .param("toDate", date.plusDays(1).toString())
+                    .param("from", "NINE_TEN")
+                    .param("to", "TEN_ELEVEN"))
+                    .andExpect(status().isOk()).andReturn();
+
+            JsonNode roomCandidates = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8));
+            assertThat(roomCandidates).hasSize(4);
+            assertThat(roomCandidates.get(0).get("date").asText()).isEqualTo(date.toString());
+            assertThat(roomCandidates.get(1).get("timeSlot").asText()).isEqualTo("TEN_ELEVEN");
+            assertThat(roomCandidates.get(3).get("date").asText()).isEqualTo(date.plusDays(1).toString());
+            assertThat(roomCandidates.get(3).get("candidates")).hasSize(1);
+            assertThat(roomCandidates.get(3).get("candidates").get(0).get("room").get("name").asText()).isEqualTo("E1001");
+        }
+    }
+
+    @Test
+    void should_meeting_on_consecutive_timeSlots_keep_its_room_for_every_timeSlot() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(8);
+        MvcResult mvcResult = mvc.perform(post("/bookRoom")
+                .content("{\"name\":\"atelier\",\"date\":\"" + date + "\",\"timeSlot\":\"TEN_ELEVEN\",\"duration\":3,\"type\":\"RS\",\"employeesNumber\":15}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn();
+
+        Meeting meetingResult = new ObjectMapper().findAndRegisterModules().readValue(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8), Meeting.class);
+        assertThat(meetingResult.getDuration()).isEqualTo(3);
+        assertThat(meetingResult.getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(meetingResult.getBookedRoomResult().getRoom()).isEqualTo(room("E1001"));
+        assertThat(roomBookRepository.getDailyBookings(date).getBookedTimeSlots(room("E1001"))).isEqualTo(TimeSlot.rangeMask(TimeSlot.TEN_ELEVEN, 3));
+
+        MvcResult searchResult = mvc.perform(get("/search")
+                .param("type", "RS")
+                .param("employeesNumber", "15")
+                .param("date", date.toString())
+                .param("from", "EIGHT_NINE")
+                .param("to", "TEN_ELEVEN")
+                .param("duration", "2"))
+                .andExpect(status().isOk()).andReturn();
+        JsonNode roomCandidates = new ObjectMapper().readTree(searchResult.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertThat(roomCandidates).hasSize(3);
+        assertThat(roomCandidates.get(0).get("duration").asInt()).isEqualTo(2);
+        assertThat(roomCandidates.get(0).get("candidates").get(0).get("room").get("name").asText()).isEqualTo("E1001");
+        assertThat(roomCandidates.get(1).get("candidates")).isEmpty();
+        assertThat(roomCandidates.get(2).get("candidates")).isEmpty();
+    }
+
+    @Test
+    void should_cancel_and_move_bookings_by_id() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(9);
+        MvcResult mvcResult = mvc.perform(post("/bookRoom")
+                .content(new ObjectMapper().findAndRegisterModules().writeValueAsString(new Meeting("réunion", date, TimeSlot.NINE_TEN, MeetingType.RS, 15)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn();
+        long bookingId = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8)).get("bookedRoomResult").get("bookingId").asLong();
+
+        MvcResult patchResult = mvc.perform(patch("/bookings/" + bookingId)
+                .content("{\"timeSlot\":\"FOURTEEN_FIFTEEN\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn();
+        JsonNode movedRoomBookResult = new ObjectMapper().readTree(patchResult.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertThat(movedRoomBookResult.get("roomBookStatus").asText()).isEqualTo("SUCCESS");
+        assertThat(movedRoomBookResult.get("bookingId").asLong()).isEqualTo(bookingId);
+        assertThat(roomBookRepository.getDailyBookings(date).getBookedTimeSlots(room("E1001"))).isEqualTo(TimeSlot.FOURTEEN_FIFTEEN.mask());
+
+        mvc.perform(delete("/bookings/" + bookingId)).andExpect(status().isNoContent());
+        assertThat(roomBookRepository.getDailyBookings(date).getBookedTimeSlots(room("E1001"))).isZero();
+        mvc.perform(delete("/bookings/" + bookingId)).andExpect(status().isNotFound());
+        mvc.perform(patch("/bookings/" + bookingId).content("{}").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void should_search_reject_invalid_ranges() throws Exception {
+        mvc.perform(get("/search").param("type", "RS").param("employeesNumber", "4").param("from", "TEN_ELEVEN").param("to", "NINE_TEN"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/search").param("type", "RS").param("employeesNumber", "4").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/search").param("type", "RS").param("employeesNumber", "4").param("duration", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void should_bookRoom_return_the_first_result_for_a_repeated_idempotency_key() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(10);
+        String meetingJson = new ObjectMapper().findAndRegisterModules().writeValueAsString(new Meeting("réunion idempotente", date, TimeSlot.NINE_TEN, MeetingType.RS, 5));
+
+        String firstJson = mvc.perform(post("/bookRoom").header("Idempotency-Key", "key-1")
+                .content(meetingJson).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String retryJson = mvc.perform(post("/bookRoom").header("Idempotency-Key", "key-1")
+                .content(meetingJson).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        Meeting first = new ObjectMapper().findAndRegisterModules().readValue(firstJson, Meeting.class);
+        Meeting retry = new ObjectMapper().findAndRegisterModules().readValue(retryJson, Meeting.class);
+        assertThat(first.getBookedRoomResult().getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(retry.getBookedRoomResult().getRoom()).isEqualTo(first.getBookedRoomResult().getRoom());
+        assertThat(retry.getBookedRoomResult().getBookingId()).isEqualTo(first.getBookedRoomResult().getBookingId());
+        // Une seule salle a été réservée
+        assertThat(roomBookRepository.getRooms().stream()
+                .filter(room -> roomBookRepository.getDailyBookings(date).getBookedTimeSlots(room) != 0))
+                .containsExactly(first.getBookedRoomResult().getRoom());
+
+        mvc.perform(post("/bookRoom").header("Idempotency-Key", "key-1")
+                .content(new ObjectMapper().findAndRegisterModules().writeValueAsString(new Meeting("autre réunion", date, TimeSlot.NINE_TEN, MeetingType.RS, 5)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity());
+        mvc.perform(post("/bookRoom").header("Idempotency-Key", "k".repeat(256))
+                .content(meetingJson).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Room room(String name) {
+        return roomBookRepository.getRooms().stream().filter(room -> room.getName().equals(name)).findFirst().orElseThrow();
     }
-}
\ No newline at end of file
+}
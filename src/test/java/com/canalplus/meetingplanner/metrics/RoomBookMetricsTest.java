@@ -0,0 +1,60 @@
+package com.canalplus.meetingplanner.metrics;
+
+import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.RoomBookFailureCause;
+import com.canalplus.meetingplanner.model.RoomBookResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomBookMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RoomBookMetrics roomBookMetrics = new RoomBookMetrics(meterRegistry);
+
+    @Test
+    void should_record_booking_duration_and_outcome_by_meeting_type() {
+        // Test
+        roomBookMetrics.recordBooking(MeetingType.VC, new RoomBookResult(new Room("room1", 4), Set.of()), 2_000_000);
+        roomBookMetrics.recordBooking(MeetingType.VC, new RoomBookResult(RoomBookFailureCause.INSUFFICIENT_CAPACITY, "trop petites"), 1_000_000);
+        roomBookMetrics.recordOutcome(MeetingType.RS, new RoomBookResult(new Room("room2", 4), Set.of()));
+
+        // Assert
+        var vcBookingDuration = meterRegistry.get(RoomBookMetrics.BOOKING_DURATION).tag("meetingType", "VC").timer();
+        assertThat(vcBookingDuration.count()).isEqualTo(2);
+        assertThat(vcBookingDuration.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3);
+        assertThat(meterRegistry.get(RoomBookMetrics.BOOKING_DURATION).tag("meetingType", "RS").timer().count()).isZero();
+
+        assertThat(bookingsCount(MeetingType.VC, "SUCCESS", "none")).isEqualTo(1);
+        assertThat(bookingsCount(MeetingType.VC, "FAILURE", "INSUFFICIENT_CAPACITY")).isEqualTo(1);
+        assertThat(bookingsCount(MeetingType.VC, "FAILURE", "MISSING_EQUIPMENTS")).isZero();
+        assertThat(bookingsCount(MeetingType.RS, "SUCCESS", "none")).isEqualTo(1);
+    }
+
+    @Test
+    void should_record_batch_size_and_duration_by_mode() {
+        // Test
+        roomBookMetrics.recordBatch(false, 10, 1_000_000);
+        roomBookMetrics.recordBatch(true, 30, 5_000_000);
+
+        // Assert
+        assertThat(meterRegistry.get(RoomBookMetrics.BATCH_SIZE).tag("mode", "sequential").summary().totalAmount()).isEqualTo(10);
+        assertThat(meterRegistry.get(RoomBookMetrics.BATCH_SIZE).tag("mode", "optimize").summary().totalAmount()).isEqualTo(30);
+        assertThat(meterRegistry.get(RoomBookMetrics.BATCH_DURATION).tag("mode", "optimize").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+    }
+
+    private double bookingsCount(MeetingType meetingType, String status, String cause) {
+        return meterRegistry.get(RoomBookMetrics.BOOKINGS)
+                .tag("meetingType", meetingType.name())
+                .tag("status", status)
+                .tag("cause", cause)
+                .counter()
+                .count();
+    }
+}
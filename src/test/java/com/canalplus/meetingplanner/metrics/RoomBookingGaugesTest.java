@@ -0,0 +1,53 @@
+package com.canalplus.meetingplanner.metrics;
+
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomBookingGaugesTest {
+
+    @Test
+    void should_gauge_free_rooms_and_available_removable_equipments_of_today_by_timeSlot() {
+        // Setup
+        Room room1 = new Room("room1", 4);
+        Room room2 = new Room("room2", 8);
+        RoomBookRepository roomBookRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", List.of(room1, room2));
+        roomBookRepository.initRoomIndex();
+        roomBookRepository.initRemovableEquipments();
+        roomBookRepository.book(room1, roomBookRepository.today(), TimeSlot.NINE_TEN, Set.of(SCREEN, BOARD));
+        roomBookRepository.book(room2, roomBookRepository.today().plusDays(1), TimeSlot.NINE_TEN, Set.of(SCREEN));
+
+        RoomBookingGauges roomBookingGauges = new RoomBookingGauges();
+        ReflectionTestUtils.setField(roomBookingGauges, "roomBookRepository", roomBookRepository);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // Test
+        roomBookingGauges.bindTo(meterRegistry);
+
+        // Assert
+        assertThat(meterRegistry.get(RoomBookingGauges.FREE_ROOMS).tag("timeSlot", "NINE_TEN").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get(RoomBookingGauges.FREE_ROOMS).tag("timeSlot", "TEN_ELEVEN").gauge().value()).isEqualTo(2);
+        assertThat(availableCount(meterRegistry, TimeSlot.NINE_TEN, "SCREEN")).isEqualTo(4);
+        assertThat(availableCount(meterRegistry, TimeSlot.NINE_TEN, "BOARD")).isEqualTo(1);
+        assertThat(availableCount(meterRegistry, TimeSlot.NINE_TEN, "WEBCAM")).isEqualTo(4);
+        assertThat(availableCount(meterRegistry, TimeSlot.TEN_ELEVEN, "SCREEN")).isEqualTo(5);
+    }
+
+    private static double availableCount(SimpleMeterRegistry meterRegistry, TimeSlot timeSlot, String equipment) {
+        return meterRegistry.get(RoomBookingGauges.REMOVABLE_EQUIPMENTS_AVAILABLE)
+                .tag("timeSlot", timeSlot.name())
+                .tag("equipment", equipment)
+                .gauge()
+                .value();
+    }
+}
@@ -0,0 +1,56 @@
+package com.canalplus.meetingplanner.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.canalplus.meetingplanner.model.Equipment.BOARD;
+import static com.canalplus.meetingplanner.model.Equipment.SCREEN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomTest {
+
+    @Test
+    void should_rooms_with_the_same_name_be_equal() {
+        // Setup
+        Room room = new Room(0, "room1", 4, Set.of(BOARD));
+        Room otherRoom = new Room(1, "room2", 4, Set.of(BOARD));
+
+        // Test
+        Room enlargedRoom = new Room(0, "room1", 8, Set.of(BOARD, SCREEN));
+
+        // Assert
+        assertThat(enlargedRoom).isEqualTo(room).hasSameHashCodeAs(room);
+        assertThat(enlargedRoom.hasSameDefinitionAs(room)).isFalse();
+        assertThat(new Room(0, "room1", 4, Set.of(BOARD)).hasSameDefinitionAs(room)).isTrue();
+        assertThat(otherRoom).isNotEqualTo(room);
+    }
+
+    @Test
+    void should_find_an_equal_room_in_a_hash_set() {
+        // Setup
+        Room room = new Room(0, "room1", 4, Set.of());
+        Set<Room> rooms = new HashSet<>(Set.of(room));
+
+        // Assert
+        assertThat(rooms).contains(new Room("room1", 4));
+    }
+
+    @Test
+    void should_not_have_an_id_when_read_in_json() throws Exception {
+        // Setup
+        Room room = new Room(3, "room1", 6, Set.of(SCREEN));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Test
+        String json = objectMapper.writeValueAsString(room);
+        Room deserializedRoom = objectMapper.readValue(json, Room.class);
+
+        // Assert
+        assertThat(json).doesNotContain("\"id\"");
+        assertThat(deserializedRoom.getId()).isEqualTo(Room.UNKNOWN_ID);
+        assertThat(deserializedRoom.hasSameDefinitionAs(room)).isTrue();
+    }
+}
@@ -1,5 +1,6 @@
 package com.canalplus.meetingplanner.model;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -9,6 +10,7 @@ import java.util.stream.Stream;
 
 import static com.canalplus.meetingplanner.model.TimeSlot.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TimeSlotTest {
 
@@ -18,6 +20,40 @@ class TimeSlotTest {
         assertThat(actual.previousSlot()).isEqualTo(previous);
     }
 
+    @Test
+    void should_each_timeSlot_have_its_own_bit() {
+        int allSlotsMask = 0;
+        for (TimeSlot timeSlot : TimeSlot.values()) {
+            assertThat(Integer.bitCount(timeSlot.mask())).isEqualTo(1);
+            assertThat(allSlotsMask & timeSlot.mask()).isZero();
+            allSlotsMask |= timeSlot.mask();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("providePreviousSlots")
+    void check_bookingMask_contains_timeSlot_and_previous_slot(TimeSlot actual, Optional<TimeSlot> previous) {
+        int expectedMask = actual.mask() | previous.map(TimeSlot::mask).orElse(0);
+        assertThat(actual.bookingMask()).isEqualTo(expectedMask);
+    }
+
+    @Test
+    void should_range_contain_consecutive_timeSlots_and_book_only_the_slot_before_the_first_one() {
+        // Test
+        int rangeMask = TimeSlot.rangeMask(TEN_ELEVEN, 3);
+
+        // Assert
+        assertThat(rangeMask).isEqualTo(TEN_ELEVEN.mask() | ELEVEN_TWELVE.mask() | TWELVE_THIRTEEN.mask());
+        assertThat(TimeSlot.bookingMaskOf(rangeMask)).isEqualTo(rangeMask | NINE_TEN.mask());
+        assertThat(TimeSlot.rangeMask(NINETEEN_TWENTY, 1)).isEqualTo(NINETEEN_TWENTY.mask());
+    }
+
+    @Test
+    void should_reject_range_past_the_end_of_the_day() {
+        assertThrows(IllegalArgumentException.class, () -> TimeSlot.rangeMask(EIGHTEEN_NINETEEN, 3));
+        assertThrows(IllegalArgumentException.class, () -> TimeSlot.rangeMask(EIGHT_NINE, 0));
+    }
+
     private static Stream<Arguments> providePreviousSlots() {
         return Stream.of(
                 Arguments.of(EIGHT_NINE, Optional.empty()),
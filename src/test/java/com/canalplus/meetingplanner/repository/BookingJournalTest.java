@@ -0,0 +1,251 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Booking;
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static com.canalplus.meetingplanner.model.TimeSlot.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingJournalTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2021, 2, 15);
+
+    private final List<Room> rooms = List.of(new Room("room1", 4), new Room("room2", 8), new Room("room3", 12));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_restore_bookings_and_releases_after_reopening() throws IOException {
+        // Setup
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            bookingJournal.appendBooking(TODAY, 0, NINE_TEN, SCREEN.mask() | WEBCAM.mask());
+            bookingJournal.appendBooking(TODAY, 2, NINE_TEN, BOARD.mask());
+            bookingJournal.appendBooking(TODAY.plusDays(1), 1, EIGHT_NINE, 0);
+            bookingJournal.awaitDurable(bookingJournal.appendRelease(TODAY, 2, NINE_TEN, BOARD.mask()));
+        }
+
+        // Test
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            Map<LocalDate, BookingJournal.DayState> restoredDays = bookingJournal.getRestoredDays();
+
+            // Assert
+            assertThat(restoredDays).containsOnlyKeys(TODAY, TODAY.plusDays(1));
+            BookingJournal.DayState today = restoredDays.get(TODAY);
+            assertThat(today.getBookedTimeSlots(0)).isEqualTo(NINE_TEN.mask());
+            assertThat(today.getBookedTimeSlots(2)).isZero();
+            assertThat(today.getBorrowedCount(NINE_TEN, SCREEN)).isEqualTo(1);
+            assertThat(today.getBorrowedCount(NINE_TEN, WEBCAM)).isEqualTo(1);
+            assertThat(today.getBorrowedCount(NINE_TEN, BOARD)).isZero();
+            assertThat(restoredDays.get(TODAY.plusDays(1)).getBookedTimeSlots(1)).isEqualTo(EIGHT_NINE.mask());
+        }
+    }
+
+    @Test
+    void should_restore_bookings_of_consecutive_timeSlots() throws IOException {
+        // Setup
+        int threeTimeSlots = TimeSlot.rangeMask(TEN_ELEVEN, 3);
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            bookingJournal.appendBooking(TODAY, 1, threeTimeSlots, SCREEN.mask());
+            bookingJournal.appendBooking(TODAY, 2, threeTimeSlots, BOARD.mask());
+            bookingJournal.awaitDurable(bookingJournal.appendRelease(TODAY, 2, threeTimeSlots, BOARD.mask()));
+        }
+
+        // Test
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            BookingJournal.DayState today = bookingJournal.getRestoredDays().get(TODAY);
+
+            // Assert
+            assertThat(today.getBookedTimeSlots(1)).isEqualTo(threeTimeSlots);
+            assertThat(today.getBookedTimeSlots(2)).isZero();
+            assertThat(today.getBorrowedCount(TEN_ELEVEN, SCREEN)).isEqualTo(1);
+            assertThat(today.getBorrowedCount(TWELVE_THIRTEEN, SCREEN)).isEqualTo(1);
+            assertThat(today.getBorrowedCount(THIRTEEN_FOURTEEN, SCREEN)).isZero();
+            assertThat(today.getBorrowedCount(ELEVEN_TWELVE, BOARD)).isZero();
+        }
+    }
+
+    @Test
+    void should_replace_previous_segments_by_a_snapshot() throws IOException {
+        // Setup
+        try (BookingJournal bookingJournal = open(rooms, 10)) {
+            for (TimeSlot timeSlot : TimeSlot.values()) {
+                for (int room = 0; room < rooms.size(); room++) {
+                    bookingJournal.awaitDurable(bookingJournal.appendBooking(TODAY, room, timeSlot, 0));
+                }
+            }
+        }
+
+        // Test
+        try (BookingJournal bookingJournal = open(rooms, 10)) {
+            BookingJournal.DayState today = bookingJournal.getRestoredDays().get(TODAY);
+
+            // Assert
+            int allTimeSlots = (1 << TimeSlot.values().length) - 1;
+            IntStream.range(0, rooms.size()).forEach(room -> assertThat(today.getBookedTimeSlots(room)).isEqualTo(allTimeSlots));
+            assertThat(listFiles()).hasSize(2);
+        }
+    }
+
+    @Test
+    void should_ignore_incomplete_record_at_the_end_of_a_segment() throws IOException {
+        // Setup
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            bookingJournal.awaitDurable(bookingJournal.appendBooking(TODAY, 1, TEN_ELEVEN, 0));
+        }
+        Path lastSegment = listFiles().stream().filter(file -> file.toString().endsWith(".log")).max(Path::compareTo).orElseThrow();
+        Files.write(lastSegment, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17}, StandardOpenOption.APPEND);
+
+        // Test
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            // Assert
+            assertThat(bookingJournal.getRestoredDays().get(TODAY).getBookedTimeSlots(1)).isEqualTo(TEN_ELEVEN.mask());
+        }
+    }
+
+    @Test
+    void should_index_bookings_by_id_until_they_are_released() throws IOException {
+        // Setup
+        Booking booking = new Booking(42, TODAY, new Meeting("réunion", TODAY, TEN_ELEVEN, 2, MeetingType.SPEC, 3), rooms.get(1), Set.of(BOARD));
+        Booking cancelledBooking = new Booking(43, TODAY, new Meeting("réunion", TODAY, NINE_TEN, MeetingType.RS, 2), rooms.get(0), Set.of());
+        Booking movedBooking = new Booking(44, TODAY, new Meeting("réunion", TODAY, NINE_TEN, MeetingType.RS, 2), rooms.get(2), Set.of());
+        Booking moveTarget = new Booking(44, TODAY, new Meeting("réunion", TODAY, FOURTEEN_FIFTEEN, MeetingType.RS, 2), rooms.get(2), Set.of());
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            bookingJournal.appendBooking(TODAY, 1, booking.getTimeSlotsMask(), BOARD.mask(), booking);
+            bookingJournal.appendBooking(TODAY, 0, NINE_TEN.mask(), 0, cancelledBooking);
+            bookingJournal.appendRelease(TODAY, 0, NINE_TEN.mask(), 0, cancelledBooking);
+            bookingJournal.appendBooking(TODAY, 2, NINE_TEN.mask(), 0, movedBooking);
+            bookingJournal.appendBooking(TODAY, 2, FOURTEEN_FIFTEEN.mask(), 0, moveTarget);
+            bookingJournal.awaitDurable(bookingJournal.appendRelease(TODAY, 2, NINE_TEN.mask(), 0, movedBooking));
+        }
+
+        // Test
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            BookingJournal.DayState today = bookingJournal.getRestoredDays().get(TODAY);
+
+            // Assert
+            assertThat(today.getBookings()).extracting(BookingJournal.BookingState::getId).containsExactlyInAnyOrder(42L, 44L);
+            assertThat(today.getBookings()).filteredOn(bookingState -> bookingState.getId() == 42).singleElement().satisfies(bookingState -> {
+                assertThat(bookingState.getRoomPosition()).isEqualTo(1);
+                assertThat(bookingState.getTimeSlot()).isEqualTo(TEN_ELEVEN);
+                assertThat(bookingState.getDuration()).isEqualTo(2);
+                assertThat(bookingState.getType()).isEqualTo(MeetingType.SPEC);
+                assertThat(bookingState.getEmployeesNumber()).isEqualTo(3);
+                assertThat(bookingState.getEquipmentsMask()).isEqualTo(BOARD.mask());
+            });
+            assertThat(today.getBookings()).filteredOn(bookingState -> bookingState.getId() == 44)
+                    .extracting(BookingJournal.BookingState::getTimeSlot).containsExactly(FOURTEEN_FIFTEEN);
+            assertThat(today.getBookedTimeSlots(2)).isEqualTo(FOURTEEN_FIFTEEN.mask());
+        }
+    }
+
+    @Test
+    void should_replay_segments_written_before_booking_ids() throws IOException {
+        // Setup
+        byte[] roomName = "room2".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer segment = ByteBuffer.allocate(3 * Integer.BYTES + roomName.length + 16);
+        segment.putInt(0x4D504A31).putInt(1).putInt(roomName.length).put(roomName);
+        int recordStart = segment.position();
+        segment.put((byte) 1).put((byte) TEN_ELEVEN.ordinal()).put((byte) BOARD.mask()).put((byte) 0)
+                .putInt(Math.toIntExact(TODAY.toEpochDay())).putInt(0);
+        CRC32C crc = new CRC32C();
+        crc.update(segment.array(), recordStart, segment.position() - recordStart);
+        segment.putInt((int) crc.getValue());
+        Files.write(directory.resolve("journal-0000000000000001.log"), segment.array());
+
+        // Test
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            // Assert
+            BookingJournal.DayState today = bookingJournal.getRestoredDays().get(TODAY);
+            assertThat(today.getBookedTimeSlots(1)).isEqualTo(TEN_ELEVEN.mask());
+            assertThat(today.getBorrowedCount(TEN_ELEVEN, BOARD)).isEqualTo(1);
+            assertThat(today.getBookings()).isEmpty();
+        }
+    }
+
+    @Test
+    void should_find_rooms_by_name_when_the_rooms_list_has_changed() throws IOException {
+        // Setup
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            bookingJournal.awaitDurable(bookingJournal.appendBooking(TODAY, 2, TEN_ELEVEN, 0));
+        }
+        List<Room> reorderedRooms = List.of(rooms.get(2), new Room("room4", 6), rooms.get(0));
+
+        // Test
+        try (BookingJournal bookingJournal = open(reorderedRooms, 1000)) {
+            // Assert
+            BookingJournal.DayState today = bookingJournal.getRestoredDays().get(TODAY);
+            assertThat(today.getBookedTimeSlots(0)).isEqualTo(TEN_ELEVEN.mask());
+            assertThat(today.getBookedTimeSlots(1)).isZero();
+            assertThat(today.getBookedTimeSlots(2)).isZero();
+        }
+    }
+
+    @Test
+    void should_not_keep_past_days() throws IOException {
+        // Setup
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            bookingJournal.awaitDurable(bookingJournal.appendBooking(TODAY.minusDays(1), 0, TEN_ELEVEN, 0));
+        }
+
+        // Test
+        try (BookingJournal bookingJournal = open(rooms, 1000)) {
+            // Assert
+            assertThat(bookingJournal.getRestoredDays()).isEmpty();
+        }
+    }
+
+    @Test
+    void should_restore_a_million_bookings() throws IOException {
+        // Setup
+        List<Room> manyRooms = IntStream.range(0, 10_000).mapToObj(i -> new Room("room" + i, 4)).collect(Collectors.toList());
+        int bookingsCount = 1_000_000;
+        try (BookingJournal bookingJournal = open(manyRooms, Integer.MAX_VALUE)) {
+            for (int i = 0; i < bookingsCount; i++) {
+                bookingJournal.appendBooking(TODAY.plusDays(i % 10), (i / 10) % manyRooms.size(), TimeSlot.values()[i / 100_000], 0);
+            }
+        }
+
+        // Test
+        try (BookingJournal bookingJournal = open(manyRooms, Integer.MAX_VALUE)) {
+            // Assert
+            Map<LocalDate, BookingJournal.DayState> restoredDays = bookingJournal.getRestoredDays();
+            assertThat(restoredDays).hasSize(10);
+            long bookedTimeSlots = restoredDays.values().stream()
+                    .flatMapToInt(dayState -> IntStream.range(0, manyRooms.size()).map(room -> Integer.bitCount(dayState.getBookedTimeSlots(room))))
+                    .sum();
+            assertThat(bookedTimeSlots).isEqualTo(bookingsCount);
+        }
+    }
+
+    private BookingJournal open(List<Room> rooms, int snapshotInterval) throws IOException {
+        return BookingJournal.open(directory, rooms, snapshotInterval, () -> TODAY);
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+}
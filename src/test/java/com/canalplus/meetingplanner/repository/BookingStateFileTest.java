@@ -0,0 +1,192 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Booking;
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static com.canalplus.meetingplanner.model.TimeSlot.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingStateFileTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2021, 2, 15);
+
+    private final List<Room> rooms = List.of(new Room("room1", 4), new Room("room2", 8), new Room("room3", 12));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_read_bookings_and_releases_after_reopening() throws IOException {
+        // Setup
+        int threeTimeSlots = TimeSlot.rangeMask(TEN_ELEVEN, 3);
+        try (BookingStateFile bookingStateFile = open(rooms, 10)) {
+            bookingStateFile.book(TODAY, "room1", NINE_TEN.mask(), SCREEN.mask() | WEBCAM.mask());
+            bookingStateFile.book(TODAY, "room3", threeTimeSlots, BOARD.mask());
+            bookingStateFile.book(TODAY.plusDays(1), "room2", EIGHT_NINE.mask(), 0);
+            bookingStateFile.release(TODAY, "room3", threeTimeSlots, BOARD.mask());
+            bookingStateFile.book(TODAY, "room2", NINE_TEN.mask(), BOARD.mask());
+        }
+
+        // Test
+        try (BookingStateFile bookingStateFile = open(rooms, 10)) {
+            Map<LocalDate, BookingJournal.DayState> days = bookingStateFile.getDays();
+
+            // Assert
+            assertThat(days).containsOnlyKeys(TODAY, TODAY.plusDays(1));
+            BookingJournal.DayState today = days.get(TODAY);
+            assertThat(today.getBookedTimeSlots(0)).isEqualTo(NINE_TEN.mask());
+            assertThat(today.getBookedTimeSlots(2)).isZero();
+            assertThat(today.getBorrowedCount(NINE_TEN, SCREEN)).isEqualTo(1);
+            assertThat(today.getBorrowedCount(NINE_TEN, WEBCAM)).isEqualTo(1);
+            assertThat(today.getBorrowedCount(NINE_TEN, BOARD)).isEqualTo(1);
+            assertThat(today.getBorrowedCount(ELEVEN_TWELVE, BOARD)).isZero();
+            assertThat(days.get(TODAY.plusDays(1)).getBookedTimeSlots(1)).isEqualTo(EIGHT_NINE.mask());
+        }
+    }
+
+    @Test
+    void should_reuse_the_zone_of_a_past_day() throws IOException {
+        // Setup
+        try (BookingStateFile bookingStateFile = open(rooms, 10)) {
+            bookingStateFile.book(TODAY, "room1", NINE_TEN.mask(), SCREEN.mask());
+
+            // Test
+            bookingStateFile.release(TODAY.plusDays(10), "room1", NINE_TEN.mask(), SCREEN.mask());
+            bookingStateFile.book(TODAY.plusDays(10), "room2", TEN_ELEVEN.mask(), 0);
+
+            // Assert
+            Map<LocalDate, BookingJournal.DayState> days = bookingStateFile.getDays();
+            assertThat(days).containsOnlyKeys(TODAY.plusDays(10));
+            assertThat(days.get(TODAY.plusDays(10)).getBookedTimeSlots(0)).isZero();
+            assertThat(days.get(TODAY.plusDays(10)).getBookedTimeSlots(1)).isEqualTo(TEN_ELEVEN.mask());
+            assertThat(days.get(TODAY.plusDays(10)).getBorrowedCount(NINE_TEN, SCREEN)).isZero();
+        }
+    }
+
+    @Test
+    void should_copy_bookings_by_room_name_when_rooms_or_days_count_change() throws IOException {
+        // Setup
+        try (BookingStateFile bookingStateFile = open(rooms, 10)) {
+            bookingStateFile.book(TODAY, "room2", NINE_TEN.mask(), SCREEN.mask());
+            bookingStateFile.book(TODAY, "room3", TEN_ELEVEN.mask(), 0);
+        }
+        List<Room> updatedRooms = List.of(new Room("room3", 12), new Room("room4", 6), new Room("room2", 8));
+
+        // Test
+        try (BookingStateFile bookingStateFile = open(updatedRooms, 20)) {
+            BookingJournal.DayState today = bookingStateFile.getDays().get(TODAY);
+
+            // Assert
+            assertThat(today.getBookedTimeSlots(0)).isEqualTo(TEN_ELEVEN.mask());
+            assertThat(today.getBookedTimeSlots(1)).isZero();
+            assertThat(today.getBookedTimeSlots(2)).isEqualTo(NINE_TEN.mask());
+            assertThat(today.getBorrowedCount(NINE_TEN, SCREEN)).isEqualTo(1);
+        }
+        assertThat(Files.list(directory)).containsExactly(directory.resolve("bookings.state"));
+    }
+
+    @Test
+    void should_keep_indexed_bookings_by_room_name_until_they_are_removed() throws IOException {
+        // Setup
+        Booking booking = new Booking(42, TODAY, new Meeting("réunion", TODAY, TEN_ELEVEN, 2, MeetingType.VC, 5), rooms.get(2), Set.of(WEBCAM));
+        Booking cancelledBooking = new Booking(43, TODAY, new Meeting("réunion", TODAY, NINE_TEN, MeetingType.RS, 3), rooms.get(1), Set.of());
+        try (BookingStateFile bookingStateFile = open(rooms, 10)) {
+            bookingStateFile.book(TODAY, "room3", booking.getTimeSlotsMask(), WEBCAM.mask());
+            bookingStateFile.putBooking(booking);
+            bookingStateFile.book(TODAY, "room2", cancelledBooking.getTimeSlotsMask(), 0);
+            bookingStateFile.putBooking(cancelledBooking);
+            bookingStateFile.removeBooking(cancelledBooking);
+        }
+        List<Room> updatedRooms = List.of(new Room("room4", 6), new Room("room3", 12));
+
+        // Test
+        try (BookingStateFile bookingStateFile = open(updatedRooms, 20)) {
+            BookingJournal.DayState today = bookingStateFile.getDays().get(TODAY);
+
+            // Assert
+            assertThat(today.getBookings()).singleElement().satisfies(bookingState -> {
+                assertThat(bookingState.getId()).isEqualTo(42);
+                assertThat(bookingState.getRoomPosition()).isEqualTo(1);
+                assertThat(bookingState.getTimeSlot()).isEqualTo(TEN_ELEVEN);
+                assertThat(bookingState.getDuration()).isEqualTo(2);
+                assertThat(bookingState.getType()).isEqualTo(MeetingType.VC);
+                assertThat(bookingState.getEmployeesNumber()).isEqualTo(5);
+                assertThat(bookingState.getEquipmentsMask()).isEqualTo(WEBCAM.mask());
+            });
+        }
+    }
+
+    @Test
+    void should_tell_whether_the_file_was_closed_cleanly() throws IOException {
+        // Setup
+        BookingStateFile createdFile = open(rooms, 10);
+        boolean createdFileClosedCleanly = createdFile.wasClosedCleanly();
+        createdFile.close();
+
+        // Test
+        BookingStateFile reopenedFile = open(rooms, 10);
+        BookingStateFile fileOpenedAfterACrash = open(rooms, 10);
+
+        // Assert
+        try {
+            assertThat(createdFileClosedCleanly).isFalse();
+            assertThat(reopenedFile.wasClosedCleanly()).isTrue();
+            assertThat(fileOpenedAfterACrash.wasClosedCleanly()).isFalse();
+        } finally {
+            fileOpenedAfterACrash.close();
+            reopenedFile.close();
+        }
+    }
+
+    @Test
+    void should_replace_all_days_with_the_given_bookings() throws IOException {
+        // Setup
+        BookingJournal.DayState dayState = new BookingJournal.DayState(rooms.size());
+        dayState.bookedTimeSlotsByRoom[1] = TEN_ELEVEN.mask();
+        dayState.borrowedEquipments[TEN_ELEVEN.ordinal() * Equipment.values().length + BOARD.ordinal()] = 2;
+
+        try (BookingStateFile bookingStateFile = open(rooms, 10)) {
+            bookingStateFile.book(TODAY, "room1", NINE_TEN.mask(), SCREEN.mask());
+
+            // Test
+            bookingStateFile.replaceDays(Map.of(TODAY.plusDays(1), dayState));
+
+            // Assert
+            Map<LocalDate, BookingJournal.DayState> days = bookingStateFile.getDays();
+            assertThat(days).containsOnlyKeys(TODAY.plusDays(1));
+            assertThat(days.get(TODAY.plusDays(1)).getBookedTimeSlots(0)).isZero();
+            assertThat(days.get(TODAY.plusDays(1)).getBookedTimeSlots(1)).isEqualTo(TEN_ELEVEN.mask());
+            assertThat(days.get(TODAY.plusDays(1)).getBorrowedCount(TEN_ELEVEN, BOARD)).isEqualTo(2);
+            assertThat(days.get(TODAY.plusDays(1)).getBorrowedCount(TEN_ELEVEN, SCREEN)).isZero();
+        }
+    }
+
+    @Test
+    void should_refuse_a_file_that_is_not_a_booking_state_file() throws IOException {
+        // Setup
+        Files.writeString(directory.resolve("bookings.state"), "not a booking state file");
+
+        // Test & Assert
+        assertThatThrownBy(() -> open(rooms, 10)).isInstanceOf(IOException.class);
+    }
+
+    private BookingStateFile open(List<Room> rooms, int daysCount) throws IOException {
+        return BookingStateFile.open(directory.resolve("bookings.state"), rooms, daysCount);
+    }
+}
@@ -0,0 +1,133 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static com.canalplus.meetingplanner.model.TimeSlot.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DailyBookingsTest {
+
+    @Test
+    void should_room_be_unbooked_and_available_at_every_timeSlot_by_default() {
+        // Setup
+        Room room = new Room("room1", 4);
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), new RoomIndex(List.of(room)), Map.of());
+
+        // Assert
+        for (TimeSlot timeSlot : TimeSlot.values()) {
+            assertThat(dailyBookings.isBookedFor(room, timeSlot)).isFalse();
+            assertThat(dailyBookings.isAvailableFor(room, timeSlot)).isTrue();
+        }
+    }
+
+    @Test
+    void should_booked_room_be_unavailable_at_timeSlot_and_next_timeSlot_only() {
+        // Setup
+        Room room1 = new Room("room1", 4);
+        Room room2 = new Room("room2", 4);
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), new RoomIndex(List.of(room1, room2)), Map.of());
+
+        // Test
+        dailyBookings.markAsBookedFor(room1, TEN_ELEVEN);
+
+        // Assert
+        assertThat(dailyBookings.isBookedFor(room1, TEN_ELEVEN)).isTrue();
+        assertThat(dailyBookings.isBookedFor(room1, ELEVEN_TWELVE)).isFalse();
+        assertThat(dailyBookings.isAvailableFor(room1, NINE_TEN)).isTrue();
+        assertThat(dailyBookings.isAvailableFor(room1, TEN_ELEVEN)).isFalse();
+        assertThat(dailyBookings.isAvailableFor(room1, ELEVEN_TWELVE)).isFalse();
+        assertThat(dailyBookings.isAvailableFor(room1, TWELVE_THIRTEEN)).isTrue();
+        assertThat(dailyBookings.isAvailableFor(room2, TEN_ELEVEN)).isTrue();
+    }
+
+    @Test
+    void should_not_book_room_twice_and_book_it_again_once_released() {
+        // Setup
+        Room room = new Room("room1", 4);
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), new RoomIndex(List.of(room)), Map.of());
+
+        // Test & Assert
+        assertThat(dailyBookings.tryBookFor(room, TEN_ELEVEN)).isTrue();
+        assertThat(dailyBookings.tryBookFor(room, TEN_ELEVEN)).isFalse();
+        assertThat(dailyBookings.tryBookFor(room, ELEVEN_TWELVE)).isFalse();
+        dailyBookings.releaseBookingFor(room, TEN_ELEVEN);
+        assertThat(dailyBookings.tryBookFor(room, ELEVEN_TWELVE)).isTrue();
+    }
+
+    @Test
+    void should_book_consecutive_timeSlots_all_or_nothing() {
+        // Setup
+        Room room = new Room("room1", 4);
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), new RoomIndex(List.of(room)), Map.of());
+        dailyBookings.markAsBookedFor(room, TEN_ELEVEN);
+        int threeTimeSlots = TimeSlot.rangeMask(NINE_TEN, 3);
+
+        // Test & Assert
+        assertThat(dailyBookings.isAvailableFor(room, threeTimeSlots)).isFalse();
+        assertThat(dailyBookings.tryBookFor(room, threeTimeSlots)).isFalse();
+        assertThat(dailyBookings.getBookedTimeSlots(room)).isEqualTo(TEN_ELEVEN.mask());
+
+        dailyBookings.releaseBookingFor(room, TEN_ELEVEN);
+        assertThat(dailyBookings.tryBookFor(room, threeTimeSlots)).isTrue();
+        assertThat(dailyBookings.getBookedTimeSlots(room)).isEqualTo(threeTimeSlots);
+        assertThat(dailyBookings.isAvailableFor(room, EIGHT_NINE)).isTrue();
+        assertThat(dailyBookings.isAvailableFor(room, TWELVE_THIRTEEN)).isFalse();
+    }
+
+    @Test
+    void should_reject_rooms_that_are_not_indexed() {
+        // Setup
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), new RoomIndex(List.of(new Room("room1", 4))), Map.of());
+
+        // Test & Assert
+        assertThrows(IllegalArgumentException.class, () -> dailyBookings.tryBookFor(new Room("room1", 4), TEN_ELEVEN));
+    }
+
+    @Test
+    void should_migrate_bookings_by_room_name_and_refuse_bookings_on_the_previous_day() {
+        // Setup
+        Room room1 = new Room("room1", 4);
+        Room room2 = new Room("room2", 4);
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), new RoomIndex(List.of(room1, room2)), Map.of());
+        dailyBookings.markAsBookedFor(room1, TEN_ELEVEN);
+        dailyBookings.markAsBookedFor(room2, NINE_TEN);
+        Room room3 = new Room("room3", 6);
+        long version = dailyBookings.getVersion();
+
+        // Test
+        DailyBookings migratedDailyBookings = dailyBookings.migrateTo(new RoomIndex(List.of(room3, room1)));
+
+        // Assert
+        assertThat(migratedDailyBookings.getVersion()).isGreaterThan(version);
+        assertThat(migratedDailyBookings.getBookedTimeSlots(room1)).isEqualTo(TEN_ELEVEN.mask());
+        assertThat(migratedDailyBookings.getBookedTimeSlots(room3)).isZero();
+        assertThat(migratedDailyBookings.getRemovableEquipmentPool()).isSameAs(dailyBookings.getRemovableEquipmentPool());
+        assertThat(dailyBookings.getBookedTimeSlots(room1)).isEqualTo(TEN_ELEVEN.mask());
+        assertThat(dailyBookings.tryBookFor(room1, FOURTEEN_FIFTEEN)).isFalse();
+        assertThat(migratedDailyBookings.tryBookFor(room1, FOURTEEN_FIFTEEN)).isTrue();
+    }
+
+    @Test
+    void should_release_in_the_migrated_day_a_booking_made_before_the_migration() {
+        // Setup
+        Room room = new Room("room1", 4);
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), new RoomIndex(List.of(room)), Map.of());
+        dailyBookings.tryBookFor(room, TEN_ELEVEN);
+        DailyBookings migratedDailyBookings = dailyBookings.migrateTo(new RoomIndex(List.of(room)));
+        long migratedVersion = migratedDailyBookings.getVersion();
+
+        // Test
+        dailyBookings.releaseBookingFor(room, TEN_ELEVEN);
+
+        // Assert
+        assertThat(migratedDailyBookings.isBookedFor(room, TEN_ELEVEN)).isFalse();
+        assertThat(migratedDailyBookings.getVersion()).isGreaterThan(migratedVersion);
+    }
+}
@@ -0,0 +1,87 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static com.canalplus.meetingplanner.model.TimeSlot.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RemovableEquipmentPoolTest {
+
+    @Test
+    void should_every_timeSlot_start_with_the_whole_stock() {
+        // Setup
+        RemovableEquipmentPool pool = new RemovableEquipmentPool(Map.of(SCREEN, 300, WEBCAM, 2));
+
+        // Assert
+        for (TimeSlot timeSlot : TimeSlot.values()) {
+            assertThat(pool.getAvailableCount(timeSlot, SCREEN)).isEqualTo(300);
+            assertThat(pool.getAvailableCount(timeSlot, WEBCAM)).isEqualTo(2);
+            assertThat(pool.getAvailableCount(timeSlot, BOARD)).isZero();
+        }
+    }
+
+    @Test
+    void should_acquire_bundle_of_equipments_all_or_nothing() {
+        // Setup
+        RemovableEquipmentPool pool = new RemovableEquipmentPool(Map.of(SCREEN, 2, WEBCAM, 1));
+        int screenAndWebcam = Equipment.maskOf(Set.of(SCREEN, WEBCAM));
+
+        // Test & Assert
+        assertThat(pool.tryAcquire(NINE_TEN, screenAndWebcam)).isTrue();
+        assertThat(pool.tryAcquire(NINE_TEN, screenAndWebcam)).isFalse();
+        assertThat(pool.getAvailableCount(NINE_TEN, SCREEN)).isEqualTo(1);
+        assertThat(pool.getAvailableCount(NINE_TEN, WEBCAM)).isZero();
+        assertThat(pool.isAvailable(NINE_TEN, SCREEN.mask())).isTrue();
+        assertThat(pool.isAvailable(TEN_ELEVEN, screenAndWebcam)).isTrue();
+    }
+
+    @Test
+    void should_released_equipments_be_available_again() {
+        // Setup
+        RemovableEquipmentPool pool = new RemovableEquipmentPool(Map.of(SCREEN, 1, BOARD, 1));
+        int screenAndBoard = Equipment.maskOf(Set.of(SCREEN, BOARD));
+        pool.tryAcquire(NINE_TEN, screenAndBoard);
+
+        // Test
+        pool.release(NINE_TEN, screenAndBoard);
+
+        // Assert
+        assertThat(pool.getAvailableEquipments(NINE_TEN)).containsExactlyInAnyOrder(SCREEN, BOARD);
+    }
+
+    @Test
+    void should_acquire_equipments_at_every_timeSlot_or_give_them_back() {
+        // Setup
+        RemovableEquipmentPool pool = new RemovableEquipmentPool(Map.of(SCREEN, 1));
+        pool.tryAcquire(ELEVEN_TWELVE, SCREEN.mask());
+        int threeTimeSlots = TimeSlot.rangeMask(NINE_TEN, 3);
+
+        // Test & Assert
+        assertThat(pool.isAvailableForAll(threeTimeSlots, SCREEN.mask())).isFalse();
+        assertThat(pool.tryAcquireForAll(threeTimeSlots, SCREEN.mask())).isFalse();
+        assertThat(pool.getAvailableCount(NINE_TEN, SCREEN)).isEqualTo(1);
+        assertThat(pool.getAvailableCount(TEN_ELEVEN, SCREEN)).isEqualTo(1);
+
+        pool.release(ELEVEN_TWELVE, SCREEN.mask());
+        assertThat(pool.tryAcquireForAll(threeTimeSlots, SCREEN.mask())).isTrue();
+        assertThat(pool.getAvailableCount(NINE_TEN, SCREEN)).isZero();
+        assertThat(pool.getAvailableCount(ELEVEN_TWELVE, SCREEN)).isZero();
+        assertThat(pool.getAvailableCount(TWELVE_THIRTEEN, SCREEN)).isEqualTo(1);
+
+        pool.releaseForAll(threeTimeSlots, SCREEN.mask());
+        assertThat(pool.isAvailableForAll(threeTimeSlots, SCREEN.mask())).isTrue();
+    }
+
+    @Test
+    void should_reject_stock_that_does_not_fit_in_a_counter() {
+        assertThrows(IllegalArgumentException.class, () -> new RemovableEquipmentPool(Map.of(SCREEN, 70_000)));
+        assertThrows(IllegalArgumentException.class, () -> new RemovableEquipmentPool(Map.of(BOARD, -1)));
+    }
+}
@@ -1,19 +1,43 @@
 package com.canalplus.meetingplanner.repository;
 
+import com.canalplus.meetingplanner.model.Booking;
 import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.MeetingType;
 import com.canalplus.meetingplanner.model.Room;
 import com.canalplus.meetingplanner.model.TimeSlot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static com.canalplus.meetingplanner.model.Equipment.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class RoomBookRepositoryTest {
@@ -21,11 +45,16 @@ class RoomBookRepositoryTest {
     @InjectMocks
     private RoomBookRepository roomBookRepository;
 
-    private List<Room> rooms;
+    private static final LocalDate TODAY = LocalDate.of(2021, 2, 15);
+
+    private final Room room = new Room("room1", 4);
 
     @BeforeEach
     public void setup() {
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", List.of(room));
+        setToday(TODAY);
         roomBookRepository.initRemovableEquipments();
+        roomBookRepository.initRoomIndex();
     }
 
     @Test
@@ -35,7 +64,553 @@ class RoomBookRepositoryTest {
                 SCREEN, SCREEN, SCREEN, SCREEN, SCREEN, WEBCAM, WEBCAM, WEBCAM, WEBCAM, BOARD, BOARD);
         Arrays.stream(TimeSlot.values())
                 .forEach(timeSlot ->
-                    assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(timeSlot)).containsExactlyElementsOf(removableEquipments)
+                    assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, timeSlot)).containsExactlyInAnyOrderElementsOf(removableEquipments)
                 );
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_take_all_or_none_of_the_requested_removable_equipments() {
+        // Setup
+        Room room2 = new Room("room2", 4);
+        Room room3 = new Room("room3", 4);
+        useRooms(room, room2, room3);
+        TimeSlot timeSlot = TimeSlot.NINE_TEN;
+        roomBookRepository.book(room2, TODAY, timeSlot, Set.of(BOARD));
+        roomBookRepository.book(room3, TODAY, timeSlot, Set.of(BOARD));
+
+        // Test
+        boolean booked = roomBookRepository.book(room, TODAY, timeSlot, Set.of(SCREEN, WEBCAM, BOARD));
+
+        // Assert
+        assertThat(booked).isFalse();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, timeSlot))
+                .hasSize(13)
+                .doesNotContain(BOARD);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.TEN_ELEVEN)).hasSize(15);
+    }
+
+    @Test
+    void should_book_room_and_removable_equipments() {
+        // Test
+        boolean booked = roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(SCREEN));
+
+        // Assert
+        assertThat(booked).isTrue();
+        assertThat(roomBookRepository.getDailyBookings(TODAY).isBookedFor(room, TimeSlot.NINE_TEN)).isTrue();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(14);
+    }
+
+    @Test
+    void should_not_book_room_when_removable_equipments_are_no_longer_available() {
+        // Setup
+        Room room2 = new Room("room2", 4);
+        Room room3 = new Room("room3", 4);
+        useRooms(room, room2, room3);
+        long cancelledBookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(cancelledBookingId, new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, MeetingType.RC, 3), room2, Set.of(BOARD));
+        roomBookRepository.book(room3, TODAY, TimeSlot.NINE_TEN, Set.of(BOARD));
+
+        // Test
+        boolean booked = roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(BOARD));
+        roomBookRepository.cancelBooking(cancelledBookingId);
+        boolean bookedAfterCancellation = roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(BOARD));
+
+        // Assert
+        assertThat(booked).isFalse();
+        assertThat(bookedAfterCancellation).isTrue();
+        assertThat(roomBookRepository.getDailyBookings(TODAY).isBookedFor(room, TimeSlot.NINE_TEN)).isTrue();
+    }
+
+    @Test
+    void should_not_book_room_already_booked_at_previous_timeSlot() {
+        // Setup
+        roomBookRepository.getDailyBookings(TODAY).markAsBookedFor(room, TimeSlot.EIGHT_NINE);
+
+        // Test
+        boolean booked = roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(SCREEN));
+
+        // Assert
+        assertThat(booked).isFalse();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(15);
+    }
+
+    @Test
+    void should_keep_bookings_of_each_date_apart() {
+        // Setup
+        LocalDate tomorrow = TODAY.plusDays(1);
+        roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(BOARD));
+
+        // Test
+        boolean booked = roomBookRepository.book(room, tomorrow, TimeSlot.NINE_TEN, Set.of(BOARD));
+
+        // Assert
+        assertThat(booked).isTrue();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(14);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(tomorrow, TimeSlot.NINE_TEN)).hasSize(14);
+        assertThat(roomBookRepository.getDailyBookingsCount()).isEqualTo(2);
+    }
+
+    @Test
+    void should_accept_dates_from_today_to_the_end_of_the_horizon_only() {
+        // Assert
+        assertThat(roomBookRepository.getHorizonEnd()).isEqualTo(TODAY.plusMonths(3));
+        assertThat(roomBookRepository.isWithinHorizon(TODAY)).isTrue();
+        assertThat(roomBookRepository.isWithinHorizon(TODAY.plusMonths(3))).isTrue();
+        assertThat(roomBookRepository.isWithinHorizon(TODAY.minusDays(1))).isFalse();
+        assertThat(roomBookRepository.isWithinHorizon(TODAY.plusMonths(3).plusDays(1))).isFalse();
+        assertThrows(IllegalArgumentException.class, () -> roomBookRepository.getDailyBookings(TODAY.minusDays(1)));
+        assertThat(roomBookRepository.getDailyBookingsCount()).isZero();
+    }
+
+    @Test
+    void should_evict_bookings_of_past_dates() {
+        // Setup
+        roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of());
+        roomBookRepository.book(room, TODAY.plusDays(1), TimeSlot.NINE_TEN, Set.of());
+        roomBookRepository.book(room, TODAY.plusDays(2), TimeSlot.NINE_TEN, Set.of());
+
+        // Test
+        setToday(TODAY.plusDays(2));
+
+        // Assert
+        assertThat(roomBookRepository.getDailyBookingsCount()).isEqualTo(1);
+        assertThat(roomBookRepository.getDailyBookings(TODAY.plusDays(2)).isBookedFor(room, TimeSlot.NINE_TEN)).isTrue();
+    }
+
+    @Test
+    void should_restore_journaled_bookings_at_restart(@TempDir Path journalDirectory) throws IOException {
+        // Setup
+        ReflectionTestUtils.setField(roomBookRepository, "journalDirectory", journalDirectory.toString());
+        roomBookRepository.openBookingJournal();
+        roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(SCREEN, BOARD));
+        roomBookRepository.book(room, TODAY.plusDays(1), TimeSlot.TEN_ELEVEN, Set.of());
+        roomBookRepository.closeBookingJournal();
+
+        // Test
+        RoomBookRepository restartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(restartedRepository, "rooms", List.of(room));
+        ReflectionTestUtils.setField(restartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        ReflectionTestUtils.setField(restartedRepository, "journalDirectory", journalDirectory.toString());
+        restartedRepository.init();
+
+        // Assert
+        try {
+            assertThat(restartedRepository.getDailyBookings(TODAY).isBookedFor(room, TimeSlot.NINE_TEN)).isTrue();
+            assertThat(restartedRepository.getDailyBookings(TODAY.plusDays(1)).isBookedFor(room, TimeSlot.TEN_ELEVEN)).isTrue();
+            assertThat(restartedRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN))
+                    .hasSize(13)
+                    .containsOnlyOnce(BOARD);
+        } finally {
+            restartedRepository.closeBookingJournal();
+        }
+    }
+
+    @Test
+    void should_restore_bookings_from_state_file_at_restart(@TempDir Path stateDirectory) throws IOException {
+        // Setup
+        Path stateFile = stateDirectory.resolve("bookings.state");
+        ReflectionTestUtils.setField(roomBookRepository, "bookingStatePath", stateFile.toString());
+        roomBookRepository.openBookingStateFile();
+        roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(SCREEN, BOARD));
+        roomBookRepository.book(room, TODAY.plusDays(1), TimeSlot.TEN_ELEVEN, Set.of());
+        long cancelledBookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(cancelledBookingId, new Meeting("réunion", TODAY, TimeSlot.FOURTEEN_FIFTEEN, MeetingType.VC, 4), room, Set.of(WEBCAM));
+        roomBookRepository.cancelBooking(cancelledBookingId);
+        roomBookRepository.closeBookingStateFile();
+
+        // Test
+        RoomBookRepository restartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(restartedRepository, "rooms", List.of(room));
+        ReflectionTestUtils.setField(restartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        ReflectionTestUtils.setField(restartedRepository, "bookingStatePath", stateFile.toString());
+        restartedRepository.init();
+
+        // Assert
+        try {
+            assertThat(restartedRepository.getDailyBookings(TODAY).isBookedFor(room, TimeSlot.NINE_TEN)).isTrue();
+            assertThat(restartedRepository.getDailyBookings(TODAY).isBookedFor(room, TimeSlot.FOURTEEN_FIFTEEN)).isFalse();
+            assertThat(restartedRepository.getDailyBookings(TODAY.plusDays(1)).isBookedFor(room, TimeSlot.TEN_ELEVEN)).isTrue();
+            assertThat(restartedRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN))
+                    .hasSize(13)
+                    .containsOnlyOnce(BOARD);
+            assertThat(restartedRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.FOURTEEN_FIFTEEN)).hasSize(15);
+        } finally {
+            restartedRepository.closeBookingStateFile();
+        }
+    }
+
+    @Test
+    void should_restore_journaled_bookings_when_state_file_was_not_closed_cleanly(@TempDir Path directory) throws IOException {
+        // Setup
+        Path stateFile = directory.resolve("bookings.state");
+        Path journalDirectory = directory.resolve("journal");
+        ReflectionTestUtils.setField(roomBookRepository, "bookingStatePath", stateFile.toString());
+        ReflectionTestUtils.setField(roomBookRepository, "journalDirectory", journalDirectory.toString());
+        roomBookRepository.openBookingStateFile();
+        roomBookRepository.openBookingJournal();
+        roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(BOARD));
+        // Une réservation reportée dans le fichier d'état, mais jamais confirmée par le journal
+        BookingStateFile crashedStateFile = (BookingStateFile) ReflectionTestUtils.getField(roomBookRepository, "bookingStateFile");
+        crashedStateFile.book(TODAY, room.getName(), TimeSlot.FOURTEEN_FIFTEEN.mask(), 0);
+        roomBookRepository.closeBookingJournal();
+
+        // Test
+        RoomBookRepository restartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(restartedRepository, "rooms", List.of(room));
+        ReflectionTestUtils.setField(restartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        ReflectionTestUtils.setField(restartedRepository, "bookingStatePath", stateFile.toString());
+        ReflectionTestUtils.setField(restartedRepository, "journalDirectory", journalDirectory.toString());
+        restartedRepository.init();
+
+        // Assert
+        try {
+            assertThat(restartedRepository.getDailyBookings(TODAY).isBookedFor(room, TimeSlot.NINE_TEN)).isTrue();
+            assertThat(restartedRepository.getDailyBookings(TODAY).isBookedFor(room, TimeSlot.FOURTEEN_FIFTEEN)).isFalse();
+            assertThat(restartedRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).containsOnlyOnce(BOARD);
+            assertThat(crashedStateFile.getDays().get(TODAY).getBookedTimeSlots(0)).isEqualTo(TimeSlot.NINE_TEN.mask());
+        } finally {
+            restartedRepository.closeBookingJournal();
+            restartedRepository.closeBookingStateFile();
+            crashedStateFile.close();
+        }
+    }
+
+    @Test
+    void should_cancel_and_move_journaled_bookings_by_id_after_restart(@TempDir Path journalDirectory) throws IOException {
+        // Setup
+        ReflectionTestUtils.setField(roomBookRepository, "journalDirectory", journalDirectory.toString());
+        roomBookRepository.openBookingJournal();
+        long bookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(bookingId, new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, 2, MeetingType.SPEC, 3), room, Set.of(BOARD));
+        long movedBookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(movedBookingId, new Meeting("réunion déplacée", TODAY, TimeSlot.FOURTEEN_FIFTEEN, MeetingType.RS, 2), room, Set.of());
+        Booking previousBooking = roomBookRepository.takeBooking(movedBookingId).orElseThrow();
+        roomBookRepository.moveBooking(previousBooking, previousBooking.toMeeting(TODAY.plusDays(1), null, null), room, Set.of());
+        roomBookRepository.closeBookingJournal();
+
+        // Test
+        RoomBookRepository restartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(restartedRepository, "rooms", List.of(room));
+        ReflectionTestUtils.setField(restartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        ReflectionTestUtils.setField(restartedRepository, "journalDirectory", journalDirectory.toString());
+        restartedRepository.init();
+        Optional<Booking> restoredBooking = restartedRepository.getBooking(bookingId);
+        Optional<Booking> restoredMovedBooking = restartedRepository.getBooking(movedBookingId);
+        // Le second redémarrage relit l'instantané écrit par le premier
+        restartedRepository.closeBookingJournal();
+        RoomBookRepository twiceRestartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(twiceRestartedRepository, "rooms", List.of(room));
+        ReflectionTestUtils.setField(twiceRestartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        ReflectionTestUtils.setField(twiceRestartedRepository, "journalDirectory", journalDirectory.toString());
+        twiceRestartedRepository.init();
+        Optional<Booking> cancelledBooking = twiceRestartedRepository.cancelBooking(bookingId);
+
+        // Assert
+        try {
+            assertThat(restartedRepository.getBookingsCount()).isEqualTo(2);
+            assertThat(restoredBooking).hasValueSatisfying(booking -> {
+                assertThat(booking.getName()).isNull();
+                assertThat(booking.getDate()).isEqualTo(TODAY);
+                assertThat(booking.getTimeSlot()).isEqualTo(TimeSlot.NINE_TEN);
+                assertThat(booking.getDuration()).isEqualTo(2);
+                assertThat(booking.getType()).isEqualTo(MeetingType.SPEC);
+                assertThat(booking.getEmployeesNumber()).isEqualTo(3);
+                assertThat(booking.getRoom()).isEqualTo(room);
+                assertThat(booking.getRemovableBorrowedEquipments()).containsExactly(BOARD);
+            });
+            assertThat(restoredMovedBooking).hasValueSatisfying(booking -> assertThat(booking.getDate()).isEqualTo(TODAY.plusDays(1)));
+            assertThat(cancelledBooking).isPresent();
+            assertThat(twiceRestartedRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isZero();
+            assertThat(twiceRestartedRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(15);
+            assertThat(twiceRestartedRepository.getBooking(movedBookingId)).isPresent();
+            assertThat(twiceRestartedRepository.getBookingsCount()).isEqualTo(1);
+        } finally {
+            twiceRestartedRepository.closeBookingJournal();
+        }
+    }
+
+    @Test
+    void should_cancel_a_booking_restored_from_state_file_by_id(@TempDir Path stateDirectory) throws IOException {
+        // Setup
+        Path stateFile = stateDirectory.resolve("bookings.state");
+        ReflectionTestUtils.setField(roomBookRepository, "bookingStatePath", stateFile.toString());
+        roomBookRepository.openBookingStateFile();
+        long bookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(bookingId, new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, 2, MeetingType.VC, 4), room, Set.of(WEBCAM));
+        roomBookRepository.closeBookingStateFile();
+
+        // Test
+        RoomBookRepository restartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(restartedRepository, "rooms", List.of(room));
+        ReflectionTestUtils.setField(restartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        ReflectionTestUtils.setField(restartedRepository, "bookingStatePath", stateFile.toString());
+        restartedRepository.init();
+        Optional<Booking> cancelledBooking = restartedRepository.cancelBooking(bookingId);
+
+        // Assert
+        try {
+            assertThat(cancelledBooking).hasValueSatisfying(booking -> {
+                assertThat(booking.getType()).isEqualTo(MeetingType.VC);
+                assertThat(booking.getRemovableBorrowedEquipments()).containsExactly(WEBCAM);
+            });
+            assertThat(restartedRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isZero();
+            assertThat(restartedRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.TEN_ELEVEN)).hasSize(15);
+        } finally {
+            restartedRepository.closeBookingStateFile();
+        }
+    }
+
+    @Test
+    void should_partition_rooms_by_configured_key() {
+        // Setup
+        Room e1001 = new Room("E1001", 16);
+        Room e2001 = new Room("E2001", 10);
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", List.of(e1001, e2001));
+        ReflectionTestUtils.setField(roomBookRepository, "shardingPartitioning", "floor");
+        roomBookRepository.initRoomIndex();
+
+        // Test
+        boolean booked = roomBookRepository.book(e2001, TODAY, TimeSlot.NINE_TEN, Set.of());
+
+        // Assert
+        assertThat(roomBookRepository.getRoomIndex().getShardKeys()).containsExactly("E1", "E2");
+        assertThat(booked).isTrue();
+        assertThat(roomBookRepository.getDailyBookings(TODAY).isBookedFor(e2001, TimeSlot.NINE_TEN)).isTrue();
+        assertThat(roomBookRepository.getDailyBookings(TODAY).isBookedFor(e1001, TimeSlot.NINE_TEN)).isFalse();
+    }
+
+    @Test
+    void should_keep_bookings_of_unchanged_rooms_when_rooms_are_updated() {
+        // Setup
+        roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of(SCREEN));
+        DailyBookings previousDailyBookings = roomBookRepository.getDailyBookings(TODAY);
+        Room newRoom = new Room("room2", 8);
+
+        // Test
+        roomBookRepository.updateRooms(List.of(newRoom, new Room("room1", 4)));
+
+        // Assert
+        DailyBookings dailyBookings = roomBookRepository.getDailyBookings(TODAY);
+        assertThat(roomBookRepository.getRooms()).containsExactly(newRoom, room);
+        assertThat(roomBookRepository.getRooms().get(1)).isSameAs(room);
+        assertThat(dailyBookings).isNotSameAs(previousDailyBookings);
+        assertThat(dailyBookings.isBookedFor(room, TimeSlot.NINE_TEN)).isTrue();
+        assertThat(dailyBookings.isAvailableFor(newRoom, TimeSlot.NINE_TEN)).isTrue();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(14);
+        assertThat(previousDailyBookings.tryBookFor(room, TimeSlot.ELEVEN_TWELVE)).isFalse();
+    }
+
+    @Test
+    void should_replace_rooms_whose_capacity_has_changed_but_keep_their_bookings() {
+        // Setup
+        roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of());
+        Room enlargedRoom = new Room("room1", 10);
+
+        // Test
+        roomBookRepository.updateRooms(List.of(enlargedRoom));
+
+        // Assert
+        assertThat(roomBookRepository.getRooms().get(0)).isSameAs(enlargedRoom);
+        assertThat(enlargedRoom).isEqualTo(room);
+        assertThat(roomBookRepository.getDailyBookings(TODAY).isBookedFor(enlargedRoom, TimeSlot.NINE_TEN)).isTrue();
+        assertThat(roomBookRepository.book(room, TODAY, TimeSlot.ELEVEN_TWELVE, Set.of())).isFalse();
+    }
+
+    @Test
+    void should_refuse_booking_of_a_room_removed_from_the_rooms() {
+        // Setup
+        roomBookRepository.updateRooms(List.of(new Room("room2", 8)));
+
+        // Test
+        boolean booked = roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of());
+
+        // Assert
+        assertThat(booked).isFalse();
+    }
+
+    @Test
+    void should_journal_bookings_with_updated_rooms(@TempDir Path journalDirectory) throws IOException {
+        // Setup
+        ReflectionTestUtils.setField(roomBookRepository, "journalDirectory", journalDirectory.toString());
+        roomBookRepository.openBookingJournal();
+        Room newRoom = new Room("room2", 8);
+        roomBookRepository.book(room, TODAY, TimeSlot.NINE_TEN, Set.of());
+
+        // Test
+        roomBookRepository.updateRooms(List.of(newRoom, room));
+        roomBookRepository.book(newRoom, TODAY, TimeSlot.TEN_ELEVEN, Set.of());
+        roomBookRepository.closeBookingJournal();
+
+        // Assert
+        RoomBookRepository restartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(restartedRepository, "rooms", List.of(room, newRoom));
+        ReflectionTestUtils.setField(restartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        ReflectionTestUtils.setField(restartedRepository, "journalDirectory", journalDirectory.toString());
+        restartedRepository.init();
+        try {
+            assertThat(restartedRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isEqualTo(TimeSlot.NINE_TEN.mask());
+            assertThat(restartedRepository.getDailyBookings(TODAY).getBookedTimeSlots(newRoom)).isEqualTo(TimeSlot.TEN_ELEVEN.mask());
+        } finally {
+            restartedRepository.closeBookingJournal();
+        }
+    }
+
+    @Test
+    void should_not_reuse_booking_ids_of_a_previous_start() {
+        // Setup
+        roomBookRepository.init();
+        long bookingIdBeforeRestart = roomBookRepository.nextBookingId();
+        ReflectionTestUtils.setField(roomBookRepository, "clock",
+                Clock.offset((Clock) ReflectionTestUtils.getField(roomBookRepository, "clock"), Duration.ofSeconds(30)));
+
+        // Test
+        RoomBookRepository restartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(restartedRepository, "rooms", List.of(room));
+        ReflectionTestUtils.setField(restartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        restartedRepository.init();
+
+        // Assert
+        assertThat(restartedRepository.nextBookingId()).isGreaterThan(bookingIdBeforeRestart);
+        assertThat(bookingIdBeforeRestart).isLessThan(1L << 53);
+    }
+
+    @Test
+    void should_give_back_room_and_removable_equipments_when_booking_cannot_be_journaled(@TempDir Path journalDirectory) throws IOException {
+        // Setup
+        ReflectionTestUtils.setField(roomBookRepository, "journalDirectory", journalDirectory.toString());
+        roomBookRepository.openBookingJournal();
+        roomBookRepository.closeBookingJournal();
+        long bookingId = roomBookRepository.nextBookingId();
+        Meeting meeting = new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, 2, MeetingType.SPEC, 3);
+
+        // Test
+        assertThrows(IllegalStateException.class, () -> roomBookRepository.book(bookingId, meeting, room, Set.of(BOARD)));
+
+        // Assert
+        assertThat(roomBookRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isZero();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(15);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.TEN_ELEVEN)).hasSize(15);
+        assertThat(roomBookRepository.getBooking(bookingId)).isEmpty();
+    }
+
+    @Test
+    void should_book_without_awaiting_the_journal_and_give_back_the_room_when_the_deferred_write_fails() {
+        // Setup
+        BookingJournal bookingJournal = mock(BookingJournal.class);
+        when(bookingJournal.appendBooking(eq(TODAY), anyInt(), anyInt(), anyInt(), any(Booking.class))).thenReturn(1L);
+        doThrow(new UncheckedIOException(new IOException("disque plein"))).when(bookingJournal).awaitDurable(1L);
+        ReflectionTestUtils.setField(roomBookRepository, "bookingJournal", bookingJournal);
+        ReflectionTestUtils.setField(roomBookRepository, "journalRoomIndex", roomBookRepository.getRoomIndex());
+        long bookingId = roomBookRepository.nextBookingId();
+        Meeting meeting = new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, 2, MeetingType.SPEC, 3);
+
+        // Test
+        RoomBookRepository.DeferredDurability<Optional<Booking>> deferredBooking =
+                roomBookRepository.deferDurability(() -> roomBookRepository.book(bookingId, meeting, room, Set.of(BOARD)));
+
+        // Assert
+        verify(bookingJournal, never()).awaitDurable(anyLong());
+        assertThat(roomBookRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isEqualTo(meeting.getTimeSlotsMask());
+        assertThrows(UncheckedIOException.class, deferredBooking::await);
+        assertThat(roomBookRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isZero();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(15);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.TEN_ELEVEN)).hasSize(15);
+        assertThat(roomBookRepository.getBooking(bookingId)).isEmpty();
+    }
+
+    @Test
+    void should_cancel_booking_by_id_and_give_back_its_removable_equipments() {
+        // Setup
+        long bookingId = roomBookRepository.nextBookingId();
+        Meeting meeting = new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, 2, MeetingType.SPEC, 3);
+        roomBookRepository.book(bookingId, meeting, room, Set.of(BOARD));
+
+        // Test
+        Optional<Booking> cancelledBooking = roomBookRepository.cancelBooking(bookingId);
+
+        // Assert
+        assertThat(cancelledBooking).isPresent();
+        assertThat(cancelledBooking.get().getRoom()).isEqualTo(room);
+        assertThat(roomBookRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isZero();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(15);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.TEN_ELEVEN)).hasSize(15);
+        assertThat(roomBookRepository.cancelBooking(bookingId)).isEmpty();
+        assertThat(roomBookRepository.getBookingsCount()).isZero();
+    }
+
+    @Test
+    void should_move_a_booking_within_its_room_and_keep_the_overlapping_timeSlots() {
+        // Setup
+        long bookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(bookingId, new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, 2, MeetingType.SPEC, 3), room, Set.of(BOARD));
+        Booking previousBooking = roomBookRepository.takeBooking(bookingId).orElseThrow();
+
+        // Test
+        Optional<Booking> movedBooking = roomBookRepository.moveBooking(previousBooking,
+                previousBooking.toMeeting(null, TimeSlot.TEN_ELEVEN, null), room, Set.of(BOARD));
+
+        // Assert
+        assertThat(movedBooking).isPresent();
+        assertThat(roomBookRepository.getBooking(bookingId)).isEqualTo(movedBooking);
+        assertThat(roomBookRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isEqualTo(TimeSlot.rangeMask(TimeSlot.TEN_ELEVEN, 2));
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(15);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.TEN_ELEVEN)).hasSize(14);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.ELEVEN_TWELVE)).hasSize(14);
+    }
+
+    @Test
+    void should_keep_the_previous_booking_intact_when_a_move_fails() {
+        // Setup
+        long bookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(bookingId, new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, MeetingType.SPEC, 3), room, Set.of(BOARD));
+        roomBookRepository.book(room, TODAY, TimeSlot.FOURTEEN_FIFTEEN, Set.of());
+        Booking previousBooking = roomBookRepository.takeBooking(bookingId).orElseThrow();
+
+        // Test
+        Optional<Booking> movedBooking = roomBookRepository.moveBooking(previousBooking,
+                previousBooking.toMeeting(null, TimeSlot.FOURTEEN_FIFTEEN, null), room, Set.of(BOARD));
+        roomBookRepository.putBackBooking(previousBooking);
+
+        // Assert
+        assertThat(movedBooking).isEmpty();
+        assertThat(roomBookRepository.getBooking(bookingId)).contains(previousBooking);
+        assertThat(roomBookRepository.getDailyBookings(TODAY).isBookedFor(room, TimeSlot.NINE_TEN)).isTrue();
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(14);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.FOURTEEN_FIFTEEN)).hasSize(15);
+    }
+
+    @Test
+    void should_journal_cancelled_bookings(@TempDir Path journalDirectory) throws IOException {
+        // Setup
+        ReflectionTestUtils.setField(roomBookRepository, "journalDirectory", journalDirectory.toString());
+        roomBookRepository.openBookingJournal();
+        long bookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(bookingId, new Meeting("réunion", TODAY, TimeSlot.NINE_TEN, MeetingType.SPEC, 3), room, Set.of(BOARD));
+
+        // Test
+        roomBookRepository.cancelBooking(bookingId);
+        roomBookRepository.closeBookingJournal();
+
+        // Assert
+        RoomBookRepository restartedRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(restartedRepository, "rooms", List.of(room));
+        ReflectionTestUtils.setField(restartedRepository, "clock", ReflectionTestUtils.getField(roomBookRepository, "clock"));
+        ReflectionTestUtils.setField(restartedRepository, "journalDirectory", journalDirectory.toString());
+        restartedRepository.init();
+        try {
+            assertThat(restartedRepository.getDailyBookings(TODAY).getBookedTimeSlots(room)).isZero();
+            assertThat(restartedRepository.getAvailableRemovableEquipmentsFor(TODAY, TimeSlot.NINE_TEN)).hasSize(15);
+        } finally {
+            restartedRepository.closeBookingJournal();
+        }
+    }
+
+    private void useRooms(Room... rooms) {
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", List.of(rooms));
+        roomBookRepository.initRoomIndex();
+    }
+
+    private void setToday(LocalDate today) {
+        ReflectionTestUtils.setField(roomBookRepository, "clock", Clock.fixed(today.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,114 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomCatalogTest {
+
+    private final RoomCatalog roomCatalog = new RoomCatalog();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        roomCatalog.close();
+    }
+
+    @Test
+    void should_load_bundled_catalog_with_capacity_limitation() {
+        // Setup
+        ReflectionTestUtils.setField(roomCatalog, "roomCapacityLimitation", 0.7);
+
+        // Test
+        List<Room> rooms = roomCatalog.load();
+
+        // Assert
+        assertThat(rooms).hasSize(12);
+        assertThat(rooms.get(0)).isEqualTo(new Room("E1001", 16));
+        assertThat(rooms.get(8)).isEqualTo(new Room("E3001", 9, Set.of(SCREEN, WEBCAM, MULTILINE_SPEAKER)));
+    }
+
+    @Test
+    void should_prefer_capacity_limitation_of_the_catalog_file() throws IOException {
+        // Setup
+        Path catalogFile = writeCatalog("{\"capacityLimitation\": 0.5, \"rooms\": [{\"name\": \"A1\", \"capacity\": 10, \"equipments\": [\"BOARD\"]}]}");
+        ReflectionTestUtils.setField(roomCatalog, "catalogFile", catalogFile.toString());
+        ReflectionTestUtils.setField(roomCatalog, "roomCapacityLimitation", 0.7);
+
+        // Test & Assert
+        assertThat(roomCatalog.load()).containsExactly(new Room("A1", 5, Set.of(BOARD)));
+    }
+
+    @Test
+    void should_reject_duplicated_room_names() throws IOException {
+        // Setup
+        Path catalogFile = writeCatalog("{\"rooms\": [{\"name\": \"A1\", \"capacity\": 10}, {\"name\": \"A1\", \"capacity\": 4}]}");
+        ReflectionTestUtils.setField(roomCatalog, "catalogFile", catalogFile.toString());
+
+        // Test & Assert
+        assertThatThrownBy(roomCatalog::load)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("A1");
+    }
+
+    @Test
+    void should_keep_the_id_of_a_room_name_when_the_catalog_is_reloaded() throws IOException {
+        // Setup
+        Path catalogFile = writeCatalog("{\"rooms\": [{\"name\": \"A1\", \"capacity\": 10}, {\"name\": \"A2\", \"capacity\": 4}]}");
+        ReflectionTestUtils.setField(roomCatalog, "catalogFile", catalogFile.toString());
+        List<Room> rooms = roomCatalog.load();
+        writeCatalog("{\"rooms\": [{\"name\": \"A3\", \"capacity\": 6}, {\"name\": \"A1\", \"capacity\": 12}]}");
+
+        // Test
+        List<Room> reloadedRooms = roomCatalog.load();
+
+        // Assert
+        assertThat(rooms).extracting(Room::getId).containsExactly(0, 1);
+        assertThat(reloadedRooms).extracting(Room::getId).containsExactly(2, 0);
+        RoomCatalog otherRoomCatalog = new RoomCatalog();
+        ReflectionTestUtils.setField(otherRoomCatalog, "catalogFile", catalogFile.toString());
+        assertThat(otherRoomCatalog.load()).extracting(Room::getId).containsExactly(0, 1);
+    }
+
+    @Test
+    void should_notify_valid_changes_of_the_catalog_file_only() throws Exception {
+        // Setup
+        Path catalogFile = writeCatalog("{\"rooms\": [{\"name\": \"A1\", \"capacity\": 10}]}");
+        ReflectionTestUtils.setField(roomCatalog, "catalogFile", catalogFile.toString());
+        BlockingQueue<List<Room>> notifiedRooms = new LinkedBlockingQueue<>();
+        roomCatalog.watch(notifiedRooms::add);
+
+        // Test
+        writeCatalog("{\"rooms\": [{\"name\": \"A1\", \"capacity\": 10}, {\"name\": ");
+        writeCatalog("{\"rooms\": [{\"name\": \"A1\", \"capacity\": 10}, {\"name\": \"A2\", \"capacity\": 6}]}");
+
+        // Assert
+        assertThat(notifiedRooms.poll(30, TimeUnit.SECONDS)).containsExactly(new Room("A1", 10), new Room("A2", 6));
+    }
+
+    /**
+     * Écrit le catalogue dans un fichier temporaire puis le renomme, comme le ferait un déploiement
+     */
+    private Path writeCatalog(String json) throws IOException {
+        Path temporaryFile = Files.writeString(Files.createTempFile(directory, "rooms", ".tmp"), json);
+        return Files.move(temporaryFile, directory.resolve("rooms.json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,160 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Equipment;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static com.canalplus.meetingplanner.model.TimeSlot.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomIndexTest {
+
+    @Test
+    void should_find_first_available_room_with_one_of_the_signatures_in_rooms_order() {
+        // Setup
+        Room room1 = new Room("room1", 16);
+        Room room2 = new Room("room2", 7, Set.of(SCREEN));
+        Room room3 = new Room("room3", 5, Set.of(BOARD));
+        Room room4 = new Room("room4", 5);
+        Room room5 = new Room("room5", 9, Set.of(SCREEN, WEBCAM, MULTILINE_SPEAKER));
+        RoomIndex roomIndex = new RoomIndex(List.of(room1, room2, room3, room4, room5));
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), roomIndex, Map.of());
+        int fullyEquipped = Equipment.maskOf(Set.of(SCREEN, WEBCAM, MULTILINE_SPEAKER));
+
+        // Test & Assert
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, EIGHT_NINE, 5, new int[]{0})).hasValue(room1);
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, EIGHT_NINE, 2, new int[]{SCREEN.mask()})).hasValue(room2);
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, EIGHT_NINE, 8, new int[]{SCREEN.mask(), fullyEquipped})).hasValue(room5);
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, EIGHT_NINE, 5, new int[]{BOARD.mask(), 0})).hasValue(room1);
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, EIGHT_NINE, 6, new int[]{BOARD.mask()})).isNotPresent();
+    }
+
+    @Test
+    void should_find_rooms_by_catalog_id_or_by_name() throws Exception {
+        // Setup
+        Room catalogRoom = new Room(1, "room1", 4, Set.of());
+        Room room = new Room("room2", 4);
+        RoomIndex roomIndex = new RoomIndex(List.of(catalogRoom, room));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Test
+        Room roomReadInJson = objectMapper.readValue("{\"name\":\"room1\",\"capacity\":4}", Room.class);
+
+        // Assert
+        assertThat(roomIndex.positionOf(catalogRoom)).isZero();
+        assertThat(roomIndex.positionOf(room)).isEqualTo(1);
+        assertThat(roomReadInJson).isEqualTo(catalogRoom);
+        assertThat(roomIndex.contains(roomReadInJson)).isFalse();
+        assertThat(roomIndex.contains(new Room(1, "room1", 8, Set.of()))).isFalse();
+        assertThatThrownBy(() -> new RoomIndex(List.of(catalogRoom, new Room(1, "room3", 4, Set.of()))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_skip_rooms_booked_at_timeSlot_or_previous_timeSlot() {
+        // Setup
+        Room room1 = new Room("room1", 16);
+        Room room2 = new Room("room2", 10);
+        Room room3 = new Room("room3", 8, Set.of(BOARD));
+        RoomIndex roomIndex = new RoomIndex(List.of(room1, room2, room3));
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), roomIndex, Map.of());
+        dailyBookings.markAsBookedFor(room1, NINE_TEN);
+        dailyBookings.markAsBookedFor(room2, TEN_ELEVEN);
+
+        // Test & Assert
+        int[] anySignature = {0, BOARD.mask()};
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, TEN_ELEVEN, 5, anySignature)).hasValue(room3);
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, ELEVEN_TWELVE, 5, anySignature)).hasValue(room1);
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, ELEVEN_TWELVE, 9, anySignature)).hasValue(room1);
+        assertThat(roomIndex.findFirstAvailableRoom(dailyBookings, ELEVEN_TWELVE, 17, anySignature)).isNotPresent();
+    }
+
+    @Test
+    void should_partition_rooms_in_shards_by_floor() {
+        // Setup
+        List<Room> rooms = List.of(new Room("E1001", 16), new Room("E2001", 10), new Room("E1002", 8), new Room("F2001", 8));
+
+        // Test
+        RoomIndex roomIndex = new RoomIndex(rooms, RoomPartitioning.FLOOR.keyFunction(0));
+
+        // Assert
+        assertThat(roomIndex.getShardKeys()).containsExactly("E1", "E2", "F2");
+        assertThat(roomIndex.shardOf(2)).isEqualTo(0);
+        assertThat(roomIndex.localPositionOf(2)).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {12, RoomIndex.PARALLEL_SEARCH_MIN_ROOMS})
+    void should_find_the_same_rooms_with_or_without_shards(int roomsCount) {
+        // Setup
+        Random random = new Random(roomsCount);
+        List<Room> rooms = IntStream.range(0, roomsCount)
+                .mapToObj(i -> new Room("E" + random.nextInt(8) + String.format("%03d", i), 1 + random.nextInt(20), Equipment.setOf(random.nextInt(16))))
+                .collect(Collectors.toList());
+        RoomIndex roomIndex = new RoomIndex(rooms);
+        RoomIndex shardedRoomIndex = new RoomIndex(rooms, RoomPartitioning.FLOOR.keyFunction(0));
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), roomIndex, Map.of());
+        DailyBookings shardedDailyBookings = new DailyBookings(LocalDate.now(), shardedRoomIndex, Map.of());
+
+        for (int i = 0; i < 5 * roomsCount; i++) {
+            // Test
+            TimeSlot timeSlot = TimeSlot.values()[random.nextInt(TimeSlot.values().length)];
+            int minimumCapacity = 1 + random.nextInt(20);
+            int equipmentsMask = random.nextInt(16);
+            var room = roomIndex.findFirstAvailableRoom(dailyBookings, timeSlot, minimumCapacity, new int[]{equipmentsMask, 15});
+            var shardedRoom = shardedRoomIndex.findFirstAvailableRoom(shardedDailyBookings, timeSlot, minimumCapacity, new int[]{equipmentsMask, 15});
+
+            // Assert
+            assertThat(shardedRoom).isEqualTo(room);
+            List<Room> expectedRooms = rooms.stream()
+                    .filter(candidate -> candidate.getCapacity() >= minimumCapacity && dailyBookings.isAvailableFor(candidate, timeSlot))
+                    .filter(candidate -> Equipment.maskOf(candidate.getEquipments()) == equipmentsMask)
+                    .limit(3)
+                    .collect(Collectors.toList());
+            assertThat(shardedRoomIndex.findFirstAvailableRooms(shardedDailyBookings, timeSlot, minimumCapacity, new int[]{equipmentsMask}, 3)).isEqualTo(expectedRooms);
+            room.ifPresent(bookedRoom -> {
+                assertThat(dailyBookings.tryBookFor(bookedRoom, timeSlot)).isTrue();
+                assertThat(shardedDailyBookings.tryBookFor(bookedRoom, timeSlot)).isTrue();
+            });
+        }
+        assertThat(shardedDailyBookings.countFreeRooms(TimeSlot.NINE_TEN)).isEqualTo(dailyBookings.countFreeRooms(TimeSlot.NINE_TEN));
+    }
+
+    @Test
+    void should_scan_all_shards_and_return_available_rooms_in_rooms_order() {
+        // Setup
+        Random random = new Random(42);
+        List<Room> rooms = IntStream.range(0, 200)
+                .mapToObj(i -> new Room("E" + random.nextInt(4) + String.format("%03d", i), 1 + random.nextInt(20), Equipment.setOf(random.nextInt(16))))
+                .collect(Collectors.toList());
+        RoomIndex roomIndex = new RoomIndex(rooms, RoomPartitioning.FLOOR.keyFunction(0));
+        DailyBookings dailyBookings = new DailyBookings(LocalDate.now(), roomIndex, Map.of());
+        rooms.forEach(room -> dailyBookings.markAsBookedFor(room, TimeSlot.values()[random.nextInt(TimeSlot.values().length)]));
+        int timeSlotsMask = TimeSlot.rangeMask(TEN_ELEVEN, 2);
+
+        // Test
+        RoomIndex.AvailabilityScan scan = roomIndex.scanAvailability(dailyBookings, timeSlotsMask, 8, SCREEN.mask());
+
+        // Assert
+        assertThat(scan.getUnbookedCount()).isEqualTo(rooms.stream().filter(room -> (dailyBookings.getBookedTimeSlots(room) & timeSlotsMask) == 0).count());
+        assertThat(scan.getCleanedCount()).isEqualTo(rooms.stream().filter(room -> dailyBookings.isAvailableFor(room, timeSlotsMask)).count());
+        assertThat(scan.getAvailableRooms()).isEqualTo(rooms.stream()
+                .filter(room -> dailyBookings.isAvailableFor(room, timeSlotsMask) && room.getCapacity() >= 8 && room.getEquipments().contains(SCREEN))
+                .collect(Collectors.toList()));
+        assertThat(scan.getAvailableCount()).isPositive();
+    }
+}
@@ -0,0 +1,33 @@
+package com.canalplus.meetingplanner.repository;
+
+import com.canalplus.meetingplanner.model.Room;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomPartitioningTest {
+
+    @Test
+    void should_compute_shard_key_from_room_name() {
+        // Setup
+        Room room = new Room("E2003", 8);
+
+        // Test & Assert
+        assertThat(RoomPartitioning.NONE.keyFunction(0).apply(room)).isEmpty();
+        assertThat(RoomPartitioning.BUILDING.keyFunction(0).apply(room)).isEqualTo("E");
+        assertThat(RoomPartitioning.FLOOR.keyFunction(0).apply(room)).isEqualTo("E2");
+        assertThat(RoomPartitioning.PREFIX.keyFunction(3).apply(room)).isEqualTo("E20");
+        assertThat(RoomPartitioning.PREFIX.keyFunction(10).apply(room)).isEqualTo("E2003");
+    }
+
+    @Test
+    void should_parse_partitioning_regardless_of_case() {
+        // Test & Assert
+        assertThat(RoomPartitioning.of("floor")).isEqualTo(RoomPartitioning.FLOOR);
+        assertThat(RoomPartitioning.of(" Building ")).isEqualTo(RoomPartitioning.BUILDING);
+        assertThatThrownBy(() -> RoomPartitioning.of("wing"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("wing");
+    }
+}
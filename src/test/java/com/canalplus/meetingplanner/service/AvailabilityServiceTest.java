@@ -0,0 +1,92 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static com.canalplus.meetingplanner.model.TimeSlot.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityServiceTest {
+
+    private final Room room1 = new Room("room1", 4);
+    private final Room room2 = new Room("room2", 8, Set.of(SCREEN));
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private RoomBookRepository roomBookRepository;
+    private AvailabilityService availabilityService;
+
+    @BeforeEach
+    void setup() {
+        roomBookRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", List.of(room1, room2));
+        roomBookRepository.initRoomIndex();
+        roomBookRepository.initRemovableEquipments();
+
+        availabilityService = new AvailabilityService();
+        ReflectionTestUtils.setField(availabilityService, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(availabilityService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void should_describe_booked_and_available_timeSlots_and_removable_equipments() throws IOException {
+        // Setup
+        LocalDate today = roomBookRepository.today();
+        roomBookRepository.book(room1, today, NINE_TEN, Set.of(BOARD));
+
+        // Test
+        JsonNode availability = objectMapper.readTree(availabilityService.getAvailability(today).getJson());
+
+        // Assert
+        assertThat(availability.get("date").asText()).isEqualTo(today.toString());
+        JsonNode room1Availability = availability.get("rooms").get(0);
+        assertThat(room1Availability.get("room").get("name").asText()).isEqualTo("room1");
+        assertThat(room1Availability.get("bookedTimeSlots")).hasSize(1);
+        assertThat(room1Availability.get("bookedTimeSlots").get(0).asText()).isEqualTo("NINE_TEN");
+        assertThat(room1Availability.get("availableTimeSlots")).hasSize(10);
+        assertThat(availability.get("rooms").get(1).get("availableTimeSlots")).hasSize(12);
+        assertThat(availability.get("removableEquipments").get("NINE_TEN").get("BOARD").asInt()).isEqualTo(1);
+        assertThat(availability.get("removableEquipments").get("TEN_ELEVEN").get("BOARD").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void should_reuse_the_snapshot_until_the_day_changes() {
+        // Setup
+        LocalDate today = roomBookRepository.today();
+        AvailabilityService.AvailabilitySnapshot snapshot = availabilityService.getAvailability(today);
+
+        // Test & Assert
+        assertThat(availabilityService.getAvailability(today)).isSameAs(snapshot);
+
+        roomBookRepository.book(room2, today.plusDays(1), NINE_TEN, Set.of());
+        assertThat(availabilityService.getAvailability(today)).isSameAs(snapshot);
+
+        roomBookRepository.book(room2, today, NINE_TEN, Set.of());
+        AvailabilityService.AvailabilitySnapshot updatedSnapshot = availabilityService.getAvailability(today);
+        assertThat(updatedSnapshot).isNotSameAs(snapshot);
+        assertThat(updatedSnapshot.getETag()).isNotEqualTo(snapshot.getETag());
+
+        long bookingId = roomBookRepository.nextBookingId();
+        roomBookRepository.book(bookingId, new Meeting("réunion", today, EIGHT_NINE, MeetingType.VC, 3), room2, Set.of(WEBCAM));
+        AvailabilityService.AvailabilitySnapshot bookedSnapshot = availabilityService.getAvailability(today);
+        assertThat(bookedSnapshot.getETag()).isNotEqualTo(updatedSnapshot.getETag());
+
+        roomBookRepository.cancelBooking(bookingId);
+        assertThat(availabilityService.getAvailability(today).getETag()).isNotEqualTo(bookedSnapshot.getETag());
+    }
+}
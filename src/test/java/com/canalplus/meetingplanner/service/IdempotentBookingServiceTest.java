@@ -0,0 +1,72 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.Meeting;
+import com.canalplus.meetingplanner.model.MeetingType;
+import com.canalplus.meetingplanner.model.Room;
+import com.canalplus.meetingplanner.model.RoomBookResult;
+import com.canalplus.meetingplanner.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IdempotentBookingServiceTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(1);
+
+    private final RoomBookService roomBookService = mock(RoomBookService.class);
+
+    @Test
+    void should_return_the_first_result_for_a_repeated_key_without_booking_again() {
+        // Setup
+        IdempotentBookingService idempotentBookingService = idempotentBookingService();
+        RoomBookResult roomBookResult = new RoomBookResult(new Room("room1", 6), Set.of());
+        when(roomBookService.bookRoomFor(any())).thenReturn(roomBookResult);
+
+        // Test
+        Optional<Meeting> first = idempotentBookingService.bookRoomFor("key", meeting("réunion"));
+        Optional<Meeting> retry = idempotentBookingService.bookRoomFor("key", meeting("réunion"));
+        Optional<Meeting> otherMeeting = idempotentBookingService.bookRoomFor("key", meeting("autre réunion"));
+
+        // Assert
+        assertThat(first).isPresent();
+        assertThat(first.get().getBookedRoomResult()).isSameAs(roomBookResult);
+        assertThat(retry).containsSame(first.get());
+        assertThat(otherMeeting).isEmpty();
+        verify(roomBookService, times(1)).bookRoomFor(any());
+    }
+
+    @Test
+    void should_release_the_key_when_booking_throws() {
+        // Setup
+        IdempotentBookingService idempotentBookingService = idempotentBookingService();
+        RoomBookResult roomBookResult = new RoomBookResult(new Room("room1", 6), Set.of());
+        when(roomBookService.bookRoomFor(any()))
+                .thenThrow(new IllegalStateException("panne"))
+                .thenReturn(roomBookResult);
+
+        // Test & Assert
+        assertThatThrownBy(() -> idempotentBookingService.bookRoomFor("key", meeting("réunion")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(idempotentBookingService.bookRoomFor("key", meeting("réunion")).orElseThrow().getBookedRoomResult())
+                .isSameAs(roomBookResult);
+    }
+
+    private IdempotentBookingService idempotentBookingService() {
+        IdempotentBookingService idempotentBookingService = new IdempotentBookingService();
+        ReflectionTestUtils.setField(idempotentBookingService, "roomBookService", roomBookService);
+        idempotentBookingService.createCache();
+        return idempotentBookingService;
+    }
+
+    private static Meeting meeting(String name) {
+        return new Meeting(name, DATE, TimeSlot.NINE_TEN, MeetingType.RS, 4);
+    }
+}
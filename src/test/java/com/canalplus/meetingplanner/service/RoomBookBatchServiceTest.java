@@ -0,0 +1,80 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.*;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomBookBatchServiceTest {
+
+    /**
+     * Le lot réservé en parallèle doit donner exactement le même résultat que le lot réservé une par une
+     * Les réunions sont réparties sur plusieurs journées, dont les réservations sont indépendantes
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 5000})
+    void should_parallel_batch_booking_give_the_same_results_as_sequential_booking(int meetingsCount) {
+        // Setup
+        List<Meeting> meetings = new ArrayList<>();
+        Random random = new Random(meetingsCount);
+        for (int i = 0; i < meetingsCount; i++) {
+            meetings.add(new Meeting("réunion " + i, LocalDate.now().plusDays(random.nextInt(3)), TimeSlot.values()[random.nextInt(TimeSlot.values().length)],
+                    MeetingType.values()[random.nextInt(MeetingType.values().length)], 1 + random.nextInt(12)));
+        }
+        RoomBookService sequentialRoomBookService = roomBookService();
+        RoomBookBatchService roomBookBatchService = new RoomBookBatchService();
+        RoomBookService batchRoomBookService = roomBookService();
+        ReflectionTestUtils.setField(roomBookBatchService, "roomBookService", batchRoomBookService);
+        ReflectionTestUtils.setField(roomBookBatchService, "roomBookRepository", ReflectionTestUtils.getField(batchRoomBookService, "roomBookRepository"));
+        ReflectionTestUtils.setField(roomBookBatchService, "executor", Executors.newFixedThreadPool(4));
+
+        // Test
+        List<RoomBookResult> sequentialResults = new ArrayList<>();
+        meetings.forEach(meeting -> sequentialResults.add(sequentialRoomBookService.bookRoomFor(meeting)));
+        List<RoomBookResult> parallelResults = roomBookBatchService.bookRoomsFor(meetings);
+
+        // Assert
+        assertThat(parallelResults).hasSize(meetingsCount);
+        for (int i = 0; i < meetingsCount; i++) {
+            RoomBookResult sequentialResult = sequentialResults.get(i);
+            RoomBookResult parallelResult = parallelResults.get(i);
+            assertThat(parallelResult.getRoomBookStatus()).as("réunion %d", i).isEqualTo(sequentialResult.getRoomBookStatus());
+            assertThat(parallelResult.getRoomBookMessage()).as("réunion %d", i).isEqualTo(sequentialResult.getRoomBookMessage());
+            assertThat(parallelResult.getRemovableBorrowedEquipments()).as("réunion %d", i).isEqualTo(sequentialResult.getRemovableBorrowedEquipments());
+        }
+    }
+
+    private RoomBookService roomBookService() {
+        List<Room> rooms = List.of(
+                new Room("E1001", 23),
+                new Room("E1002", 10, Set.of(SCREEN)),
+                new Room("E1003", 8, Set.of(MULTILINE_SPEAKER)),
+                new Room("E1004", 4, Set.of(BOARD)),
+                new Room("E2001", 4),
+                new Room("E2002", 15, Set.of(SCREEN, WEBCAM)),
+                new Room("E2003", 7),
+                new Room("E2004", 9, Set.of(BOARD)),
+                new Room("E3001", 13, Set.of(SCREEN, WEBCAM, MULTILINE_SPEAKER)),
+                new Room("E3002", 8),
+                new Room("E3003", 9, Set.of(SCREEN, MULTILINE_SPEAKER)),
+                new Room("E3004", 4));
+
+        RoomBookRepository roomBookRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", rooms);
+        roomBookRepository.initRemovableEquipments();
+        roomBookRepository.initRoomIndex();
+
+        RoomBookService roomBookService = new RoomBookService();
+        ReflectionTestUtils.setField(roomBookService, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(roomBookService, "roomFinder", new RoomFinder());
+        return roomBookService;
+    }
+}
@@ -0,0 +1,107 @@
+package com.canalplus.meetingplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoomBookCommitLoopTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 10_000;
+
+    /**
+     * Modifié sans synchronisation : seul le thread d'écriture y accède
+     */
+    private int counter;
+
+    @Test
+    void should_execute_every_operation_on_a_single_thread_in_submission_order_of_each_thread() throws Exception {
+        // Setup
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+
+        RoomBookCommitLoop commitLoop = new RoomBookCommitLoop(16, "test-writer");
+
+        // Test
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    List<CompletableFuture<Integer>> results = new ArrayList<>();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        results.add(commitLoop.submit(() -> ++counter));
+                    }
+                    List<Integer> values = new ArrayList<>();
+                    results.forEach(result -> values.add(result.join()));
+                    return values;
+                }));
+            }
+
+            // Assert
+            for (Future<List<Integer>> future : futures) {
+                assertThat(future.get(30, TimeUnit.SECONDS)).isSorted().doesNotHaveDuplicates();
+            }
+            assertThat(commitLoop.submit(() -> counter).join()).isEqualTo(THREADS * OPERATIONS_PER_THREAD);
+        } finally {
+            commitLoop.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void should_complete_with_the_exception_of_a_failed_operation_and_reject_operations_once_closed() throws Exception {
+        // Setup
+        RoomBookCommitLoop commitLoop = new RoomBookCommitLoop(4, "test-writer");
+
+        // Test & Assert
+        assertThatThrownBy(() -> commitLoop.submit(() -> {
+            throw new IllegalStateException("échec");
+        }).join()).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(commitLoop.submit(() -> "suite").join()).isEqualTo("suite");
+
+        commitLoop.shutdown();
+        assertThatThrownBy(() -> commitLoop.submit(() -> "après l'arrêt").join()).hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void should_complete_every_operation_submitted_while_shutting_down() throws Exception {
+        // Setup
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        RoomBookCommitLoop commitLoop = new RoomBookCommitLoop(16, "test-writer");
+        List<Future<List<CompletableFuture<Integer>>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                List<CompletableFuture<Integer>> results = new ArrayList<>();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    results.add(commitLoop.submit(() -> ++counter));
+                }
+                return results;
+            }));
+        }
+
+        // Test
+        commitLoop.shutdown();
+
+        // Assert
+        try {
+            for (Future<List<CompletableFuture<Integer>>> future : futures) {
+                for (CompletableFuture<Integer> result : future.get(30, TimeUnit.SECONDS)) {
+                    // Chaque opération est soit exécutée, soit refusée : aucune n'attend indéfiniment
+                    assertThat(result).isDone();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
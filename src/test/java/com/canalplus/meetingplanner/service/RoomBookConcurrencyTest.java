@@ -0,0 +1,126 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.*;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Réservations concurrentes de tous types de réunion : aucune salle ni aucun équipement amovible
+ * ne doit être attribué deux fois pour un même créneau, avec ou sans écrivain unique
+ */
+class RoomBookConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int MEETINGS_PER_THREAD = 200;
+
+    private RoomBookRepository roomBookRepository;
+    private RoomBookService roomBookService;
+
+    @BeforeEach
+    public void setup() {
+        List<Room> rooms = List.of(
+                new Room("E1001", 16),
+                new Room("E1002", 7, Set.of(SCREEN)),
+                new Room("E1003", 5, Set.of(MULTILINE_SPEAKER)),
+                new Room("E1004", 2, Set.of(BOARD)),
+                new Room("E2001", 2),
+                new Room("E2002", 10, Set.of(SCREEN, WEBCAM)),
+                new Room("E2003", 4),
+                new Room("E2004", 6, Set.of(BOARD)),
+                new Room("E3001", 9, Set.of(SCREEN, WEBCAM, MULTILINE_SPEAKER)),
+                new Room("E3002", 5),
+                new Room("E3003", 6, Set.of(SCREEN, MULTILINE_SPEAKER)),
+                new Room("E3004", 2));
+
+        roomBookRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", rooms);
+        roomBookRepository.initRemovableEquipments();
+        roomBookRepository.initRoomIndex();
+
+        roomBookService = new RoomBookService();
+        ReflectionTestUtils.setField(roomBookService, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(roomBookService, "roomFinder", new RoomFinder());
+    }
+
+    @RepeatedTest(5)
+    void should_never_double_book_a_room_nor_a_removable_equipment() throws Exception {
+        bookConcurrentlyAndCheckBookings();
+    }
+
+    @RepeatedTest(2)
+    void should_never_double_book_a_room_nor_a_removable_equipment_with_a_single_writer() throws Exception {
+        ReflectionTestUtils.setField(roomBookService, "singleWriter", true);
+        ReflectionTestUtils.setField(roomBookService, "singleWriterCapacity", 8);
+        roomBookService.startCommitLoop();
+        try {
+            bookConcurrentlyAndCheckBookings();
+        } finally {
+            roomBookService.stopCommitLoop();
+        }
+    }
+
+    private void bookConcurrentlyAndCheckBookings() throws Exception {
+        // Setup
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Meeting>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            long seed = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return bookRandomMeetings(new Random(seed));
+            }));
+        }
+
+        // Test
+        start.countDown();
+        List<Meeting> bookedMeetings = new ArrayList<>();
+        for (Future<List<Meeting>> future : futures) {
+            bookedMeetings.addAll(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Assert
+        Map<TimeSlot, Set<Room>> bookedRoomsByTimeSlot = new EnumMap<>(TimeSlot.class);
+        Map<TimeSlot, Map<Equipment, Integer>> borrowedEquipmentsByTimeSlot = new EnumMap<>(TimeSlot.class);
+        for (Meeting meeting : bookedMeetings) {
+            RoomBookResult result = meeting.getBookedRoomResult();
+            Set<Room> bookedRooms = bookedRoomsByTimeSlot.computeIfAbsent(meeting.getTimeSlot(), timeSlot -> Collections.newSetFromMap(new IdentityHashMap<>()));
+            assertThat(bookedRooms.add(result.getRoom())).as("salle %s réservée deux fois au créneau %s", result.getRoom().getName(), meeting.getTimeSlot()).isTrue();
+            result.getRemovableBorrowedEquipments().forEach(equipment ->
+                    borrowedEquipmentsByTimeSlot.computeIfAbsent(meeting.getTimeSlot(), timeSlot -> new EnumMap<>(Equipment.class)).merge(equipment, 1, Integer::sum));
+        }
+
+        for (TimeSlot timeSlot : TimeSlot.values()) {
+            Map<Equipment, Integer> borrowedEquipments = borrowedEquipmentsByTimeSlot.getOrDefault(timeSlot, Map.of());
+            List<Equipment> remainingEquipments = roomBookRepository.getAvailableRemovableEquipmentsFor(roomBookRepository.today(), timeSlot);
+            assertThat(remainingEquipments.size() + borrowedEquipments.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(15);
+            assertThat(borrowedEquipments.getOrDefault(BOARD, 0)).isLessThanOrEqualTo(2);
+            assertThat(borrowedEquipments.getOrDefault(WEBCAM, 0)).isLessThanOrEqualTo(4);
+        }
+    }
+
+    private List<Meeting> bookRandomMeetings(Random random) {
+        List<Meeting> bookedMeetings = new ArrayList<>();
+        MeetingType[] meetingTypes = MeetingType.values();
+        TimeSlot[] timeSlots = TimeSlot.values();
+
+        for (int i = 0; i < MEETINGS_PER_THREAD; i++) {
+            Meeting meeting = new Meeting("réunion " + i, timeSlots[random.nextInt(timeSlots.length)],
+                    meetingTypes[random.nextInt(meetingTypes.length)], 1 + random.nextInt(6));
+            meeting.setBookedRoomResult(roomBookService.bookRoomFor(meeting));
+            if (meeting.getBookedRoomResult().getRoomBookStatus() == RoomBookStatus.SUCCESS) {
+                bookedMeetings.add(meeting);
+            }
+        }
+        return bookedMeetings;
+    }
+}
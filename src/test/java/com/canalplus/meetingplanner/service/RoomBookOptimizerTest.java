@@ -0,0 +1,206 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.*;
+import com.canalplus.meetingplanner.repository.RemovableEquipmentPool;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static com.canalplus.meetingplanner.model.TimeSlot.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomBookOptimizerTest {
+
+    private RoomBookRepository roomBookRepository;
+
+    private RoomBookService roomBookService;
+
+    private RoomBookOptimizer roomBookOptimizer;
+
+    @Test
+    void small_meeting_should_not_take_the_only_large_room() {
+        // Setup
+        Room largeRoom = new Room("large",20);
+        Room smallRoom = new Room("small",5, Set.of(SCREEN));
+        setupServices(largeRoom, smallRoom);
+        List<Meeting> meetings = List.of(
+                new Meeting("petite réunion", NINE_TEN, MeetingType.RS, 4),
+                new Meeting("grande réunion", NINE_TEN, MeetingType.RS, 15));
+
+        // Test
+        List<RoomBookResult> roomBookResults = roomBookOptimizer.bookRoomsFor(meetings);
+
+        // Assert
+        assertThat(roomBookResults).extracting(RoomBookResult::getRoomBookStatus).containsOnly(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResults.get(0).getRoom()).isEqualTo(smallRoom);
+        assertThat(roomBookResults.get(1).getRoom()).isEqualTo(largeRoom);
+    }
+
+    @Test
+    void meeting_should_not_take_the_large_room_needed_at_the_next_time_slot() {
+        // Setup
+        Room largeRoom = new Room("large",20);
+        Room smallRoom = new Room("small",5);
+        setupServices(largeRoom, smallRoom);
+        List<Meeting> meetings = List.of(
+                new Meeting("réunion de 8h", EIGHT_NINE, MeetingType.RS, 4),
+                new Meeting("réunion de 9h", NINE_TEN, MeetingType.RS, 15));
+
+        // Test
+        List<RoomBookResult> roomBookResults = roomBookOptimizer.bookRoomsFor(meetings);
+
+        // Assert
+        assertThat(roomBookResults).extracting(RoomBookResult::getRoomBookStatus).containsOnly(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResults.get(0).getRoom()).isEqualTo(smallRoom);
+        assertThat(roomBookResults.get(1).getRoom()).isEqualTo(largeRoom);
+        assertThat(roomBookRepository.getDailyBookings(roomBookRepository.today()).isBookedFor(largeRoom, NINE_TEN)).isTrue();
+    }
+
+    @Test
+    void meeting_should_be_moved_to_leave_its_room_to_a_meeting_that_has_no_other_choice() {
+        // Setup : la réunion la plus grande, placée en premier, prend d'abord la salle la moins équipée 'any',
+        // qui est la seule salle pouvant accueillir la réunion SPEC une fois les tableaux amovibles épuisés
+        Room any = new Room("any",10, Set.of(BOARD));
+        Room other = new Room("other",10, Set.of(SCREEN, WEBCAM));
+        setupServices(any, other);
+        takeAllRemovableEquipments(TEN_ELEVEN, BOARD);
+        List<Meeting> meetings = List.of(
+                new Meeting("grande réunion", TEN_ELEVEN, MeetingType.RS, 8),
+                new Meeting("réunion SPEC", TEN_ELEVEN, MeetingType.SPEC, 3));
+
+        // Test
+        List<RoomBookResult> roomBookResults = roomBookOptimizer.bookRoomsFor(meetings);
+
+        // Assert
+        assertThat(roomBookResults).extracting(RoomBookResult::getRoomBookStatus).containsOnly(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResults.get(0).getRoom()).isEqualTo(other);
+        assertThat(roomBookResults.get(1).getRoom()).isEqualTo(any);
+    }
+
+    @Test
+    void meetings_of_different_dates_should_be_allocated_separately() {
+        // Setup
+        Room room = new Room("room",10);
+        setupServices(room);
+        LocalDate tomorrow = roomBookRepository.today().plusDays(1);
+        List<Meeting> meetings = List.of(
+                new Meeting("réunion de demain", tomorrow, NINE_TEN, MeetingType.RS, 4),
+                new Meeting("réunion du jour", NINE_TEN, MeetingType.RS, 4));
+
+        // Test
+        List<RoomBookResult> roomBookResults = roomBookOptimizer.bookRoomsFor(meetings);
+
+        // Assert
+        assertThat(roomBookResults).extracting(RoomBookResult::getRoom).containsExactly(room, room);
+        assertThat(roomBookRepository.getDailyBookings(tomorrow).isBookedFor(room, NINE_TEN)).isTrue();
+    }
+
+    @Test
+    void meetings_that_cannot_be_allocated_should_get_the_usual_failure_reason() {
+        // Setup
+        setupServices(new Room("room",4));
+        List<Meeting> meetings = List.of(new Meeting("réunion", NINE_TEN, MeetingType.RS, 10));
+
+        // Test
+        List<RoomBookResult> roomBookResults = roomBookOptimizer.bookRoomsFor(meetings);
+
+        // Assert
+        assertThat(roomBookResults.get(0).getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+        assertThat(roomBookResults.get(0).getRoomBookMessage()).isEqualTo("Toutes les salles restantes au créneau NINE_TEN n'ont pas la capacité requise");
+    }
+
+    /**
+     * Sur des lots tirés au hasard, l'attribution doit respecter toutes les règles de réservation
+     * et réserver au moins autant de réunions que la réservation réunion par réunion
+     *
+     * Les lots sont triés par créneau : réservées une par une dans un autre ordre, deux réunions pourraient occuper
+     * une même salle à deux créneaux consécutifs (la règle de nettoyage ne regarde que le créneau précédent),
+     * ce que l'attribution optimisée s'interdit
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+    void should_book_at_least_as_many_meetings_as_sequential_booking(long seed) {
+        // Setup
+        Random random = new Random(seed);
+        List<Meeting> meetings = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            meetings.add(new Meeting("réunion " + i, TimeSlot.values()[random.nextInt(TimeSlot.values().length)],
+                    MeetingType.values()[random.nextInt(MeetingType.values().length)], 1 + random.nextInt(16)));
+        }
+        meetings.sort(Comparator.comparing(Meeting::getTimeSlot));
+
+        setupServices(randomRooms(seed));
+        long sequentialSuccesses = meetings.stream()
+                .map(roomBookService::bookRoomFor)
+                .filter(roomBookResult -> roomBookResult.getRoomBookStatus() == RoomBookStatus.SUCCESS)
+                .count();
+        setupServices(randomRooms(seed));
+
+        // Test
+        List<RoomBookResult> roomBookResults = roomBookOptimizer.bookRoomsFor(meetings);
+
+        // Assert
+        Map<TimeSlot, List<Room>> bookedRoomsByTimeSlot = new EnumMap<>(TimeSlot.class);
+        for (int i = 0; i < meetings.size(); i++) {
+            Meeting meeting = meetings.get(i);
+            RoomBookResult roomBookResult = roomBookResults.get(i);
+            if (roomBookResult.getRoomBookStatus() == RoomBookStatus.FAILURE) {
+                continue;
+            }
+            Room room = roomBookResult.getRoom();
+            assertThat(room.getCapacity()).isGreaterThanOrEqualTo(meeting.getEmployeesNumber());
+            Set<Equipment> equipments = new HashSet<>(room.getEquipments());
+            equipments.addAll(roomBookResult.getRemovableBorrowedEquipments());
+            assertThat(equipments).containsAll(meeting.getType().getRequiredEquipments());
+            bookedRoomsByTimeSlot.computeIfAbsent(meeting.getTimeSlot(), timeSlot -> new ArrayList<>()).add(room);
+        }
+        bookedRoomsByTimeSlot.forEach((timeSlot, bookedRooms) -> {
+            assertThat(bookedRooms).doesNotHaveDuplicates();
+            timeSlot.previousSlot().ifPresent(previousTimeSlot ->
+                    assertThat(Collections.disjoint(bookedRooms, bookedRoomsByTimeSlot.getOrDefault(previousTimeSlot, List.of()))).isTrue());
+        });
+        long optimizedSuccesses = roomBookResults.stream().filter(roomBookResult -> roomBookResult.getRoomBookStatus() == RoomBookStatus.SUCCESS).count();
+        assertThat(optimizedSuccesses).isGreaterThanOrEqualTo(sequentialSuccesses);
+    }
+
+    private Room[] randomRooms(long seed) {
+        Random random = new Random(seed);
+        return IntStream.range(0, 12)
+                .mapToObj(i -> new Room("room" + i, 2 + random.nextInt(20), Arrays.stream(Equipment.values())
+                        .filter(equipment -> random.nextInt(3) == 0)
+                        .collect(Collectors.toSet())))
+                .toArray(Room[]::new);
+    }
+
+    private void setupServices(Room... rooms) {
+        roomBookRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", List.of(rooms));
+        roomBookRepository.initRemovableEquipments();
+        roomBookRepository.initRoomIndex();
+
+        roomBookService = new RoomBookService();
+        ReflectionTestUtils.setField(roomBookService, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(roomBookService, "roomFinder", new RoomFinder());
+
+        roomBookOptimizer = new RoomBookOptimizer();
+        ReflectionTestUtils.setField(roomBookOptimizer, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(roomBookOptimizer, "roomBookService", roomBookService);
+    }
+
+    private void takeAllRemovableEquipments(TimeSlot timeSlot, Equipment... equipments) {
+        for (Equipment equipment : equipments) {
+            RemovableEquipmentPool pool = roomBookRepository.getDailyBookings(roomBookRepository.today()).getRemovableEquipmentPool();
+            while (pool.tryAcquire(timeSlot, equipment.mask())) {
+                // on épuise le stock de cet équipement amovible pour ce créneau
+            }
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.*;
+import com.canalplus.meetingplanner.repository.BookingJournal;
+import com.canalplus.meetingplanner.repository.BookingStateFile;
+import com.canalplus.meetingplanner.repository.DailyBookings;
+import com.canalplus.meetingplanner.repository.RemovableEquipmentPool;
+import com.canalplus.meetingplanner.repository.RemovableEquipmentsProperties;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.canalplus.meetingplanner.repository.RoomIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static com.canalplus.meetingplanner.model.TimeSlot.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomBookServiceTest {
+
+    private RoomBookRepository roomBookRepository;
+
+    private RoomBookService roomBookService;
+
+    @Test
+    void cannot_book_room_if_no_available_room() {
+        // Setup
+        Room room1 = new Room("room1",6);
+        Room room2 = new Room("room2",7, Set.of(BOARD));
+        setupService(room1, room2);
+        todayBookings().markAsBookedFor(room1, EIGHT_NINE);
+        todayBookings().markAsBookedFor(room2, EIGHT_NINE);
+
+        for (MeetingType meetingType : MeetingType.values()) {
+            // Test
+            RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", EIGHT_NINE, meetingType, 5));
+
+            // Assert
+            assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+            assertThat(roomBookResult.getRoom()).isNull();
+            assertThat(roomBookResult.getRoomBookMessage()).isEqualTo("Toutes les salles au créneau EIGHT_NINE sont déjà réservées");
+            assertThat(roomBookResult.getFailureCause()).isEqualTo(RoomBookFailureCause.ALL_ROOMS_BOOKED);
+        }
+    }
+
+    @Test
+    void room_booked_for_RS_meeting_should_be_the_first_available_with_the_least_equipments() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(BOARD));
+        Room room2 = new Room("room2",7);
+        Room room3 = new Room("room3",8);
+        Room room4 = new Room("room4",9, Set.of(BOARD, MULTILINE_SPEAKER));
+        setupService(room1, room2, room3, room4);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.RS, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResult.getRoom()).isEqualTo(room2);
+        assertThat(roomBookResult.getRemovableBorrowedEquipments()).isEmpty();
+        assertThat(todayBookings().isBookedFor(room2, NINE_TEN)).isTrue();
+    }
+
+    @Test
+    void room_booked_for_SPEC_meeting_when_a_room_already_contains_BOARD() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(BOARD, MULTILINE_SPEAKER));
+        Room room2 = new Room("room2",7);
+        Room room3 = new Room("room3",8);
+        Room room4 = new Room("room4",9, Set.of(BOARD));
+        setupService(room1, room2, room3, room4);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.SPEC, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResult.getRoom()).isEqualTo(room4);
+        assertThat(roomBookResult.getRemovableBorrowedEquipments()).isEmpty();
+        assertThat(todayBookings().isBookedFor(room4, NINE_TEN)).isTrue();
+    }
+
+    @Test
+    void cannot_book_room_for_SPEC_meeting_when_no_room_with_BOARD_and_no_available_removable_BOARD() {
+        // Setup
+        setupService(new Room("room1",6, Set.of(MULTILINE_SPEAKER)), new Room("room2",7));
+        takeAllRemovableEquipments(NINE_TEN, BOARD);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.SPEC, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+        assertThat(roomBookResult.getRoom()).isNull();
+        assertThat(roomBookResult.getRoomBookMessage()).isEqualTo("Aucune salle restante à ce créneau ne contient tous les équipements requis" +
+                ", et les équipements amovibles restants pour ce créneau ne contiennent pas au moins un tableau");
+        assertThat(roomBookResult.getFailureCause()).isEqualTo(RoomBookFailureCause.MISSING_EQUIPMENTS);
+    }
+
+    @Test
+    void room_booked_for_SPEC_meeting_when_no_room_with_BOARD_and_available_removable_BOARD() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(MULTILINE_SPEAKER));
+        Room room2 = new Room("room2",7);
+        setupService(room1, room2);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.SPEC, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResult.getRoom()).isEqualTo(room2);
+        assertThat(roomBookResult.getRemovableBorrowedEquipments()).containsExactly(BOARD);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(roomBookRepository.today(), NINE_TEN)).hasSize(14);
+    }
+
+    @Test
+    void room_booked_for_VC_meeting_when_a_room_already_contains_SCREEN_and_MULTILINE_SPEAKER_and_WEBCAM() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(SCREEN, MULTILINE_SPEAKER, WEBCAM, BOARD));
+        Room room2 = new Room("room2",7, Set.of(SCREEN, MULTILINE_SPEAKER, WEBCAM));
+        Room room3 = new Room("room3",8);
+        setupService(room1, room2, room3);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.VC, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResult.getRoom()).isEqualTo(room2);
+        assertThat(roomBookResult.getRemovableBorrowedEquipments()).isEmpty();
+    }
+
+    @Test
+    void room_booked_for_VC_meeting_should_borrow_as_few_removable_equipments_as_possible() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(WEBCAM));
+        Room room2 = new Room("room2",7, Set.of(MULTILINE_SPEAKER, WEBCAM));
+        Room room3 = new Room("room3",8, Set.of(SCREEN, WEBCAM));
+        setupService(room1, room2, room3);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.VC, 5));
+
+        // Assert : à nombre d'équipements empruntés égal, la salle ayant un écran est privilégiée
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResult.getRoom()).isEqualTo(room3);
+        assertThat(roomBookResult.getRemovableBorrowedEquipments()).containsExactly(MULTILINE_SPEAKER);
+    }
+
+    @Test
+    void cannot_book_room_for_VC_meeting_when_no_room_with_any_of_VC_equipments_and_no_available_removable_VC_equipments() {
+        // Setup
+        setupService(new Room("room1",6, Set.of(BOARD)), new Room("room2",7));
+        takeAllRemovableEquipments(NINE_TEN, SCREEN, MULTILINE_SPEAKER, WEBCAM);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.VC, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+        assertThat(roomBookResult.getRoomBookMessage()).isEqualTo("Aucune salle restante à ce créneau ne contient tous les équipements requis" +
+                ", et les équipements amovibles restants pour ce créneau ne contiennent pas au moins un écran, une pieuvre et une webcam");
+    }
+
+    @Test
+    void room_booked_for_RC_meeting_when_no_room_with_any_of_RC_equipments_and_available_removable_RC_equipments() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(MULTILINE_SPEAKER));
+        Room room2 = new Room("room2",7);
+        Room room3 = new Room("room3",8);
+        Room room4 = new Room("room4",9, Set.of(WEBCAM));
+        setupService(room1, room2, room3, room4);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.RC, 7));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResult.getRoom()).isEqualTo(room2);
+        assertThat(roomBookResult.getRemovableBorrowedEquipments()).containsExactlyInAnyOrder(BOARD, SCREEN, MULTILINE_SPEAKER);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(roomBookRepository.today(), NINE_TEN)).hasSize(12);
+    }
+
+    @Test
+    void room_booked_at_another_date_should_still_be_available_today() {
+        // Setup
+        Room room1 = new Room("room1",6);
+        setupService(room1);
+        LocalDate tomorrow = roomBookRepository.today().plusDays(1);
+
+        // Test
+        RoomBookResult tomorrowRoomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", tomorrow, NINE_TEN, MeetingType.RS, 5));
+        RoomBookResult todayRoomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.RS, 5));
+
+        // Assert
+        assertThat(tomorrowRoomBookResult.getRoom()).isEqualTo(room1);
+        assertThat(todayRoomBookResult.getRoom()).isEqualTo(room1);
+        assertThat(roomBookRepository.getDailyBookings(tomorrow).isBookedFor(room1, NINE_TEN)).isTrue();
+        assertThat(todayBookings().isBookedFor(room1, NINE_TEN)).isTrue();
+    }
+
+    @Test
+    void cannot_book_room_outside_of_the_booking_horizon() {
+        // Setup
+        Room room1 = new Room("room1",6);
+        setupService(room1);
+        LocalDate yesterday = roomBookRepository.today().minusDays(1);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", yesterday, NINE_TEN, MeetingType.RS, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+        assertThat(roomBookResult.getRoomBookMessage()).isEqualTo("La date " + yesterday + " est en dehors de l'horizon de réservation (du "
+                + roomBookRepository.today() + " au " + roomBookRepository.getHorizonEnd() + ")");
+        assertThat(roomBookResult.getFailureCause()).isEqualTo(RoomBookFailureCause.OUTSIDE_HORIZON);
+    }
+
+    @Test
+    void should_find_room_candidates_in_booking_order_without_booking() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(BOARD, MULTILINE_SPEAKER));
+        Room room2 = new Room("room2",7);
+        Room room3 = new Room("room3",8);
+        Room room4 = new Room("room4",9, Set.of(BOARD));
+        Room room5 = new Room("room5",9, Set.of(BOARD));
+        setupService(room1, room2, room3, room4, room5);
+        todayBookings().markAsBookedFor(room4, NINE_TEN);
+
+        // Test
+        RoomCandidates roomCandidates = roomBookService.findRoomCandidates(MeetingType.SPEC, 5, roomBookRepository.today(), NINE_TEN, 3);
+
+        // Assert
+        assertThat(roomCandidates.getTimeSlot()).isEqualTo(NINE_TEN);
+        assertThat(roomCandidates.getCandidates()).extracting(RoomCandidates.RoomCandidate::getRoom).containsExactly(room5, room1, room2);
+        assertThat(roomCandidates.getCandidates()).extracting(RoomCandidates.RoomCandidate::getRemovableEquipments).containsExactlyElementsOf(List.of(Set.of(), Set.of(), Set.of(BOARD)));
+        assertThat(todayBookings().isBookedFor(room5, NINE_TEN)).isFalse();
+    }
+
+    @Test
+    void should_search_room_candidates_of_a_day_without_bookings_without_creating_the_day() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(BOARD, MULTILINE_SPEAKER));
+        Room room2 = new Room("room2",7);
+        setupService(room1, room2);
+        LocalDate date = roomBookRepository.today().plusDays(2);
+
+        // Test
+        RoomCandidates roomCandidates = roomBookService.findRoomCandidates(MeetingType.SPEC, 5, date, NINE_TEN, 3);
+
+        // Assert
+        assertThat(roomCandidates.getCandidates()).extracting(RoomCandidates.RoomCandidate::getRoom).containsExactly(room1, room2);
+        assertThat(roomBookRepository.getDailyBookingsCount()).isZero();
+    }
+
+    @Test
+    void room_booked_for_a_meeting_on_consecutive_timeSlots_should_be_the_same_with_removable_equipments_at_every_timeSlot() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(MULTILINE_SPEAKER));
+        Room room2 = new Room("room2",7);
+        setupService(room1, room2);
+        todayBookings().markAsBookedFor(room1, ELEVEN_TWELVE);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", null, NINE_TEN, 3, MeetingType.SPEC, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(roomBookResult.getRoom()).isEqualTo(room2);
+        assertThat(roomBookResult.getRemovableBorrowedEquipments()).containsExactly(BOARD);
+        assertThat(todayBookings().getBookedTimeSlots(room2)).isEqualTo(TimeSlot.rangeMask(NINE_TEN, 3));
+        for (TimeSlot timeSlot : List.of(NINE_TEN, TEN_ELEVEN, ELEVEN_TWELVE)) {
+            assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(roomBookRepository.today(), timeSlot)).hasSize(14);
+        }
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(roomBookRepository.today(), TWELVE_THIRTEEN)).hasSize(15);
+    }
+
+    @Test
+    void cannot_book_room_for_a_meeting_on_consecutive_timeSlots_if_every_room_is_booked_at_one_of_them() {
+        // Setup
+        Room room1 = new Room("room1",6);
+        Room room2 = new Room("room2",7);
+        setupService(room1, room2);
+        todayBookings().markAsBookedFor(room1, ELEVEN_TWELVE);
+        todayBookings().markAsBookedFor(room2, TEN_ELEVEN);
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", null, NINE_TEN, 3, MeetingType.RS, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+        assertThat(roomBookResult.getFailureCause()).isEqualTo(RoomBookFailureCause.ALL_ROOMS_BOOKED);
+        assertThat(roomBookResult.getRoomBookMessage()).isEqualTo("Toutes les salles aux créneaux NINE_TEN à ELEVEN_TWELVE sont déjà réservées");
+        assertThat(todayBookings().getBookedTimeSlots(room1)).isEqualTo(ELEVEN_TWELVE.mask());
+        assertThat(todayBookings().getBookedTimeSlots(room2)).isEqualTo(TEN_ELEVEN.mask());
+    }
+
+    @Test
+    void cannot_book_room_for_a_meeting_ending_after_the_last_timeSlot() {
+        // Setup
+        setupService(new Room("room1",6));
+
+        // Test
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", null, EIGHTEEN_NINETEEN, 3, MeetingType.RS, 5));
+
+        // Assert
+        assertThat(roomBookResult.getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+        assertThat(roomBookResult.getFailureCause()).isEqualTo(RoomBookFailureCause.INVALID_DURATION);
+    }
+
+    @Test
+    void moved_booking_should_keep_its_id_and_free_its_previous_room_and_removable_equipments() {
+        // Setup
+        Room room1 = new Room("room1",6, Set.of(MULTILINE_SPEAKER));
+        setupService(room1);
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", null, NINE_TEN, 2, MeetingType.SPEC, 5));
+
+        // Test
+        Optional<RoomBookResult> movedRoomBookResult = roomBookService.moveBooking(roomBookResult.getBookingId(), new BookingChange(null, TEN_ELEVEN, null));
+
+        // Assert
+        assertThat(movedRoomBookResult).isPresent();
+        assertThat(movedRoomBookResult.get().getRoomBookStatus()).isEqualTo(RoomBookStatus.SUCCESS);
+        assertThat(movedRoomBookResult.get().getBookingId()).isEqualTo(roomBookResult.getBookingId());
+        assertThat(todayBookings().getBookedTimeSlots(room1)).isEqualTo(TimeSlot.rangeMask(TEN_ELEVEN, 2));
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(roomBookRepository.today(), NINE_TEN)).hasSize(15);
+        assertThat(roomBookRepository.getAvailableRemovableEquipmentsFor(roomBookRepository.today(), ELEVEN_TWELVE)).hasSize(14);
+    }
+
+    @Test
+    void booking_that_cannot_be_moved_should_stay_where_it_was() {
+        // Setup
+        Room room1 = new Room("room1",6);
+        setupService(room1);
+        RoomBookResult roomBookResult = roomBookService.bookRoomFor(new Meeting("réunion", NINE_TEN, MeetingType.RS, 5));
+        todayBookings().markAsBookedFor(room1, FOURTEEN_FIFTEEN);
+
+        // Test
+        Optional<RoomBookResult> movedRoomBookResult = roomBookService.moveBooking(roomBookResult.getBookingId(), new BookingChange(null, FOURTEEN_FIFTEEN, null));
+
+        // Assert
+        assertThat(movedRoomBookResult.get().getRoomBookStatus()).isEqualTo(RoomBookStatus.FAILURE);
+        assertThat(todayBookings().isBookedFor(room1, NINE_TEN)).isTrue();
+        assertThat(roomBookRepository.getBooking(roomBookResult.getBookingId())).isPresent();
+        assertThat(roomBookService.moveBooking(42, new BookingChange(null, TEN_ELEVEN, null))).isEmpty();
+    }
+
+    /**
+     * Test différentiel : sur des salles, des stocks d'équipements amovibles et des réunions tirés au hasard,
+     * le service doit prendre exactement les mêmes décisions que l'ancienne recherche en cascade
+     * (un service par type de réunion, voir {@link #legacyRoomBookResultFor})
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20})
+    void should_book_the_same_rooms_as_the_legacy_cascade(long seed) {
+        // Setup
+        Random random = new Random(seed);
+        Equipment[] equipments = Equipment.values();
+        List<Room> rooms = new ArrayList<>();
+        List<Room> legacyRooms = new ArrayList<>();
+        int roomsCount = 4 + random.nextInt(12);
+        for (int i = 0; i < roomsCount; i++) {
+            Set<Equipment> roomEquipments = Arrays.stream(equipments).filter(equipment -> random.nextInt(3) == 0).collect(Collectors.toSet());
+            int capacity = 1 + random.nextInt(16);
+            rooms.add(new Room("room" + i, capacity, roomEquipments));
+            legacyRooms.add(new Room("room" + i, capacity, roomEquipments));
+        }
+        Map<Equipment, Integer> stock = new EnumMap<>(Equipment.class);
+        Arrays.stream(equipments).forEach(equipment -> stock.put(equipment, random.nextInt(4)));
+        setupService(stock, rooms.toArray(new Room[0]));
+        DailyBookings legacyBookings = new DailyBookings(LocalDate.now(), new RoomIndex(legacyRooms), Map.of());
+        Map<TimeSlot, Map<Equipment, Integer>> legacyStock = new EnumMap<>(TimeSlot.class);
+        Arrays.stream(TimeSlot.values()).forEach(timeSlot -> legacyStock.put(timeSlot, new EnumMap<>(stock)));
+
+        for (int i = 0; i < 200; i++) {
+            Meeting meeting = new Meeting("réunion " + i, TimeSlot.values()[random.nextInt(TimeSlot.values().length)],
+                    MeetingType.values()[random.nextInt(MeetingType.values().length)], 1 + random.nextInt(12));
+
+            // Test
+            RoomCandidates roomCandidates = roomBookService.findRoomCandidates(meeting.getType(), meeting.getEmployeesNumber(), roomBookRepository.today(), meeting.getTimeSlot(), 3);
+            RoomBookResult roomBookResult = roomBookService.bookRoomFor(meeting);
+            Optional<Map.Entry<Room, Set<Equipment>>> legacyResult = legacyRoomBookResultFor(meeting, legacyRooms, legacyBookings, legacyStock.get(meeting.getTimeSlot()));
+
+            // Assert
+            if (legacyResult.isEmpty()) {
+                assertThat(roomBookResult.getRoomBookStatus()).as("réunion %s", meeting).isEqualTo(RoomBookStatus.FAILURE);
+                assertThat(roomCandidates.getCandidates()).as("réunion %s", meeting).isEmpty();
+                continue;
+            }
+            assertThat(roomCandidates.getCandidates()).as("réunion %s", meeting).isNotEmpty();
+            assertThat(roomCandidates.getCandidates().get(0).getRoom()).as("réunion %s", meeting).isEqualTo(roomBookResult.getRoom());
+            assertThat(roomCandidates.getCandidates().get(0).getRemovableEquipments()).as("réunion %s", meeting).isEqualTo(roomBookResult.getRemovableBorrowedEquipments());
+            assertThat(roomBookResult.getRoomBookStatus()).as("réunion %s", meeting).isEqualTo(RoomBookStatus.SUCCESS);
+            assertThat(roomBookResult.getRoom().getName()).as("réunion %s", meeting).isEqualTo(legacyResult.get().getKey().getName());
+            assertThat(roomBookResult.getRemovableBorrowedEquipments()).as("réunion %s", meeting).isEqualTo(legacyResult.get().getValue());
+
+            legacyBookings.markAsBookedFor(legacyResult.get().getKey(), meeting.getTimeSlot());
+            legacyResult.get().getValue().forEach(equipment -> legacyStock.get(meeting.getTimeSlot()).merge(equipment, -1, Integer::sum));
+        }
+    }
+
+    /**
+     * Reproduction de l'ancienne recherche en cascade : pour chaque type de réunion, on cherche d'abord une salle
+     * ayant tous les équipements requis, puis les salles ayant tous les équipements requis sauf un
+     * (dans un ordre fixé par type de réunion), puis sauf deux, et enfin la salle la moins équipée
+     */
+    private Optional<Map.Entry<Room, Set<Equipment>>> legacyRoomBookResultFor(Meeting meeting, List<Room> rooms, DailyBookings dailyBookings, Map<Equipment, Integer> stock) {
+        List<Room> availableRooms = rooms.stream()
+                .filter(room -> dailyBookings.isAvailableFor(room, meeting.getTimeSlot()) && room.getCapacity() >= meeting.getEmployeesNumber())
+                .collect(Collectors.toList());
+        if (availableRooms.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<List<Set<Equipment>>> cascade;
+        switch (meeting.getType()) {
+            case RS:
+                cascade = List.of(List.of(Set.of(), Set.of()));
+                break;
+            case SPEC:
+                cascade = List.of(
+                        List.of(Set.of(BOARD), Set.of()),
+                        List.of(Set.of(), Set.of(BOARD)));
+                break;
+            case VC:
+                cascade = List.of(
+                        List.of(Set.of(SCREEN, MULTILINE_SPEAKER, WEBCAM), Set.of()),
+                        List.of(Set.of(SCREEN, MULTILINE_SPEAKER), Set.of(WEBCAM)),
+                        List.of(Set.of(SCREEN, WEBCAM), Set.of(MULTILINE_SPEAKER)),
+                        List.of(Set.of(MULTILINE_SPEAKER, WEBCAM), Set.of(SCREEN)),
+                        List.of(Set.of(SCREEN), Set.of(MULTILINE_SPEAKER, WEBCAM)),
+                        List.of(Set.of(MULTILINE_SPEAKER), Set.of(SCREEN, WEBCAM)),
+                        List.of(Set.of(WEBCAM), Set.of(SCREEN, MULTILINE_SPEAKER)),
+                        List.of(Set.of(), Set.of(SCREEN, MULTILINE_SPEAKER, WEBCAM)));
+                break;
+            case RC:
+            default:
+                cascade = List.of(
+                        List.of(Set.of(BOARD, SCREEN, MULTILINE_SPEAKER), Set.of()),
+                        List.of(Set.of(SCREEN, MULTILINE_SPEAKER), Set.of(BOARD)),
+                        List.of(Set.of(SCREEN, BOARD), Set.of(MULTILINE_SPEAKER)),
+                        List.of(Set.of(MULTILINE_SPEAKER, BOARD), Set.of(SCREEN)),
+                        List.of(Set.of(SCREEN), Set.of(MULTILINE_SPEAKER, BOARD)),
+                        List.of(Set.of(MULTILINE_SPEAKER), Set.of(SCREEN, BOARD)),
+                        List.of(Set.of(BOARD), Set.of(SCREEN, MULTILINE_SPEAKER)),
+                        List.of(Set.of(), Set.of(BOARD, SCREEN, MULTILINE_SPEAKER)));
+                break;
+        }
+
+        for (List<Set<Equipment>> step : cascade) {
+            Set<Equipment> roomEquipments = step.get(0);
+            Set<Equipment> removableEquipments = step.get(1);
+            if (!removableEquipments.stream().allMatch(equipment -> stock.get(equipment) > 0)) {
+                continue;
+            }
+            Optional<Room> leastEquippedRoom = availableRooms.stream()
+                    .filter(room -> room.getEquipments().containsAll(roomEquipments))
+                    .min(Comparator.comparingInt(room -> room.getEquipments().size()));
+            if (leastEquippedRoom.isPresent()) {
+                return Optional.of(Map.entry(leastEquippedRoom.get(), removableEquipments));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Test
+    void should_give_back_the_room_on_the_writer_thread_when_the_journal_write_fails_in_single_writer_mode() throws InterruptedException {
+        // Setup
+        Room room1 = new Room("room1", 6);
+        setupService(room1);
+        BookingJournal bookingJournal = mock(BookingJournal.class);
+        when(bookingJournal.appendBooking(any(LocalDate.class), anyInt(), anyInt(), anyInt(), any(Booking.class))).thenReturn(1L);
+        doThrow(new UncheckedIOException(new IOException("disque plein"))).when(bookingJournal).awaitDurable(1L);
+        BookingStateFile bookingStateFile = mock(BookingStateFile.class);
+        List<String> rollBackThreads = new ArrayList<>();
+        doAnswer(invocation -> rollBackThreads.add(Thread.currentThread().getName()))
+                .when(bookingStateFile).release(any(LocalDate.class), eq("room1"), anyInt(), anyInt());
+        ReflectionTestUtils.setField(roomBookRepository, "bookingJournal", bookingJournal);
+        ReflectionTestUtils.setField(roomBookRepository, "journalRoomIndex", roomBookRepository.getRoomIndex());
+        ReflectionTestUtils.setField(roomBookRepository, "bookingStateFile", bookingStateFile);
+        ReflectionTestUtils.setField(roomBookService, "singleWriter", true);
+        roomBookService.startCommitLoop();
+
+        try {
+            // Test
+            Meeting meeting = new Meeting("réunion", NINE_TEN, MeetingType.RS, 3);
+            assertThrows(UncheckedIOException.class, () -> roomBookService.bookRoomFor(meeting));
+
+            // Assert
+            assertThat(rollBackThreads).containsExactly("room-book-writer");
+            assertThat(todayBookings().getBookedTimeSlots(room1)).isZero();
+            assertThat(roomBookRepository.getBookingsCount()).isZero();
+        } finally {
+            roomBookService.stopCommitLoop();
+        }
+    }
+
+    private void setupService(Room... rooms) {
+        setupService(new RemovableEquipmentsProperties().getStock(), rooms);
+    }
+
+    private void setupService(Map<Equipment, Integer> stock, Room... rooms) {
+        RemovableEquipmentsProperties removableEquipmentsProperties = new RemovableEquipmentsProperties();
+        removableEquipmentsProperties.getStock().putAll(stock);
+
+        roomBookRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", List.of(rooms));
+        ReflectionTestUtils.setField(roomBookRepository, "removableEquipmentsProperties", removableEquipmentsProperties);
+        roomBookRepository.initRemovableEquipments();
+        roomBookRepository.initRoomIndex();
+
+        roomBookService = new RoomBookService();
+        ReflectionTestUtils.setField(roomBookService, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(roomBookService, "roomFinder", new RoomFinder());
+    }
+
+    private DailyBookings todayBookings() {
+        return roomBookRepository.getDailyBookings(roomBookRepository.today());
+    }
+
+    private void takeAllRemovableEquipments(TimeSlot timeSlot, Equipment... equipments) {
+        for (Equipment equipment : equipments) {
+            RemovableEquipmentPool pool = roomBookRepository.getDailyBookings(roomBookRepository.today()).getRemovableEquipmentPool();
+            while (pool.tryAcquire(timeSlot, equipment.mask())) {
+                // on épuise le stock de cet équipement amovible pour ce créneau
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.canalplus.meetingplanner.service;
+
+import com.canalplus.meetingplanner.model.*;
+import com.canalplus.meetingplanner.repository.RoomBookRepository;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.canalplus.meetingplanner.model.Equipment.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RoomBookStreamServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void should_stream_the_same_results_as_booking_meetings_one_by_one() throws IOException {
+        // Setup
+        List<Meeting> meetings = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            meetings.add(new Meeting("réunion " + i, LocalDate.now().plusDays(random.nextInt(2)), TimeSlot.values()[random.nextInt(TimeSlot.values().length)],
+                    MeetingType.values()[random.nextInt(MeetingType.values().length)], 1 + random.nextInt(12)));
+        }
+        RoomBookService sequentialRoomBookService = roomBookService();
+        List<RoomBookResult> sequentialResults = new ArrayList<>();
+        meetings.forEach(meeting -> sequentialResults.add(sequentialRoomBookService.bookRoomFor(meeting)));
+        ByteArrayOutputStream meetingsWithResultJson = new ByteArrayOutputStream();
+
+        // Test
+        int meetingsCount = roomBookStreamService().bookRoomsFor(new ByteArrayInputStream(objectMapper.writeValueAsBytes(meetings)), meetingsWithResultJson);
+
+        // Assert
+        List<Meeting> meetingsWithResult = objectMapper.readValue(meetingsWithResultJson.toByteArray(), new TypeReference<List<Meeting>>() {});
+        assertThat(meetingsCount).isEqualTo(300);
+        assertThat(meetingsWithResult).hasSize(300);
+        for (int i = 0; i < meetingsCount; i++) {
+            assertThat(meetingsWithResult.get(i).getName()).isEqualTo("réunion " + i);
+            assertThat(meetingsWithResult.get(i).getBookedRoomResult().getRoomBookStatus()).as("réunion %d", i).isEqualTo(sequentialResults.get(i).getRoomBookStatus());
+            assertThat(meetingsWithResult.get(i).getBookedRoomResult().getRoomBookMessage()).as("réunion %d", i).isEqualTo(sequentialResults.get(i).getRoomBookMessage());
+        }
+    }
+
+    /**
+     * Le lot est généré au fil de la lecture et la réponse n'est pas conservée : aucun des deux n'est jamais
+     * entièrement en mémoire
+     */
+    @Test
+    void should_book_a_batch_of_any_size() throws IOException {
+        // Setup
+        int meetingsCount = 200_000;
+        InputStream meetingsJson = new GeneratedMeetingsInputStream(meetingsCount);
+        CountingOutputStream meetingsWithResultJson = new CountingOutputStream();
+
+        // Test
+        int bookedMeetingsCount = roomBookStreamService().bookRoomsFor(meetingsJson, meetingsWithResultJson);
+
+        // Assert
+        assertThat(bookedMeetingsCount).isEqualTo(meetingsCount);
+        assertThat(meetingsWithResultJson.bookedRoomResultsCount).isEqualTo(meetingsCount);
+    }
+
+    @Test
+    void should_reject_a_batch_which_is_not_an_array() {
+        // Setup
+        ByteArrayOutputStream meetingsWithResultJson = new ByteArrayOutputStream();
+
+        // Test & Assert
+        assertThrows(JsonParseException.class, () -> roomBookStreamService().bookRoomsFor(
+                new ByteArrayInputStream("{\"name\":\"réunion\"}".getBytes(StandardCharsets.UTF_8)), meetingsWithResultJson));
+        assertThat(meetingsWithResultJson.size()).isZero();
+    }
+
+    @Test
+    void should_end_the_response_with_an_error_element_when_a_meeting_cannot_be_read() throws IOException {
+        // Setup
+        ByteArrayOutputStream meetingsWithResultJson = new ByteArrayOutputStream();
+        String meetingsJson = "[{\"name\":\"réunion\",\"timeSlot\":\"NINE_TEN\",\"type\":\"RS\",\"employeesNumber\":4}, 42, {}]";
+
+        // Test
+        int bookedMeetingsCount = roomBookStreamService().bookRoomsFor(
+                new ByteArrayInputStream(meetingsJson.getBytes(StandardCharsets.UTF_8)), meetingsWithResultJson);
+
+        // Assert
+        assertThat(bookedMeetingsCount).isEqualTo(1);
+        JsonNode response = objectMapper.readTree(meetingsWithResultJson.toByteArray());
+        assertThat(response).hasSize(2);
+        assertThat(response.get(0).get("bookedRoomResult").get("roomBookStatus").asText()).isEqualTo("SUCCESS");
+        assertThat(response.get(1).get("error").asText()).isNotBlank();
+    }
+
+    private RoomBookStreamService roomBookStreamService() {
+        RoomBookStreamService roomBookStreamService = new RoomBookStreamService();
+        ReflectionTestUtils.setField(roomBookStreamService, "roomBookService", roomBookService());
+        ReflectionTestUtils.setField(roomBookStreamService, "objectMapper", objectMapper);
+        return roomBookStreamService;
+    }
+
+    private RoomBookService roomBookService() {
+        List<Room> rooms = List.of(
+                new Room("E1001", 23),
+                new Room("E1002", 10, Set.of(SCREEN)),
+                new Room("E2002", 15, Set.of(SCREEN, WEBCAM)),
+                new Room("E2004", 9, Set.of(BOARD)),
+                new Room("E3001", 13, Set.of(SCREEN, WEBCAM, MULTILINE_SPEAKER)),
+                new Room("E3004", 4));
+
+        RoomBookRepository roomBookRepository = new RoomBookRepository();
+        ReflectionTestUtils.setField(roomBookRepository, "rooms", rooms);
+        roomBookRepository.initRemovableEquipments();
+        roomBookRepository.initRoomIndex();
+
+        RoomBookService roomBookService = new RoomBookService();
+        ReflectionTestUtils.setField(roomBookService, "roomBookRepository", roomBookRepository);
+        ReflectionTestUtils.setField(roomBookService, "roomFinder", new RoomFinder());
+        return roomBookService;
+    }
+
+    /**
+     * Tableau JSON de réunions, généré au fur et à mesure de sa lecture
+     */
+    private static final class GeneratedMeetingsInputStream extends InputStream {
+        private final int meetingsCount;
+        private int nextMeeting;
+        private byte[] chunk = "[".getBytes(StandardCharsets.UTF_8);
+        private int chunkPosition;
+
+        private GeneratedMeetingsInputStream(int meetingsCount) {
+            this.meetingsCount = meetingsCount;
+        }
+
+        @Override
+        public int read() {
+            if (chunkPosition == chunk.length && !nextChunk()) {
+                return -1;
+            }
+            return chunk[chunkPosition++] & 0xFF;
+        }
+
+        private boolean nextChunk() {
+            if (nextMeeting > meetingsCount) {
+                return false;
+            }
+            String json;
+            if (nextMeeting == meetingsCount) {
+                json = "]";
+            } else {
+                TimeSlot timeSlot = TimeSlot.values()[nextMeeting % TimeSlot.values().length];
+                MeetingType meetingType = MeetingType.values()[nextMeeting % MeetingType.values().length];
+                json = (nextMeeting > 0 ? "," : "") + "{\"name\":\"réunion " + nextMeeting + "\",\"timeSlot\":\"" + timeSlot
+                        + "\",\"type\":\"" + meetingType + "\",\"employeesNumber\":" + (1 + nextMeeting % 10) + "}";
+            }
+            nextMeeting++;
+            chunk = json.getBytes(StandardCharsets.UTF_8);
+            chunkPosition = 0;
+            return true;
+        }
+    }
+
+    /**
+     * Compte les résultats de réservation écrits, sans les conserver
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private static final byte[] BOOKED_ROOM_RESULT = "\"bookedRoomResult\"".getBytes(StandardCharsets.UTF_8);
+        private int matchedBytes;
+        private int bookedRoomResultsCount;
+
+        @Override
+        public void write(int b) {
+            matchedBytes = b == BOOKED_ROOM_RESULT[matchedBytes] ? matchedBytes + 1 : (b == BOOKED_ROOM_RESULT[0] ? 1 : 0);
+            if (matchedBytes == BOOKED_ROOM_RESULT.length) {
+                bookedRoomResultsCount++;
+                matchedBytes = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.canalplus.meetingplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TinyLfuCacheTest {
+
+    private static final long TIME_TO_LIVE = 1000;
+
+    @Test
+    void should_return_the_first_value_until_it_expires() {
+        // Setup
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10, TIME_TO_LIVE);
+
+        // Test & Assert
+        assertThat(cache.putIfAbsent("key", "first", 0)).isNull();
+        assertThat(cache.putIfAbsent("key", "second", TIME_TO_LIVE - 1)).isEqualTo("first");
+        assertThat(cache.putIfAbsent("key", "third", TIME_TO_LIVE)).isNull();
+        assertThat(cache.putIfAbsent("key", "fourth", TIME_TO_LIVE)).isEqualTo("third");
+    }
+
+    @Test
+    void should_remove_a_key_only_if_it_still_has_the_given_value() {
+        // Setup
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10, TIME_TO_LIVE);
+        cache.putIfAbsent("key", "first", 0);
+
+        // Test
+        cache.remove("key", "other");
+        String valueAfterWrongRemove = cache.putIfAbsent("key", "second", 0);
+        cache.remove("key", "first");
+
+        // Assert
+        assertThat(valueAfterWrongRemove).isEqualTo("first");
+        assertThat(cache.putIfAbsent("key", "second", 0)).isNull();
+    }
+
+    @Test
+    void should_stay_bounded_and_keep_frequently_requested_keys_during_a_burst_of_new_keys() {
+        // Setup
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, TIME_TO_LIVE);
+
+        // Test
+        for (int key = 0; key < 100_000; key++) {
+            cache.putIfAbsent("burst-" + key, "burst value", 0);
+            // Chaque clé fréquente est redemandée toutes les 200 clés de la rafale : un cache LRU de 100 entrées l'aurait évincée
+            if (key % 20 == 0) {
+                cache.putIfAbsent("frequent-" + (key / 20) % 10, "frequent value", 0);
+            }
+        }
+
+        // Assert
+        assertThat(cache.size()).isEqualTo(100);
+        for (int key = 0; key < 10; key++) {
+            assertThat(cache.putIfAbsent("frequent-" + key, "new value", 0)).isEqualTo("frequent value");
+        }
+    }
+
+    @Test
+    void should_refuse_a_cache_smaller_than_two_entries() {
+        assertThatThrownBy(() -> new TinyLfuCache<>(1, TIME_TO_LIVE)).isInstanceOf(IllegalArgumentException.class);
+    }
+}